@@ -6,6 +6,7 @@ package hu.gaborkolozsy.timeclock.config;
 
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.PropertySource;
 
 /**
  * Application configuration.
@@ -15,8 +16,10 @@ import org.springframework.context.annotation.Configuration;
  * 
  * @see ComponentScan
  * @see Configuration
+ * @see PropertySource
  */
 @Configuration
+@PropertySource("classpath:properties/timeclock.properties")
 @ComponentScan("hu.gaborkolozsy.timeclock.*")
 public class ApplicationConfig {
     
@@ -4,21 +4,40 @@
 
 package hu.gaborkolozsy.timeclock.config;
 
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import hu.gaborkolozsy.timeclock.statistics.ConnectionPoolMetrics;
 import javax.sql.DataSource;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
 import org.springframework.context.support.PropertySourcesPlaceholderConfigurer;
-import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
 
 /**
  * The {@code TimeClock} common {@link DataSource} config.
+ * 
+ * <p>The {@code DataSource} is a {@code HikariCP} connection pool configured 
+ * by the <i>database.pool.*</i> properties (the times are in milliseconds), 
+ * its metrics are collected by the {@link ConnectionPoolMetrics} bean.
+ * 
+ * <p>The read-only transactions of the JPA are routed to the replica of 
+ * the <i>database.replica.*</i> properties (see 
+ * {@link ReplicaRoutingDataSource}). The replica is an other database kept 
+ * in sync with the primary, e.g. a node of an H2 cluster or a copy 
+ * replicated by the storage. Without <i>database.replica.url</i> every 
+ * transaction uses the primary.
  *
  * @author Gabor Kolozsy (gabor.kolozsy.development@gmail.com)
  * @since 0.0.1-SNAPSHOT
  * @see Value
  * @see Bean
  * @see PropertySourcesPlaceholderConfigurer
- * @see DriverManagerDataSource
+ * @see HikariConfig
+ * @see HikariDataSource
+ * @see ConnectionPoolMetrics
+ * @see ReplicaRoutingDataSource
+ * @see LazyConnectionDataSourceProxy
  */
 public class DataSourceConfig {
 
@@ -40,6 +59,81 @@ public class DataSourceConfig {
     @Value("${database.password}")
     private String password;
     
+    /** 
+     * The minimum number of idle connections. 
+     */
+    @Value("${database.pool.minimum_idle}")
+    private int minimumIdle;
+    
+    /** 
+     * The maximum number of connections. 
+     */
+    @Value("${database.pool.maximum_size}")
+    private int maximumSize;
+    
+    /** 
+     * The maximum time to wait for a connection. 
+     */
+    @Value("${database.pool.connection_timeout}")
+    private long connectionTimeout;
+    
+    /** 
+     * The maximum time of a connection's validation. 
+     */
+    @Value("${database.pool.validation_timeout}")
+    private long validationTimeout;
+    
+    /** 
+     * The maximum time of a connection to sit idle above the minimum. 
+     */
+    @Value("${database.pool.idle_timeout}")
+    private long idleTimeout;
+    
+    /** 
+     * The maximum lifetime of a connection. 
+     */
+    @Value("${database.pool.max_lifetime}")
+    private long maxLifetime;
+    
+    /** 
+     * A connection out of the pool longer than this is logged as a possible 
+     * leak, 0 disables the detection. 
+     */
+    @Value("${database.pool.leak_detection_threshold}")
+    private long leakDetectionThreshold;
+    
+    /** 
+     * The JDBC <strong>url</strong> of the replica, empty if there is no 
+     * replica. 
+     */
+    @Value("${database.replica.url}")
+    private String replicaUrl;
+    
+    /** 
+     * The JDBC <strong>user</strong> of the replica. 
+     */
+    @Value("${database.replica.user}")
+    private String replicaUser;
+    
+    /** 
+     * The JDBC <strong>password</strong> of the replica. 
+     */
+    @Value("${database.replica.password}")
+    private String replicaPassword;
+    
+    /** 
+     * The tolerated lag of the replica. The lag is measured by a beat of 
+     * every check, so it should be more than the check interval. 
+     */
+    @Value("${database.replica.max_lag}")
+    private long maxLag;
+    
+    /** 
+     * The time between two checks of the replica's lag. 
+     */
+    @Value("${database.replica.check_interval}")
+    private long checkInterval;
+    
     /**
      * Specialization of {@code PropertySourcesPlaceholderConfigurer} that resolves<br>
      * ${...} placeholders within bean definition property values and<br>
@@ -58,14 +152,119 @@ public class DataSourceConfig {
     }
     
     /**
-     * Create a new {@link DriverManagerDataSource} 
-     * object with the given standard JDBC {@link java.sql.DriverManager} parameters.
+     * Create the metrics collector of the connection pool.
+     * @return {@code ConnectionPoolMetrics}
+     */
+    @Bean
+    public ConnectionPoolMetrics connectionPoolMetrics() {
+        return new ConnectionPoolMetrics();
+    }
+    
+    /**
+     * Create a new {@link HikariDataSource} connection pool with the given 
+     * standard JDBC {@link java.sql.DriverManager} parameters.
      * 
+     * <p>It is the primary {@code DataSource}, which is injected by type.
      * @return {@code DataSource}
      */
-    @Bean
+    @Bean(destroyMethod = "close")
+    @Primary
     public DataSource dataSource() {
-        return new DriverManagerDataSource(url, user, password);
+        return createPool(url, user, password);
+    }
+    
+    /**
+     * Create the {@link ReplicaRoutingDataSource} of the primary 
+     * {@code dataSource()} and the replica.
+     * @return {@code ReplicaRoutingDataSource}
+     */
+    @Bean(destroyMethod = "close")
+    public ReplicaRoutingDataSource routingDataSource() {
+        return createRouting(replicaUrl.isEmpty() ? null 
+                : createReplicaPool(replicaUrl, replicaUser, replicaPassword), checkInterval);
+    }
+    
+    /**
+     * Create the {@code DataSource} of the {@code EntityManagerFactory}: 
+     * the {@code routingDataSource()} through a 
+     * {@link LazyConnectionDataSourceProxy}, so a connection is routed when 
+     * its transaction's read-only flag is already set.
+     * @return {@code DataSource}
+     */
+    @Bean
+    public DataSource jpaDataSource() {
+        return new LazyConnectionDataSourceProxy(routingDataSource());
+    }
+    
+    /**
+     * Create a new {@link HikariDataSource} connection pool of the given 
+     * database. The connections are validated with the JDBC4 
+     * {@code isValid()} before borrowing.
+     * @param url the JDBC url
+     * @param user the database user
+     * @param password the user's password
+     * @return {@code HikariDataSource}
+     */
+    protected HikariDataSource createPool(String url, String user, String password) {
+        HikariConfig config = createConfig("TimeClock", url, user, password);
+        config.setMetricsTrackerFactory(connectionPoolMetrics());
+        return new HikariDataSource(config);
+    }
+    
+    /**
+     * Create the {@link ReplicaRoutingDataSource} of the primary 
+     * {@code dataSource()} and the given replica with the 
+     * <i>database.replica.max_lag</i> property.
+     * @param replica the replica's pool or null if there is no replica
+     * @param checkInterval the time between two checks of the replica in 
+     * milliseconds
+     * @return {@code ReplicaRoutingDataSource}
+     */
+    protected ReplicaRoutingDataSource createRouting(HikariDataSource replica, 
+                                                     long checkInterval) {
+        return new ReplicaRoutingDataSource(dataSource(), replica, maxLag, checkInterval);
+    }
+    
+    /**
+     * Create the connection pool of the given replica. The pool starts also 
+     * if the replica is not available, the read-only transactions use the 
+     * primary until then. Its metrics are not collected by the 
+     * {@code ConnectionPoolMetrics}, which tracks the primary.
+     * @param url the JDBC url
+     * @param user the database user
+     * @param password the user's password
+     * @return {@code HikariDataSource}
+     */
+    protected HikariDataSource createReplicaPool(String url, String user, String password) {
+        HikariConfig config = createConfig("TimeClock-Replica", url, user, password);
+        config.setInitializationFailTimeout(-1);
+        return new HikariDataSource(config);
+    }
+    
+    /**
+     * Create the configuration of a connection pool by the 
+     * <i>database.pool.*</i> properties.
+     * @param poolName the pool's name
+     * @param url the JDBC url
+     * @param user the database user
+     * @param password the user's password
+     * @return {@code HikariConfig}
+     */
+    private HikariConfig createConfig(String poolName, String url, String user, 
+                                      String password) {
+        HikariConfig config = new HikariConfig();
+        config.setPoolName(poolName);
+        config.setJdbcUrl(url);
+        config.setUsername(user);
+        config.setPassword(password);
+        config.setMinimumIdle(minimumIdle);
+        config.setMaximumPoolSize(maximumSize);
+        config.setConnectionTimeout(connectionTimeout);
+        config.setValidationTimeout(validationTimeout);
+        config.setIdleTimeout(idleTimeout);
+        config.setMaxLifetime(maxLifetime);
+        config.setLeakDetectionThreshold(leakDetectionThreshold);
+        return config;
     }
     
 }
@@ -4,14 +4,24 @@
 
 package hu.gaborkolozsy.timeclock.config;
 
+import hu.gaborkolozsy.timeclock.service.RetryOnConflict;
+import hu.gaborkolozsy.timeclock.service.impl.RetryOnConflictInterceptor;
+import hu.gaborkolozsy.timeclock.statistics.RetryMetrics;
 import java.util.Properties;
 import javax.persistence.EntityManagerFactory;
 import javax.sql.DataSource;
+import org.springframework.aop.Advisor;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.aop.support.annotation.AnnotationMatchingPointcut;
 import org.springframework.beans.factory.FactoryBean;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanDefinition;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.PropertySource;
+import org.springframework.context.annotation.Role;
+import org.springframework.core.Ordered;
 import org.springframework.dao.annotation.PersistenceExceptionTranslationPostProcessor;
 import org.springframework.orm.jpa.JpaTransactionManager;
 import org.springframework.orm.jpa.JpaVendorAdapter;
@@ -37,6 +47,7 @@ import org.springframework.transaction.annotation.EnableTransactionManagement;
  * @see LocalContainerEntityManagerFactoryBean
  * @see HibernateJpaVendorAdapter
  * @see PlatformTransactionManager
+ * @see RetryOnConflict
  */
 @Configuration
 @EnableTransactionManagement
@@ -73,20 +84,110 @@ public class JpaConfig {
     @Value("${hibernate.dialect}")
     private String dialect;
     
+    /** 
+     * The <strong>hibernate.jdbc.fetch_size</strong> property for {@code Hibernate}. 
+     */
+    @Value("${hibernate.jdbc.fetch_size}")
+    private String fetchSize;
+    
+    /** 
+     * The <strong>hibernate.jdbc.batch_size</strong> property for {@code Hibernate}. 
+     */
+    @Value("${hibernate.jdbc.batch_size}")
+    private String batchSize;
+    
+    /** 
+     * The <strong>hibernate.order_inserts</strong> property for {@code Hibernate}. 
+     */
+    @Value("${hibernate.order_inserts}")
+    private String orderInserts;
+    
+    /** 
+     * The <strong>hibernate.order_updates</strong> property for {@code Hibernate}. 
+     */
+    @Value("${hibernate.order_updates}")
+    private String orderUpdates;
+    
+    /** 
+     * The <strong>hibernate.id.optimizer.pooled.preferred</strong> property for {@code Hibernate}. 
+     */
+    @Value("${hibernate.id.optimizer.pooled.preferred}")
+    private String preferredOptimizer;
+    
+    /** 
+     * The <strong>hibernate.id.customerSEQ.increment_size</strong> property for {@code Hibernate}. 
+     */
+    @Value("${hibernate.id.customerSEQ.increment_size}")
+    private String customerIncrementSize;
+    
+    /** 
+     * The <strong>hibernate.id.developerSEQ.increment_size</strong> property for {@code Hibernate}. 
+     */
+    @Value("${hibernate.id.developerSEQ.increment_size}")
+    private String developerIncrementSize;
+    
+    /** 
+     * The <strong>hibernate.id.jobSEQ.increment_size</strong> property for {@code Hibernate}. 
+     */
+    @Value("${hibernate.id.jobSEQ.increment_size}")
+    private String jobIncrementSize;
+    
+    /** 
+     * The <strong>hibernate.id.paySEQ.increment_size</strong> property for {@code Hibernate}. 
+     */
+    @Value("${hibernate.id.paySEQ.increment_size}")
+    private String payIncrementSize;
+    
+    /** 
+     * The <strong>hibernate.id.workingHoursSEQ.increment_size</strong> property for {@code Hibernate}. 
+     */
+    @Value("${hibernate.id.workingHoursSEQ.increment_size}")
+    private String workingHoursIncrementSize;
+    
+    /** 
+     * The <strong>hibernate.cache.use_second_level_cache</strong> property for {@code Hibernate}. 
+     */
+    @Value("${hibernate.cache.use_second_level_cache}")
+    private String useSecondLevelCache;
+    
+    /** 
+     * The <strong>hibernate.cache.region.factory_class</strong> property for {@code Hibernate}. 
+     */
+    @Value("${hibernate.cache.region.factory_class}")
+    private String regionFactory;
+    
+    /** 
+     * The <strong>net.sf.ehcache.configurationResourceName</strong> property for {@code Ehcache}. 
+     */
+    @Value("${net.sf.ehcache.configurationResourceName}")
+    private String cacheConfiguration;
+    
+    /** 
+     * The <strong>hibernate.generate_statistics</strong> property for {@code Hibernate}. 
+     */
+    @Value("${hibernate.generate_statistics}")
+    private String generateStatistics;
+    
     /**
      * {@link FactoryBean} that creates a JPA {@link EntityManagerFactory} 
      * according to JPA's standard <i>container</i> bootstrap contract.
-     * @param dataSource {@link DataSource}
+     * @param dataSource the {@link DataSource} routing the read-only 
+     * transactions to the replica
+     * @param routingDataSource the {@link ReplicaRoutingDataSource} deciding 
+     * the routes of the transactions by the {@link ReplicaJpaDialect}
      * @return {@code LocalContainerEntityManagerFactoryBean}
      * @see LocalContainerEntityManagerFactoryBean
      */
     @Bean
-    public FactoryBean<EntityManagerFactory> entityManagerFactory(DataSource dataSource) {
+    public FactoryBean<EntityManagerFactory> entityManagerFactory(
+            @Qualifier("jpaDataSource") DataSource dataSource, 
+            ReplicaRoutingDataSource routingDataSource) {
         LocalContainerEntityManagerFactoryBean emf = new LocalContainerEntityManagerFactoryBean();
         emf.setPersistenceUnitName("Time_Clock");
         emf.setDataSource(dataSource);
         emf.setPackagesToScan(new String[] {"hu.gaborkolozsy.timeclock.model"});
         emf.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+        emf.setJpaDialect(new ReplicaJpaDialect(routingDataSource));
         emf.setJpaProperties(addHibernateProperties());
         return emf;
     }
@@ -111,6 +212,24 @@ public class JpaConfig {
         return new PersistenceExceptionTranslationPostProcessor();
     }
     
+    /**
+     * Create the advisor of the {@link RetryOnConflict} methods. It is an 
+     * infrastructure bean, so the transactions' auto proxy creator applies 
+     * it, and it is ordered before the transaction advisor, so every 
+     * attempt runs in a new transaction.
+     * @param retryMetrics receives the retry counts
+     * @return {@code Advisor}
+     */
+    @Bean
+    @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+    public Advisor retryOnConflictAdvisor(RetryMetrics retryMetrics) {
+        DefaultPointcutAdvisor advisor = new DefaultPointcutAdvisor(
+                AnnotationMatchingPointcut.forMethodAnnotation(RetryOnConflict.class), 
+                new RetryOnConflictInterceptor(retryMetrics));
+        advisor.setOrder(Ordered.LOWEST_PRECEDENCE - 1);
+        return advisor;
+    }
+    
     /**
      * Set the {@code Hibernate} properties.
      * @return {@code Properties}
@@ -123,6 +242,20 @@ public class JpaConfig {
         properties.setProperty("hibernate.format_sql", formatSql);
         properties.setProperty("hibernate.use_sql_comments", useSqlComments);
         properties.setProperty("hibernate.dialect", dialect);
+        properties.setProperty("hibernate.jdbc.fetch_size", fetchSize);
+        properties.setProperty("hibernate.jdbc.batch_size", batchSize);
+        properties.setProperty("hibernate.order_inserts", orderInserts);
+        properties.setProperty("hibernate.order_updates", orderUpdates);
+        properties.setProperty("hibernate.id.optimizer.pooled.preferred", preferredOptimizer);
+        properties.setProperty("hibernate.id.customerSEQ.increment_size", customerIncrementSize);
+        properties.setProperty("hibernate.id.developerSEQ.increment_size", developerIncrementSize);
+        properties.setProperty("hibernate.id.jobSEQ.increment_size", jobIncrementSize);
+        properties.setProperty("hibernate.id.paySEQ.increment_size", payIncrementSize);
+        properties.setProperty("hibernate.id.workingHoursSEQ.increment_size", workingHoursIncrementSize);
+        properties.setProperty("hibernate.cache.use_second_level_cache", useSecondLevelCache);
+        properties.setProperty("hibernate.cache.region.factory_class", regionFactory);
+        properties.setProperty("net.sf.ehcache.configurationResourceName", cacheConfiguration);
+        properties.setProperty("hibernate.generate_statistics", generateStatistics);
         return properties;
     }
 }
@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) 2017, Gabor Kolozsy. All rights reserved.
+ */
+
+package hu.gaborkolozsy.timeclock.config;
+
+import hu.gaborkolozsy.timeclock.model.embedded.Money;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import javax.annotation.PostConstruct;
+import javax.sql.DataSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+
+/**
+ * Migrate at startup the payments of the {@code Pay} table from the legacy
+ * <i>Payment</i> ({@code double}) column to the exact <i>Amount_Minor</i>
+ * column of the {@link Money}.
+ *
+ * <p>The <i>hbm2ddl</i> update adds the new column (empty), but does not
+ * drop the old one. So the migration converts the not yet converted rows
+ * and drops the old column. A payment is converted in Java like the
+ * {@code Pay}'s setter does: by {@link BigDecimal#valueOf(double)} and
+ * {@link Money#of(BigDecimal, String)}, rounded half-even to the currency's
+ * minor unit. The rows are updated with batches of {@value #BATCH_SIZE}
+ * statements. The migration is repeatable: without the old column it does
+ * nothing.
+ *
+ * @author Gabor Kolozsy (gabor.kolozsy.development@gmail.com)
+ * @since 0.0.1-SNAPSHOT
+ * @see Money
+ * @see JdbcTemplate
+ */
+@Component
+@DependsOn("entityManagerFactory")
+public class PaymentMigration {
+
+    /**
+     * The number of the updates in one batch.
+     */
+    private static final int BATCH_SIZE = 500;
+
+    private final DataSource dataSource;
+
+    /**
+     * Constructor with the migrated data source. The bean depends on the
+     * persistence unit, so it migrates after the <i>hbm2ddl</i> update.
+     * @param dataSource {@code DataSource}
+     */
+    @Autowired
+    public PaymentMigration(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    /**
+     * Convert the legacy payments and drop their column.
+     */
+    @PostConstruct
+    public void migrate() {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        if (!hasColumn(jdbcTemplate, "Payment")) {
+            return;
+        }
+        if (!hasColumn(jdbcTemplate, "Amount_Minor")) {
+            jdbcTemplate.execute("alter table Pay add column Amount_Minor bigint");
+        }
+        String update = "update Pay set Amount_Minor = ? where Id = ?";
+        List<Object[]> batch = new ArrayList<>(BATCH_SIZE);
+        jdbcTemplate.query("select Id, Payment, Currency from Pay where Amount_Minor is null",
+                (RowCallbackHandler) (row) -> {
+                    BigDecimal payment = BigDecimal.valueOf(row.getDouble("Payment"));
+                    Money money = Money.of(payment, row.getString("Currency"));
+                    batch.add(new Object[] {money.getAmountMinor(), row.getLong("Id")});
+                    if (batch.size() == BATCH_SIZE) {
+                        jdbcTemplate.batchUpdate(update, batch);
+                        batch.clear();
+                    }
+                });
+        if (!batch.isEmpty()) {
+            jdbcTemplate.batchUpdate(update, batch);
+        }
+        jdbcTemplate.execute("alter table Pay drop column Payment");
+    }
+
+    /**
+     * Check if the {@code Pay} table has the specified column.
+     * @param jdbcTemplate {@code JdbcTemplate}
+     * @param column column's name
+     * @return true if the column exists
+     */
+    private static boolean hasColumn(JdbcTemplate jdbcTemplate, String column) {
+        return jdbcTemplate.queryForObject("select count(*) from INFORMATION_SCHEMA.COLUMNS "
+                + "where upper(TABLE_NAME) = 'PAY' and upper(COLUMN_NAME) = upper(?)",
+                Integer.class, column) > 0;
+    }
+
+}
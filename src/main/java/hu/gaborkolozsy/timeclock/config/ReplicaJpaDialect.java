@@ -0,0 +1,148 @@
+/*
+ * Copyright (c) 2017, Gabor Kolozsy. All rights reserved.
+ */
+
+package hu.gaborkolozsy.timeclock.config;
+
+import java.sql.SQLException;
+import java.util.Map;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceException;
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+import org.hibernate.cache.spi.access.EntityRegionAccessStrategy;
+import org.hibernate.cache.spi.access.NaturalIdRegionAccessStrategy;
+import org.hibernate.engine.spi.EntityEntry;
+import org.hibernate.engine.spi.PersistenceContext;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.orm.jpa.vendor.HibernateJpaDialect;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionException;
+
+/**
+ * {@link HibernateJpaDialect} deciding the route of the transactions by the
+ * {@link ReplicaRoutingDataSource}, so the caches shared by the application
+ * are not filled from a lagging replica.
+ *
+ * <p>The session of a transaction routed to the replica only reads the
+ * second-level cache ({@link CacheMode#GET}). Hibernate puts the natural ID
+ * resolutions of the loaded entities regardless of the cache mode, so at the
+ * end of the transaction the resolutions of the entities which are not in
+ * the second-level cache (they were read from the replica) are evicted.
+ *
+ * @author Gabor Kolozsy (gabor.kolozsy.development@gmail.com)
+ * @since 0.0.1-SNAPSHOT
+ * @see ReplicaRoutingDataSource
+ * @see CacheMode
+ * @see hu.gaborkolozsy.timeclock.dao.cache.QueryResultCache
+ */
+public class ReplicaJpaDialect extends HibernateJpaDialect {
+
+    private final ReplicaRoutingDataSource routingDataSource;
+
+    /**
+     * Constructor with the routing {@code DataSource} of the
+     * {@code EntityManagerFactory}.
+     * @param routingDataSource {@code ReplicaRoutingDataSource}
+     */
+    public ReplicaJpaDialect(ReplicaRoutingDataSource routingDataSource) {
+        this.routingDataSource = routingDataSource;
+    }
+
+    /**
+     * Begin the transaction and decide its route. The cache puts are
+     * disabled if the transaction is routed to the replica.
+     * @param entityManager {@code EntityManager}
+     * @param definition {@code TransactionDefinition}
+     * @return the transaction data
+     * @throws PersistenceException if thrown by JPA methods
+     * @throws SQLException if thrown by JDBC methods
+     * @throws TransactionException in case of invalid arguments
+     */
+    @Override
+    public Object beginTransaction(EntityManager entityManager, TransactionDefinition definition)
+            throws PersistenceException, SQLException, TransactionException {
+        Object transactionData = super.beginTransaction(entityManager, definition);
+        Session session = getSession(entityManager);
+        CacheMode cacheMode = session.getCacheMode();
+        boolean replica = routingDataSource.beginTransaction(definition.isReadOnly());
+        if (replica) {
+            session.setCacheMode(CacheMode.GET);
+        }
+        return new ReplicaTransactionData(transactionData, session, cacheMode,
+                definition.isReadOnly(), replica);
+    }
+
+    /**
+     * Evict the natural ID resolutions read from the replica, restore the
+     * session's cache mode and end the transaction's route.
+     * @param transactionData the transaction data
+     */
+    @Override
+    public void cleanupTransaction(Object transactionData) {
+        if (!(transactionData instanceof ReplicaTransactionData)) {
+            super.cleanupTransaction(transactionData);
+            return;
+        }
+        ReplicaTransactionData data = (ReplicaTransactionData) transactionData;
+        try {
+            if (data.replica && data.session.isOpen()) {
+                evictNaturalIds(data.session);
+                data.session.setCacheMode(data.cacheMode);
+            }
+        } finally {
+            routingDataSource.endTransaction(data.readOnly);
+            super.cleanupTransaction(data.transactionData);
+        }
+    }
+
+    /**
+     * Evict the natural ID resolutions of the session's entities which are
+     * not readable in the second-level cache.
+     * @param session {@code Session}
+     */
+    private static void evictNaturalIds(Session session) {
+        SessionImplementor implementor = session.unwrap(SessionImplementor.class);
+        PersistenceContext context = implementor.getPersistenceContext();
+        for (Map.Entry<Object, EntityEntry> entry : context.reentrantSafeEntityEntries()) {
+            EntityPersister persister = entry.getValue().getPersister();
+            if (!persister.hasNaturalIdCache()) {
+                continue;
+            }
+            EntityRegionAccessStrategy cache = persister.getCacheAccessStrategy();
+            Object key = cache.generateCacheKey(entry.getValue().getId(), persister,
+                    implementor.getFactory(), implementor.getTenantIdentifier());
+            if (cache.get(implementor, key, Long.MAX_VALUE) == null) {
+                NaturalIdRegionAccessStrategy naturalIds =
+                        persister.getNaturalIdCacheAccessStrategy();
+                naturalIds.evict(naturalIds.generateCacheKey(context.getNaturalIdHelper()
+                        .extractNaturalIdValues(entry.getKey(), persister), persister,
+                        implementor));
+            }
+        }
+    }
+
+    /**
+     * The transaction data of the {@code HibernateJpaDialect} and the route.
+     */
+    private static final class ReplicaTransactionData {
+
+        private final Object transactionData;
+        private final Session session;
+        private final CacheMode cacheMode;
+        private final boolean readOnly;
+        private final boolean replica;
+
+        private ReplicaTransactionData(Object transactionData, Session session,
+                                       CacheMode cacheMode, boolean readOnly, boolean replica) {
+            this.transactionData = transactionData;
+            this.session = session;
+            this.cacheMode = cacheMode;
+            this.readOnly = readOnly;
+            this.replica = replica;
+        }
+
+    }
+
+}
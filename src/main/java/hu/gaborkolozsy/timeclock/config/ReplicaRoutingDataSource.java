@@ -0,0 +1,292 @@
+/*
+ * Copyright (c) 2017, Gabor Kolozsy. All rights reserved.
+ */
+
+package hu.gaborkolozsy.timeclock.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import hu.gaborkolozsy.timeclock.statistics.ReplicaStatistics;
+import java.io.Closeable;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import javax.sql.DataSource;
+import org.springframework.core.NamedThreadLocal;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Route the connections of the read-only transactions to the replica, and
+ * the others to the primary database.
+ *
+ * <p>The route is decided by the current transaction's read-only flag,
+ * which is set after the transaction manager gets its connection, so the
+ * {@code EntityManagerFactory} uses this {@code DataSource} through a
+ * {@link LazyConnectionDataSourceProxy}: the physical connection is fetched
+ * by the first statement.
+ *
+ * <p>Every <i>checkInterval</i> milliseconds the current time is written
+ * into the {@value #HEARTBEAT} table of the primary, and read back from the
+ * replica. The replica's lag is zero if it returns the last beat, otherwise
+ * the age of the beat it returns. The read-only transactions fall back to
+ * the primary while the lag is above the <i>maxLag</i> milliseconds, or the
+ * replica does not answer. Within the tolerated lag a read-only transaction
+ * may not see the writes of the other threads' transactions, but a thread
+ * reads from the primary until the replica returns a beat written after the
+ * thread's last read-write transaction, so it sees its own writes.
+ *
+ * <p>The {@link ReplicaJpaDialect} decides the route when the transaction
+ * begins ({@link #beginTransaction(boolean)}), the connections and the
+ * caches of the transaction follow it ({@link #isReplicaTransaction()}).
+ *
+ * @author Gabor Kolozsy (gabor.kolozsy.development@gmail.com)
+ * @since 0.0.1-SNAPSHOT
+ * @see AbstractRoutingDataSource
+ * @see LazyConnectionDataSourceProxy
+ * @see TransactionSynchronizationManager
+ * @see ReplicaStatistics
+ * @see ReplicaJpaDialect
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource implements Closeable {
+
+    /**
+     * The heartbeat table, it has one row.
+     */
+    public static final String HEARTBEAT = "Replica_Heartbeat";
+
+    /**
+     * The lookup keys of the target data sources.
+     */
+    private enum Route { PRIMARY, REPLICA }
+
+    /**
+     * The routes of the current thread's transactions, the innermost is the
+     * first.
+     */
+    private static final ThreadLocal<Deque<Route>> ROUTES =
+            new NamedThreadLocal<Deque<Route>>("Replica routes") {
+                @Override
+                protected Deque<Route> initialValue() {
+                    return new ArrayDeque<>();
+                }
+            };
+
+    private final DataSource primary;
+    private final HikariDataSource replica;
+    private final long maxLag;
+    private final long checkInterval;
+
+    private final LongAdder replicaReads = new LongAdder();
+    private final LongAdder fallbacks = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+
+    private ScheduledExecutorService scheduler;
+    private volatile boolean available;
+    private volatile long lag = -1;
+
+    /**
+     * The beat returned by the replica at the last successful check.
+     */
+    private volatile long replicated = Long.MIN_VALUE;
+
+    /**
+     * The end of the current thread's last read-write transaction.
+     */
+    private final ThreadLocal<Long> lastWrite = new NamedThreadLocal<>("Last write");
+
+    /**
+     * Constructor with the target data sources and the lag tolerance.
+     * @param primary the primary database
+     * @param replica the replica database or null if there is no replica
+     * @param maxLag the tolerated lag of the replica in milliseconds
+     * @param checkInterval the time between two checks of the replica in
+     *        milliseconds
+     */
+    public ReplicaRoutingDataSource(DataSource primary, HikariDataSource replica, long maxLag,
+                                    long checkInterval) {
+        this.primary = primary;
+        this.replica = replica;
+        this.maxLag = maxLag;
+        this.checkInterval = checkInterval;
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(Route.PRIMARY, primary);
+        if (replica != null) {
+            targets.put(Route.REPLICA, replica);
+        }
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+    }
+
+    /**
+     * Create the heartbeat table, check the replica and start the
+     * background checks.
+     */
+    @Override
+    public void afterPropertiesSet() {
+        super.afterPropertiesSet();
+        if (replica == null) {
+            return;
+        }
+        new JdbcTemplate(primary).execute("create table if not exists " + HEARTBEAT
+                + " (Id int primary key, Beat bigint not null)");
+        check();
+        scheduler = Executors.newSingleThreadScheduledExecutor((runnable) -> {
+            Thread thread = new Thread(runnable, "replica-check");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::check, checkInterval, checkInterval,
+                TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Write a beat into the primary, then measure the replica's lag by the
+     * beat read from it.
+     */
+    public void check() {
+        if (replica == null) {
+            return;
+        }
+        try {
+            long beat = System.currentTimeMillis();
+            new JdbcTemplate(primary).update("merge into " + HEARTBEAT
+                    + " key (Id) values (1, ?)", beat);
+            List<Long> beats = new JdbcTemplate(replica).queryForList("select Beat from "
+                    + HEARTBEAT + " where Id = 1", Long.class);
+            if (beats.isEmpty()) {
+                lag = -1;
+                available = false;
+            } else {
+                long returned = beats.get(0);
+                lag = returned >= beat ? 0 : System.currentTimeMillis() - returned;
+                replicated = returned;
+                available = lag <= maxLag;
+            }
+        } catch (DataAccessException ex) {
+            lag = -1;
+            available = false;
+            failures.increment();
+        }
+    }
+
+    /**
+     * Decide the route of a new transaction: a read-only transaction is
+     * routed to the replica if it is available and has the current thread's
+     * writes. The route is kept until {@link #endTransaction(boolean)}.
+     * @param readOnly true if the transaction is read-only
+     * @return true if the transaction is routed to the replica
+     */
+    public boolean beginTransaction(boolean readOnly) {
+        Route route = readOnly && isReplicaUsable() ? Route.REPLICA : Route.PRIMARY;
+        ROUTES.get().push(route);
+        return route == Route.REPLICA;
+    }
+
+    /**
+     * Forget the route of the current thread's innermost transaction. The
+     * end of a read-write transaction is the current thread's last write.
+     * @param readOnly true if the transaction is read-only
+     */
+    public void endTransaction(boolean readOnly) {
+        ROUTES.get().poll();
+        if (!readOnly) {
+            lastWrite.set(System.currentTimeMillis());
+        }
+    }
+
+    /**
+     * Returns true if the current thread's innermost transaction is routed
+     * to the replica, so its reads must not be cached.
+     * @return true if the transaction reads the replica
+     */
+    public static boolean isReplicaTransaction() {
+        return ROUTES.get().peek() == Route.REPLICA;
+    }
+
+    /**
+     * Returns true if the replica is available and it has returned a beat
+     * written after the current thread's last write.
+     * @return true if the current thread may read the replica
+     */
+    private boolean isReplicaUsable() {
+        Long written = lastWrite.get();
+        return available && (written == null || written < replicated);
+    }
+
+    /**
+     * Returns the replica's key if the current transaction is routed to the
+     * replica (or, without a decided route, it is read-only and the replica
+     * is usable) and the replica is still available, otherwise the
+     * primary's key.
+     * @return the lookup key
+     */
+    @Override
+    protected Object determineCurrentLookupKey() {
+        Route route = ROUTES.get().peek();
+        if (route == null) {
+            route = TransactionSynchronizationManager.isCurrentTransactionReadOnly()
+                    && isReplicaUsable() ? Route.REPLICA : Route.PRIMARY;
+        }
+        return route == Route.REPLICA && available ? Route.REPLICA : Route.PRIMARY;
+    }
+
+    /**
+     * Returns a connection of the routed database. A read-only transaction
+     * gets a primary connection if the replica's connection fails, and the
+     * replica is not used until the next successful check.
+     * @return {@code Connection}
+     * @throws SQLException if the primary's connection fails
+     */
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (determineCurrentLookupKey() == Route.REPLICA) {
+            try {
+                Connection connection = replica.getConnection();
+                replicaReads.increment();
+                return connection;
+            } catch (SQLException ex) {
+                available = false;
+                failures.increment();
+            }
+        }
+        if (TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            fallbacks.increment();
+        }
+        return primary.getConnection();
+    }
+
+    /**
+     * Returns the snapshot of the routing metrics.
+     * @return {@code ReplicaStatistics}
+     */
+    public ReplicaStatistics getStatistics() {
+        return new ReplicaStatistics(available, lag, replicaReads.sum(), fallbacks.sum(),
+                failures.sum());
+    }
+
+    /**
+     * Stop the background checks and close the replica's pool. The primary
+     * is closed by its owner.
+     */
+    @Override
+    public void close() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+        if (replica != null) {
+            replica.close();
+        }
+    }
+
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) 2017, Gabor Kolozsy. All rights reserved.
+ */
+
+package hu.gaborkolozsy.timeclock.config;
+
+import hu.gaborkolozsy.timeclock.model.id.ConfiguredSequenceGenerator;
+import java.util.ArrayList;
+import java.util.List;
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManagerFactory;
+import javax.sql.DataSource;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.id.IdentifierGenerator;
+import org.hibernate.id.enhanced.DatabaseStructure;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Verify at startup that the increment of every entity sequence in the
+ * database equals with the configured ID block size.
+ *
+ * <p>The <i>hbm2ddl</i> update does not alter an existing sequence, and a
+ * pooled optimizer hands out duplicate IDs if its block size differs from
+ * the sequence's increment (especially when several application instances
+ * share the database), so the application refuses to start instead. The
+ * legacy sequences are altered by the {@link SequenceMigration} before, so
+ * only an unexpected mismatch stops the application.
+ *
+ * @author Gabor Kolozsy (gabor.kolozsy.development@gmail.com)
+ * @since 0.0.1-SNAPSHOT
+ * @see ConfiguredSequenceGenerator
+ * @see SequenceMigration
+ * @see SequenceStyleGenerator
+ */
+@Component
+@DependsOn("sequenceMigration")
+public class SequenceIncrementVerifier {
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    private final DataSource dataSource;
+
+    /**
+     * Constructor with the verified persistence unit and its data source.
+     * @param entityManagerFactory {@code EntityManagerFactory}
+     * @param dataSource {@code DataSource}
+     */
+    @Autowired
+    public SequenceIncrementVerifier(EntityManagerFactory entityManagerFactory,
+                                     DataSource dataSource) {
+        this.entityManagerFactory = entityManagerFactory;
+        this.dataSource = dataSource;
+    }
+
+    /**
+     * Compare the sequences' increment with the generators' block size.
+     * @throws IllegalStateException if a sequence's increment is different
+     */
+    @PostConstruct
+    public void verify() {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        for (DatabaseStructure sequence : getSequences(entityManagerFactory)) {
+            List<Long> increments = getIncrement(jdbcTemplate, sequence.getName());
+            if (!increments.isEmpty() && increments.get(0) != sequence.getIncrementSize()) {
+                throw new IllegalStateException(String.format("The %s sequence's increment "
+                        + "is %d, but its configured block size is %d. Stop every instance and "
+                        + "run 'alter sequence %s increment by %d' or change the "
+                        + ConfiguredSequenceGenerator.INCREMENT_SETTING + " property.",
+                        sequence.getName(), increments.get(0), sequence.getIncrementSize(),
+                        sequence.getName(), sequence.getIncrementSize(), sequence.getName()));
+            }
+        }
+    }
+
+    /**
+     * Returns the physical sequences of the entities' generators.
+     * @param entityManagerFactory {@code EntityManagerFactory}
+     * @return {@code List} of the sequences
+     */
+    static List<DatabaseStructure> getSequences(EntityManagerFactory entityManagerFactory) {
+        SessionFactoryImplementor sessionFactory =
+                entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+        List<DatabaseStructure> sequences = new ArrayList<>();
+        for (EntityPersister persister : sessionFactory.getMetamodel().entityPersisters().values()) {
+            IdentifierGenerator generator = persister.getIdentifierGenerator();
+            if (!(generator instanceof SequenceStyleGenerator)) {
+                continue;
+            }
+            DatabaseStructure sequence = ((SequenceStyleGenerator) generator).getDatabaseStructure();
+            if (sequence.isPhysicalSequence()) {
+                sequences.add(sequence);
+            }
+        }
+        return sequences;
+    }
+
+    /**
+     * Returns the increment of the sequence in the database.
+     * @param jdbcTemplate {@code JdbcTemplate}
+     * @param name sequence's name
+     * @return {@code List} with the increment, or empty if the sequence does
+     *         not exist
+     */
+    static List<Long> getIncrement(JdbcTemplate jdbcTemplate, String name) {
+        return jdbcTemplate.queryForList("select INCREMENT "
+                + "from INFORMATION_SCHEMA.SEQUENCES where upper(SEQUENCE_NAME) = upper(?)",
+                Long.class, name);
+    }
+
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright (c) 2017, Gabor Kolozsy. All rights reserved.
+ */
+
+package hu.gaborkolozsy.timeclock.config;
+
+import hu.gaborkolozsy.timeclock.model.id.ConfiguredSequenceGenerator;
+import java.util.List;
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManagerFactory;
+import javax.sql.DataSource;
+import org.hibernate.id.enhanced.DatabaseStructure;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Migrate at startup the legacy entity sequences of the database to the
+ * configured ID block size.
+ *
+ * <p>The sequences were created with increment 1 (one round-trip per ID),
+ * and the <i>hbm2ddl</i> update does not alter an existing sequence. So the
+ * migration runs <strong>alter sequence ... increment by</strong> on every
+ * sequence whose increment is still {@value #LEGACY_INCREMENT}. The next
+ * value of such a sequence is greater than every used ID, so it is a valid
+ * low value of the first block. The instances of the previous version
+ * take the IDs one by one from the sequence, so they must be stopped before
+ * the first start of this version. The migration is repeatable: without a
+ * legacy sequence it does nothing. The other mismatches are left to the
+ * {@link SequenceIncrementVerifier}.
+ *
+ * @author Gabor Kolozsy (gabor.kolozsy.development@gmail.com)
+ * @since 0.0.1-SNAPSHOT
+ * @see ConfiguredSequenceGenerator
+ * @see SequenceIncrementVerifier
+ */
+@Component
+public class SequenceMigration {
+
+    /**
+     * The increment of the sequences before the configurable block size.
+     */
+    private static final long LEGACY_INCREMENT = 1;
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    private final DataSource dataSource;
+
+    /**
+     * Constructor with the migrated persistence unit and its data source.
+     * The persistence unit is built, so its <i>hbm2ddl</i> update is done
+     * before the migration.
+     * @param entityManagerFactory {@code EntityManagerFactory}
+     * @param dataSource {@code DataSource}
+     */
+    @Autowired
+    public SequenceMigration(EntityManagerFactory entityManagerFactory, DataSource dataSource) {
+        this.entityManagerFactory = entityManagerFactory;
+        this.dataSource = dataSource;
+    }
+
+    /**
+     * Alter the increment of the legacy sequences to the configured block
+     * size.
+     */
+    @PostConstruct
+    public void migrate() {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        for (DatabaseStructure sequence
+                : SequenceIncrementVerifier.getSequences(entityManagerFactory)) {
+            List<Long> increments = 
+                    SequenceIncrementVerifier.getIncrement(jdbcTemplate, sequence.getName());
+            if (!increments.isEmpty() && increments.get(0) == LEGACY_INCREMENT
+                    && sequence.getIncrementSize() != LEGACY_INCREMENT) {
+                jdbcTemplate.execute("alter sequence " + sequence.getName() 
+                        + " increment by " + sequence.getIncrementSize());
+            }
+        }
+    }
+
+}
@@ -4,15 +4,15 @@
 
 package hu.gaborkolozsy.timeclock.config;
 
+import java.util.concurrent.TimeUnit;
 import javax.persistence.EntityManager;
 import javax.persistence.EntityManagerFactory;
 import javax.persistence.PersistenceContext;
 import javax.sql.DataSource;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
 import org.springframework.context.annotation.Profile;
-import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
-import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
 
 /**
  * Integration test JDBC {@link javax.sql.DataSource} configuration.
@@ -23,13 +23,18 @@ import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
  * @see EntityManagerFactory
  * @see PersistenceContext
  * @see Bean
- * @see EmbeddedDatabaseBuilder
- * @see EmbeddedDatabaseType
+ * @see org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder
  */
 @Configuration
 @Profile("development")
 public class TestDataSourceConfig extends DataSourceConfig {
 
+    /**
+     * The JDBC url of the embedded database.
+     */
+    private static final String TESTDB = 
+            "jdbc:h2:mem:testdb;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=false";
+
     /**
      * Create {@code EntityManager} to persistence context.
      * @param emf {@link EntityManagerFactory}
@@ -42,22 +47,31 @@ public class TestDataSourceConfig extends DataSourceConfig {
     }
  
     /**
-     * Embedded H2 database.
+     * Embedded (in-memory) H2 database through the connection pool.
      * 
-     * <p>An {@code EmbeddedDatabase} is also a {@code DataSource} and adds a
-     * {@code #shutdown} operation so that the embedded database instance can be
-     * shut down gracefully. Testdb is the default name too.
+     * <p>The database lives until the JVM exits, like the 
+     * {@code EmbeddedDatabaseBuilder}'s H2 database. Testdb is the default 
+     * name too.
      * @return the embedded database as a {@code DataSource}
      */
-    @Bean
+    @Bean(destroyMethod = "close")
+    @Primary
     @Override
     public DataSource dataSource() {
-        return new EmbeddedDatabaseBuilder()
-                .setType(EmbeddedDatabaseType.H2)
-                .setName("testdb")
-                //.addScript("sql/create.sql")
-                //.addScript("sql/import.sql")
-                .build();
+        return createPool(TESTDB, "sa", "");
+    }
+    
+    /**
+     * The replica is the embedded database through its own pool, so the 
+     * read-only transactions are routed to the replica without lag. The 
+     * replica is checked only at the start (and by the tests), so after a 
+     * write the thread reads the primary, as if the replica lagged behind.
+     * @return {@code ReplicaRoutingDataSource}
+     */
+    @Bean(destroyMethod = "close")
+    @Override
+    public ReplicaRoutingDataSource routingDataSource() {
+        return createRouting(createReplicaPool(TESTDB, "sa", ""), TimeUnit.HOURS.toMillis(1));
     }
     
 }
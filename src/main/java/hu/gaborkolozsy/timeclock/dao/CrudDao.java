@@ -4,6 +4,12 @@
 
 package hu.gaborkolozsy.timeclock.dao;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
 /**
  * The basic <strong>C.R.U.D.</strong> generic dao interface.
  * <blockquote>
@@ -48,6 +54,16 @@ public interface CrudDao<T, K> {
      * @param entity entity instance
      */
     void save(T entity);
+    
+    /**
+     * Make the given instances managed and persistent with batched inserts.
+     * 
+     * <p>The persistence context is flushed and cleared after each 
+     * <i>hibernate.jdbc.batch_size</i> entities and at the end, so the saved 
+     * (and the earlier loaded) entities become detached.
+     * @param entities entity instances
+     */
+    void saveAll(Iterable<? extends T> entities);
 
     /**
      * Find by primary key.
@@ -65,6 +81,38 @@ public interface CrudDao<T, K> {
      */
     Iterable<T> getAll();
     
+    /**
+     * Returns a forward-only stream of the entities ordered by primary key, 
+     * backed by a database cursor with the default fetch size.
+     * Must be called in a transaction and the stream must be closed.
+     * @return a stream of entity
+     * @see #stream(int)
+     */
+    Stream<T> stream();
+    
+    /**
+     * Returns a forward-only stream of the entities ordered by primary key, 
+     * backed by a database cursor.
+     * 
+     * <p>The entities loaded by the stream are read-only and they are 
+     * evicted after each <i>fetchSize</i> entities, so such an entity should 
+     * be used only while it is processed. The other entities of the 
+     * persistence context are kept. Must be called in a transaction and the 
+     * stream must be closed.
+     * @param fetchSize number of rows fetched from the database at once
+     * @return a stream of entity
+     */
+    Stream<T> stream(int fetchSize);
+    
+    /**
+     * Returns a page of the entities ordered by primary key (keyset paging).
+     * @param afterId the last primary key of the previous page or null for 
+     * the first page
+     * @param limit the maximum size of the page
+     * @return a list of entity
+     */
+    List<T> page(K afterId, int limit);
+    
     /**
      * Merge the state of the given entity into the current persistence context.
      * Return the updated entity.
@@ -81,9 +129,14 @@ public interface CrudDao<T, K> {
     void remove(T entity);
     
     /**
-     * Remove all entity instance.
+     * Remove all entity instance with set-based delete statements, together 
+     * with the rows which depend on them.
+     * 
+     * <p>The persistence context is flushed before and cleared after the 
+     * delete, so the earlier loaded entities become detached.
+     * @return number of the deleted rows
      */
-    void removeAll();
+    int removeAll();
     
     /**
      * Check if the instance is a managed entity instance belonging to the 
@@ -101,6 +154,39 @@ public interface CrudDao<T, K> {
      */
     boolean isExistEntity(T entity);
     
+    /**
+     * Check if an entity exists with the given value of the specified 
+     * (unique, natural key) attribute.
+     * No entity instance is loaded, only one row is probed.
+     * @param attribute the attribute's name (e.g. <i>customerId</i>)
+     * @param value the attribute's value
+     * @return true if an entity exists with the given value
+     */
+    boolean isExistBy(String attribute, Object value);
+    
+    /**
+     * Returns those of the given values which exist in the specified 
+     * (unique, natural key) attribute.
+     * @param <V> type of the attribute
+     * @param attribute the attribute's name (e.g. <i>customerId</i>)
+     * @param values the attribute's values to check
+     * @return the existing values
+     */
+    <V> Set<V> getExistingBy(String attribute, Collection<V> values);
+    
+    /**
+     * Update the specified attributes of the entities with the given value 
+     * of the (natural key) attribute with one <strong>update</strong> 
+     * statement, incrementing the version and setting the updated audit 
+     * fields. The attributes of an embedded object are updated by their 
+     * path (e.g. <i>payment.amountMinor</i>).
+     * @param attribute the key attribute's name (e.g. <i>customerId</i>)
+     * @param value the key attribute's value
+     * @param changes the updated attributes' names (or paths) and new values
+     * @return number of the updated rows
+     */
+    int updateBy(String attribute, Object value, Map<String, ?> changes);
+    
     /**
      * Clear persistence context.
      */
@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2017, Gabor Kolozsy. All rights reserved.
+ */
+
+package hu.gaborkolozsy.timeclock.dao;
+
+import hu.gaborkolozsy.timeclock.model.DailyHours;
+import hu.gaborkolozsy.timeclock.model.DailyHours.Key;
+import hu.gaborkolozsy.timeclock.model.timesheet.OpenShiftPolicy;
+import hu.gaborkolozsy.timeclock.model.timesheet.TimesheetEntry;
+import hu.gaborkolozsy.timeclock.model.timesheet.TimesheetPeriod;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * The {@link DailyHours} rollup's DAO interface. The rollup is maintained
+ * from the {@code Working_Hours} table with SQL statements only.
+ *
+ * @author Gabor Kolozsy (gabor.kolozsy.development@gmail.com)
+ * @since 0.0.1-SNAPSHOT
+ * @see Key
+ * @see TimesheetEntry
+ */
+public interface DailyHoursDao {
+
+    /**
+     * Recompute the rollup rows of the specified developers' days from the
+     * {@code Working_Hours} table in the current transaction.
+     * @param keys the changed developers' days
+     */
+    void refresh(Collection<Key> keys);
+
+    /**
+     * Recompute every rollup row of the specified developer from the
+     * {@code Working_Hours} table in the current transaction.
+     * @param developerId developer's ID
+     */
+    void refresh(Long developerId);
+
+    /**
+     * Recompute the rollup rows of the specified developers between the 
+     * specified days from the {@code Working_Hours} table in the current 
+     * transaction.
+     * @param developerIds the changed developers' ID
+     * @param from the first changed day (inclusive)
+     * @param to the last changed day (inclusive)
+     */
+    void refresh(Collection<Long> developerIds, LocalDate from, LocalDate to);
+
+    /**
+     * Recompute every rollup row of the developers between the specified 
+     * IDs (inclusive) from scratch.
+     * @param fromDeveloperId the first developer's ID
+     * @param toDeveloperId the last developer's ID
+     * @return number of the rollup rows
+     */
+    int rebuild(Long fromDeveloperId, Long toDeveloperId);
+
+    /**
+     * Returns the ID of every developer which has working hours or rollup
+     * rows.
+     * @return developers' ID in ascending order
+     */
+    List<Long> getDeveloperIds();
+
+    /**
+     * Returns the developers' worked time grouped by the specified period
+     * from the rollup.
+     * @param developerIds developers' ID
+     * @param from the first work day (inclusive)
+     * @param to the last work day (inclusive)
+     * @param period the grouping period
+     * @param policy the open shifts' policy
+     * @param now the end of the open shifts by {@link OpenShiftPolicy#UNTIL_NOW}
+     * @return the entries ordered by developer's ID and period start, without
+     *         the periods which have no shift
+     */
+    List<TimesheetEntry> getTimesheet(Collection<Long> developerIds, LocalDate from,
+            LocalDate to, TimesheetPeriod period, OpenShiftPolicy policy, LocalDateTime now);
+
+    /**
+     * Compare the rollup with the {@code Working_Hours} table.
+     * @return the keys of the missing, surplus or different rollup rows in
+     *         ascending order
+     */
+    List<Key> verify();
+
+}
@@ -5,6 +5,8 @@
 package hu.gaborkolozsy.timeclock.dao;
 
 import hu.gaborkolozsy.timeclock.model.Developer;
+import hu.gaborkolozsy.timeclock.model.projection.DeveloperRow;
+import java.time.LocalDate;
 import java.util.List;
 
 /**
@@ -13,6 +15,7 @@ import java.util.List;
  * @author Gabor Kolozsy (gabor.kolozsy.development@gmail.com)
  * @since 0.0.1-SNAPSHOT
  * @see List
+ * @see LocalDate
  */
 public interface DeveloperDao extends CrudDao<Developer, Long> {
 
@@ -23,6 +26,17 @@ public interface DeveloperDao extends CrudDao<Developer, Long> {
      */
     Developer getByDeveloperId(Long developerId);
     
+    /**
+     * Returns a {@code Developer} entity by the specified developer's ID 
+     * with its working hours between the specified days (inclusive) with 
+     * one query. The developer's working hours list is partial.
+     * @param developerId developer's ID
+     * @param from the first day
+     * @param to the last day
+     * @return a {@code Developer} instance with initialized working hours
+     */
+    Developer getByDeveloperIdWithShiftsBetween(Long developerId, LocalDate from, LocalDate to);
+    
     /**
      * Returns a list of the {@code Developer} entities by the specified fore name.
      * @param foreName fore Name
@@ -30,12 +44,20 @@ public interface DeveloperDao extends CrudDao<Developer, Long> {
      */
     List<Developer> getAllByForename(String foreName);
     
+    /**
+     * Returns the list rows of the developers by the specified fore name.
+     * @param foreName fore Name
+     * @return a list of {@code DeveloperRow} ordered by developer's ID
+     */
+    List<DeveloperRow> getRowsByForename(String foreName);
+    
     /**
      * Update lastname by {@link Developer}'s {@code developerId}.
      * @param developerId the developer's ID
      * @param lastname the developer's lastname
+     * @return true if an entity matched
      */
-    void updateLastnameByDeveloperId(Long developerId, String lastname);
+    boolean updateLastnameByDeveloperId(Long developerId, String lastname);
     
     /**
      * Remove {@link Developer} entity with specified {@code developerId}.
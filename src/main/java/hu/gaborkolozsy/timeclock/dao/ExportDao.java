@@ -0,0 +1,30 @@
+/*
+ * Copyright (c) 2017, Gabor Kolozsy. All rights reserved.
+ */
+
+package hu.gaborkolozsy.timeclock.dao;
+
+import hu.gaborkolozsy.timeclock.model.export.CsvExport;
+import java.util.function.Consumer;
+
+/**
+ * The export's DAO interface. Read the exported tables' rows without 
+ * loading entities.
+ *
+ * @author Gabor Kolozsy (gabor.kolozsy.development@gmail.com)
+ * @since 0.0.1-SNAPSHOT
+ * @see CsvExport
+ */
+public interface ExportDao {
+
+    /**
+     * Pass the selected columns of the export's rows to the consumer in 
+     * primary key order, through a forward-only database cursor.
+     * @param export {@code CsvExport}
+     * @param consumer receives the row's values in the columns' order; the 
+     *        array is not kept
+     * @return number of the rows
+     */
+    long scan(CsvExport export, Consumer<Object[]> consumer);
+
+}
@@ -0,0 +1,41 @@
+/*
+ * Copyright (c) 2017, Gabor Kolozsy. All rights reserved.
+ */
+
+package hu.gaborkolozsy.timeclock.dao;
+
+import hu.gaborkolozsy.timeclock.model.ImportCheckpoint;
+
+/**
+ * The {@link ImportCheckpoint}'s DAO interface.
+ *
+ * @author Gabor Kolozsy (gabor.kolozsy.development@gmail.com)
+ * @since 0.0.1-SNAPSHOT
+ * @see ImportCheckpoint
+ */
+public interface ImportCheckpointDao {
+
+    /**
+     * Returns the checkpoint of the import file.
+     * @param source the import file's absolute path
+     * @return {@code ImportCheckpoint} or null if the file is not imported
+     */
+    ImportCheckpoint get(String source);
+
+    /**
+     * Insert or update the checkpoint of the import file in the current 
+     * transaction.
+     * @param source the import file's absolute path
+     * @param processedLines number of the processed lines
+     * @param rejectBytes the reject file's size
+     */
+    void save(String source, long processedLines, long rejectBytes);
+
+    /**
+     * Delete the checkpoint of the import file, so it is imported again 
+     * from the first line.
+     * @param source the import file's absolute path
+     */
+    void remove(String source);
+
+}
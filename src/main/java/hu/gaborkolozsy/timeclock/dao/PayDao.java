@@ -5,13 +5,17 @@
 package hu.gaborkolozsy.timeclock.dao;
 
 import hu.gaborkolozsy.timeclock.model.Pay;
+import hu.gaborkolozsy.timeclock.model.embedded.Money;
+import java.time.YearMonth;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Extended {@code PayDao} interface.
  *
  * @author Gabor Kolozsy (gabor.kolozsy.development@gmail.com)
  * @since 0.0.1-SNAPSHOT
+ * @see Money
  * @see List
  */
 public interface PayDao extends CrudDao<Pay, Long> {
@@ -40,25 +44,40 @@ public interface PayDao extends CrudDao<Pay, Long> {
     List<Pay> getByPaid(boolean paid);
     
     /**
-     * Update {@link Pay}'s payment by specified pay ID.
+     * Update {@link Pay}'s payment by specified pay ID. The payment is 
+     * rounded to the minor unit of the pay's currency.
      * @param payId pay's ID
      * @param payment payment
+     * @return true if an entity matched
+     * @deprecated the {@code double} is not exact, use 
+     *             {@link #updatePaymentByPayId(String, Money)}
      */
-    void updatePaymentByPayId(String payId, double payment);
+    @Deprecated
+    boolean updatePaymentByPayId(String payId, double payment);
+    
+    /**
+     * Update {@link Pay}'s payment and currency by specified pay ID.
+     * @param payId pay's ID
+     * @param payment payment
+     * @return true if an entity matched
+     */
+    boolean updatePaymentByPayId(String payId, Money payment);
     
     /**
      * Update {@link Pay}'s payable by specified pay ID.
      * @param payId pay's ID
      * @param payable payable
+     * @return true if an entity matched
      */
-    void updatePayableByPayId(String payId, boolean payable);
+    boolean updatePayableByPayId(String payId, boolean payable);
     
     /**
      * Update {@link Pay}'s paid by specified pay ID.
      * @param payId pay's ID
      * @param paid paid
+     * @return true if an entity matched
      */
-    void updatePaidByPayId(String payId, boolean paid);
+    boolean updatePaidByPayId(String payId, boolean paid);
     
     /**
      * Remove {@link Pay} entity with specified pay ID.
@@ -88,4 +107,25 @@ public interface PayDao extends CrudDao<Pay, Long> {
      */
     boolean isPaid(String payId);
     
+    /**
+     * Returns the receivables (payable, but not paid payments) per customer 
+     * with one grouped query.
+     * @return the totals per currency by customer's ID in ascending order
+     */
+    Map<Long, List<Money>> getReceivablesByCustomer();
+    
+    /**
+     * Returns the total of the not paid payments per currency with one 
+     * grouped query.
+     * @return the totals by currency's code (null first)
+     */
+    Map<String, Money> getUnpaidTotalByCurrency();
+    
+    /**
+     * Returns the paid payments per month of their payment time with one 
+     * grouped query. The paid payments without payment time are left out.
+     * @return the totals per currency by month in ascending order
+     */
+    Map<YearMonth, List<Money>> getPaidByMonth();
+    
 }
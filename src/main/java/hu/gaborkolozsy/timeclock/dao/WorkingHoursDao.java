@@ -4,9 +4,20 @@
 
 package hu.gaborkolozsy.timeclock.dao;
 
+import hu.gaborkolozsy.timeclock.dao.cache.ShiftColumns.ShiftVisitor;
+import hu.gaborkolozsy.timeclock.dao.cache.ShiftIntervalTree.Interval;
 import hu.gaborkolozsy.timeclock.model.WorkingHours;
+import hu.gaborkolozsy.timeclock.model.clock.ClockShift;
+import hu.gaborkolozsy.timeclock.model.timesheet.OpenShiftPolicy;
+import hu.gaborkolozsy.timeclock.model.timesheet.TimesheetEntry;
+import hu.gaborkolozsy.timeclock.model.timesheet.TimesheetPeriod;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.LongConsumer;
 
 /**
  * Extended {@code WorkingHoursDao} interface.
@@ -14,6 +25,7 @@ import java.util.List;
  * @author Gabor Kolozsy (gabor.kolozsy.development@gmail.com)
  * @since 0.0.1-SNAPSHOT
  * @see List
+ * @see ShiftVisitor
  */
 public interface WorkingHoursDao extends CrudDao<WorkingHours, Long> {
 
@@ -25,4 +37,89 @@ public interface WorkingHoursDao extends CrudDao<WorkingHours, Long> {
      */
     void updateWorkEnd(WorkingHours workingHours, LocalDateTime workEnd);
     
+    /**
+     * Returns the open shifts (working hours without {@code Work_End}).
+     * @return the open shifts' ID by developer's ID
+     */
+    Map<Long, Set<Long>> getOpenShiftIds();
+    
+    /**
+     * Returns the worked time of the specified developers grouped by the 
+     * specified period, computed by the database. No {@code WorkingHours} 
+     * entity is loaded.
+     * @param developerIds developers' ID
+     * @param from the first work day (inclusive)
+     * @param to the last work day (inclusive)
+     * @param period the grouping period
+     * @param policy the open shifts' policy
+     * @param now the end of the open shifts by {@link OpenShiftPolicy#UNTIL_NOW}
+     * @return the entries ordered by developer's ID and period start, without 
+     *         the periods which have no shift
+     */
+    List<TimesheetEntry> getTimesheet(Collection<Long> developerIds, LocalDate from, 
+            LocalDate to, TimesheetPeriod period, OpenShiftPolicy policy, LocalDateTime now);
+
+    /**
+     * Pass the columns of every working hours created or updated since the
+     * specified time to the visitor, through a database cursor. No
+     * {@code WorkingHours} entity is loaded.
+     * @param since the first audit time (inclusive) or null for every row
+     * @param visitor receives the shifts' columns (see {@link ShiftVisitor})
+     * @return number of the visited rows
+     */
+    int scanChanges(LocalDateTime since, ShiftVisitor visitor);
+
+    /**
+     * Pass the ID of every working hours to the consumer in ascending order,
+     * through a database cursor.
+     * @param consumer receives the IDs
+     */
+    void scanIds(LongConsumer consumer);
+
+    /**
+     * Returns the last open shift of the specified developers, without 
+     * loading any {@code WorkingHours} entity.
+     * @param developerIds developers' ID
+     * @return the open shift by developer's ID, without the developers 
+     *         which are not clocked in
+     */
+    Map<Long, ClockShift> getLastOpenShifts(Collection<Long> developerIds);
+
+    /**
+     * Insert the new shifts with batched statements, bypassing the 
+     * persistence context, and refresh their days' rollup in the current 
+     * transaction.
+     * @param shifts the shifts without ID
+     * @return the generated IDs in the shifts' order
+     */
+    long[] insertShifts(List<ClockShift> shifts);
+
+    /**
+     * Set the {@code Work_End} of the open shifts with batched statements, 
+     * bypassing the persistence context, and refresh their days' rollup in 
+     * the current transaction.
+     * @param shifts the closed shifts with ID
+     * @return number of the closed shifts (the already closed ones are 
+     *         skipped)
+     */
+    int closeShifts(Collection<ClockShift> shifts);
+
+    /**
+     * Returns the developer's shifts which overlap the interval, from the 
+     * developer's interval index.
+     * @param developerId developer's ID
+     * @param begin the interval's begin (inclusive)
+     * @param end the interval's end (exclusive) or null for an open interval
+     * @return the shifts ordered by begin and ID
+     */
+    List<Interval> getOverlaps(Long developerId, LocalDateTime begin, LocalDateTime end);
+
+    /**
+     * Returns the shifts of the specified developers, without loading any 
+     * {@code WorkingHours} entity.
+     * @param developerIds developers' ID
+     * @return the shifts ordered by begin and ID by developer's ID
+     */
+    Map<Long, List<Interval>> getIntervals(Collection<Long> developerIds);
+
 }
@@ -0,0 +1,176 @@
+/*
+ * Copyright (c) 2017, Gabor Kolozsy. All rights reserved.
+ */
+
+package hu.gaborkolozsy.timeclock.dao.cache;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * In-memory index of the open shifts (working hours without
+ * {@code Work_End}) by developer's ID.
+ *
+ * <p>The index is kept up to date by the {@code WorkingHours} and
+ * {@code Developer} DAOs, and rebuilt from the database at startup. Within
+ * a transaction the changes are applied only after the commit, so the index
+ * never contains an uncommitted shift. The changes of a developer are
+ * applied atomically, the developer's open shifts are an immutable set, so
+ * the readers never block and never see a half applied change.
+ *
+ * <p>The bulk statements (e.g. an {@code updateBy} of the {@code Work_End})
+ * and the other application instances bypass the index, call
+ * {@link #rebuild(Map)} after them.
+ *
+ * @author Gabor Kolozsy (gabor.kolozsy.development@gmail.com)
+ * @since 0.0.1-SNAPSHOT
+ * @see ConcurrentHashMap
+ * @see TransactionSynchronizationManager
+ */
+@Component
+public class OpenShiftIndex {
+
+    /**
+     * The open shifts' ID by developer's ID, without empty sets.
+     */
+    private volatile ConcurrentMap<Long, Set<Long>> shifts = new ConcurrentHashMap<>();
+
+    /**
+     * The number of the open shifts.
+     */
+    private final AtomicInteger count = new AtomicInteger();
+
+    /**
+     * Replace the index with the given open shifts.
+     *
+     * <p>The changes committed while the open shifts were read from the
+     * database may be lost, so rebuild at startup or when no shift is
+     * written.
+     * @param openShifts the open shifts' ID by developer's ID
+     */
+    public synchronized void rebuild(Map<Long, ? extends Set<Long>> openShifts) {
+        ConcurrentMap<Long, Set<Long>> rebuilt = new ConcurrentHashMap<>();
+        int total = 0;
+        for (Map.Entry<Long, ? extends Set<Long>> entry : openShifts.entrySet()) {
+            if (!entry.getValue().isEmpty()) {
+                rebuilt.put(entry.getKey(),
+                        Collections.unmodifiableSet(new TreeSet<>(entry.getValue())));
+                total += entry.getValue().size();
+            }
+        }
+        shifts = rebuilt;
+        count.set(total);
+    }
+
+    /**
+     * Register the developer's open shift (clock-in) after the commit.
+     * @param developerId developer's ID
+     * @param shiftId the working hours' ID
+     */
+    public void open(Long developerId, Long shiftId) {
+        afterCommit(() -> shifts.compute(developerId, (id, open) -> {
+            Set<Long> changed = open == null ? new TreeSet<>() : new TreeSet<>(open);
+            if (changed.add(shiftId)) {
+                count.incrementAndGet();
+            }
+            return Collections.unmodifiableSet(changed);
+        }));
+    }
+
+    /**
+     * Remove the developer's shift (clock-out or delete) after the commit.
+     * @param developerId developer's ID
+     * @param shiftId the working hours' ID
+     */
+    public void close(Long developerId, Long shiftId) {
+        afterCommit(() -> shifts.computeIfPresent(developerId, (id, open) -> {
+            if (!open.contains(shiftId)) {
+                return open;
+            }
+            count.decrementAndGet();
+            Set<Long> changed = new TreeSet<>(open);
+            changed.remove(shiftId);
+            return changed.isEmpty() ? null : Collections.unmodifiableSet(changed);
+        }));
+    }
+
+    /**
+     * Remove every shift of the developer after the commit.
+     * @param developerId developer's ID
+     */
+    public void closeAll(Long developerId) {
+        afterCommit(() -> shifts.computeIfPresent(developerId, (id, open) -> {
+            count.addAndGet(-open.size());
+            return null;
+        }));
+    }
+
+    /**
+     * Remove every shift after the commit.
+     */
+    public void clear() {
+        afterCommit(() -> rebuild(Collections.emptyMap()));
+    }
+
+    /**
+     * Check if the developer has an open shift.
+     * @param developerId developer's ID
+     * @return true if the developer is clocked in
+     */
+    public boolean isClockedIn(Long developerId) {
+        return shifts.containsKey(developerId);
+    }
+
+    /**
+     * Returns the developer's open shifts.
+     * @param developerId developer's ID
+     * @return the working hours' ID in ascending order (unmodifiable)
+     */
+    public Set<Long> getOpenShifts(Long developerId) {
+        return shifts.getOrDefault(developerId, Collections.emptySet());
+    }
+
+    /**
+     * Returns the developers which have an open shift.
+     * @return developers' ID in ascending order
+     */
+    public Set<Long> getClockedIn() {
+        return new TreeSet<>(shifts.keySet());
+    }
+
+    /**
+     * Returns the number of the open shifts.
+     * @return number of the open shifts
+     */
+    public int countOpenShifts() {
+        return count.get();
+    }
+
+    /**
+     * Run the change after the commit of the current transaction, or now if
+     * there is no transaction. After a rollback it is not run.
+     * @param change the index's change
+     */
+    private void afterCommit(Runnable change) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            change.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(
+                new TransactionSynchronizationAdapter() {
+            @Override
+            public void afterCommit() {
+                change.run();
+            }
+        });
+    }
+
+}
@@ -0,0 +1,290 @@
+/*
+ * Copyright (c) 2017, Gabor Kolozsy. All rights reserved.
+ */
+
+package hu.gaborkolozsy.timeclock.dao.cache;
+
+import hu.gaborkolozsy.timeclock.config.ReplicaRoutingDataSource;
+import hu.gaborkolozsy.timeclock.statistics.CacheStatistics;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Result cache of a named query with one argument.
+ * 
+ * <p>The cache stores the primary keys of the result per argument (and the 
+ * natural IDs for the invalidation), the entities are resolved by the 
+ * primary keys from the persistence context or the second-level cache, so 
+ * an entry stays valid while its entities are changed. Therefore an entry 
+ * must be invalidated only if an entity enters or leaves the result:
+ * <ul>
+ *  <li>{@link #invalidate(Object)} the entry of the given argument (e.g. 
+ *      the new status of a job),</li>
+ *  <li>{@link #invalidateContaining(Object)} the entries which contain the 
+ *      entity with the given natural ID (e.g. the old status of a job),</li>
+ *  <li>{@link #invalidateAll()} every entry.</li>
+ * </ul>
+ * 
+ * <p>Within a transaction the invalidation is repeated after the completion, 
+ * and the transaction does not put its (uncommitted) results into the cache. 
+ * Neither does a transaction routed to the (maybe lagging) replica. 
+ * A result is put only if no invalidation happened since its query started, 
+ * which is checked with the cache's invalidation stamp. An entry whose 
+ * entity is deleted meanwhile is reloaded. The entries expire after the 
+ * time to live, so the changes of an other application instance or of a 
+ * cascaded operation are seen at the latest after it.
+ *
+ * @author Gabor Kolozsy (gabor.kolozsy.development@gmail.com)
+ * @param <A> type of the query's argument
+ * @param <T> type of entity
+ * @since 0.0.1-SNAPSHOT
+ * @see QueryResultCaches
+ * @see CacheStatistics
+ * @see TransactionSynchronizationManager
+ */
+public class QueryResultCache<A, T> {
+
+    private final String name;
+    private final boolean enabled;
+    private final int maxEntries;
+    private final long timeToLive;
+    private final Function<List<Object>, List<T>> resolver;
+    private final Function<? super T, ?> idOf;
+    private final Function<? super T, ?> naturalIdOf;
+    
+    /**
+     * The entries in access order, the eldest is evicted above the maximum.
+     */
+    private final Map<A, Entry> entries;
+    
+    /**
+     * Incremented by every invalidation.
+     */
+    private long stamp;
+    
+    private long hitCount;
+    private long missCount;
+    private long putCount;
+
+    /**
+     * Constructor with the configuration and the entity accessor functions.
+     * @param name the query's name
+     * @param enabled true if the results are cached
+     * @param maxEntries the maximum number of cached arguments
+     * @param timeToLive the entries' time to live in seconds
+     * @param resolver returns the entities of the primary keys, in the same 
+     * order and null for the deleted ones
+     * @param idOf returns the entity's primary key
+     * @param naturalIdOf returns the entity's natural ID
+     */
+    QueryResultCache(String name, boolean enabled, int maxEntries, long timeToLive,
+                     Function<List<Object>, List<T>> resolver, 
+                     Function<? super T, ?> idOf, Function<? super T, ?> naturalIdOf) {
+        this.name = name;
+        this.enabled = enabled;
+        this.maxEntries = maxEntries;
+        this.timeToLive = TimeUnit.SECONDS.toNanos(timeToLive);
+        this.resolver = resolver;
+        this.idOf = idOf;
+        this.naturalIdOf = naturalIdOf;
+        this.entries = new LinkedHashMap<A, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<A, Entry> eldest) {
+                return size() > QueryResultCache.this.maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Returns the query's name.
+     * @return the query's name
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Returns the result of the query with the given argument from the cache, 
+     * or runs the query and puts its result into the cache.
+     * @param argument the query's argument
+     * @param query runs the query
+     * @return a list of entity
+     */
+    public List<T> get(A argument, Function<? super A, List<T>> query) {
+        if (!enabled) {
+            return query.apply(argument);
+        }
+        List<Object> ids = getIds(argument);
+        if (ids != null) {
+            List<T> entities = resolver.apply(ids);
+            if (!entities.contains(null)) {
+                hit();
+                return entities;
+            }
+        }
+        long start = getStamp();
+        List<T> entities = query.apply(argument);
+        put(argument, start, entities);
+        return entities;
+    }
+
+    /**
+     * Invalidate the entry of the given argument.
+     * @param argument the query's argument
+     */
+    public void invalidate(A argument) {
+        invalidate(() -> entries.remove(argument));
+    }
+
+    /**
+     * Invalidate the entries which contain the entity with the given 
+     * natural ID.
+     * @param naturalId the entity's natural ID
+     */
+    public void invalidateContaining(Object naturalId) {
+        invalidate(() -> entries.values()
+                .removeIf((entry) -> entry.naturalIds.contains(naturalId)));
+    }
+
+    /**
+     * Invalidate every entry.
+     */
+    public void invalidateAll() {
+        invalidate(entries::clear);
+    }
+
+    /**
+     * Returns the snapshot of the cache's statistics.
+     * @return {@code CacheStatistics}
+     */
+    public synchronized CacheStatistics getStatistics() {
+        return CacheStatistics.of(name, hitCount, missCount, putCount, entries.size());
+    }
+
+    /**
+     * Returns the primary keys of the given argument's result, or null if 
+     * the entry is absent or expired.
+     * @param argument the query's argument
+     * @return the primary keys or null
+     */
+    private synchronized List<Object> getIds(A argument) {
+        Entry entry = entries.get(argument);
+        if (entry == null) {
+            return null;
+        }
+        if (System.nanoTime() - entry.created > timeToLive) {
+            entries.remove(argument);
+            return null;
+        }
+        return entry.ids;
+    }
+
+    /**
+     * Count a hit.
+     */
+    private synchronized void hit() {
+        hitCount++;
+    }
+
+    /**
+     * Returns the invalidation stamp and count a miss.
+     * @return the invalidation stamp
+     */
+    private synchronized long getStamp() {
+        missCount++;
+        return stamp;
+    }
+
+    /**
+     * Put the query's result into the cache, if no invalidation happened 
+     * since the query started and the current transaction did not 
+     * invalidate this cache.
+     * @param argument the query's argument
+     * @param start the invalidation stamp before the query
+     * @param entities the query's result
+     */
+    private void put(A argument, long start, List<T> entities) {
+        if (TransactionSynchronizationManager.hasResource(this) 
+                || ReplicaRoutingDataSource.isReplicaTransaction()) {
+            return;
+        }
+        Entry entry = new Entry(entities);
+        synchronized (this) {
+            if (stamp == start) {
+                entries.put(argument, entry);
+                putCount++;
+            }
+        }
+    }
+
+    /**
+     * Run the invalidation now and, within a transaction, after the 
+     * completion too.
+     * @param invalidation the invalidation
+     */
+    private void invalidate(Runnable invalidation) {
+        run(invalidation);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        List<Runnable> pending = 
+                (List<Runnable>) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            pending = new ArrayList<>();
+            TransactionSynchronizationManager.bindResource(this, pending);
+            List<Runnable> invalidations = pending;
+            TransactionSynchronizationManager.registerSynchronization(
+                    new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager
+                            .unbindResourceIfPossible(QueryResultCache.this);
+                    invalidations.forEach(QueryResultCache.this::run);
+                }
+            });
+        }
+        pending.add(invalidation);
+    }
+
+    /**
+     * Run the invalidation and increment the invalidation stamp.
+     * @param invalidation the invalidation
+     */
+    private synchronized void run(Runnable invalidation) {
+        invalidation.run();
+        stamp++;
+    }
+
+    /**
+     * A cached result.
+     */
+    private final class Entry {
+
+        private final List<Object> ids;
+        private final Set<Object> naturalIds;
+        private final long created = System.nanoTime();
+
+        /**
+         * Constructor with the query's result.
+         * @param entities the query's result
+         */
+        private Entry(Collection<T> entities) {
+            this.ids = entities.stream().map(idOf).collect(Collectors.toList());
+            this.naturalIds = entities.stream()
+                    .map(naturalIdOf)
+                    .collect(Collectors.toCollection(HashSet::new));
+        }
+
+    }
+
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2017, Gabor Kolozsy. All rights reserved.
+ */
+
+package hu.gaborkolozsy.timeclock.dao.cache;
+
+import hu.gaborkolozsy.timeclock.statistics.CacheStatistics;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Create and collect the {@link QueryResultCache}s of the DAOs.
+ * 
+ * <p>The caches are configured by the <i>timeclock.query_cache.*</i> 
+ * properties.
+ *
+ * @author Gabor Kolozsy (gabor.kolozsy.development@gmail.com)
+ * @since 0.0.1-SNAPSHOT
+ * @see QueryResultCache
+ * @see CacheStatistics
+ */
+@Component
+public class QueryResultCaches {
+
+    /** 
+     * The <strong>timeclock.query_cache.enabled</strong> property. 
+     */
+    @Value("${timeclock.query_cache.enabled}")
+    private boolean enabled;
+
+    /** 
+     * The <strong>timeclock.query_cache.max_entries</strong> property. 
+     */
+    @Value("${timeclock.query_cache.max_entries}")
+    private int maxEntries;
+
+    /** 
+     * The <strong>timeclock.query_cache.time_to_live</strong> property in seconds. 
+     */
+    @Value("${timeclock.query_cache.time_to_live}")
+    private long timeToLive;
+
+    /**
+     * The caches by the query's name.
+     */
+    private final Map<String, QueryResultCache<?, ?>> caches = new ConcurrentSkipListMap<>();
+
+    /**
+     * Create the result cache of the specified named query.
+     * @param <A> type of the query's argument
+     * @param <T> type of entity
+     * @param name the query's name
+     * @param resolver returns the entities of the primary keys, in the same 
+     * order and null for the deleted ones
+     * @param idOf returns the entity's primary key
+     * @param naturalIdOf returns the entity's natural ID
+     * @return {@code QueryResultCache}
+     * @throws IllegalStateException if the query has already a cache
+     */
+    public <A, T> QueryResultCache<A, T> create(String name, 
+                                                Function<List<Object>, List<T>> resolver, 
+                                                Function<? super T, ?> idOf, 
+                                                Function<? super T, ?> naturalIdOf) {
+        QueryResultCache<A, T> cache = new QueryResultCache<>(name, enabled, maxEntries, 
+                timeToLive, resolver, idOf, naturalIdOf);
+        if (caches.putIfAbsent(name, cache) != null) {
+            throw new IllegalStateException("The " + name + " query has already a cache!");
+        }
+        return cache;
+    }
+
+    /**
+     * Returns the statistics of every cache ordered by the query's name.
+     * @return a list of {@code CacheStatistics}
+     */
+    public List<CacheStatistics> getStatistics() {
+        return caches.values().stream()
+                .map(QueryResultCache::getStatistics)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Returns the statistics of the specified query's cache.
+     * @param name the query's name
+     * @return {@code CacheStatistics}
+     * @throws IllegalArgumentException if the query has not a cache
+     */
+    public CacheStatistics getStatistics(String name) {
+        QueryResultCache<?, ?> cache = caches.get(name);
+        if (cache == null) {
+            throw new IllegalArgumentException("The " + name + " query has not a cache!");
+        }
+        return cache.getStatistics();
+    }
+
+    /**
+     * Invalidate every entry of every cache.
+     */
+    public void invalidateAll() {
+        caches.values().forEach(QueryResultCache::invalidateAll);
+    }
+
+}
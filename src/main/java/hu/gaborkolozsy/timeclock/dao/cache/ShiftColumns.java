@@ -0,0 +1,466 @@
+/*
+ * Copyright (c) 2017, Gabor Kolozsy. All rights reserved.
+ */
+
+package hu.gaborkolozsy.timeclock.dao.cache;
+
+import hu.gaborkolozsy.timeclock.model.timesheet.TimesheetEntry;
+import hu.gaborkolozsy.timeclock.model.timesheet.TimesheetPeriod;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Read-only columnar copy of the working hours for analytical queries.
+ *
+ * <p>A shift is a row of primitive columns: the ID, the developer's index
+ * in the developers' dictionary, the work day as epoch day and the begin
+ * and end as epoch seconds (the local times are counted as UTC, so no
+ * daylight saving gap distorts the durations). The end of an open shift is
+ * {@link #OPEN}. The scans, the range filters and the group-bys read the
+ * arrays only, so they allocate nothing per row.
+ *
+ * <p>The changes are collected into a separate instance and merged at once
+ * (see {@link #merge(ShiftColumns)}), the readers see either the state
+ * before or after a merge. The removed rows are marked and compacted when
+ * they are the half of the rows. The rows are found by ID through a
+ * primitive hash table, so no object is kept per row.
+ *
+ * @author Gabor Kolozsy (gabor.kolozsy.development@gmail.com)
+ * @since 0.0.1-SNAPSHOT
+ * @see ShiftVisitor
+ * @see ReentrantReadWriteLock
+ */
+public class ShiftColumns {
+
+    /**
+     * The end of an open shift.
+     */
+    public static final long OPEN = Long.MIN_VALUE;
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private long[] ids = new long[INITIAL_CAPACITY];
+    private int[] developers = new int[INITIAL_CAPACITY];
+    private int[] days = new int[INITIAL_CAPACITY];
+    private long[] begins = new long[INITIAL_CAPACITY];
+    private long[] ends = new long[INITIAL_CAPACITY];
+
+    /**
+     * The number of the rows, including the removed ones.
+     */
+    private int rows;
+
+    private final BitSet removed = new BitSet();
+
+    /**
+     * The row of the shift by shift's ID, including the removed rows.
+     */
+    private final RowIndex rowById = new RowIndex();
+
+    /**
+     * The developers' dictionary: developer's ID by index.
+     */
+    private long[] developerIds = new long[16];
+    private int developerCount;
+    private final Map<Long, Integer> developerIndex = new HashMap<>();
+
+    /**
+     * Add the shift or replace its row.
+     * @param id the shift's ID
+     * @param developerId developer's ID
+     * @param day the work day as epoch day
+     * @param begin the work's begin in epoch seconds
+     * @param end the work's end in epoch seconds or {@link #OPEN}
+     */
+    public void put(long id, long developerId, int day, long begin, long end) {
+        lock.writeLock().lock();
+        try {
+            int row = rowById.get(id);
+            if (row < 0) {
+                row = rows++;
+                ensureCapacity(rows);
+                rowById.put(id, row);
+            }
+            removed.clear(row);
+            ids[row] = id;
+            developers[row] = getDeveloperIndex(developerId);
+            days[row] = day;
+            begins[row] = begin;
+            ends[row] = end;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Apply the rows of the changes to this instance at once.
+     * @param changes the changed shifts
+     */
+    public void merge(ShiftColumns changes) {
+        changes.lock.readLock().lock();
+        lock.writeLock().lock();
+        try {
+            for (int row = 0; row < changes.rows; row++) {
+                if (!changes.removed.get(row)) {
+                    put(changes.ids[row], changes.developerIds[changes.developers[row]],
+                            changes.days[row], changes.begins[row], changes.ends[row]);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+            changes.lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Remove every shift which is not in the specified IDs.
+     * @param sortedIds the existing shifts' ID in ascending order
+     * @return number of the removed shifts
+     */
+    public int retain(long[] sortedIds) {
+        lock.writeLock().lock();
+        try {
+            int count = 0;
+            for (int row = 0; row < rows; row++) {
+                if (!removed.get(row) && Arrays.binarySearch(sortedIds, ids[row]) < 0) {
+                    removed.set(row);
+                    count++;
+                }
+            }
+            if (removed.cardinality() * 2 > rows) {
+                compact();
+            }
+            return count;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the number of the shifts.
+     * @return number of shifts
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return rows - removed.cardinality();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Pass every shift of the work days to the visitor.
+     * @param from the first work day (inclusive)
+     * @param to the last work day (inclusive)
+     * @param visitor receives the shifts' columns
+     */
+    public void scan(LocalDate from, LocalDate to, ShiftVisitor visitor) {
+        int first = (int) from.toEpochDay();
+        int last = (int) to.toEpochDay();
+        lock.readLock().lock();
+        try {
+            for (int row = 0; row < rows; row++) {
+                if (days[row] >= first && days[row] <= last && !removed.get(row)) {
+                    visitor.visit(ids[row], developerIds[developers[row]], days[row],
+                            begins[row], ends[row]);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the developers' worked time grouped by the specified period.
+     * The closed shifts' worked time is summed up, the open shifts are only
+     * counted, as by the {@code EXCLUDE} open shifts' policy.
+     * @param developerIds developers' ID
+     * @param from the first work day (inclusive)
+     * @param to the last work day (inclusive)
+     * @param period the grouping period
+     * @return the entries ordered by developer's ID and period start, without
+     *         the periods which have no shift
+     */
+    public List<TimesheetEntry> getTimesheet(Collection<Long> developerIds, LocalDate from,
+                                             LocalDate to, TimesheetPeriod period) {
+        int first = (int) from.toEpochDay();
+        int last = (int) to.toEpochDay();
+        List<LocalDate> starts = new ArrayList<>();
+        int[] bucketOfDay = getBuckets(from, to, period, starts);
+        List<Long> sorted = new ArrayList<>(new TreeSet<>(developerIds));
+        List<TimesheetEntry> entries = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            int[] slotOfDeveloper = new int[developerCount];
+            Arrays.fill(slotOfDeveloper, -1);
+            for (int slot = 0; slot < sorted.size(); slot++) {
+                Integer index = developerIndex.get(sorted.get(slot));
+                if (index != null) {
+                    slotOfDeveloper[index] = slot;
+                }
+            }
+            long[][] seconds = new long[sorted.size()][];
+            int[][] shifts = new int[sorted.size()][];
+            int[][] openShifts = new int[sorted.size()][];
+            for (int row = 0; row < rows; row++) {
+                int day = days[row];
+                int slot = slotOfDeveloper[developers[row]];
+                if (day < first || day > last || slot < 0 || removed.get(row)) {
+                    continue;
+                }
+                if (shifts[slot] == null) {
+                    seconds[slot] = new long[starts.size()];
+                    shifts[slot] = new int[starts.size()];
+                    openShifts[slot] = new int[starts.size()];
+                }
+                int bucket = bucketOfDay[day - first];
+                shifts[slot][bucket]++;
+                if (ends[row] == OPEN) {
+                    openShifts[slot][bucket]++;
+                } else {
+                    seconds[slot][bucket] += ends[row] - begins[row];
+                }
+            }
+            for (int slot = 0; slot < sorted.size(); slot++) {
+                for (int bucket = 0; shifts[slot] != null && bucket < starts.size(); bucket++) {
+                    if (shifts[slot][bucket] > 0) {
+                        entries.add(new TimesheetEntry(sorted.get(slot), starts.get(bucket),
+                                seconds[slot][bucket] * 1000, shifts[slot][bucket],
+                                openShifts[slot][bucket]));
+                    }
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return entries;
+    }
+
+    /**
+     * Returns the epoch seconds of the local time (counted as UTC).
+     * @param time the local time
+     * @return epoch seconds
+     */
+    public static long toEpochSecond(LocalDateTime time) {
+        return time.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    /**
+     * Returns the period's index of every day between the work days and
+     * collects the periods' start in ascending order.
+     * @param from the first work day (inclusive)
+     * @param to the last work day (inclusive)
+     * @param period the grouping period
+     * @param starts receives the periods' start (null by total)
+     * @return the period's index by day's offset from the first work day
+     */
+    private static int[] getBuckets(LocalDate from, LocalDate to, TimesheetPeriod period,
+                                    List<LocalDate> starts) {
+        int[] buckets = new int[(int) (to.toEpochDay() - from.toEpochDay() + 1)];
+        LocalDate previous = null;
+        for (int offset = 0; offset < buckets.length; offset++) {
+            LocalDate start = getPeriodStart(from.plusDays(offset), period);
+            if (offset == 0 || !start.equals(previous)) {
+                starts.add(period == TimesheetPeriod.TOTAL ? null : start);
+                previous = start;
+            }
+            buckets[offset] = starts.size() - 1;
+        }
+        return buckets;
+    }
+
+    /**
+     * Returns the start of the day's period (the ISO week starts on Monday).
+     * @param day the work day
+     * @param period the grouping period
+     * @return the period's start, the epoch by total
+     */
+    private static LocalDate getPeriodStart(LocalDate day, TimesheetPeriod period) {
+        switch (period) {
+            case TOTAL:
+                return LocalDate.ofEpochDay(0);
+            case DAY:
+                return day;
+            case WEEK:
+                return day.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+            case MONTH:
+                return day.withDayOfMonth(1);
+            default:
+                throw new IllegalArgumentException("Unknown period: " + period);
+        }
+    }
+
+    /**
+     * Returns the developer's index in the dictionary, adds it if missing.
+     * @param developerId developer's ID
+     * @return index
+     */
+    private int getDeveloperIndex(long developerId) {
+        Integer index = developerIndex.get(developerId);
+        if (index == null) {
+            if (developerCount == developerIds.length) {
+                developerIds = Arrays.copyOf(developerIds, developerCount * 2);
+            }
+            index = developerCount;
+            developerIds[developerCount++] = developerId;
+            developerIndex.put(developerId, index);
+        }
+        return index;
+    }
+
+    /**
+     * Grow the columns to the specified number of rows at least.
+     * @param capacity number of rows
+     */
+    private void ensureCapacity(int capacity) {
+        if (capacity <= ids.length) {
+            return;
+        }
+        int length = Math.max(capacity, ids.length * 2);
+        ids = Arrays.copyOf(ids, length);
+        developers = Arrays.copyOf(developers, length);
+        days = Arrays.copyOf(days, length);
+        begins = Arrays.copyOf(begins, length);
+        ends = Arrays.copyOf(ends, length);
+    }
+
+    /**
+     * Move the not removed rows to the start of the columns.
+     */
+    private void compact() {
+        rowById.clear();
+        int target = 0;
+        for (int row = 0; row < rows; row++) {
+            if (removed.get(row)) {
+                continue;
+            }
+            ids[target] = ids[row];
+            developers[target] = developers[row];
+            days[target] = days[row];
+            begins[target] = begins[row];
+            ends[target] = ends[row];
+            rowById.put(ids[target], target);
+            target++;
+        }
+        rows = target;
+        removed.clear();
+    }
+
+    /**
+     * Open addressing hash table of the rows by shift's ID with linear
+     * probing. The entries are never removed, only cleared at once.
+     */
+    private static final class RowIndex {
+
+        private long[] keys = new long[INITIAL_CAPACITY * 2];
+        private int[] values = new int[INITIAL_CAPACITY * 2];
+        private int size;
+
+        /**
+         * Constructor of an empty table.
+         */
+        RowIndex() {
+            Arrays.fill(values, -1);
+        }
+
+        /**
+         * Returns the row of the shift.
+         * @param key the shift's ID
+         * @return row or -1 if missing
+         */
+        int get(long key) {
+            int mask = keys.length - 1;
+            for (int slot = hash(key) & mask; values[slot] >= 0; slot = (slot + 1) & mask) {
+                if (keys[slot] == key) {
+                    return values[slot];
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * Set the row of the shift.
+         * @param key the shift's ID
+         * @param value row
+         */
+        void put(long key, int value) {
+            if ((size + 1) * 2 > keys.length) {
+                long[] oldKeys = keys;
+                int[] oldValues = values;
+                keys = new long[oldKeys.length * 2];
+                values = new int[oldKeys.length * 2];
+                Arrays.fill(values, -1);
+                size = 0;
+                for (int slot = 0; slot < oldKeys.length; slot++) {
+                    if (oldValues[slot] >= 0) {
+                        put(oldKeys[slot], oldValues[slot]);
+                    }
+                }
+            }
+            int mask = keys.length - 1;
+            int slot = hash(key) & mask;
+            while (values[slot] >= 0 && keys[slot] != key) {
+                slot = (slot + 1) & mask;
+            }
+            if (values[slot] < 0) {
+                size++;
+            }
+            keys[slot] = key;
+            values[slot] = value;
+        }
+
+        /**
+         * Remove every entry.
+         */
+        void clear() {
+            Arrays.fill(values, -1);
+            size = 0;
+        }
+
+        /**
+         * Returns the spread hash of the ID.
+         * @param key the shift's ID
+         * @return hash
+         */
+        private static int hash(long key) {
+            int hash = Long.hashCode(key) * 0x9E3779B9;
+            return hash ^ (hash >>> 16);
+        }
+
+    }
+
+    /**
+     * Receives the columns of a shift without allocation.
+     */
+    @FunctionalInterface
+    public interface ShiftVisitor {
+
+        /**
+         * Visit a shift.
+         * @param id the shift's ID
+         * @param developerId developer's ID
+         * @param day the work day as epoch day
+         * @param begin the work's begin in epoch seconds
+         * @param end the work's end in epoch seconds or {@link #OPEN}
+         */
+        void visit(long id, long developerId, int day, long begin, long end);
+
+    }
+
+}
@@ -0,0 +1,261 @@
+/*
+ * Copyright (c) 2017, Gabor Kolozsy. All rights reserved.
+ */
+
+package hu.gaborkolozsy.timeclock.dao.cache;
+
+import hu.gaborkolozsy.timeclock.config.ReplicaRoutingDataSource;
+import hu.gaborkolozsy.timeclock.dao.cache.ShiftIntervalTree.Interval;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * In-memory index of the working hours' intervals by developer's ID, which
+ * finds the overlapping shifts of a developer in <i>O(log n)</i> time (see
+ * {@link ShiftIntervalTree}).
+ *
+ * <p>A developer's tree is loaded from the database at the first lookup,
+ * and kept up to date by the {@code WorkingHours} and {@code Developer}
+ * DAOs. Within a transaction the changes are applied only after the commit;
+ * after a rollback the touched developers' trees are dropped, so they are
+ * loaded again. The bulk statements and the other application instances
+ * bypass the index, call {@link #clear()} after them.
+ *
+ * <p>A tree is loaded without holding a lock. The changes committed while
+ * it is loaded are logged and applied on the loaded tree before it is
+ * installed (a change already read by the query is applied again, which
+ * gives the same tree); a drop meanwhile discards the loaded tree. A tree
+ * loaded by a transaction routed to the (maybe lagging) replica is used
+ * only for the lookup, it is not kept.
+ *
+ * @author Gabor Kolozsy (gabor.kolozsy.development@gmail.com)
+ * @since 0.0.1-SNAPSHOT
+ * @see ShiftIntervalTree
+ * @see TransactionSynchronizationManager
+ */
+@Component
+public class ShiftIntervalIndex {
+
+    /**
+     * The loaded trees by developer's ID. Changed only while the
+     * {@link #loadings} are locked.
+     */
+    private final ConcurrentMap<Long, ShiftIntervalTree> trees = new ConcurrentHashMap<>();
+
+    /**
+     * The running loads by developer's ID. The changes and the installs are
+     * done while it is locked.
+     */
+    private final Map<Long, List<Loading>> loadings = new HashMap<>();
+
+    /**
+     * Returns the developer's shifts which overlap the interval. The
+     * developer's tree is loaded first if it is not loaded yet.
+     * @param developerId developer's ID
+     * @param begin the interval's begin (inclusive)
+     * @param end the interval's end (exclusive) or null for an open interval
+     * @param loader returns the developer's every shift from the database
+     * @return the shifts ordered by begin and ID
+     */
+    public List<Interval> getOverlaps(Long developerId, LocalDateTime begin, LocalDateTime end,
+            Function<Long, List<Interval>> loader) {
+        ShiftIntervalTree tree = trees.get(developerId);
+        if (tree == null) {
+            tree = ReplicaRoutingDataSource.isReplicaTransaction() ? read(developerId, loader)
+                    : load(developerId, loader);
+        }
+        synchronized (tree) {
+            return tree.getOverlaps(begin, end);
+        }
+    }
+
+    /**
+     * Load the developer's tree, apply the changes committed meanwhile and
+     * install it, unless it was dropped meanwhile or an other load installed
+     * its tree first.
+     * @param developerId developer's ID
+     * @param loader returns the developer's every shift from the database
+     * @return the installed or the discarded tree
+     */
+    private ShiftIntervalTree load(Long developerId, Function<Long, List<Interval>> loader) {
+        Loading loading = new Loading();
+        synchronized (loadings) {
+            loadings.computeIfAbsent(developerId, (id) -> new ArrayList<>()).add(loading);
+        }
+        ShiftIntervalTree loaded = null;
+        try {
+            loaded = read(developerId, loader);
+        } finally {
+            synchronized (loadings) {
+                List<Loading> running = loadings.get(developerId);
+                running.remove(loading);
+                if (running.isEmpty()) {
+                    loadings.remove(developerId);
+                }
+                if (loaded != null) {
+                    for (Consumer<ShiftIntervalTree> change : loading.changes) {
+                        change.accept(loaded);
+                    }
+                    if (!loading.dropped) {
+                        ShiftIntervalTree installed = trees.putIfAbsent(developerId, loaded);
+                        loaded = installed == null ? loaded : installed;
+                    }
+                }
+            }
+        }
+        return loaded;
+    }
+
+    /**
+     * Read the developer's tree.
+     * @param developerId developer's ID
+     * @param loader returns the developer's every shift from the database
+     * @return {@code ShiftIntervalTree}
+     */
+    private static ShiftIntervalTree read(Long developerId,
+            Function<Long, List<Interval>> loader) {
+        ShiftIntervalTree tree = new ShiftIntervalTree();
+        loader.apply(developerId).forEach(tree::put);
+        return tree;
+    }
+
+    /**
+     * Insert or replace the developer's shift after the commit.
+     * @param developerId developer's ID
+     * @param interval the shift
+     */
+    public void put(Long developerId, Interval interval) {
+        afterCommit(developerId, (tree) -> tree.put(interval));
+    }
+
+    /**
+     * Remove the developer's shift after the commit.
+     * @param developerId developer's ID
+     * @param id the working hours' ID
+     */
+    public void remove(Long developerId, Long id) {
+        afterCommit(developerId, (tree) -> tree.remove(id));
+    }
+
+    /**
+     * Drop the developer's tree after the transaction, so it is loaded
+     * again at the next lookup.
+     * @param developerId developer's ID
+     */
+    public void evict(Long developerId) {
+        afterCompletion(() -> drop(developerId), () -> drop(developerId));
+    }
+
+    /**
+     * Drop every tree after the transaction.
+     */
+    public void clear() {
+        afterCompletion(this::dropAll, this::dropAll);
+    }
+
+    /**
+     * Returns the number of the loaded developers' trees.
+     * @return number of developers
+     */
+    public int size() {
+        return trees.size();
+    }
+
+    /**
+     * Apply the change on the developer's loaded tree and log it for the
+     * running loads after the commit, or drop the tree after a rollback.
+     * @param developerId developer's ID
+     * @param change the tree's change
+     */
+    private void afterCommit(Long developerId, Consumer<ShiftIntervalTree> change) {
+        afterCompletion(() -> {
+            synchronized (loadings) {
+                loadings.getOrDefault(developerId, Collections.emptyList())
+                        .forEach((loading) -> loading.changes.add(change));
+                ShiftIntervalTree tree = trees.get(developerId);
+                if (tree != null) {
+                    synchronized (tree) {
+                        change.accept(tree);
+                    }
+                }
+            }
+        }, () -> drop(developerId));
+    }
+
+    /**
+     * Drop the developer's tree and discard the trees of its running loads.
+     * @param developerId developer's ID
+     */
+    private void drop(Long developerId) {
+        synchronized (loadings) {
+            trees.remove(developerId);
+            loadings.getOrDefault(developerId, Collections.emptyList())
+                    .forEach((loading) -> loading.dropped = true);
+        }
+    }
+
+    /**
+     * Drop every tree and discard the trees of the running loads.
+     */
+    private void dropAll() {
+        synchronized (loadings) {
+            trees.clear();
+            loadings.values().forEach((running) -> running
+                    .forEach((loading) -> loading.dropped = true));
+        }
+    }
+
+    /**
+     * Run the change after the commit of the current transaction (or now if
+     * there is no transaction), and the other one after a rollback.
+     * @param committed run after the commit
+     * @param rolledBack run after the rollback
+     */
+    private static void afterCompletion(Runnable committed, Runnable rolledBack) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            committed.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(
+                new TransactionSynchronizationAdapter() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == TransactionSynchronization.STATUS_COMMITTED) {
+                    committed.run();
+                } else {
+                    rolledBack.run();
+                }
+            }
+        });
+    }
+
+    /**
+     * A running load of a developer's tree.
+     */
+    private static final class Loading {
+
+        /**
+         * The changes committed since the load started.
+         */
+        private final List<Consumer<ShiftIntervalTree>> changes = new ArrayList<>();
+
+        /**
+         * True if the tree was dropped since the load started.
+         */
+        private boolean dropped;
+
+    }
+
+}
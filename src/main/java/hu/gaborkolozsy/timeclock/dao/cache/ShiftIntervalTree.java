@@ -0,0 +1,318 @@
+/*
+ * Copyright (c) 2017, Gabor Kolozsy. All rights reserved.
+ */
+
+package hu.gaborkolozsy.timeclock.dao.cache;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Interval tree of a developer's shifts: a balanced (AVL) binary search
+ * tree ordered by the shift's begin and ID, whose nodes hold the greatest
+ * end of their subtree too.
+ *
+ * <p>So a shift is inserted or removed in <i>O(log n)</i> time, and the
+ * shifts which overlap an interval are found in <i>O(log n + k)</i> time,
+ * where <i>k</i> is the number of the found shifts: the subtrees which end
+ * before the interval and the right subtrees which begin after it are
+ * skipped. The shifts are half-open intervals, the open shift lasts
+ * forever.
+ *
+ * <p>The instances are not thread-safe.
+ *
+ * @author Gabor Kolozsy (gabor.kolozsy.development@gmail.com)
+ * @since 0.0.1-SNAPSHOT
+ * @see ShiftIntervalIndex
+ */
+public final class ShiftIntervalTree {
+
+    private Node root;
+
+    /**
+     * The shifts by ID, to find the node of a shift.
+     */
+    private final Map<Long, Interval> intervals = new HashMap<>();
+
+    /**
+     * Insert the shift, or replace it if the tree has already a shift with
+     * the same ID.
+     * @param interval {@code Interval}
+     */
+    public void put(Interval interval) {
+        remove(interval.getId());
+        intervals.put(interval.getId(), interval);
+        root = insert(root, interval);
+    }
+
+    /**
+     * Remove the shift.
+     * @param id the working hours' ID
+     * @return true if the tree had the shift
+     */
+    public boolean remove(Long id) {
+        Interval interval = intervals.remove(id);
+        if (interval == null) {
+            return false;
+        }
+        root = delete(root, interval);
+        return true;
+    }
+
+    /**
+     * Returns the shifts which overlap the interval.
+     * @param begin the interval's begin (inclusive)
+     * @param end the interval's end (exclusive) or null for an open interval
+     * @return the shifts ordered by begin and ID
+     */
+    public List<Interval> getOverlaps(LocalDateTime begin, LocalDateTime end) {
+        List<Interval> overlaps = new ArrayList<>();
+        collect(root, begin, end == null ? LocalDateTime.MAX : end, overlaps);
+        return overlaps;
+    }
+
+    /**
+     * Returns the number of the shifts.
+     * @return size
+     */
+    public int size() {
+        return intervals.size();
+    }
+
+    /**
+     * Add the overlapping shifts of the subtree in order.
+     * @param node the subtree's root
+     * @param begin the interval's begin
+     * @param end the interval's end
+     * @param overlaps the found shifts
+     */
+    private static void collect(Node node, LocalDateTime begin, LocalDateTime end,
+            List<Interval> overlaps) {
+        if (node == null || !node.maxEnd.isAfter(begin)) {
+            return;
+        }
+        collect(node.left, begin, end, overlaps);
+        if (!node.interval.begin.isBefore(end)) {
+            return;
+        }
+        if (node.interval.getEndOrMax().isAfter(begin)) {
+            overlaps.add(node.interval);
+        }
+        collect(node.right, begin, end, overlaps);
+    }
+
+    /**
+     * Insert the shift into the subtree.
+     * @param node the subtree's root
+     * @param interval the shift
+     * @return the balanced subtree's root
+     */
+    private static Node insert(Node node, Interval interval) {
+        if (node == null) {
+            return new Node(interval);
+        }
+        if (interval.compareTo(node.interval) < 0) {
+            node.left = insert(node.left, interval);
+        } else {
+            node.right = insert(node.right, interval);
+        }
+        return balance(node);
+    }
+
+    /**
+     * Delete the shift from the subtree.
+     * @param node the subtree's root
+     * @param interval the shift
+     * @return the balanced subtree's root
+     */
+    private static Node delete(Node node, Interval interval) {
+        if (node == null) {
+            return null;
+        }
+        int compared = interval.compareTo(node.interval);
+        if (compared < 0) {
+            node.left = delete(node.left, interval);
+        } else if (compared > 0) {
+            node.right = delete(node.right, interval);
+        } else if (node.left == null || node.right == null) {
+            return node.left == null ? node.right : node.left;
+        } else {
+            Node next = node.right;
+            while (next.left != null) {
+                next = next.left;
+            }
+            node.interval = next.interval;
+            node.right = delete(node.right, next.interval);
+        }
+        return balance(node);
+    }
+
+    /**
+     * Update the node's height and greatest end, and rotate it if its
+     * subtrees' height differs by more than one.
+     * @param node the node
+     * @return the balanced subtree's root
+     */
+    private static Node balance(Node node) {
+        update(node);
+        int factor = height(node.left) - height(node.right);
+        if (factor > 1) {
+            if (height(node.left.left) < height(node.left.right)) {
+                node.left = rotateLeft(node.left);
+            }
+            return rotateRight(node);
+        }
+        if (factor < -1) {
+            if (height(node.right.right) < height(node.right.left)) {
+                node.right = rotateRight(node.right);
+            }
+            return rotateLeft(node);
+        }
+        return node;
+    }
+
+    /**
+     * Rotate the subtree to the left.
+     * @param node the subtree's root
+     * @return the new root
+     */
+    private static Node rotateLeft(Node node) {
+        Node root = node.right;
+        node.right = root.left;
+        root.left = node;
+        update(node);
+        update(root);
+        return root;
+    }
+
+    /**
+     * Rotate the subtree to the right.
+     * @param node the subtree's root
+     * @return the new root
+     */
+    private static Node rotateRight(Node node) {
+        Node root = node.left;
+        node.left = root.right;
+        root.right = node;
+        update(node);
+        update(root);
+        return root;
+    }
+
+    /**
+     * Recompute the node's height and greatest end from its children.
+     * @param node the node
+     */
+    private static void update(Node node) {
+        node.height = 1 + Math.max(height(node.left), height(node.right));
+        LocalDateTime maxEnd = node.interval.getEndOrMax();
+        if (node.left != null && node.left.maxEnd.isAfter(maxEnd)) {
+            maxEnd = node.left.maxEnd;
+        }
+        if (node.right != null && node.right.maxEnd.isAfter(maxEnd)) {
+            maxEnd = node.right.maxEnd;
+        }
+        node.maxEnd = maxEnd;
+    }
+
+    /**
+     * Returns the subtree's height.
+     * @param node the subtree's root or null
+     * @return height
+     */
+    private static int height(Node node) {
+        return node == null ? 0 : node.height;
+    }
+
+    /**
+     * Node of the tree.
+     */
+    private static final class Node {
+
+        private Interval interval;
+        private Node left;
+        private Node right;
+        private int height = 1;
+        private LocalDateTime maxEnd;
+
+        /**
+         * Constructor with the shift.
+         * @param interval the shift
+         */
+        Node(Interval interval) {
+            this.interval = interval;
+            this.maxEnd = interval.getEndOrMax();
+        }
+
+    }
+
+    /**
+     * Immutable shift of the tree: the working hours' ID, begin and end.
+     */
+    public static final class Interval implements Comparable<Interval> {
+
+        private final Long id;
+        private final LocalDateTime begin;
+        private final LocalDateTime end;
+
+        /**
+         * Constructor with all values.
+         * @param id the working hours' ID
+         * @param begin the shift's begin
+         * @param end the shift's end or null if it is open
+         */
+        public Interval(Long id, LocalDateTime begin, LocalDateTime end) {
+            this.id = id;
+            this.begin = begin;
+            this.end = end;
+        }
+
+        /**
+         * Returns the working hours' ID.
+         * @return ID
+         */
+        public Long getId() {
+            return id;
+        }
+
+        /**
+         * Returns the shift's begin.
+         * @return begin
+         */
+        public LocalDateTime getBegin() {
+            return begin;
+        }
+
+        /**
+         * Returns the shift's end.
+         * @return end or null if the shift is open
+         */
+        public LocalDateTime getEnd() {
+            return end;
+        }
+
+        /**
+         * Returns the shift's end, or {@link LocalDateTime#MAX} if it is open.
+         * @return end
+         */
+        public LocalDateTime getEndOrMax() {
+            return end == null ? LocalDateTime.MAX : end;
+        }
+
+        /**
+         * Compare the shifts by begin and ID.
+         * @param other other shift
+         * @return negative, zero or positive
+         */
+        @Override
+        public int compareTo(Interval other) {
+            int compared = begin.compareTo(other.begin);
+            return compared != 0 ? compared : id.compareTo(other.id);
+        }
+
+    }
+
+}
@@ -5,15 +5,57 @@
 package hu.gaborkolozsy.timeclock.dao.impl;
 
 import hu.gaborkolozsy.timeclock.dao.CrudDao;
+import hu.gaborkolozsy.timeclock.dao.cache.QueryResultCache;
+import hu.gaborkolozsy.timeclock.dao.cache.QueryResultCaches;
+import hu.gaborkolozsy.timeclock.model.Admin;
+import hu.gaborkolozsy.timeclock.model.abstracts.Auditable;
 import java.io.Serializable;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.StringJoiner;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import javax.persistence.AttributeNode;
+import javax.persistence.Cache;
+import javax.persistence.EntityGraph;
 import javax.persistence.EntityManager;
+import javax.persistence.NoResultException;
 import javax.persistence.PersistenceContext;
+import javax.persistence.PersistenceUnitUtil;
+import javax.persistence.Query;
+import javax.persistence.TypedQuery;
 import javax.persistence.criteria.CriteriaBuilder;
 import javax.persistence.criteria.CriteriaQuery;
 import javax.persistence.criteria.Root;
+import javax.persistence.metamodel.EntityType;
+import javax.persistence.metamodel.ManagedType;
+import javax.persistence.metamodel.SingularAttribute;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.Session;
+import org.hibernate.engine.spi.EntityUniqueKey;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.type.CollectionType;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 
 /**
  * The basic <strong>C.R.U.D.</strong> generic DAO implementation dependent 
@@ -30,9 +72,26 @@ import javax.persistence.criteria.Root;
  * @see PersistenceContext
  * @see CriteriaBuilder
  * @see CriteriaQuery
+ * @see Collection
+ * @see Set
+ * @see Stream
+ * @see ScrollableResults
+ * @see Map
+ * @see QueryResultCache
+ * @see EntityGraph
  */
 public class CrudDaoImpl<T, K extends Serializable> implements CrudDao<T, K> {
     
+    /** 
+     * The maximum number of values bound into one <strong>in</strong> list. 
+     */
+    protected static final int IN_LIST_SIZE = 500;
+    
+    /** 
+     * The query hint of the JPA fetch graph. 
+     */
+    private static final String FETCH_GRAPH = "javax.persistence.fetchgraph";
+    
     /** 
      * Interface used to interact with the persistence context. 
      */
@@ -44,6 +103,24 @@ public class CrudDaoImpl<T, K extends Serializable> implements CrudDao<T, K> {
      */
     private final Class<? extends T> entityType;
     
+    /** 
+     * The default fetch size of {@link #stream()}. 
+     */
+    @Value("${hibernate.jdbc.fetch_size}")
+    private int fetchSize;
+    
+    /** 
+     * Number of entities flushed at once by {@link #saveAll(Iterable)}. 
+     */
+    @Value("${hibernate.jdbc.batch_size}")
+    private int batchSize;
+    
+    /** 
+     * Creates the query result caches. 
+     */
+    @Autowired
+    private QueryResultCaches queryResultCaches;
+    
     /**
      * By defining this class as abstract, we prevent Spring from creating 
      * instance of this class. 
@@ -76,6 +153,29 @@ public class CrudDaoImpl<T, K extends Serializable> implements CrudDao<T, K> {
         entityManager.persist(entity);
     }
     
+    /**
+     * Make the given instances managed and persistent with batched inserts.
+     * 
+     * <p>The persistence context is flushed and cleared after each 
+     * <i>hibernate.jdbc.batch_size</i> entities, so the inserts are sent in 
+     * JDBC batches and the memory usage not depends on the number of 
+     * entities. The saved (and the earlier loaded) entities become detached.
+     * @param entities entity instances
+     */
+    @Override
+    public void saveAll(Iterable<? extends T> entities) {
+        int count = 0;
+        for (T entity : entities) {
+            entityManager.persist(entity);
+            if (++count % batchSize == 0) {
+                entityManager.flush();
+                entityManager.clear();
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+    
     /**
      * Find by primary key.
      * Search for an entity of (the specified class and) primary key.
@@ -89,6 +189,119 @@ public class CrudDaoImpl<T, K extends Serializable> implements CrudDao<T, K> {
         return entityManager.find(entityType, primaryKey);
     }
 
+    /**
+     * Find by the (simple) natural ID.
+     * 
+     * <p>The natural ID is resolved from the persistence context or the 
+     * natural ID cache and the entity from the second-level cache, so a 
+     * cached entity is returned without any query.
+     * @param naturalId the entity's {@code @NaturalId} attribute's value
+     * @return the found entity instance
+     * @throws NoResultException if the entity does not exist
+     */
+    protected T getByNaturalId(Object naturalId) {
+        T entity = entityManager.unwrap(Session.class)
+                .bySimpleNaturalId((Class<T>) entityType)
+                .load(naturalId);
+        if (entity == null) {
+            throw new NoResultException("No " + entityType.getSimpleName() 
+                    + " entity with natural ID " + naturalId);
+        }
+        return entity;
+    }
+
+    /**
+     * Find by the (simple) natural ID together with the attributes of the 
+     * specified entity graph (fetch plan), which are fetched with one query.
+     * 
+     * <p>The lazy associations which are not in the graph remain lazy, so
+     * the query never loads more than the caller asked for. The entity 
+     * itself is resolved first with {@link #getByNaturalId(Object)} (from 
+     * the cache if it is there) and registered in the persistence context 
+     * by the key of its fetched collections too, because {@code Hibernate} 
+     * resolves the children's back reference (a many-to-one joined on a 
+     * not primary key column) from the persistence context only by this 
+     * key, otherwise with one more query per child.
+     * @param naturalId the entity's {@code @NaturalId} attribute's value
+     * @param graphName the name of the entity's {@code @NamedEntityGraph}
+     * @return the found entity instance
+     * @throws NoResultException if the entity does not exist
+     * @throws IllegalArgumentException if the entity graph does not exist
+     */
+    protected T getByNaturalId(Object naturalId, String graphName) {
+        EntityGraph<?> graph = entityManager.getEntityGraph(graphName);
+        T entity = getByNaturalId(naturalId);
+        SessionImplementor session = entityManager.unwrap(SessionImplementor.class);
+        EntityPersister persister = session.getFactory().getMetamodel().entityPersister(entityType);
+        for (AttributeNode<?> node : graph.getAttributeNodes()) {
+            org.hibernate.type.Type type = persister.getPropertyType(node.getAttributeName());
+            if (type instanceof CollectionType && !((CollectionType) type).useLHSPrimaryKey()) {
+                CollectionType collection = (CollectionType) type;
+                String key = collection.getLHSPropertyName();
+                session.getPersistenceContext().addEntity(new EntityUniqueKey(
+                        persister.getEntityName(), key, collection.getKeyOfOwner(entity, session), 
+                        persister.getPropertyType(key), persister.getEntityMode(), 
+                        session.getFactory()), entity);
+            }
+        }
+        int naturalIdIndex = persister.getNaturalIdentifierProperties()[0];
+        String attribute = persister.getPropertyNames()[naturalIdIndex];
+        return entityManager.createQuery("select e from " + getEntityName(attribute)
+                + " e where e." + attribute + " = :naturalId", (Class<T>) entityType)
+                .setParameter("naturalId", naturalId)
+                .setHint(FETCH_GRAPH, graph)
+                .getSingleResult();
+    }
+
+    /**
+     * Returns the entities of the given primary keys in the same order, and
+     * null for the not existing ones.
+     * 
+     * <p>The entities which are not in the second-level cache are loaded 
+     * with one query, the others are returned from the cache.
+     * @param ids the primary keys
+     * @return a list of entity
+     */
+    protected List<T> getAllById(List<K> ids) {
+        Cache cache = entityManager.getEntityManagerFactory().getCache();
+        List<K> uncached = ids.stream()
+                .filter((id) -> !cache.contains(entityType, id))
+                .collect(Collectors.toList());
+        Map<K, T> loaded = new HashMap<>();
+        if (!uncached.isEmpty()) {
+            List<T> entities = entityManager.unwrap(Session.class)
+                    .byMultipleIds((Class<T>) entityType)
+                    .enableSessionCheck(true)
+                    .multiLoad(uncached);
+            for (int i = 0; i < uncached.size(); i++) {
+                loaded.put(uncached.get(i), entities.get(i));
+            }
+        }
+        return ids.stream()
+                .map((id) -> loaded.containsKey(id) ? loaded.get(id) : get(id))
+                .collect(Collectors.toList());
+    }
+    
+    /**
+     * Create the result cache of the specified named query, which resolves 
+     * the cached primary keys with {@link #getAllById(List)}.
+     * @param <A> type of the query's argument
+     * @param name the query's name
+     * @return {@code QueryResultCache}
+     */
+    protected <A> QueryResultCache<A, T> createQueryResultCache(String name) {
+        PersistenceUnitUtil util = entityManager.getEntityManagerFactory().getPersistenceUnitUtil();
+        EntityPersister persister = entityManager.getEntityManagerFactory()
+                .unwrap(SessionFactoryImplementor.class)
+                .getMetamodel()
+                .entityPersister(entityType);
+        int naturalId = persister.getNaturalIdentifierProperties()[0];
+        return queryResultCaches.create(name, 
+                (ids) -> getAllById((List<K>) (List<?>) ids), 
+                util::getIdentifier, 
+                (entity) -> persister.getPropertyValue(entity, naturalId));
+    }
+
     /**
      * Returns a list with the given entity.
      * 
@@ -110,6 +323,124 @@ public class CrudDaoImpl<T, K extends Serializable> implements CrudDao<T, K> {
         return entityManager.createQuery(all).getResultList();
     }
     
+    /**
+     * Returns a forward-only stream of the entities ordered by primary key, 
+     * backed by a database cursor with the <i>hibernate.jdbc.fetch_size</i> 
+     * fetch size.
+     * @return a stream of entity
+     * @see #stream(int)
+     */
+    @Override
+    public Stream<T> stream() {
+        return stream(fetchSize);
+    }
+    
+    /**
+     * Returns a forward-only stream of the entities ordered by primary key, 
+     * backed by a database cursor.
+     * 
+     * <p>The cursor reads the primary keys, and the entities are loaded 
+     * with one query per <i>fetchSize</i> keys. The pending changes are 
+     * flushed first. The entities loaded by the stream are read-only and 
+     * they are evicted when the next batch is loaded, so the memory usage 
+     * not depends on the table's size. The entities which were already in 
+     * the persistence context are returned as they are and kept, so the 
+     * caller's entities and changes are not lost. Closing the stream closes 
+     * the cursor.
+     * @param fetchSize number of rows fetched from the database at once
+     * @return a stream of entity
+     */
+    @Override
+    public Stream<T> stream(int fetchSize) {
+        SessionImplementor session = entityManager.unwrap(SessionImplementor.class);
+        EntityPersister persister = session.getFactory().getMetamodel().entityPersister(entityType);
+        session.flush();
+        ScrollableResults results = session.createQuery("select e." + getIdName() + " from " 
+                + getEntityName(getIdName()) + " e order by e." + getIdName())
+                .setFetchSize(fetchSize)
+                .setReadOnly(true)
+                .scroll(ScrollMode.FORWARD_ONLY);
+        Spliterator<T> spliterator = new Spliterators.AbstractSpliterator<T>(Long.MAX_VALUE, 
+                Spliterator.ORDERED | Spliterator.NONNULL) {
+            
+            private final List<T> loaded = new ArrayList<>();
+            private Iterator<T> batch = Collections.emptyIterator();
+            
+            @Override
+            public boolean tryAdvance(Consumer<? super T> action) {
+                if (!batch.hasNext()) {
+                    loaded.forEach(session::evict);
+                    loaded.clear();
+                    batch = nextBatch();
+                }
+                if (!batch.hasNext()) {
+                    return false;
+                }
+                action.accept(batch.next());
+                return true;
+            }
+            
+            /**
+             * Load the entities of the next <i>fetchSize</i> keys, and 
+             * remember the ones which were not in the persistence context.
+             * @return the entities' iterator
+             */
+            private Iterator<T> nextBatch() {
+                List<Serializable> ids = new ArrayList<>(fetchSize);
+                while (ids.size() < fetchSize && results.next()) {
+                    ids.add((Serializable) results.get(0));
+                }
+                if (ids.isEmpty()) {
+                    return Collections.emptyIterator();
+                }
+                Set<Serializable> managed = ids.stream()
+                        .filter((id) -> session.getPersistenceContext()
+                                .containsEntity(session.generateEntityKey(id, persister)))
+                        .collect(Collectors.toSet());
+                List<T> entities = session.byMultipleIds((Class<T>) entityType)
+                        .enableSessionCheck(true)
+                        .multiLoad(ids);
+                List<T> found = new ArrayList<>(entities.size());
+                for (int i = 0; i < entities.size(); i++) {
+                    T entity = entities.get(i);
+                    if (entity == null) {
+                        continue;
+                    }
+                    if (!managed.contains(ids.get(i))) {
+                        session.setReadOnly(entity, true);
+                        loaded.add(entity);
+                    }
+                    found.add(entity);
+                }
+                return found.iterator();
+            }
+        };
+        return StreamSupport.stream(spliterator, false).onClose(results::close);
+    }
+    
+    /**
+     * Returns a page of the entities ordered by primary key (keyset paging).
+     * 
+     * <p>The page starts after the given key with a <strong>where id &gt; 
+     * :afterId</strong> condition instead of an offset, so a deep page costs 
+     * the same as the first one.
+     * @param afterId the last primary key of the previous page or null for 
+     * the first page
+     * @param limit the maximum size of the page
+     * @return a list of entity
+     */
+    @Override
+    public List<T> page(K afterId, int limit) {
+        String id = getIdName();
+        TypedQuery<T> query = entityManager.createQuery("from " + getEntityName(id) + " e" 
+                + (afterId == null ? "" : " where e." + id + " > :afterId") 
+                + " order by e." + id, (Class<T>) entityType);
+        if (afterId != null) {
+            query.setParameter("afterId", afterId);
+        }
+        return query.setMaxResults(limit).getResultList();
+    }
+    
     /**
      * Merge the state of the given entity into the current persistence context.
      * @param entity entity instance
@@ -119,6 +450,84 @@ public class CrudDaoImpl<T, K extends Serializable> implements CrudDao<T, K> {
         return entityManager.merge(entity);
     }
     
+    /**
+     * Update the specified attributes of the entities with the given value 
+     * of the (natural key) attribute with one <strong>update</strong> 
+     * statement, without loading them.
+     * 
+     * <p>The statement increments the version and sets the 
+     * {@link Auditable} entity's updated time and updater too, as the 
+     * {@code AuditListener} would do at merge. The pending changes are flushed 
+     * before, and the matched entities of the persistence context are 
+     * refreshed after the statement. The second-level cache's copies are 
+     * evicted by {@code Hibernate} at the bulk update.
+     * 
+     * <p>An embedded object cannot be assigned at once, update its attributes 
+     * by their path (e.g. <i>payment.amountMinor</i>).
+     * @param attribute the key attribute's name (e.g. <i>customerId</i>)
+     * @param value the key attribute's value
+     * @param changes the updated attributes' names (or paths) and new values
+     * @return number of the updated rows
+     * @throws IllegalArgumentException if the entity has not an attribute
+     */
+    @Override
+    public int updateBy(String attribute, Object value, Map<String, ?> changes) {
+        EntityType<? extends T> type = entityManager.getMetamodel().entity(entityType);
+        StringJoiner set = new StringJoiner(", ", "update " + getEntityName(attribute) + " e set ", 
+                " where e." + attribute + " = :value");
+        Map<String, Object> parameters = new HashMap<>();
+        changes.forEach((path, change) -> {
+            ManagedType<?> owner = type;
+            String[] names = path.split("\\.");
+            for (int i = 0; i < names.length - 1; i++) {
+                owner = entityManager.getMetamodel().embeddable(
+                        owner.getSingularAttribute(names[i]).getJavaType());
+            }
+            owner.getSingularAttribute(names[names.length - 1]);
+            String parameter = path.replace('.', '_');
+            set.add("e." + path + " = :" + parameter);
+            parameters.put(parameter, change);
+        });
+        type.getSingularAttributes().stream()
+                .filter(SingularAttribute::isVersion)
+                .forEach((version) -> set.add("e." + version.getName() 
+                        + " = e." + version.getName() + " + 1"));
+        boolean auditable = Auditable.class.isAssignableFrom(entityType);
+        if (auditable) {
+            set.add("e.audit.updated = :updated").add("e.audit.updatedBy = :updatedBy");
+        }
+        
+        entityManager.flush();
+        Query query = entityManager.createQuery(set.toString()).setParameter("value", value);
+        parameters.forEach(query::setParameter);
+        if (auditable) {
+            query.setParameter("updated", LocalDateTime.now())
+                    .setParameter("updatedBy", Admin.getAdmin());
+        }
+        int updated = query.executeUpdate();
+        if (updated > 0) {
+            refreshBy(attribute, value);
+        }
+        return updated;
+    }
+    
+    /**
+     * Refresh the entities of the persistence context with the given value 
+     * of the specified attribute, after a bulk statement changed their rows.
+     * @param attribute the attribute's name
+     * @param value the attribute's value
+     */
+    private void refreshBy(String attribute, Object value) {
+        SessionImplementor session = entityManager.unwrap(SessionImplementor.class);
+        EntityPersister persister = session.getFactory().getMetamodel().entityPersister(entityType);
+        Collection<?> entities = session.getPersistenceContext().getEntitiesByKey().values();
+        new ArrayList<Object>(entities).stream()
+                .filter(entityType::isInstance)
+                .filter((entity) -> Objects.equals(value, 
+                        persister.getPropertyValue(entity, attribute)))
+                .forEach(entityManager::refresh);
+    }
+    
     /**
      * Remove the specified entity instance.
      * @param entity entity instance
@@ -129,14 +538,48 @@ public class CrudDaoImpl<T, K extends Serializable> implements CrudDao<T, K> {
     }  
     
     /**
-     * Remove all entity instance.
+     * Remove all entity instance with set-based delete statements, together 
+     * with the rows which depend on them.
+     * 
+     * <p>No entity is loaded: first the dependent types' rows are deleted 
+     * (child first, see {@link #getDependentTypes()}), after this entity's rows.
+     * Bulk statements bypass the persistence context, therefore it is flushed 
+     * before and cleared after the delete, so the earlier loaded entities 
+     * become detached.
+     * @return number of the deleted rows
      */
     @Override
-    public void removeAll() {
-        getAll().forEach((entity) -> {
-            entityManager.remove(entity);
-        });
-    } 
+    public int removeAll() {
+        entityManager.flush();
+        int removed = 0;
+        for (Class<?> type : getDependentTypes()) {
+            removed += deleteAll(type);
+        }
+        removed += deleteAll(entityType);
+        entityManager.clear();
+        return removed;
+    }
+    
+    /**
+     * Returns the entity types which rows refer to this entity's rows and 
+     * therefore must be deleted first by {@link #removeAll()}, in delete 
+     * order (child first).
+     * @return the dependent entity types
+     */
+    protected List<Class<?>> getDependentTypes() {
+        return Collections.emptyList();
+    }
+    
+    /**
+     * Delete all rows of the specified entity type with one statement.
+     * @param type the entity type
+     * @return number of the deleted rows
+     */
+    private int deleteAll(Class<?> type) {
+        return entityManager.createQuery("delete from " 
+                + entityManager.getMetamodel().entity(type).getName())
+                .executeUpdate();
+    }
     
     /**
      * Check if the instance is a managed entity instance belonging to the 
@@ -159,6 +602,92 @@ public class CrudDaoImpl<T, K extends Serializable> implements CrudDao<T, K> {
     public boolean isExistEntity(T entity) {
         return getAll().contains(entity);
     }
+    
+    /**
+     * Check if an entity exists with the given value of the specified 
+     * (unique, natural key) attribute.
+     * 
+     * <p>Runs a single <strong>select 1 ... limit 1</strong> query, so the 
+     * database answers it from the attribute's unique index.
+     * @param attribute the attribute's name (e.g. <i>customerId</i>)
+     * @param value the attribute's value
+     * @return true if an entity exists with the given value
+     */
+    @Override
+    public boolean isExistBy(String attribute, Object value) {
+        return !entityManager.createQuery("select 1 from " + getEntityName(attribute) 
+                + " e where e." + attribute + " = :value")
+                .setParameter("value", value)
+                .setMaxResults(1)
+                .getResultList()
+                .isEmpty();
+    }
+    
+    /**
+     * Returns those of the given values which exist in the specified 
+     * (unique, natural key) attribute.
+     * 
+     * <p>The values are checked with one <strong>in</strong> query per 
+     * {@value #IN_LIST_SIZE} distinct values.
+     * @param <V> type of the attribute
+     * @param attribute the attribute's name (e.g. <i>customerId</i>)
+     * @param values the attribute's values to check
+     * @return the existing values
+     */
+    @Override
+    public <V> Set<V> getExistingBy(String attribute, Collection<V> values) {
+        String query = "select e." + attribute + " from " + getEntityName(attribute) 
+                + " e where e." + attribute + " in :values";
+        List<V> distinct = new ArrayList<>(new LinkedHashSet<>(values));
+        Set<V> existing = new HashSet<>();
+        for (int from = 0; from < distinct.size(); from += IN_LIST_SIZE) {
+            List<V> chunk = distinct.subList(from, 
+                    Math.min(from + IN_LIST_SIZE, distinct.size()));
+            Set<Object> found = new HashSet<>(entityManager.createQuery(query, Object.class)
+                    .setParameter("values", chunk)
+                    .getResultList());
+            chunk.stream().filter(found::contains).forEach(existing::add);
+        }
+        return existing;
+    }
+
+    /**
+     * Returns the entity's name for queries, after checking that the entity 
+     * has the specified attribute.
+     * @param attribute the attribute's name
+     * @return the entity's name
+     * @throws IllegalArgumentException if the entity has not the attribute
+     */
+    protected String getEntityName(String attribute) {
+        EntityType<? extends T> type = entityManager.getMetamodel().entity(entityType);
+        type.getSingularAttribute(attribute);
+        return type.getName();
+    }
+
+    /**
+     * Returns the name of the entity's primary key attribute.
+     * @return the primary key's name
+     */
+    protected String getIdName() {
+        EntityType<? extends T> type = entityManager.getMetamodel().entity(entityType);
+        return type.getId(type.getIdType().getJavaType()).getName();
+    }
+
+    /**
+     * Returns the default fetch size of the cursors.
+     * @return the <i>hibernate.jdbc.fetch_size</i> property
+     */
+    protected int getFetchSize() {
+        return fetchSize;
+    }
+
+    /**
+     * Returns the number of the statements sent to the database at once.
+     * @return the <i>hibernate.jdbc.batch_size</i> property
+     */
+    protected int getBatchSize() {
+        return batchSize;
+    }
 
     /**
      * Clear the persistence context.
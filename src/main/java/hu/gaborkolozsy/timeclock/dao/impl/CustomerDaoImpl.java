@@ -7,7 +7,11 @@ package hu.gaborkolozsy.timeclock.dao.impl;
 import hu.gaborkolozsy.timeclock.dao.CustomerDao;
 import hu.gaborkolozsy.timeclock.model.Customer;
 import hu.gaborkolozsy.timeclock.model.Customer.CustomerBuilder;
-import java.util.Objects;
+import hu.gaborkolozsy.timeclock.model.Job;
+import hu.gaborkolozsy.timeclock.model.Pay;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import org.springframework.stereotype.Repository;
 
 /**
@@ -28,9 +32,18 @@ public class CustomerDaoImpl extends CrudDaoImpl<Customer, Long> implements Cust
      */
     @Override
     public Customer getByCustomerId(Long customerId) {
-        return entityManager.createNamedQuery("getByCustomerId", Customer.class)
-                .setParameter("customerId", customerId)
-                .getSingleResult();
+        return getByNaturalId(customerId);
+    }
+
+    /**
+     * Returns {@code Customer} with its jobs by the specified customer's ID 
+     * with one query.
+     * @param customerId customer's ID
+     * @return {@code Customer} instance with initialized jobs
+     */
+    @Override
+    public Customer getByCustomerIdWithJobs(Long customerId) {
+        return getByNaturalId(customerId, "Customer.jobs");
     }
 
     /**
@@ -49,12 +62,11 @@ public class CustomerDaoImpl extends CrudDaoImpl<Customer, Long> implements Cust
      * Update the {@code Customer}'s contact person by specified ID.
      * @param customerId customer's ID
      * @param contact contact person's name by customer
+     * @return true if an entity matched
      */
     @Override
-    public void updateContactByCustomerId(Long customerId, String contact) {
-        entityManager.merge(new CustomerBuilder(getByCustomerId(customerId))
-                .setContact(contact)
-                .build());
+    public boolean updateContactByCustomerId(Long customerId, String contact) {
+        return updateBy("customerId", customerId, Collections.singletonMap("contact", contact)) > 0;
     }
 
     /**
@@ -74,9 +86,17 @@ public class CustomerDaoImpl extends CrudDaoImpl<Customer, Long> implements Cust
      */
     @Override
     public boolean isExistWithCustomerId(Long customerId) {
-        return getAll().stream()
-                .anyMatch((customer) -> 
-                        Objects.equals(customer.getCustomerId(), customerId));
+        return isExistBy("customerId", customerId);
     }
-
+    
+    /**
+     * Returns the entity types which must be deleted before the {@code Customer} 
+     * entities, in delete order.
+     * @return {@code Pay}, {@code Job}
+     */
+    @Override
+    protected List<Class<?>> getDependentTypes() {
+        return Arrays.asList(Pay.class, Job.class);
+    }
+    
 }
@@ -0,0 +1,384 @@
+/*
+ * Copyright (c) 2017, Gabor Kolozsy. All rights reserved.
+ */
+
+package hu.gaborkolozsy.timeclock.dao.impl;
+
+import hu.gaborkolozsy.timeclock.dao.DailyHoursDao;
+import hu.gaborkolozsy.timeclock.model.DailyHours;
+import hu.gaborkolozsy.timeclock.model.DailyHours.Key;
+import hu.gaborkolozsy.timeclock.model.timesheet.OpenShiftPolicy;
+import hu.gaborkolozsy.timeclock.model.timesheet.TimesheetEntry;
+import hu.gaborkolozsy.timeclock.model.timesheet.TimesheetPeriod;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.Query;
+import org.hibernate.Session;
+import org.hibernate.query.NativeQuery;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Implement {@code DailyHoursDao}. Interact with persistence context
+ * (database) with native (<i>H2</i>) SQL statements only.
+ *
+ * <p>A rollup row is recomputed from the developer's day of the
+ * {@code Working_Hours} table with a <strong>delete</strong> and a grouped
+ * <strong>merge ... select</strong> statement, so no shift is loaded and the
+ * day which has no more shift loses its row. The statements are registered
+ * with the {@link DailyHours} entity's table only, so they do not evict the
+ * other entities' second-level cache.
+ *
+ * <p>Before a recompute the developers' rows of the {@code Developer} table
+ * are locked (<strong>select ... for update</strong>) in ascending order
+ * until the end of the transaction. So the transactions which write the
+ * same developer's shifts recompute the developer's rollup one after the
+ * other, and each reads the shifts committed by the previous ones, whether
+ * they run in this application instance or in an other one.
+ *
+ * @author Gabor Kolozsy (gabor.kolozsy.development@gmail.com)
+ * @since 0.0.1-SNAPSHOT
+ * @see DailyHours
+ * @see EntityManager
+ * @see PersistenceContext
+ * @see NativeQuery
+ */
+@Repository
+public class DailyHoursDaoImpl implements DailyHoursDao {
+
+    /**
+     * The rollup columns of the {@code Working_Hours} rows grouped by
+     * developer and day.
+     */
+    private static final String GROUPED = "select w.Developer_Id, w.Work_Day, "
+            + "coalesce(sum(datediff('MILLISECOND', w.Work_Begin, w.Work_End)), 0), "
+            + "count(*), count(w.Work_Begin) - count(w.Work_End) "
+            + "from Working_Hours w ";
+
+    /**
+     * The rollup columns of the {@code Daily_Hours} rows.
+     */
+    private static final String ROLLUP = "select d.Developer_Id, d.Work_Day, "
+            + "d.Worked_Millis, d.Shifts, d.Open_Shifts "
+            + "from Daily_Hours d ";
+
+    /**
+     * The merge of the grouped {@code Working_Hours} rows into the rollup.
+     */
+    private static final String MERGE = "merge into Daily_Hours "
+            + "(Developer_Id, Work_Day, Worked_Millis, Shifts, Open_Shifts) "
+            + "key (Developer_Id, Work_Day) " + GROUPED;
+
+    /**
+     * Interface used to interact with the persistence context.
+     */
+    @PersistenceContext(unitName = "Time_Clock")
+    private EntityManager entityManager;
+
+    /**
+     * Number of developers refreshed with one batch by
+     * {@link #refresh(Collection, LocalDate, LocalDate)}.
+     */
+    @Value("${hibernate.jdbc.batch_size}")
+    private int batchSize;
+
+    /**
+     * Recompute the rollup rows of the specified developers' days from the
+     * {@code Working_Hours} table in the current transaction.
+     *
+     * <p>The pending changes are flushed first. The developer's days are
+     * sorted and recomputed by ranges of {@value CrudDaoImpl#IN_LIST_SIZE}
+     * days, with two statements per range which read the rows through the
+     * <i>(Developer_Id, Work_Day)</i> index. The untouched days inside a
+     * range are recomputed too, which does not change them.
+     * @param keys the changed developers' days
+     */
+    @Override
+    public void refresh(Collection<Key> keys) {
+        if (keys.isEmpty()) {
+            return;
+        }
+        entityManager.flush();
+        Map<Long, List<LocalDate>> days = keys.stream()
+                .collect(Collectors.groupingBy(Key::getDeveloperId, TreeMap::new,
+                        Collectors.mapping(Key::getDay, Collectors.collectingAndThen(
+                                Collectors.toCollection(TreeSet::new), ArrayList::new))));
+        lock(days.keySet());
+        days.forEach((developerId, list) -> {
+            for (int i = 0; i < list.size(); i += CrudDaoImpl.IN_LIST_SIZE) {
+                LocalDate from = list.get(i);
+                LocalDate to = list.get(Math.min(i + CrudDaoImpl.IN_LIST_SIZE, list.size()) - 1);
+                createStatement("delete from Daily_Hours "
+                        + "where Developer_Id = :developerId and Work_Day between :from and :to")
+                        .setParameter("developerId", developerId)
+                        .setParameter("from", from)
+                        .setParameter("to", to)
+                        .executeUpdate();
+                createStatement(MERGE
+                        + "where w.Developer_Id = :developerId "
+                        + "and w.Work_Day between :from and :to "
+                        + "group by w.Developer_Id, w.Work_Day")
+                        .setParameter("developerId", developerId)
+                        .setParameter("from", from)
+                        .setParameter("to", to)
+                        .executeUpdate();
+            }
+        });
+    }
+
+    /**
+     * Recompute every rollup row of the specified developer from the
+     * {@code Working_Hours} table in the current transaction. The pending
+     * changes are flushed first.
+     * @param developerId developer's ID
+     */
+    @Override
+    public void refresh(Long developerId) {
+        entityManager.flush();
+        rebuild(developerId, developerId);
+    }
+
+    /**
+     * Recompute the rollup rows of the specified developers between the
+     * specified days from the {@code Working_Hours} table in the current
+     * transaction.
+     *
+     * <p>The pending changes are flushed first. The developers are
+     * recomputed with two batched JDBC statements (a <strong>delete</strong>
+     * and a <strong>merge</strong>) per developer, which read the rows of the
+     * day range through the <i>(Developer_Id, Work_Day)</i> index, so a bulk
+     * write of many developers' shifts is refreshed with two round trips per
+     * <i>hibernate.jdbc.batch_size</i> developers. (An <strong>in</strong>
+     * list of the developers would read every day of them.) The untouched
+     * days inside the range are recomputed too, which does not change them.
+     * @param developerIds the changed developers' ID
+     * @param from the first changed day (inclusive)
+     * @param to the last changed day (inclusive)
+     */
+    @Override
+    public void refresh(Collection<Long> developerIds, LocalDate from, LocalDate to) {
+        if (developerIds.isEmpty()) {
+            return;
+        }
+        Session session = entityManager.unwrap(Session.class);
+        session.flush();
+        Set<Long> distinct = new TreeSet<>(developerIds);
+        lock(distinct);
+        session.doWork((connection) -> {
+            for (String sql : new String[] {"delete from Daily_Hours "
+                    + "where Developer_Id = ? and Work_Day between ? and ?", MERGE
+                    + "where w.Developer_Id = ? and w.Work_Day between ? and ? "
+                    + "group by w.Developer_Id, w.Work_Day"}) {
+                try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                    int batched = 0;
+                    for (Long developerId : distinct) {
+                        statement.setLong(1, developerId);
+                        statement.setDate(2, Date.valueOf(from));
+                        statement.setDate(3, Date.valueOf(to));
+                        statement.addBatch();
+                        if (++batched % batchSize == 0 || batched == distinct.size()) {
+                            statement.executeBatch();
+                        }
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * Recompute every rollup row of the developers between the specified
+     * IDs (inclusive) from scratch with one <strong>delete</strong> and one
+     * grouped <strong>insert ... select</strong> statement, which read the
+     * rows through the developer's index. The developers' rows are locked
+     * first.
+     * @param fromDeveloperId the first developer's ID
+     * @param toDeveloperId the last developer's ID
+     * @return number of the rollup rows
+     */
+    @Override
+    public int rebuild(Long fromDeveloperId, Long toDeveloperId) {
+        entityManager.createNativeQuery("select Id from Developer "
+                + "where Developer_Id between :from and :to order by Developer_Id for update")
+                .setParameter("from", fromDeveloperId)
+                .setParameter("to", toDeveloperId)
+                .getResultList();
+        createStatement("delete from Daily_Hours where Developer_Id between :from and :to")
+                .setParameter("from", fromDeveloperId)
+                .setParameter("to", toDeveloperId)
+                .executeUpdate();
+        return createStatement("insert into Daily_Hours "
+                + "(Developer_Id, Work_Day, Worked_Millis, Shifts, Open_Shifts) " + GROUPED
+                + "where w.Developer_Id between :from and :to "
+                + "group by w.Developer_Id, w.Work_Day")
+                .setParameter("from", fromDeveloperId)
+                .setParameter("to", toDeveloperId)
+                .executeUpdate();
+    }
+
+    /**
+     * Returns the ID of every developer which has working hours or rollup
+     * rows.
+     * @return developers' ID in ascending order
+     */
+    @Override
+    public List<Long> getDeveloperIds() {
+        List<?> rows = entityManager.createNativeQuery("select Developer_Id from Working_Hours "
+                + "union select Developer_Id from Daily_Hours order by 1")
+                .getResultList();
+        return rows.stream()
+                .map((row) -> ((Number) row).longValue())
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Returns the developers' worked time grouped by the specified period
+     * from the rollup.
+     *
+     * <p>The closed shifts are read from the rollup only. If the policy
+     * counts the open shifts too, their (not yet final) worked time is added
+     * from the {@code Working_Hours} table's open rows. One grouped query is
+     * executed per {@value CrudDaoImpl#IN_LIST_SIZE} developers, their IDs
+     * are written in the query as numeric literals, because <i>H2</i>
+     * compares every row with every element of a bound list, but looks up a
+     * constant list in a hash set.
+     * @param developerIds developers' ID
+     * @param from the first work day (inclusive)
+     * @param to the last work day (inclusive)
+     * @param period the grouping period
+     * @param policy the open shifts' policy
+     * @param now the end of the open shifts by {@link OpenShiftPolicy#UNTIL_NOW}
+     * @return the entries ordered by developer's ID and period start, without
+     *         the periods which have no shift
+     */
+    @Override
+    public List<TimesheetEntry> getTimesheet(Collection<Long> developerIds, LocalDate from,
+            LocalDate to, TimesheetPeriod period, OpenShiftPolicy policy, LocalDateTime now) {
+        String start = WorkingHoursDaoImpl.getPeriodStart(period, "r.Work_Day");
+        String end = getOpenShiftEnd(policy);
+        String rows = ROLLUP
+                + "where d.Developer_Id in (%1$s) and d.Work_Day between :from and :to";
+        if (end != null) {
+            rows += " union all select w.Developer_Id, w.Work_Day, "
+                    + "datediff('MILLISECOND', w.Work_Begin, " + end + "), 0, 0 "
+                    + "from Working_Hours w where w.Developer_Id in (%1$s) "
+                    + "and w.Work_Day between :from and :to and w.Work_End is null";
+        }
+        String query = "select r.Developer_Id, " + start + ", sum(r.Worked_Millis), "
+                + "sum(r.Shifts), sum(r.Open_Shifts) "
+                + "from (" + rows + ") r "
+                + "group by r.Developer_Id" + (period == TimesheetPeriod.TOTAL ? "" : ", " + start)
+                + " order by 1, 2";
+        List<Long> distinct = new ArrayList<>(new TreeSet<>(developerIds));
+        List<TimesheetEntry> entries = new ArrayList<>();
+        for (int i = 0; i < distinct.size(); i += CrudDaoImpl.IN_LIST_SIZE) {
+            String chunk = distinct.subList(i, Math.min(i + CrudDaoImpl.IN_LIST_SIZE,
+                    distinct.size())).stream()
+                    .map(String::valueOf)
+                    .collect(Collectors.joining(", "));
+            Query sql = entityManager.createNativeQuery(String.format(query, chunk))
+                    .setParameter("from", from)
+                    .setParameter("to", to);
+            if (policy == OpenShiftPolicy.UNTIL_NOW) {
+                sql.setParameter("now", now);
+            }
+            for (Object row : sql.getResultList()) {
+                Object[] columns = (Object[]) row;
+                entries.add(new TimesheetEntry(
+                        ((Number) columns[0]).longValue(),
+                        columns[1] == null ? null : ((Date) columns[1]).toLocalDate(),
+                        ((Number) columns[2]).longValue(),
+                        ((Number) columns[3]).intValue(),
+                        ((Number) columns[4]).intValue()));
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * Compare the rollup with the {@code Working_Hours} table with two
+     * <strong>except</strong> queries, so nothing is compared in memory.
+     * @return the keys of the missing, surplus or different rollup rows in
+     *         ascending order
+     */
+    @Override
+    public List<Key> verify() {
+        String grouped = GROUPED + "group by w.Developer_Id, w.Work_Day";
+        SortedSet<Key> keys = new TreeSet<>(Comparator.comparing(Key::getDeveloperId)
+                .thenComparing(Key::getDay));
+        for (String query : new String[] {grouped + " except " + ROLLUP,
+                                          ROLLUP + "except " + grouped}) {
+            for (Object row : entityManager.createNativeQuery(query).getResultList()) {
+                Object[] columns = (Object[]) row;
+                keys.add(new Key(((Number) columns[0]).longValue(),
+                        ((Date) columns[1]).toLocalDate()));
+            }
+        }
+        return new ArrayList<>(keys);
+    }
+
+    /**
+     * Lock the rows of the developers in the {@code Developer} table in
+     * ascending order until the end of the current transaction, with one
+     * query per {@value CrudDaoImpl#IN_LIST_SIZE} developers, whose IDs are
+     * numeric literals.
+     * @param developerIds developers' ID
+     */
+    private void lock(Collection<Long> developerIds) {
+        List<Long> distinct = new ArrayList<>(new TreeSet<>(developerIds));
+        for (int i = 0; i < distinct.size(); i += CrudDaoImpl.IN_LIST_SIZE) {
+            String chunk = distinct.subList(i, Math.min(i + CrudDaoImpl.IN_LIST_SIZE,
+                    distinct.size())).stream()
+                    .map(String::valueOf)
+                    .collect(Collectors.joining(", "));
+            entityManager.createNativeQuery("select Id from Developer where Developer_Id in ("
+                    + chunk + ") order by Developer_Id for update")
+                    .getResultList();
+        }
+    }
+
+    /**
+     * Create a native statement on the {@code Daily_Hours} table.
+     * @param sql the statement
+     * @return {@code Query}
+     */
+    private Query createStatement(String sql) {
+        return entityManager.createNativeQuery(sql)
+                .unwrap(NativeQuery.class)
+                .addSynchronizedEntityClass(DailyHours.class);
+    }
+
+    /**
+     * Returns the SQL expression of the open shift's end by the open shifts'
+     * policy.
+     * @param policy the open shifts' policy
+     * @return SQL expression or null if the open shifts are not counted
+     */
+    private static String getOpenShiftEnd(OpenShiftPolicy policy) {
+        switch (policy) {
+            case EXCLUDE:
+            case REJECT:
+                return null;
+            case UNTIL_NOW:
+                return "greatest(w.Work_Begin, :now)";
+            case UNTIL_END_OF_DAY:
+                return "dateadd('DAY', 1, cast(w.Work_Day as timestamp))";
+            default:
+                throw new IllegalArgumentException("Unknown policy: " + policy);
+        }
+    }
+
+}
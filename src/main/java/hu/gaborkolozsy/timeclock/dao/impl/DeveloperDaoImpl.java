@@ -4,11 +4,21 @@
 
 package hu.gaborkolozsy.timeclock.dao.impl;
 
+import hu.gaborkolozsy.timeclock.dao.DailyHoursDao;
 import hu.gaborkolozsy.timeclock.dao.DeveloperDao;
+import hu.gaborkolozsy.timeclock.dao.cache.OpenShiftIndex;
+import hu.gaborkolozsy.timeclock.dao.cache.ShiftIntervalIndex;
+import hu.gaborkolozsy.timeclock.model.DailyHours;
 import hu.gaborkolozsy.timeclock.model.Developer;
 import hu.gaborkolozsy.timeclock.model.Developer.DeveloperBuilder;
+import hu.gaborkolozsy.timeclock.model.WorkingHours;
+import hu.gaborkolozsy.timeclock.model.projection.DeveloperRow;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
-import java.util.Objects;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
 
 /**
@@ -23,6 +33,15 @@ import org.springframework.stereotype.Repository;
 @Repository
 public class DeveloperDaoImpl extends CrudDaoImpl<Developer, Long> implements DeveloperDao {
 
+    @Autowired
+    private DailyHoursDao dailyHoursDao;
+
+    @Autowired
+    private OpenShiftIndex openShiftIndex;
+
+    @Autowired
+    private ShiftIntervalIndex shiftIntervalIndex;
+
     /**
      * Returns a {@code Developer} entity instance by the specified developer's ID.
      * @param developerId developer's ID
@@ -30,9 +49,34 @@ public class DeveloperDaoImpl extends CrudDaoImpl<Developer, Long> implements De
      */
     @Override
     public Developer getByDeveloperId(Long developerId) {
-        return entityManager.createNamedQuery("getByDeveloperId", Developer.class)
-                .setParameter("developerId", developerId)
-                .getSingleResult();
+        return getByNaturalId(developerId);
+    }
+
+    /**
+     * Returns a {@code Developer} entity instance by the specified 
+     * developer's ID with its working hours between the specified days 
+     * (inclusive) with one query.
+     * 
+     * <p>The <i>shiftsBetween</i> filter is enabled only for this query, so 
+     * the developer's working hours list is partial. A developer which is 
+     * already in the persistence context keeps its loaded working hours.
+     * @param developerId developer's ID
+     * @param from the first day
+     * @param to the last day
+     * @return the {@code Developer} instance with initialized working hours
+     */
+    @Override
+    public Developer getByDeveloperIdWithShiftsBetween(Long developerId, LocalDate from, 
+                                                       LocalDate to) {
+        Session session = entityManager.unwrap(Session.class);
+        session.enableFilter("shiftsBetween")
+                .setParameter("from", from)
+                .setParameter("to", to);
+        try {
+            return getByNaturalId(developerId, "Developer.workingHours");
+        } finally {
+            session.disableFilter("shiftsBetween");
+        }
     }
 
     /**
@@ -48,16 +92,58 @@ public class DeveloperDaoImpl extends CrudDaoImpl<Developer, Long> implements De
                 .getResultList();
     }
     
+    /**
+     * Returns the list rows of the developers by the specified developer's 
+     * forename with a constructor expression, so no entity enters the 
+     * persistence context.
+     * @param forename developer's forename
+     * @return a list of {@code DeveloperRow} ordered by developer's ID
+     */
+    @Override
+    public List<DeveloperRow> getRowsByForename(String forename) {
+        return entityManager.createNamedQuery("getRowsByForename", DeveloperRow.class)
+                .setParameter("forename", forename)
+                .getResultList();
+    }
+    
     /**
      * Update the {@link Developer}'s last name by the specified develpoer's ID.
      * @param developerId developer's ID
      * @param lastname developer's last name
+     * @return true if an entity matched
      */
     @Override
-    public void updateLastnameByDeveloperId(Long developerId, String lastname) {
-        entityManager.merge(new DeveloperBuilder(getByDeveloperId(developerId))
-                .setLastName(lastname)
-                .build());
+    public boolean updateLastnameByDeveloperId(Long developerId, String lastname) {
+        return updateBy("developerId", developerId,
+                Collections.singletonMap("lastName", lastname)) > 0;
+    }
+    
+    /**
+     * Remove the {@link Developer} entity together with its working hours 
+     * (cascade), and remove its {@link DailyHours} rollup rows and its open 
+     * shifts from the {@link OpenShiftIndex} and its intervals from the 
+     * {@link ShiftIntervalIndex} (after the commit).
+     * @param entity {@code Developer}
+     */
+    @Override
+    public void remove(Developer entity) {
+        super.remove(entity);
+        dailyHoursDao.refresh(entity.getDeveloperId());
+        openShiftIndex.closeAll(entity.getDeveloperId());
+        shiftIntervalIndex.evict(entity.getDeveloperId());
+    }
+    
+    /**
+     * Remove all {@code Developer} together with their working hours, and 
+     * clear the open shifts' and the intervals' index after the commit.
+     * @return number of the deleted rows
+     */
+    @Override
+    public int removeAll() {
+        int removed = super.removeAll();
+        openShiftIndex.clear();
+        shiftIntervalIndex.clear();
+        return removed;
     }
     
     /**
@@ -66,7 +152,7 @@ public class DeveloperDaoImpl extends CrudDaoImpl<Developer, Long> implements De
      */
     @Override
     public void removeByDeveloperId(Long developerId) {
-        entityManager.remove(getByDeveloperId(developerId));
+        remove(getByDeveloperId(developerId));
     }
     
     /**
@@ -77,9 +163,17 @@ public class DeveloperDaoImpl extends CrudDaoImpl<Developer, Long> implements De
      */
     @Override
     public boolean isExistWithDeveloperId(Long developerId) {
-        return getAll().stream()
-                .anyMatch((developer) -> 
-                        Objects.equals(developer.getDeveloperId(), developerId));
+        return isExistBy("developerId", developerId);
     }
-
+    
+    /**
+     * Returns the entity types which must be deleted before the {@code Developer} 
+     * entities, in delete order.
+     * @return {@code DailyHours} and {@code WorkingHours}
+     */
+    @Override
+    protected List<Class<?>> getDependentTypes() {
+        return Arrays.asList(DailyHours.class, WorkingHours.class);
+    }
+    
 }
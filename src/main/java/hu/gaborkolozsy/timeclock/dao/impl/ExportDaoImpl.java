@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2017, Gabor Kolozsy. All rights reserved.
+ */
+
+package hu.gaborkolozsy.timeclock.dao.impl;
+
+import hu.gaborkolozsy.timeclock.dao.ExportDao;
+import hu.gaborkolozsy.timeclock.model.export.CsvExport;
+import hu.gaborkolozsy.timeclock.model.export.ExportTable;
+import java.util.function.Consumer;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.Session;
+import org.hibernate.query.NativeQuery;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Implement {@code ExportDao}. Interact with persistence context (database) 
+ * with native (<i>H2</i>) SQL queries only.
+ * 
+ * <p>The rows are read through a forward-only cursor with the 
+ * <i>hibernate.jdbc.fetch_size</i> fetch size, and no entity enters the 
+ * persistence context, so the memory usage not depends on the table's size.
+ *
+ * @author Gabor Kolozsy (gabor.kolozsy.development@gmail.com)
+ * @since 0.0.1-SNAPSHOT
+ * @see ExportTable
+ * @see ScrollableResults
+ */
+@Repository
+public class ExportDaoImpl implements ExportDao {
+
+    /**
+     * Interface used to interact with the persistence context.
+     */
+    @PersistenceContext(unitName = "Time_Clock")
+    private EntityManager entityManager;
+
+    /** 
+     * The <strong>hibernate.jdbc.fetch_size</strong> property. 
+     */
+    @Value("${hibernate.jdbc.fetch_size}")
+    private int fetchSize;
+
+    /**
+     * Pass the selected columns of the export's rows to the consumer in 
+     * primary key order, through a forward-only database cursor.
+     * 
+     * <p>The column names come from the {@link ExportTable}, only the dates 
+     * are bound as parameters. A timestamp column is filtered by the days' 
+     * half-open range, without a function call per row.
+     * @param export {@code CsvExport}
+     * @param consumer receives the row's values in the columns' order; the 
+     *        array is not kept
+     * @return number of the rows
+     */
+    @Override
+    public long scan(CsvExport export, Consumer<Object[]> consumer) {
+        ExportTable table = export.getTable();
+        String query = "select " + String.join(", ", export.getColumns()) 
+                + " from " + table.getTableName();
+        if (export.getFrom() != null) {
+            query += table.isTimestamp() 
+                    ? " where " + table.getDateColumn() + " >= :from and " 
+                            + table.getDateColumn() + " < :to"
+                    : " where " + table.getDateColumn() + " between :from and :to";
+        }
+        Session session = entityManager.unwrap(Session.class);
+        session.flush();
+        NativeQuery<?> sql = session.createNativeQuery(query + " order by Id");
+        if (export.getFrom() != null) {
+            sql.setParameter("from", table.isTimestamp() 
+                    ? export.getFrom().atStartOfDay() : export.getFrom());
+            sql.setParameter("to", table.isTimestamp() 
+                    ? export.getTo().plusDays(1).atStartOfDay() : export.getTo());
+        }
+        long count = 0;
+        try (ScrollableResults results = sql.setFetchSize(fetchSize)
+                .setReadOnly(true)
+                .scroll(ScrollMode.FORWARD_ONLY)) {
+            while (results.next()) {
+                consumer.accept(results.get());
+                count++;
+            }
+        }
+        return count;
+    }
+
+}
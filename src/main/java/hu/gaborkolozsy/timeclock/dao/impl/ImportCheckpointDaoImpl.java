@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2017, Gabor Kolozsy. All rights reserved.
+ */
+
+package hu.gaborkolozsy.timeclock.dao.impl;
+
+import hu.gaborkolozsy.timeclock.dao.ImportCheckpointDao;
+import hu.gaborkolozsy.timeclock.model.ImportCheckpoint;
+import java.time.LocalDateTime;
+import java.util.List;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import org.hibernate.query.NativeQuery;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Implement {@code ImportCheckpointDao}. Interact with persistence context 
+ * (database) with native (<i>H2</i>) SQL statements only, which are 
+ * registered with the {@link ImportCheckpoint} entity's table.
+ *
+ * @author Gabor Kolozsy (gabor.kolozsy.development@gmail.com)
+ * @since 0.0.1-SNAPSHOT
+ * @see ImportCheckpoint
+ * @see NativeQuery
+ */
+@Repository
+public class ImportCheckpointDaoImpl implements ImportCheckpointDao {
+
+    /**
+     * Interface used to interact with the persistence context.
+     */
+    @PersistenceContext(unitName = "Time_Clock")
+    private EntityManager entityManager;
+
+    /**
+     * Returns the checkpoint of the import file, read from the database.
+     * @param source the import file's absolute path
+     * @return {@code ImportCheckpoint} or null if the file is not imported
+     */
+    @Override
+    public ImportCheckpoint get(String source) {
+        List<ImportCheckpoint> checkpoints = entityManager.createQuery(
+                "from Import_Checkpoint c where c.source = :source", ImportCheckpoint.class)
+                .setParameter("source", source)
+                .getResultList();
+        return checkpoints.isEmpty() ? null : checkpoints.get(0);
+    }
+
+    /**
+     * Insert or update the checkpoint of the import file with one 
+     * <strong>merge</strong> statement in the current transaction.
+     * @param source the import file's absolute path
+     * @param processedLines number of the processed lines
+     * @param rejectBytes the reject file's size
+     */
+    @Override
+    public void save(String source, long processedLines, long rejectBytes) {
+        createStatement("merge into Import_Checkpoint "
+                + "(Source, Processed_Lines, Reject_Bytes, Updated) key (Source) "
+                + "values (:source, :processedLines, :rejectBytes, :updated)")
+                .setParameter("source", source)
+                .setParameter("processedLines", processedLines)
+                .setParameter("rejectBytes", rejectBytes)
+                .setParameter("updated", LocalDateTime.now())
+                .executeUpdate();
+    }
+
+    /**
+     * Delete the checkpoint of the import file.
+     * @param source the import file's absolute path
+     */
+    @Override
+    public void remove(String source) {
+        createStatement("delete from Import_Checkpoint where Source = :source")
+                .setParameter("source", source)
+                .executeUpdate();
+    }
+
+    /**
+     * Create a native statement registered with the checkpoint's table.
+     * @param sql the statement
+     * @return {@code NativeQuery}
+     */
+    private NativeQuery<?> createStatement(String sql) {
+        return entityManager.createNativeQuery(sql)
+                .unwrap(NativeQuery.class)
+                .addSynchronizedEntityClass(ImportCheckpoint.class);
+    }
+
+}
@@ -5,10 +5,16 @@
 package hu.gaborkolozsy.timeclock.dao.impl;
 
 import hu.gaborkolozsy.timeclock.dao.JobDao;
+import hu.gaborkolozsy.timeclock.dao.cache.QueryResultCache;
 import hu.gaborkolozsy.timeclock.model.Job;
 import hu.gaborkolozsy.timeclock.model.Job.JobBuilder;
+import hu.gaborkolozsy.timeclock.model.Pay;
+import hu.gaborkolozsy.timeclock.model.projection.JobRow;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
-import java.util.Objects;
+import javax.annotation.PostConstruct;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Repository;
 
 /**
@@ -19,10 +25,44 @@ import org.springframework.stereotype.Repository;
  * @since 0.0.1-SNAPSHOT
  * @see JobBuilder
  * @see List
+ * @see QueryResultCache
  */
 @Repository
 public class JobDaoImpl extends CrudDaoImpl<Job, Long> implements JobDao {
 
+    /** 
+     * Result cache of the <i>getAllByStatus</i> query. 
+     */
+    private QueryResultCache<String, Job> statusCache;
+
+    /**
+     * Create the query result cache.
+     */
+    @PostConstruct
+    public void createQueryResultCache() {
+        statusCache = createQueryResultCache("getAllByStatus");
+    }
+
+    /**
+     * Save the {@code Job} and invalidate the cached result of its status.
+     * @param job {@code Job}
+     */
+    @Override
+    public void save(Job job) {
+        super.save(job);
+        statusCache.invalidate(job.getStatus());
+    }
+
+    /**
+     * Save the {@code Job}s and invalidate the cached result of their status.
+     * @param jobs {@code Job}s
+     */
+    @Override
+    public void saveAll(Iterable<? extends Job> jobs) {
+        super.saveAll(jobs);
+        jobs.forEach((job) -> statusCache.invalidate(job.getStatus()));
+    }
+
     /**
      * Returns a {@code Job} entity by the specified order No..
      * @param orderNumber job's order No.
@@ -30,9 +70,7 @@ public class JobDaoImpl extends CrudDaoImpl<Job, Long> implements JobDao {
      */
     @Override
     public Job getByOrderNumber(Long orderNumber) {
-        return entityManager.createNamedQuery("getAllByOrderNumber", Job.class)
-                .setParameter("orderNumber", orderNumber)
-                .getSingleResult();
+        return getByNaturalId(orderNumber);
     }
 
     /**
@@ -49,47 +87,130 @@ public class JobDaoImpl extends CrudDaoImpl<Job, Long> implements JobDao {
 
     /**
      * Returns a list of the {@code Job} entities by the specified status.
+     * The result is cached.
      * @param status project's status
      * @return a list of {@code Job}
      */
     @Override
     public List<Job> getAllByStatus(String status) {
-        return entityManager.createNamedQuery("getAllByStatus", Job.class)
+        return statusCache.get(status, (argument) -> 
+                entityManager.createNamedQuery("getAllByStatus", Job.class)
+                        .setParameter("status", argument)
+                        .getResultList());
+    }
+
+    /**
+     * Returns the list rows of the jobs by the specified project name with a 
+     * constructor expression, so no entity enters the persistence context.
+     * @param projectName project's name
+     * @return a list of {@code JobRow} ordered by order No.
+     */
+    @Override
+    public List<JobRow> getRowsByProjectName(String projectName) {
+        return entityManager.createNamedQuery("getRowsByProjectName", JobRow.class)
+                .setParameter("projectName", projectName)
+                .getResultList();
+    }
+
+    /**
+     * Returns the list rows of the jobs by the specified status with a 
+     * constructor expression, so no entity enters the persistence context.
+     * @param status project's status
+     * @return a list of {@code JobRow} ordered by order No.
+     */
+    @Override
+    public List<JobRow> getRowsByStatus(String status) {
+        return entityManager.createNamedQuery("getRowsByStatus", JobRow.class)
                 .setParameter("status", status)
                 .getResultList();
     }
 
     /**
-     * Update {@link Job}'s status by specified order No..
+     * Update {@link Job}'s status by specified order No.. The cached results 
+     * of the old and the new status are invalidated.
      * @param orderNumber job's order No.
      * @param status the job's status
+     * @return true if an entity matched
      */
     @Override
-    public void updateStatusByOrderNumber(Long orderNumber, String status) {
-        entityManager.merge(new JobBuilder(getByOrderNumber(orderNumber))
-                .setStatus(status)
-                .build());
+    public boolean updateStatusByOrderNumber(Long orderNumber, String status) {
+        if (updateBy("orderNumber", orderNumber, Collections.singletonMap("status", status)) == 0) {
+            return false;
+        }
+        statusCache.invalidateContaining(orderNumber);
+        statusCache.invalidate(status);
+        return true;
     }
 
     /**
      * Update {@link Job}'s comment by specified order No..
      * @param orderNumber job's order No.
      * @param comment the job's comment
+     * @return true if an entity matched
      */
     @Override
-    public void updateCommentByOrderNumber(Long orderNumber, String comment) {
-        entityManager.merge(new JobBuilder(getByOrderNumber(orderNumber))
-                .setComment(comment)
-                .build());
+    public boolean updateCommentByOrderNumber(Long orderNumber, String comment) {
+        return updateBy("orderNumber", orderNumber, 
+                Collections.singletonMap("comment", comment)) > 0;
     }
 
     /**
      * Remove {@link Job} entity with specified order No..
      * @param orderNumber job's order No.
+     * @throws DataIntegrityViolationException if the 
+     *         job has pays
      */
     @Override
     public void removeByOrderNumber(Long orderNumber) {
-        entityManager.remove(getByOrderNumber(orderNumber));
+        remove(getByOrderNumber(orderNumber));
+    }
+
+    /**
+     * Merge the {@code Job} and invalidate the cached results of its old and 
+     * new status.
+     * @param <S> type of {@code Job}
+     * @param job {@code Job}
+     * @return the merged {@code Job}
+     */
+    @Override
+    public <S extends Job> S update(S job) {
+        S merged = super.update(job);
+        statusCache.invalidateContaining(merged.getOrderNumber());
+        statusCache.invalidate(merged.getStatus());
+        return merged;
+    }
+
+    /**
+     * Remove the {@code Job} and invalidate the cached result of its status. 
+     * A job which has {@code Pay} (which refers to it) is not removed, the 
+     * pays must be removed by the {@code PayDao} first.
+     * @param job {@code Job}
+     * @throws DataIntegrityViolationException if the job has pays
+     */
+    @Override
+    public void remove(Job job) {
+        long pays = entityManager.createQuery("select count(p) from Pay p "
+                + "where p.job.orderNumber = :orderNumber", Long.class)
+                .setParameter("orderNumber", job.getOrderNumber())
+                .getSingleResult();
+        if (pays > 0) {
+            throw new DataIntegrityViolationException("The job " + job.getOrderNumber() 
+                    + " has " + pays + " pays!");
+        }
+        super.remove(job);
+        statusCache.invalidateContaining(job.getOrderNumber());
+    }
+
+    /**
+     * Remove all {@code Job} (and {@code Pay}) and invalidate the cached 
+     * results.
+     * @return number of the deleted rows
+     */
+    @Override
+    public int removeAll() {
+        int removed = super.removeAll();
+        statusCache.invalidateAll();
+        return removed;
     }
 
     /**
@@ -100,9 +221,17 @@ public class JobDaoImpl extends CrudDaoImpl<Job, Long> implements JobDao {
      */
     @Override
     public boolean isExistWithOrderNumber(Long orderNumber) {
-        return getAll().stream()
-                .anyMatch((job) -> 
-                        Objects.equals(job.getOrderNumber(), orderNumber));
+        return isExistBy("orderNumber", orderNumber);
+    }
+    
+    /**
+     * Returns the entity types which must be deleted before the {@code Job} 
+     * entities, in delete order.
+     * @return {@code Pay}
+     */
+    @Override
+    protected List<Class<?>> getDependentTypes() {
+        return Arrays.asList(Pay.class);
     }
     
 }
@@ -5,10 +5,20 @@
 package hu.gaborkolozsy.timeclock.dao.impl;
 
 import hu.gaborkolozsy.timeclock.dao.PayDao;
+import hu.gaborkolozsy.timeclock.dao.cache.QueryResultCache;
 import hu.gaborkolozsy.timeclock.model.Pay;
 import hu.gaborkolozsy.timeclock.model.Pay.PayBuilder;
+import hu.gaborkolozsy.timeclock.model.embedded.Money;
+import java.math.BigDecimal;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Objects;
+import java.util.Map;
+import java.util.TreeMap;
+import javax.annotation.PostConstruct;
 import org.springframework.stereotype.Repository;
 
 /**
@@ -18,11 +28,56 @@ import org.springframework.stereotype.Repository;
  * @author Gabor Kolozsy (gabor.kolozsy.development@gmail.com)
  * @since 0.0.1-SNAPSHOT
  * @see PayBuilder
+ * @see Money
  * @see List
+ * @see QueryResultCache
  */
 @Repository
 public class PayDaoImpl extends CrudDaoImpl<Pay, Long> implements PayDao {
 
+    /** 
+     * Result cache of the <i>getByPayable</i> query. 
+     */
+    private QueryResultCache<Boolean, Pay> payableCache;
+
+    /** 
+     * Result cache of the <i>getByPaid</i> query. 
+     */
+    private QueryResultCache<Boolean, Pay> paidCache;
+
+    /**
+     * Create the query result caches.
+     */
+    @PostConstruct
+    public void createQueryResultCaches() {
+        payableCache = createQueryResultCache("getByPayable");
+        paidCache = createQueryResultCache("getByPaid");
+    }
+
+    /**
+     * Save the {@code Pay} and invalidate the cached results of its flags.
+     * @param pay {@code Pay}
+     */
+    @Override
+    public void save(Pay pay) {
+        super.save(pay);
+        payableCache.invalidate(pay.isPayable());
+        paidCache.invalidate(pay.isPaid());
+    }
+
+    /**
+     * Save the {@code Pay}s and invalidate the cached results of their flags.
+     * @param pays {@code Pay}s
+     */
+    @Override
+    public void saveAll(Iterable<? extends Pay> pays) {
+        super.saveAll(pays);
+        pays.forEach((pay) -> {
+            payableCache.invalidate(pay.isPayable());
+            paidCache.invalidate(pay.isPaid());
+        });
+    }
+
     /**
      * Returns a {@code Pay} entity by the specified ID.
      * @param payId pay's ID
@@ -30,71 +85,104 @@ public class PayDaoImpl extends CrudDaoImpl<Pay, Long> implements PayDao {
      */
     @Override
     public Pay getByPayId(String payId) {
-        return entityManager.createNamedQuery("getByPayId", Pay.class)
-                .setParameter("payId", payId)
-                .getSingleResult();
+        return getByNaturalId(payId);
     }
 
     /**
      * Returns a list of the {@code Pay} entity by the given payable(true or false).
-     * In other words: If job is done, than payable is true.
+     * In other words: If job is done, than payable is true. The result is cached.
      * @param payable payable
      * @return a list of {@code Pay}
      */
     @Override
     public List<Pay> getByPayable(boolean payable) {
-        return entityManager.createNamedQuery("getByPayable", Pay.class)
-                .setParameter("payable", payable)
-                .getResultList();
+        return payableCache.get(payable, (argument) -> 
+                entityManager.createNamedQuery("getByPayable", Pay.class)
+                        .setParameter("payable", argument)
+                        .getResultList());
     }
 
     /**
      * Returns a list of the {@code Pay} entity by the given paid(true or false).
      * In other words: If job is done and customer paid it, than paid is true.
+     * The result is cached.
      * @param paid paid
      * @return a list of {@code Pay}
      */
     @Override
     public List<Pay> getByPaid(boolean paid) {
-        return entityManager.createNamedQuery("getByPaid", Pay.class)
-                .setParameter("paid", paid)
+        return paidCache.get(paid, (argument) -> 
+                entityManager.createNamedQuery("getByPaid", Pay.class)
+                        .setParameter("paid", argument)
+                        .getResultList());
+    }
+
+    /**
+     * Update {@link Pay}'s payment by specified pay ID. The payment is 
+     * rounded to the minor unit of the pay's currency, which is read first.
+     * @param payId pay's ID
+     * @param payment payment
+     * @return true if an entity matched
+     * @deprecated the {@code double} is not exact, use 
+     *             {@link #updatePaymentByPayId(String, Money)}
+     */
+    @Override
+    @Deprecated
+    public boolean updatePaymentByPayId(String payId, double payment) {
+        List<String> currencies = entityManager.createQuery("select p.payment.currency "
+                + "from Pay p where p.payId = :payId", String.class)
+                .setParameter("payId", payId)
                 .getResultList();
+        return !currencies.isEmpty() && updatePaymentByPayId(payId, 
+                Money.of(BigDecimal.valueOf(payment), currencies.get(0)));
     }
 
     /**
-     * Update {@link Pay}'s payment by specified pay ID.
+     * Update {@link Pay}'s payment and currency by specified pay ID.
      * @param payId pay's ID
      * @param payment payment
+     * @return true if an entity matched
      */
     @Override
-    public void updatePaymentByPayId(String payId, double payment) {
-        entityManager.merge(new PayBuilder(getByPayId(payId))
-                .setPayment(payment)
-                .build());
+    public boolean updatePaymentByPayId(String payId, Money payment) {
+        Map<String, Object> changes = new HashMap<>();
+        changes.put("payment.amountMinor", payment.getAmountMinor());
+        changes.put("payment.currency", payment.getCurrency());
+        return updateBy("payId", payId, changes) > 0;
     }
 
     /**
-     * Update {@link Pay}'s payable by specified pay ID.
+     * Update {@link Pay}'s payable by specified pay ID. The cached results of 
+     * the old and the new value are invalidated.
      * @param payId pay's ID
      * @param payable payable
+     * @return true if an entity matched
      */
     @Override
-    public void updatePayableByPayId(String payId, boolean payable) {
-        entityManager.merge(new PayBuilder(getByPayId(payId))
-                .setPayable(payable)
-                .build());
+    public boolean updatePayableByPayId(String payId, boolean payable) {
+        if (updateBy("payId", payId, Collections.singletonMap("payable", payable)) == 0) {
+            return false;
+        }
+        payableCache.invalidateContaining(payId);
+        payableCache.invalidate(payable);
+        return true;
     }
 
     /**
-     * Update {@link Pay}'s paid by specified pay ID.
+     * Update {@link Pay}'s paid by specified pay ID. The cached results of 
+     * the old and the new value are invalidated.
      * @param payId pay's ID
      * @param paid paid
+     * @return true if an entity matched
      */
     @Override
-    public void updatePaidByPayId(String payId, boolean paid) {
-        entityManager.merge(new PayBuilder(getByPayId(payId))
-                .setPaid(paid)
-                .build());
+    public boolean updatePaidByPayId(String payId, boolean paid) {
+        if (updateBy("payId", payId, Collections.singletonMap("paid", paid)) == 0) {
+            return false;
+        }
+        paidCache.invalidateContaining(payId);
+        paidCache.invalidate(paid);
+        return true;
     }
 
     /**
@@ -103,7 +191,47 @@ public class PayDaoImpl extends CrudDaoImpl<Pay, Long> implements PayDao {
      */
     @Override
     public void removeByPayId(String payId) {
-        entityManager.remove(getByPayId(payId));
+        remove(getByPayId(payId));
+    }
+
+    /**
+     * Merge the {@code Pay} and invalidate the cached results of its old and 
+     * new flags.
+     * @param <S> type of {@code Pay}
+     * @param pay {@code Pay}
+     * @return the merged {@code Pay}
+     */
+    @Override
+    public <S extends Pay> S update(S pay) {
+        S merged = super.update(pay);
+        payableCache.invalidateContaining(merged.getPayId());
+        payableCache.invalidate(merged.isPayable());
+        paidCache.invalidateContaining(merged.getPayId());
+        paidCache.invalidate(merged.isPaid());
+        return merged;
+    }
+
+    /**
+     * Remove the {@code Pay} and invalidate the cached results of its flags.
+     * @param pay {@code Pay}
+     */
+    @Override
+    public void remove(Pay pay) {
+        super.remove(pay);
+        payableCache.invalidateContaining(pay.getPayId());
+        paidCache.invalidateContaining(pay.getPayId());
+    }
+
+    /**
+     * Remove all {@code Pay} and invalidate the cached results.
+     * @return number of the deleted rows
+     */
+    @Override
+    public int removeAll() {
+        int removed = super.removeAll();
+        payableCache.invalidateAll();
+        paidCache.invalidateAll();
+        return removed;
     }
 
     /**
@@ -114,8 +242,7 @@ public class PayDaoImpl extends CrudDaoImpl<Pay, Long> implements PayDao {
      */
     @Override
     public boolean isExistWithPayId(String payId) {
-        return getAll().stream()
-                .anyMatch((pay) -> Objects.equals(pay.getPayId(), payId));
+        return isExistBy("payId", payId);
     }
 
     /**
@@ -137,5 +264,61 @@ public class PayDaoImpl extends CrudDaoImpl<Pay, Long> implements PayDao {
     public boolean isPaid(String payId) {
         return getByPayId(payId).isPaid();
     }
-    
+
+    /**
+     * Returns the receivables (payable, but not paid payments) per customer 
+     * with one grouped query. The minor units are summed up in the database.
+     * @return the totals per currency by customer's ID in ascending order
+     */
+    @Override
+    public Map<Long, List<Money>> getReceivablesByCustomer() {
+        Map<Long, List<Money>> receivables = new TreeMap<>();
+        for (Object[] row : getTotals("getReceivablesByCustomer")) {
+            receivables.computeIfAbsent((Long) row[0], (customerId) -> new ArrayList<>())
+                    .add(new Money((Long) row[2], (String) row[1]));
+        }
+        return receivables;
+    }
+
+    /**
+     * Returns the total of the not paid payments per currency with one 
+     * grouped query. The minor units are summed up in the database.
+     * @return the totals by currency's code (null first)
+     */
+    @Override
+    public Map<String, Money> getUnpaidTotalByCurrency() {
+        Map<String, Money> unpaid = new LinkedHashMap<>();
+        for (Object[] row : getTotals("getUnpaidTotalByCurrency")) {
+            unpaid.put((String) row[0], new Money((Long) row[1], (String) row[0]));
+        }
+        return unpaid;
+    }
+
+    /**
+     * Returns the paid payments per month of their payment time with one 
+     * grouped query. The minor units are summed up in the database. The paid 
+     * payments without payment time are left out.
+     * @return the totals per currency by month in ascending order
+     */
+    @Override
+    public Map<YearMonth, List<Money>> getPaidByMonth() {
+        Map<YearMonth, List<Money>> paid = new TreeMap<>();
+        for (Object[] row : getTotals("getPaidByMonth")) {
+            YearMonth month = YearMonth.of(((Number) row[0]).intValue(), 
+                    ((Number) row[1]).intValue());
+            paid.computeIfAbsent(month, (key) -> new ArrayList<>())
+                    .add(new Money((Long) row[3], (String) row[2]));
+        }
+        return paid;
+    }
+
+    /**
+     * Returns the rows of the specified grouped named query.
+     * @param name the named query's name
+     * @return rows
+     */
+    private List<Object[]> getTotals(String name) {
+        return entityManager.createNamedQuery(name, Object[].class).getResultList();
+    }
+
 }
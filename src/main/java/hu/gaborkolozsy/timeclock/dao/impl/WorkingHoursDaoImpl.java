@@ -4,36 +4,623 @@
 
 package hu.gaborkolozsy.timeclock.dao.impl;
 
+import hu.gaborkolozsy.timeclock.dao.DailyHoursDao;
 import hu.gaborkolozsy.timeclock.dao.WorkingHoursDao;
+import hu.gaborkolozsy.timeclock.dao.cache.OpenShiftIndex;
+import hu.gaborkolozsy.timeclock.dao.cache.ShiftColumns;
+import hu.gaborkolozsy.timeclock.dao.cache.ShiftColumns.ShiftVisitor;
+import hu.gaborkolozsy.timeclock.dao.cache.ShiftIntervalIndex;
+import hu.gaborkolozsy.timeclock.dao.cache.ShiftIntervalTree.Interval;
+import hu.gaborkolozsy.timeclock.model.Admin;
+import hu.gaborkolozsy.timeclock.model.DailyHours;
+import hu.gaborkolozsy.timeclock.model.DailyHours.Key;
 import hu.gaborkolozsy.timeclock.model.WorkingHours;
 import hu.gaborkolozsy.timeclock.model.WorkingHours.WorkingHoursBuilder;
+import hu.gaborkolozsy.timeclock.model.clock.ClockShift;
+import hu.gaborkolozsy.timeclock.model.timesheet.OpenShiftPolicy;
+import hu.gaborkolozsy.timeclock.model.timesheet.TimesheetEntry;
+import hu.gaborkolozsy.timeclock.model.timesheet.TimesheetPeriod;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.function.LongConsumer;
+import java.util.stream.Collectors;
+import javax.persistence.Query;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.Session;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.id.IdentifierGenerator;
+import org.hibernate.query.NativeQuery;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
 
 /** 
  * Extends {@code CrudDaoImpl} and implement {@code WorkingHoursDao}. 
  * Interact with persistence context (database).
+ * 
+ * <p>Every write refreshes the touched developers' days of the 
+ * {@link DailyHours} rollup in the same transaction, and the 
+ * {@link OpenShiftIndex} and the {@link ShiftIntervalIndex} after the 
+ * commit.
  *
  * @author Gabor Kolozsy (gabor.kolozsy.development@gmail.com)
  * @since 0.0.1-SNAPSHOT
  * @see WorkingHoursBuilder
  * @see LocalDateTime
+ * @see TimesheetEntry
+ * @see DailyHoursDao
+ * @see OpenShiftIndex
+ * @see ShiftIntervalIndex
+ * @see ShiftColumns
+ * @see ClockShift
  */
 @Repository
 public class WorkingHoursDaoImpl extends CrudDaoImpl<WorkingHours, Long> 
         implements WorkingHoursDao {
 
+    @Autowired
+    private DailyHoursDao dailyHoursDao;
+
+    @Autowired
+    private OpenShiftIndex openShiftIndex;
+
+    @Autowired
+    private ShiftIntervalIndex shiftIntervalIndex;
+
+    /**
+     * Make an instance managed and persistent, and refresh its day's rollup.
+     * @param entity {@code WorkingHours}
+     */
+    @Override
+    public void save(WorkingHours entity) {
+        super.save(entity);
+        dailyHoursDao.refresh(Collections.singleton(getKey(entity)));
+        index(entity);
+    }
+
+    /**
+     * Make the given instances managed and persistent with batched inserts, 
+     * and refresh their days' rollup.
+     * @param entities {@code WorkingHours} instances
+     */
+    @Override
+    public void saveAll(Iterable<? extends WorkingHours> entities) {
+        Set<Key> keys = new LinkedHashSet<>();
+        entities.forEach((entity) -> keys.add(getKey(entity)));
+        super.saveAll(entities);
+        dailyHoursDao.refresh(keys);
+        entities.forEach(this::index);
+    }
+
+    /**
+     * Merge the state of the given entity into the current persistence 
+     * context, and refresh its old and new day's rollup.
+     * @param entity {@code WorkingHours}
+     * @return the managed instance
+     */
+    @Override
+    public <S extends WorkingHours> S update(S entity) {
+        WorkingHours old = entity.getId() == null ? null : get(entity.getId());
+        Key key = old == null ? null : getKey(old);
+        S merged = super.update(entity);
+        dailyHoursDao.refresh(key == null ? Collections.singleton(getKey(merged)) 
+                : Arrays.asList(key, getKey(merged)));
+        if (key != null && !key.getDeveloperId().equals(getKey(merged).getDeveloperId())) {
+            openShiftIndex.close(key.getDeveloperId(), merged.getId());
+            shiftIntervalIndex.remove(key.getDeveloperId(), merged.getId());
+        }
+        index(merged);
+        return merged;
+    }
+
+    /**
+     * Remove the specified entity instance, and refresh its day's rollup.
+     * A detached instance (e.g. from the second-level cache) is merged first.
+     * @param entity {@code WorkingHours}
+     */
+    @Override
+    public void remove(WorkingHours entity) {
+        super.remove(entityManager.contains(entity) ? entity 
+                : entityManager.merge(entity));
+        dailyHoursDao.refresh(Collections.singleton(getKey(entity)));
+        openShiftIndex.close(entity.getDeveloper().getDeveloperId(), entity.getId());
+        shiftIntervalIndex.remove(entity.getDeveloper().getDeveloperId(), entity.getId());
+    }
+
+    /**
+     * Remove all entity instance with set-based delete statements, and clear 
+     * the open shifts' and the intervals' index after the commit.
+     * @return number of the deleted rows
+     */
+    @Override
+    public int removeAll() {
+        int removed = super.removeAll();
+        openShiftIndex.clear();
+        shiftIntervalIndex.clear();
+        return removed;
+    }
+
     /**
      * Update the {@link WorkingHours}' {@code Work_End} column from null to the
-     * correct time.
+     * correct time, and refresh its day's rollup and the open shifts' index.
      * @param workingHours {@code WorkingHours}
      * @param workEnd the working hours' end
      */
     @Override
     public void updateWorkEnd(WorkingHours workingHours, LocalDateTime workEnd) {
-        entityManager.merge(new WorkingHoursBuilder(workingHours)
+        index(entityManager.merge(new WorkingHoursBuilder(workingHours)
                 .setWorkEnd(workEnd)
-                .build());
+                .build()));
+        dailyHoursDao.refresh(Collections.singleton(getKey(workingHours)));
+    }
+
+    /**
+     * Returns the open shifts (working hours without {@code Work_End}) with 
+     * one query.
+     * @return the open shifts' ID by developer's ID
+     */
+    @Override
+    public Map<Long, Set<Long>> getOpenShiftIds() {
+        List<Object[]> rows = entityManager.createQuery("select w.developer.developerId, w.id "
+                + "from Working_Hours w where w.workEnd is null", Object[].class)
+                .getResultList();
+        Map<Long, Set<Long>> openShifts = new TreeMap<>();
+        for (Object[] row : rows) {
+            openShifts.computeIfAbsent((Long) row[0], (id) -> new TreeSet<>()).add((Long) row[1]);
+        }
+        return openShifts;
+    }
+    
+    /**
+     * Returns the worked time of the specified developers grouped by the 
+     * specified period, computed by the database. No {@code WorkingHours} 
+     * entity is loaded.
+     * 
+     * <p>One grouped (<i>H2</i>) SQL query is executed per 
+     * {@value #IN_LIST_SIZE} developers, which reads the rows through the 
+     * <i>(Developer_Id, Work_Day)</i> index.
+     * @param developerIds developers' ID
+     * @param from the first work day (inclusive)
+     * @param to the last work day (inclusive)
+     * @param period the grouping period
+     * @param policy the open shifts' policy
+     * @param now the end of the open shifts by {@link OpenShiftPolicy#UNTIL_NOW}
+     * @return the entries ordered by developer's ID and period start, without 
+     *         the periods which have no shift
+     */
+    @Override
+    public List<TimesheetEntry> getTimesheet(Collection<Long> developerIds, LocalDate from, 
+            LocalDate to, TimesheetPeriod period, OpenShiftPolicy policy, LocalDateTime now) {
+        String start = getPeriodStart(period, "w.Work_Day");
+        String end = getWorkEnd(policy);
+        String query = "select w.Developer_Id, " + start + ", "
+                + "sum(case when " + end + " is null then 0 "
+                + "else datediff('MILLISECOND', w.Work_Begin, " + end + ") end), "
+                + "count(*), count(w.Work_Begin) - count(w.Work_End) "
+                + "from Working_Hours w "
+                + "where w.Developer_Id in (:developerIds) and w.Work_Day between :from and :to "
+                + "group by w.Developer_Id" + (period == TimesheetPeriod.TOTAL ? "" : ", " + start)
+                + " order by 1, 2";
+        List<Long> distinct = new ArrayList<>(new TreeSet<>(developerIds));
+        List<TimesheetEntry> entries = new ArrayList<>();
+        for (int i = 0; i < distinct.size(); i += IN_LIST_SIZE) {
+            Query sql = entityManager.createNativeQuery(query)
+                    .setParameter("developerIds", 
+                            distinct.subList(i, Math.min(i + IN_LIST_SIZE, distinct.size())))
+                    .setParameter("from", from)
+                    .setParameter("to", to);
+            if (policy == OpenShiftPolicy.UNTIL_NOW) {
+                sql.setParameter("now", now);
+            }
+            for (Object row : sql.getResultList()) {
+                Object[] columns = (Object[]) row;
+                entries.add(new TimesheetEntry(
+                        ((Number) columns[0]).longValue(),
+                        columns[1] == null ? null : ((Date) columns[1]).toLocalDate(),
+                        ((Number) columns[2]).longValue(),
+                        ((Number) columns[3]).intValue(),
+                        ((Number) columns[4]).intValue()));
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * Pass the columns of every working hours created or updated since the 
+     * specified time to the visitor, through a forward-only database cursor 
+     * of one native query. No {@code WorkingHours} entity is loaded.
+     * 
+     * <p>The times are converted to epoch seconds (counted as UTC) and the 
+     * work day to epoch day in Java, because the date functions of the 
+     * database are slower by an order of magnitude than the cursor itself.
+     * @param since the first audit time (inclusive) or null for every row
+     * @param visitor receives the shifts' columns (see {@link ShiftVisitor})
+     * @return number of the visited rows
+     */
+    @Override
+    public int scanChanges(LocalDateTime since, ShiftVisitor visitor) {
+        String query = "select w.Id, w.Developer_Id, w.Work_Day, w.Work_Begin, w.Work_End "
+                + "from Working_Hours w"
+                + (since == null ? "" : " where coalesce(w.Updated, w.Created) >= :since")
+                + " order by w.Id";
+        Session session = entityManager.unwrap(Session.class);
+        session.flush();
+        NativeQuery<?> sql = session.createNativeQuery(query);
+        if (since != null) {
+            sql.setParameter("since", since);
+        }
+        int count = 0;
+        try (ScrollableResults results = sql.setFetchSize(getFetchSize())
+                .setReadOnly(true)
+                .scroll(ScrollMode.FORWARD_ONLY)) {
+            while (results.next()) {
+                Object[] columns = results.get();
+                visitor.visit(((Number) columns[0]).longValue(),
+                        ((Number) columns[1]).longValue(),
+                        (int) ((Date) columns[2]).toLocalDate().toEpochDay(),
+                        toEpochSecond((Timestamp) columns[3]),
+                        columns[4] == null ? ShiftColumns.OPEN 
+                                : toEpochSecond((Timestamp) columns[4]));
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Pass the ID of every working hours to the consumer in ascending order, 
+     * through a forward-only database cursor.
+     * @param consumer receives the IDs
+     */
+    @Override
+    public void scanIds(LongConsumer consumer) {
+        Session session = entityManager.unwrap(Session.class);
+        session.flush();
+        try (ScrollableResults results = session
+                .createNativeQuery("select w.Id from Working_Hours w order by w.Id")
+                .setFetchSize(getFetchSize())
+                .setReadOnly(true)
+                .scroll(ScrollMode.FORWARD_ONLY)) {
+            while (results.next()) {
+                consumer.accept(((Number) results.get(0)).longValue());
+            }
+        }
+    }
+
+    /**
+     * Returns the last open shift of the specified developers. The shifts 
+     * are looked up in the {@link OpenShiftIndex} (the {@code Working_Hours} 
+     * table has no index on the {@code Work_End}), and read by their 
+     * primary key with one native query per {@value #IN_LIST_SIZE} shifts, 
+     * whose IDs are numeric literals (a bound list is compared with every 
+     * row by <i>H2</i>). No {@code WorkingHours} entity is loaded. A 
+     * developer with more open shifts gets the one with the greatest ID.
+     * @param developerIds developers' ID
+     * @return the open shift by developer's ID, without the developers 
+     *         which are not clocked in
+     */
+    @Override
+    public Map<Long, ClockShift> getLastOpenShifts(Collection<Long> developerIds) {
+        List<Long> shiftIds = new ArrayList<>();
+        for (Long developerId : new TreeSet<>(developerIds)) {
+            Set<Long> open = openShiftIndex.getOpenShifts(developerId);
+            if (!open.isEmpty()) {
+                shiftIds.add(Collections.max(open));
+            }
+        }
+        Map<Long, ClockShift> openShifts = new HashMap<>();
+        entityManager.flush();
+        for (int i = 0; i < shiftIds.size(); i += IN_LIST_SIZE) {
+            String chunk = shiftIds.subList(i, Math.min(i + IN_LIST_SIZE, shiftIds.size()))
+                    .stream()
+                    .map(String::valueOf)
+                    .collect(Collectors.joining(", "));
+            List<?> rows = entityManager.createNativeQuery("select w.Id, w.Developer_Id, "
+                    + "w.Work_Begin from Working_Hours w "
+                    + "where w.Id in (" + chunk + ") and w.Work_End is null")
+                    .getResultList();
+            for (Object row : rows) {
+                Object[] columns = (Object[]) row;
+                Long developerId = ((Number) columns[1]).longValue();
+                openShifts.put(developerId, new ClockShift(((Number) columns[0]).longValue(), 
+                        developerId, ((Timestamp) columns[2]).toLocalDateTime(), null));
+            }
+        }
+        return openShifts;
+    }
+
+    /**
+     * Insert the new shifts with batched JDBC statements of 
+     * <i>hibernate.jdbc.batch_size</i> rows, bypassing the persistence 
+     * context, and refresh their days' rollup with set-based statements in 
+     * the current transaction. The open shifts are registered in the open 
+     * shifts' index after the commit. Every shift is registered in the 
+     * intervals' index too.
+     * 
+     * <p>The IDs are allocated by the entity's own identifier generator, so 
+     * they never collide with the IDs of the persisted entities. The audit 
+     * columns are set as the {@code AuditListener} would set them.
+     * @param shifts the shifts without ID
+     * @return the generated IDs in the shifts' order
+     */
+    @Override
+    public long[] insertShifts(List<ClockShift> shifts) {
+        long[] ids = new long[shifts.size()];
+        if (shifts.isEmpty()) {
+            return ids;
+        }
+        SessionImplementor session = entityManager.unwrap(SessionImplementor.class);
+        session.flush();
+        IdentifierGenerator generator = session.getFactory().getMetamodel()
+                .entityPersister(WorkingHours.class).getIdentifierGenerator();
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = ((Number) generator.generate(session, null)).longValue();
+        }
+        Timestamp created = Timestamp.valueOf(LocalDateTime.now());
+        session.doWork((connection) -> {
+            try (PreparedStatement statement = connection.prepareStatement("insert into "
+                    + "Working_Hours (Id, Work_Day, Work_Begin, Work_End, Developer_Id, "
+                    + "Created, Created_By, Version) values (?, ?, ?, ?, ?, ?, ?, 0)")) {
+                for (int i = 0; i < ids.length; i++) {
+                    ClockShift shift = shifts.get(i);
+                    statement.setLong(1, ids[i]);
+                    statement.setDate(2, Date.valueOf(shift.getDay()));
+                    statement.setTimestamp(3, Timestamp.valueOf(shift.getWorkStart()));
+                    statement.setTimestamp(4, shift.getWorkEnd() == null ? null 
+                            : Timestamp.valueOf(shift.getWorkEnd()));
+                    statement.setLong(5, shift.getDeveloperId());
+                    statement.setTimestamp(6, created);
+                    statement.setString(7, Admin.getAdmin());
+                    statement.addBatch();
+                    if ((i + 1) % getBatchSize() == 0 || i + 1 == ids.length) {
+                        statement.executeBatch();
+                    }
+                }
+            }
+        });
+        refreshRollup(shifts);
+        for (int i = 0; i < ids.length; i++) {
+            ClockShift shift = shifts.get(i);
+            if (shift.getWorkEnd() == null) {
+                openShiftIndex.open(shift.getDeveloperId(), ids[i]);
+            }
+            shiftIntervalIndex.put(shift.getDeveloperId(), 
+                    new Interval(ids[i], shift.getWorkStart(), shift.getWorkEnd()));
+        }
+        return ids;
+    }
+
+    /**
+     * Set the {@code Work_End} of the open shifts with batched JDBC 
+     * statements of <i>hibernate.jdbc.batch_size</i> rows, bypassing the 
+     * persistence context, and refresh their days' rollup with set-based 
+     * statements in the current transaction. The shifts whose row is closed 
+     * by the statement are removed from the open shifts' index and updated in 
+     * the intervals' index after the commit, the already closed ones are 
+     * left as they are.
+     * 
+     * <p>The version is incremented, so a concurrent update of a loaded 
+     * instance fails with an optimistic lock exception.
+     * @param shifts the closed shifts with ID
+     * @return number of the closed shifts (the already closed ones are 
+     *         skipped)
+     */
+    @Override
+    public int closeShifts(Collection<ClockShift> shifts) {
+        if (shifts.isEmpty()) {
+            return 0;
+        }
+        Session session = entityManager.unwrap(Session.class);
+        session.flush();
+        Timestamp updated = Timestamp.valueOf(LocalDateTime.now());
+        List<ClockShift> closed = session.doReturningWork((connection) -> {
+            List<ClockShift> rows = new ArrayList<>(shifts.size());
+            try (PreparedStatement statement = connection.prepareStatement("update "
+                    + "Working_Hours set Work_End = ?, Updated = ?, Updated_By = ?, "
+                    + "Version = Version + 1 where Id = ? and Work_End is null")) {
+                List<ClockShift> batch = new ArrayList<>(getBatchSize());
+                int batched = 0;
+                for (ClockShift shift : shifts) {
+                    statement.setTimestamp(1, Timestamp.valueOf(shift.getWorkEnd()));
+                    statement.setTimestamp(2, updated);
+                    statement.setString(3, Admin.getAdmin());
+                    statement.setLong(4, shift.getId());
+                    statement.addBatch();
+                    batch.add(shift);
+                    if (++batched % getBatchSize() == 0 || batched == shifts.size()) {
+                        int[] counts = statement.executeBatch();
+                        for (int i = 0; i < counts.length; i++) {
+                            if (counts[i] == 1) {
+                                rows.add(batch.get(i));
+                            }
+                        }
+                        batch.clear();
+                    }
+                }
+            }
+            return rows;
+        });
+        if (!closed.isEmpty()) {
+            refreshRollup(closed);
+        }
+        for (ClockShift shift : closed) {
+            openShiftIndex.close(shift.getDeveloperId(), shift.getId());
+            shiftIntervalIndex.put(shift.getDeveloperId(), 
+                    new Interval(shift.getId(), shift.getWorkStart(), shift.getWorkEnd()));
+        }
+        return closed.size();
+    }
+
+    /**
+     * Returns the developer's shifts which overlap the interval, from the 
+     * {@link ShiftIntervalIndex} in <i>O(log n)</i> time. The developer's 
+     * shifts are loaded into the index with one query at the first lookup.
+     * @param developerId developer's ID
+     * @param begin the interval's begin (inclusive)
+     * @param end the interval's end (exclusive) or null for an open interval
+     * @return the shifts ordered by begin and ID
+     */
+    @Override
+    public List<Interval> getOverlaps(Long developerId, LocalDateTime begin, 
+            LocalDateTime end) {
+        return shiftIntervalIndex.getOverlaps(developerId, begin, end, (id) -> 
+                getIntervals(Collections.singleton(id))
+                        .getOrDefault(id, Collections.emptyList()));
+    }
+
+    /**
+     * Returns the shifts of the specified developers with one native query 
+     * per {@value #IN_LIST_SIZE} developers, whose IDs are numeric literals. 
+     * No {@code WorkingHours} entity is loaded.
+     * @param developerIds developers' ID
+     * @return the shifts ordered by begin and ID by developer's ID
+     */
+    @Override
+    public Map<Long, List<Interval>> getIntervals(Collection<Long> developerIds) {
+        List<Long> distinct = new ArrayList<>(new TreeSet<>(developerIds));
+        Map<Long, List<Interval>> intervals = new TreeMap<>();
+        entityManager.flush();
+        for (int i = 0; i < distinct.size(); i += IN_LIST_SIZE) {
+            String chunk = distinct.subList(i, Math.min(i + IN_LIST_SIZE, distinct.size()))
+                    .stream()
+                    .map(String::valueOf)
+                    .collect(Collectors.joining(", "));
+            List<?> rows = entityManager.createNativeQuery("select w.Developer_Id, w.Id, "
+                    + "w.Work_Begin, w.Work_End from Working_Hours w "
+                    + "where w.Developer_Id in (" + chunk + ") "
+                    + "order by w.Developer_Id, w.Work_Begin, w.Id")
+                    .getResultList();
+            for (Object row : rows) {
+                Object[] columns = (Object[]) row;
+                intervals.computeIfAbsent(((Number) columns[0]).longValue(), 
+                        (id) -> new ArrayList<>())
+                        .add(new Interval(((Number) columns[1]).longValue(), 
+                                ((Timestamp) columns[2]).toLocalDateTime(), 
+                                columns[3] == null ? null 
+                                        : ((Timestamp) columns[3]).toLocalDateTime()));
+            }
+        }
+        return intervals;
+    }
+
+    /**
+     * Returns the SQL expression of the period's first day.
+     * @param period the grouping period
+     * @param day the work day's column
+     * @return SQL expression
+     */
+    static String getPeriodStart(TimesheetPeriod period, String day) {
+        switch (period) {
+            case TOTAL:
+                return "cast(null as date)";
+            case DAY:
+                return day;
+            case WEEK:
+                return "cast(dateadd('DAY', 1 - iso_day_of_week(" + day + "), " + day 
+                        + ") as date)";
+            case MONTH:
+                return "cast(dateadd('DAY', 1 - day_of_month(" + day + "), " + day 
+                        + ") as date)";
+            default:
+                throw new IllegalArgumentException("Unknown period: " + period);
+        }
+    }
+
+    /**
+     * Returns the SQL expression of the shift's end by the open shifts' policy.
+     * @param policy the open shifts' policy
+     * @return SQL expression, which is null if the shift is not counted
+     */
+    private static String getWorkEnd(OpenShiftPolicy policy) {
+        switch (policy) {
+            case EXCLUDE:
+            case REJECT:
+                return "w.Work_End";
+            case UNTIL_NOW:
+                return "coalesce(w.Work_End, greatest(w.Work_Begin, :now))";
+            case UNTIL_END_OF_DAY:
+                return "coalesce(w.Work_End, dateadd('DAY', 1, cast(w.Work_Day as timestamp)))";
+            default:
+                throw new IllegalArgumentException("Unknown policy: " + policy);
+        }
+    }
+
+    /**
+     * Returns the entity types which must be deleted before the 
+     * {@code WorkingHours} entities, in delete order.
+     * @return {@code DailyHours}, which is derived from the working hours
+     */
+    @Override
+    protected List<Class<?>> getDependentTypes() {
+        return Arrays.asList(DailyHours.class);
+    }
+
+    /**
+     * Returns the epoch seconds of the timestamp's local time (see 
+     * {@link ShiftColumns#toEpochSecond(LocalDateTime)}).
+     * @param timestamp {@code Timestamp}
+     * @return epoch seconds
+     */
+    private static long toEpochSecond(Timestamp timestamp) {
+        return ShiftColumns.toEpochSecond(timestamp.toLocalDateTime());
+    }
+
+    /**
+     * Refresh the rollup of the shifts' developers between the shifts' 
+     * first and last day.
+     * @param shifts {@code ClockShift} instances
+     */
+    private void refreshRollup(Collection<ClockShift> shifts) {
+        Set<Long> developerIds = new HashSet<>();
+        LocalDate from = LocalDate.MAX;
+        LocalDate to = LocalDate.MIN;
+        for (ClockShift shift : shifts) {
+            developerIds.add(shift.getDeveloperId());
+            from = shift.getDay().isBefore(from) ? shift.getDay() : from;
+            to = shift.getDay().isAfter(to) ? shift.getDay() : to;
+        }
+        dailyHoursDao.refresh(developerIds, from, to);
+    }
+
+    /**
+     * Register the working hours in the open shifts' index after the commit: 
+     * add it if it is open, otherwise remove it. The interval is registered 
+     * in the intervals' index too.
+     * @param workingHours {@code WorkingHours}
+     */
+    private void index(WorkingHours workingHours) {
+        Long developerId = workingHours.getDeveloper().getDeveloperId();
+        if (workingHours.getWorkEnd() == null) {
+            openShiftIndex.open(developerId, workingHours.getId());
+        } else {
+            openShiftIndex.close(developerId, workingHours.getId());
+        }
+        shiftIntervalIndex.put(developerId, new Interval(workingHours.getId(), 
+                workingHours.getWorkStart(), workingHours.getWorkEnd()));
+    }
+
+    /**
+     * Returns the rollup key of the working hours.
+     * @param workingHours {@code WorkingHours}
+     * @return the developer's day
+     */
+    private static Key getKey(WorkingHours workingHours) {
+        return new Key(workingHours.getDeveloper().getDeveloperId(), workingHours.getDay());
     }
     
 }
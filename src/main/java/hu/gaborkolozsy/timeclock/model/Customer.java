@@ -10,10 +10,12 @@ import hu.gaborkolozsy.timeclock.model.abstracts.Builder;
 import hu.gaborkolozsy.timeclock.model.embedded.Address;
 import hu.gaborkolozsy.timeclock.model.embedded.Audit;
 import hu.gaborkolozsy.timeclock.model.embedded.AuditListener;
+import hu.gaborkolozsy.timeclock.model.id.ConfiguredSequenceGenerator;
 import java.io.Serializable;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import javax.persistence.Cacheable;
 import javax.persistence.CascadeType;
 import javax.persistence.Column;
 import javax.persistence.Embedded;
@@ -24,13 +26,20 @@ import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
 import javax.persistence.JoinColumn;
+import javax.persistence.NamedAttributeNode;
+import javax.persistence.NamedEntityGraph;
 import javax.persistence.NamedQueries;
 import javax.persistence.NamedQuery;
 import javax.persistence.OneToMany;
 import javax.persistence.OneToOne;
-import javax.persistence.SequenceGenerator;
 import javax.persistence.Version;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.annotations.DynamicInsert;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
+import org.hibernate.annotations.Parameter;
 
 /**
  * Represent a customer. This will be stored in database and it will be 
@@ -42,6 +51,9 @@ import org.hibernate.annotations.DynamicInsert;
  * If use {@code Customer_Id} column for referenced column by @ManyToOne 
  * relationship instead of default primary key, than {@code Customer} entity 
  * must implements the {@code Serializable} interface.</strong>
+ * 
+ * <p>The jobs are loaded lazily, the <u>Customer.jobs</u> entity graph 
+ * fetches them with the customer in one statement.
  *
  * @author Gabor Kolozsy (gabor.kolozsy.development@gmail.com)
  * @since 0.0.1-SNAPSHOT
@@ -62,11 +74,17 @@ import org.hibernate.annotations.DynamicInsert;
  * @see GenerationType
  * @see Id
  * @see JoinColumn
+ * @see NamedAttributeNode
+ * @see NamedEntityGraph
  * @see OneToMany
  * @see OneToOne
- * @see SequenceGenerator
+ * @see GenericGenerator
+ * @see ConfiguredSequenceGenerator
  * @see Version
  * @see DynamicInsert
+ * @see Cache
+ * @see NaturalId
+ * @see NaturalIdCache
  */
 @Entity(name = "Customer")
 @EntityListeners({AuditListener.class})
@@ -77,15 +95,23 @@ import org.hibernate.annotations.DynamicInsert;
     @NamedQuery(name = "getByCustomerName", 
                 query = "from Customer c where c.name = :name")
 })
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "customer")
+@NaturalIdCache(region = "customerNaturalId")
+@NamedEntityGraph(name = "Customer.jobs", attributeNodes = @NamedAttributeNode("jobs"))
 @SuppressWarnings({"PersistenceUnitPresent"})
 public class Customer implements Auditable, Serializable {
 
     @Id
     @GeneratedValue(generator = "customerGEN", strategy = GenerationType.SEQUENCE)
-    @SequenceGenerator(initialValue = 100, name = "customerGEN", sequenceName = "customerSEQ")
+    @GenericGenerator(name = "customerGEN", strategy = ConfiguredSequenceGenerator.STRATEGY, 
+                      parameters = {
+                          @Parameter(name = "sequence_name", value = "customerSEQ"),
+                          @Parameter(name = "initial_value", value = "100")})
     @Column(name = "Id", nullable = false, unique = true, updatable = false)
     private Long id;
     
+    @NaturalId
     @Column(name = "Customer_Id", nullable = false, unique = true, updatable = false)
     private Long customerId;
     
@@ -95,7 +121,7 @@ public class Customer implements Auditable, Serializable {
     @Column(name = "Contact")
     private String contact;
     
-    @OneToMany(cascade = CascadeType.PERSIST, fetch = FetchType.EAGER, 
+    @OneToMany(cascade = CascadeType.PERSIST, fetch = FetchType.LAZY, 
                mappedBy = "customer", orphanRemoval = true, targetEntity = Job.class)
     private List<Job> jobs;
     
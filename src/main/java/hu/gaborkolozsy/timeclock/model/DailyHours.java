@@ -0,0 +1,183 @@
+/*
+ * Copyright (c) 2017, Gabor Kolozsy. All rights reserved.
+ */
+
+package hu.gaborkolozsy.timeclock.model;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.util.Objects;
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.IdClass;
+import org.hibernate.annotations.Immutable;
+
+/**
+ * Represent a developer's daily worked time (rollup of the working hours).
+ * This will be stored in database as a table and it will be called
+ * "DAILY_HOURS".
+ *
+ * <p>The rows are derived from the {@code Working_Hours} table and
+ * maintained with SQL only (see
+ * {@link hu.gaborkolozsy.timeclock.dao.DailyHoursDao}), therefore the
+ * entity is immutable. The worked time contains only the closed shifts,
+ * the open shifts are counted in <i>Open_Shifts</i>.
+ *
+ * <p><strong>There is no foreign key to the {@code Developer}, so the rollup
+ * can be rebuilt independently from the raw table.</strong>
+ *
+ * @author Gabor Kolozsy (gabor.kolozsy.development@gmail.com)
+ * @since 0.0.1-SNAPSHOT
+ * @see WorkingHours
+ * @see Key
+ * @see Column
+ * @see Entity
+ * @see Id
+ * @see IdClass
+ * @see Immutable
+ */
+@Entity(name = "Daily_Hours")
+@IdClass(DailyHours.Key.class)
+@Immutable
+@SuppressWarnings({"PersistenceUnitPresent"})
+public class DailyHours {
+
+    @Id
+    @Column(name = "Developer_Id", nullable = false, updatable = false)
+    private Long developerId;
+
+    @Id
+    @Column(name = "Work_Day", nullable = false, updatable = false)
+    private LocalDate day;
+
+    @Column(name = "Worked_Millis", nullable = false)
+    private long workedMillis;
+
+    @Column(name = "Shifts", nullable = false)
+    private int shifts;
+
+    @Column(name = "Open_Shifts", nullable = false)
+    private int openShifts;
+
+    /**
+     * Returns developer's ID.
+     * @return developer's ID
+     */
+    public Long getDeveloperId() {
+        return developerId;
+    }
+
+    /**
+     * Returns the work day.
+     * @return day
+     */
+    public LocalDate getDay() {
+        return day;
+    }
+
+    /**
+     * Returns the closed shifts' worked time in milliseconds.
+     * @return worked time
+     */
+    public long getWorkedMillis() {
+        return workedMillis;
+    }
+
+    /**
+     * Returns the number of shifts on the day.
+     * @return number of shifts
+     */
+    public int getShifts() {
+        return shifts;
+    }
+
+    /**
+     * Returns the number of open shifts on the day.
+     * @return number of open shifts
+     */
+    public int getOpenShifts() {
+        return openShifts;
+    }
+
+    /**
+     * The {@code DailyHours}' composite primary key.
+     */
+    public static final class Key implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private Long developerId;
+        private LocalDate day;
+
+        /**
+         * Constructor for {@code Hibernate}.
+         */
+        protected Key() {
+        }
+
+        /**
+         * Constructor with the key's values.
+         * @param developerId developer's ID
+         * @param day the work day
+         */
+        public Key(Long developerId, LocalDate day) {
+            this.developerId = developerId;
+            this.day = day;
+        }
+
+        /**
+         * Returns developer's ID.
+         * @return developer's ID
+         */
+        public Long getDeveloperId() {
+            return developerId;
+        }
+
+        /**
+         * Returns the work day.
+         * @return day
+         */
+        public LocalDate getDay() {
+            return day;
+        }
+
+        /**
+         * Returns the key's hash code.
+         * @return hash code
+         */
+        @Override
+        public int hashCode() {
+            return Objects.hash(developerId, day);
+        }
+
+        /**
+         * Compare the keys by developer's ID and day.
+         * @param obj other object
+         * @return true if the keys are equal
+         */
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) obj;
+            return Objects.equals(developerId, other.developerId)
+                    && Objects.equals(day, other.day);
+        }
+
+        /**
+         * Returns the key as a string.
+         * @return string
+         */
+        @Override
+        public String toString() {
+            return developerId + " " + day;
+        }
+
+    }
+
+}
@@ -10,9 +10,11 @@ import hu.gaborkolozsy.timeclock.model.abstracts.Builder;
 import hu.gaborkolozsy.timeclock.model.embedded.Address;
 import hu.gaborkolozsy.timeclock.model.embedded.Audit;
 import hu.gaborkolozsy.timeclock.model.embedded.AuditListener;
+import hu.gaborkolozsy.timeclock.model.id.ConfiguredSequenceGenerator;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.List;
+import javax.persistence.Cacheable;
 import javax.persistence.CascadeType;
 import javax.persistence.Column;
 import javax.persistence.Embedded;
@@ -22,14 +24,22 @@ import javax.persistence.FetchType;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.NamedAttributeNode;
+import javax.persistence.NamedEntityGraph;
 import javax.persistence.NamedQueries;
 import javax.persistence.NamedQuery;
 import javax.persistence.OneToMany;
-import javax.persistence.SequenceGenerator;
 import javax.persistence.Version;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.annotations.DynamicInsert;
-import org.hibernate.annotations.Fetch;
-import org.hibernate.annotations.FetchMode;
+import org.hibernate.annotations.Filter;
+import org.hibernate.annotations.FilterDef;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
+import org.hibernate.annotations.ParamDef;
+import org.hibernate.annotations.Parameter;
 import org.hibernate.loader.MultipleBagFetchException;
 
 /**
@@ -42,10 +52,15 @@ import org.hibernate.loader.MultipleBagFetchException;
  * by @ManyToOne relationship instead of default primary key, than 
  * {@code Developer} entity must implements the {@code Serializable} interface.
  * 
- * Without <u>@Fetch(FetchMode.SELECT)</u> hibernate throws a 
- * {@link MultipleBagFetchException}. Cause: cannot simultaneously fetch 
- * multiple bags. With {@code List} don't work, but with {@code Set} work good.
+ * The working hours are loaded lazily. The <u>Developer.workingHours</u>
+ * entity graph fetches them with the developer in one statement, but only 
+ * one bag per query, otherwise hibernate throws a 
+ * {@link MultipleBagFetchException}.
  * </strong>
+ * 
+ * <p>The <i>shiftsBetween</i> filter restricts the fetched working hours 
+ * to the days between its <i>from</i> and <i>to</i> parameters (inclusive), 
+ * so a developer loaded with the enabled filter holds a partial list.
  *
  * @author Gabor Kolozsy (gabor.kolozsy.development@gmail.com)
  * @since 0.0.1-SNAPSHOT
@@ -65,12 +80,20 @@ import org.hibernate.loader.MultipleBagFetchException;
  * @see GeneratedValue
  * @see GenerationType
  * @see Id
+ * @see NamedAttributeNode
+ * @see NamedEntityGraph
  * @see NamedQueries
  * @see NamedQuery
  * @see OneToMany
- * @see SequenceGenerator
+ * @see Filter
+ * @see FilterDef
+ * @see GenericGenerator
+ * @see ConfiguredSequenceGenerator
  * @see Version
  * @see DynamicInsert
+ * @see Cache
+ * @see NaturalId
+ * @see NaturalIdCache
  */
 @Entity(name = "Developer")
 @EntityListeners(AuditListener.class)
@@ -79,17 +102,35 @@ import org.hibernate.loader.MultipleBagFetchException;
     @NamedQuery(name = "getByDeveloperId", 
                 query = "from Developer d where d.developerId = :developerId"),
     @NamedQuery(name = "getAllByForename", 
-                query = "from Developer d where d.forename = :forename")
+                query = "from Developer d where d.forename = :forename"),
+    @NamedQuery(name = "getRowsByForename", 
+                query = "select new hu.gaborkolozsy.timeclock.model.projection.DeveloperRow("
+                        + "d.developerId, d.forename, d.lastName) "
+                        + "from Developer d where d.forename = :forename "
+                        + "order by d.developerId")
 })
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "developer")
+@NaturalIdCache(region = "developerNaturalId")
+@NamedEntityGraph(name = "Developer.workingHours", 
+                  attributeNodes = @NamedAttributeNode("workingHours"))
+@FilterDef(name = "shiftsBetween", 
+           parameters = {
+               @ParamDef(name = "from", type = "LocalDate"),
+               @ParamDef(name = "to", type = "LocalDate")})
 @SuppressWarnings({"PersistenceUnitPresent"})
 public class Developer implements Auditable, Serializable {
 
     @Id
     @GeneratedValue(generator = "developerGEN", strategy = GenerationType.SEQUENCE)
-    @SequenceGenerator(initialValue = 100, name = "developerGEN", sequenceName = "developerSEQ")
+    @GenericGenerator(name = "developerGEN", strategy = ConfiguredSequenceGenerator.STRATEGY, 
+                      parameters = {
+                          @Parameter(name = "sequence_name", value = "developerSEQ"),
+                          @Parameter(name = "initial_value", value = "100")})
     @Column(name = "Id", nullable = false, unique = true, updatable = false)
     private Long id;
     
+    @NaturalId
     @Column(name = "Developer_Id", nullable = false, unique = true, updatable = false)
     private Long developerId;
     
@@ -99,9 +140,9 @@ public class Developer implements Auditable, Serializable {
     @Column(name = "Last_Name", nullable = false)
     private String lastName;
     
-    @Fetch(FetchMode.SELECT)
-    @OneToMany(cascade = CascadeType.ALL, fetch = FetchType.EAGER, 
+    @OneToMany(cascade = CascadeType.ALL, fetch = FetchType.LAZY, 
                mappedBy = "developer", targetEntity = WorkingHours.class)
+    @Filter(name = "shiftsBetween", condition = "Work_Day between :from and :to")
     private List<WorkingHours> workingHours;
     
     @Embedded
@@ -0,0 +1,80 @@
+/*
+ * Copyright (c) 2017, Gabor Kolozsy. All rights reserved.
+ */
+
+package hu.gaborkolozsy.timeclock.model;
+
+import java.time.LocalDateTime;
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import org.hibernate.annotations.Immutable;
+
+/**
+ * Represent the progress of an import file. This will be stored in database 
+ * as a table and it will be called "IMPORT_CHECKPOINT".
+ *
+ * <p>The row is written with SQL only (see 
+ * {@link hu.gaborkolozsy.timeclock.dao.ImportCheckpointDao}) in the 
+ * transaction of the imported lines, therefore the entity is immutable. An 
+ * interrupted import restarts after the <i>Processed_Lines</i> lines, and 
+ * truncates its reject file to <i>Reject_Bytes</i>.
+ *
+ * @author Gabor Kolozsy (gabor.kolozsy.development@gmail.com)
+ * @since 0.0.1-SNAPSHOT
+ * @see Column
+ * @see Entity
+ * @see Id
+ * @see Immutable
+ */
+@Entity(name = "Import_Checkpoint")
+@Immutable
+@SuppressWarnings({"PersistenceUnitPresent"})
+public class ImportCheckpoint {
+
+    @Id
+    @Column(name = "Source", nullable = false, updatable = false, length = 1000)
+    private String source;
+
+    @Column(name = "Processed_Lines", nullable = false)
+    private long processedLines;
+
+    @Column(name = "Reject_Bytes", nullable = false)
+    private long rejectBytes;
+
+    @Column(name = "Updated", nullable = false)
+    private LocalDateTime updated;
+
+    /**
+     * Returns the import file's absolute path.
+     * @return source
+     */
+    public String getSource() {
+        return source;
+    }
+
+    /**
+     * Returns the number of the committed lines.
+     * @return number of lines
+     */
+    public long getProcessedLines() {
+        return processedLines;
+    }
+
+    /**
+     * Returns the reject file's size at the commit.
+     * @return number of bytes
+     */
+    public long getRejectBytes() {
+        return rejectBytes;
+    }
+
+    /**
+     * Returns the time of the commit.
+     * @return updated
+     */
+    public LocalDateTime getUpdated() {
+        return updated;
+    }
+
+}
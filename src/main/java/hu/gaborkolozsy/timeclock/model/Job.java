@@ -9,7 +9,9 @@ import hu.gaborkolozsy.timeclock.model.abstracts.Auditable;
 import hu.gaborkolozsy.timeclock.model.abstracts.Builder;
 import hu.gaborkolozsy.timeclock.model.embedded.Audit;
 import hu.gaborkolozsy.timeclock.model.embedded.AuditListener;
+import hu.gaborkolozsy.timeclock.model.id.ConfiguredSequenceGenerator;
 import java.io.Serializable;
+import javax.persistence.Cacheable;
 import javax.persistence.CascadeType;
 import javax.persistence.Column;
 import javax.persistence.Embedded;
@@ -24,9 +26,14 @@ import javax.persistence.ManyToOne;
 import javax.persistence.NamedQueries;
 import javax.persistence.NamedQuery;
 import javax.persistence.OneToOne;
-import javax.persistence.SequenceGenerator;
 import javax.persistence.Version;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.annotations.DynamicInsert;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
+import org.hibernate.annotations.Parameter;
 
 /**
  * Represent a work. This will be stored in database as a table 
@@ -58,9 +65,13 @@ import org.hibernate.annotations.DynamicInsert;
  * @see NamedQueries
  * @see NamedQuery
  * @see OneToOne
- * @see SequenceGenerator
+ * @see GenericGenerator
+ * @see ConfiguredSequenceGenerator
  * @see Version
  * @see DynamicInsert
+ * @see Cache
+ * @see NaturalId
+ * @see NaturalIdCache
  */
 @Entity(name = "Job")
 @EntityListeners(AuditListener.class)
@@ -71,17 +82,34 @@ import org.hibernate.annotations.DynamicInsert;
     @NamedQuery(name = "getAllByProjectName", 
                 query = "from Job j where j.projectName = :projectName"),
     @NamedQuery(name = "getAllByStatus", 
-                query = "from Job j where j.status = :status")
+                query = "from Job j where j.status = :status"),
+    @NamedQuery(name = "getRowsByProjectName", 
+                query = "select new hu.gaborkolozsy.timeclock.model.projection.JobRow("
+                        + "j.orderNumber, j.projectName, j.status, c.customerId, c.name) "
+                        + "from Job j join j.customer c where j.projectName = :projectName "
+                        + "order by j.orderNumber"),
+    @NamedQuery(name = "getRowsByStatus", 
+                query = "select new hu.gaborkolozsy.timeclock.model.projection.JobRow("
+                        + "j.orderNumber, j.projectName, j.status, c.customerId, c.name) "
+                        + "from Job j join j.customer c where j.status = :status "
+                        + "order by j.orderNumber")
 })
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "job")
+@NaturalIdCache(region = "jobNaturalId")
 @SuppressWarnings({"PersistenceUnitPresent"})
 public class Job implements Auditable, Serializable {
 
     @Id
     @GeneratedValue(generator = "jobGEN", strategy = GenerationType.SEQUENCE)
-    @SequenceGenerator(initialValue = 1, name = "jobGEN", sequenceName = "jobSEQ")
+    @GenericGenerator(name = "jobGEN", strategy = ConfiguredSequenceGenerator.STRATEGY, 
+                      parameters = {
+                          @Parameter(name = "sequence_name", value = "jobSEQ"),
+                          @Parameter(name = "initial_value", value = "1")})
     @Column(name = "Id", nullable = false, unique = true, updatable = false)
     private Long id;
 
+    @NaturalId
     @Column(name = "Order_Number", nullable = false, unique = true, updatable = false)
     private Long orderNumber;
     
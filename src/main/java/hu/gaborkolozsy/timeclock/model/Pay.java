@@ -9,7 +9,11 @@ import hu.gaborkolozsy.timeclock.model.abstracts.Auditable;
 import hu.gaborkolozsy.timeclock.model.abstracts.Builder;
 import hu.gaborkolozsy.timeclock.model.embedded.Audit;
 import hu.gaborkolozsy.timeclock.model.embedded.AuditListener;
+import hu.gaborkolozsy.timeclock.model.embedded.Money;
+import hu.gaborkolozsy.timeclock.model.id.ConfiguredSequenceGenerator;
+import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import javax.persistence.Cacheable;
 import javax.persistence.CascadeType;
 import javax.persistence.Column;
 import javax.persistence.Embedded;
@@ -23,15 +27,20 @@ import javax.persistence.JoinColumn;
 import javax.persistence.NamedQueries;
 import javax.persistence.NamedQuery;
 import javax.persistence.OneToOne;
-import javax.persistence.SequenceGenerator;
 import javax.persistence.Version;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.annotations.DynamicInsert;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
+import org.hibernate.annotations.Parameter;
 
 /**
  * Represent a {@code Pay}. This will be stored in database as a table 
  * and it will be called "PAY".
  * 
- * <p>The {@link Audit} is embedded.
+ * <p>The {@link Audit} and the payment as {@link Money} are embedded.
  * 
  * <p><strong>
  * If use {@code Order_Number} column for referenced column by @OneToOne 
@@ -44,6 +53,7 @@ import org.hibernate.annotations.DynamicInsert;
  * @see Builder
  * @see Audit
  * @see AuditListener
+ * @see Money
  * @see LocalDateTime
  * @see CascadeType
  * @see Column
@@ -59,6 +69,9 @@ import org.hibernate.annotations.DynamicInsert;
  * @see OneToOne
  * @see Version
  * @see DynamicInsert
+ * @see Cache
+ * @see NaturalId
+ * @see NaturalIdCache
  */
 @Entity(name = "Pay")
 @EntityListeners(AuditListener.class)
@@ -66,25 +79,45 @@ import org.hibernate.annotations.DynamicInsert;
 @NamedQueries({
     @NamedQuery(name = "getByPayId", query = "from Pay p where p.payId = :payId"),
     @NamedQuery(name = "getByPayable", query = "from Pay p where p.payable = :payable"),
-    @NamedQuery(name = "getByPaid", query = "from Pay p where p.paid = :paid")
+    @NamedQuery(name = "getByPaid", query = "from Pay p where p.paid = :paid"),
+    @NamedQuery(name = "getReceivablesByCustomer", 
+                query = "select c.customerId, p.payment.currency, sum(p.payment.amountMinor) "
+                        + "from Pay p join p.job j join j.customer c "
+                        + "where p.payable = true and p.paid = false "
+                        + "group by c.customerId, p.payment.currency "
+                        + "order by c.customerId, p.payment.currency"),
+    @NamedQuery(name = "getUnpaidTotalByCurrency", 
+                query = "select p.payment.currency, sum(p.payment.amountMinor) "
+                        + "from Pay p where p.paid = false "
+                        + "group by p.payment.currency order by p.payment.currency"),
+    @NamedQuery(name = "getPaidByMonth", 
+                query = "select year(p.paymentTime), month(p.paymentTime), "
+                        + "p.payment.currency, sum(p.payment.amountMinor) "
+                        + "from Pay p where p.paid = true and p.paymentTime is not null "
+                        + "group by year(p.paymentTime), month(p.paymentTime), p.payment.currency "
+                        + "order by year(p.paymentTime), month(p.paymentTime), p.payment.currency")
 })
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "pay")
+@NaturalIdCache(region = "payNaturalId")
 @SuppressWarnings({"PersistenceUnitPresent", "SerializableClass"})
 public class Pay implements Auditable {
 
     @Id
     @GeneratedValue(generator = "payGEN", strategy = GenerationType.SEQUENCE)
-    @SequenceGenerator(initialValue = 1, name = "payGEN", sequenceName = "paySEQ")
+    @GenericGenerator(name = "payGEN", strategy = ConfiguredSequenceGenerator.STRATEGY, 
+                      parameters = {
+                          @Parameter(name = "sequence_name", value = "paySEQ"),
+                          @Parameter(name = "initial_value", value = "1")})
     @Column(name = "Id", nullable = false, unique = true, updatable = false)
     private Long id;
     
+    @NaturalId
     @Column(name = "Pay_Id", nullable = false, unique = true, updatable = false)
     private String payId;
     
-    @Column(name = "Payment")
-    private double payment;
-    
-    @Column(name = "Currency")
-    private String currency;
+    @Embedded
+    private Money payment = new Money(0, null);
     
     @Column(name = "Payment_Time")
     private LocalDateTime paymentTime;
@@ -143,8 +176,18 @@ public class Pay implements Auditable {
     /**
      * Returns {@code Pay}'s payment.
      * @return payment
+     * @deprecated the {@code double} is not exact, use {@link #getMoney()}
      */
+    @Deprecated
     public double getPayment() {
+        return payment.getAmount().doubleValue();
+    }
+
+    /**
+     * Returns {@code Pay}'s exact payment with its currency.
+     * @return payment
+     */
+    public Money getMoney() {
         return payment;
     }
 
@@ -153,7 +196,7 @@ public class Pay implements Auditable {
      * @return pay's currency
      */
     public String getCurrency() {
-        return currency;
+        return payment.getCurrency();
     }
 
     /**
@@ -210,10 +253,14 @@ public class Pay implements Auditable {
      * {@code Pay} from values configured by the setters.
      * 
      * <p>The class is achieves the Build design pattern.
+     * 
+     * <p>The payment's amount is rounded to the minor unit of the currency, 
+     * which is set when the amount is set, so set the currency first.
      *
      * @author Gabor Kolozsy (gabor.kolozsy.development@gmail.com)
      * @since 0.0.1-SNAPSHOT
      * @see LocalDateTime
+     * @see Money
      * @see Builder
      * @see AbstractPayBuilder
      */
@@ -254,24 +301,39 @@ public class Pay implements Auditable {
         }
 
         /**
-         * Set the payment.
+         * Set the payment in the current currency.
          * @param payment payment
          * @return this
+         * @deprecated the {@code double} is not exact, use 
+         *             {@link #setMoney(Money)}
          */
         @Override
+        @Deprecated
         public PayBuilder setPayment(double payment) {
-            super.entity.payment = payment;
+            super.entity.payment = Money.of(BigDecimal.valueOf(payment), 
+                    super.entity.payment.getCurrency());
+            return this;
+        }
+
+        /**
+         * Set the exact payment with its currency.
+         * @param money payment
+         * @return this
+         */
+        @Override
+        public PayBuilder setMoney(Money money) {
+            super.entity.payment = money;
             return this;
         }
 
         /**
-         * Set the {@code Pay}'s currency.
+         * Set the {@code Pay}'s currency. The amount is kept.
          * @param currency currency
          * @return this
          */
         @Override
         public PayBuilder setCurrency(String currency) {
-            super.entity.currency = currency;
+            super.entity.payment = Money.of(super.entity.payment.getAmount(), currency);
             return this;
         }
 
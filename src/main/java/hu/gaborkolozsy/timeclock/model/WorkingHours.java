@@ -8,6 +8,7 @@ import hu.gaborkolozsy.timeclock.model.abstracts.AbstractWorkingHoursBuilder;
 import hu.gaborkolozsy.timeclock.model.abstracts.Auditable;
 import hu.gaborkolozsy.timeclock.model.embedded.Audit;
 import hu.gaborkolozsy.timeclock.model.embedded.AuditListener;
+import hu.gaborkolozsy.timeclock.model.id.ConfiguredSequenceGenerator;
 import java.io.Serializable;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
@@ -18,12 +19,15 @@ import javax.persistence.EntityListeners;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.Index;
 import javax.persistence.JoinColumn;
 import javax.persistence.ManyToOne;
-import javax.persistence.SequenceGenerator;
+import javax.persistence.Table;
 import javax.persistence.Version;
 import org.hibernate.annotations.DynamicInsert;
 import org.hibernate.annotations.DynamicUpdate;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
 import org.hibernate.annotations.SelectBeforeUpdate;
 
 /**
@@ -39,6 +43,9 @@ import org.hibernate.annotations.SelectBeforeUpdate;
  * If want {@code Developer_Id} column for referenced column by @ManyToOne 
  * relationship instead of default primary key, than {@code Developer} entity 
  * must implements the {@code Serializable} interface.</strong>
+ * 
+ * <p>The <i>(Developer_Id, Work_Day)</i> index serves the per developer 
+ * and interval timesheet queries.
  *
  * @author Gabor Kolozsy (gabor.kolozsy.development@gmail.com)
  * @since 0.0.1-SNAPSHOT
@@ -55,9 +62,12 @@ import org.hibernate.annotations.SelectBeforeUpdate;
  * @see GeneratedValue
  * @see GenerationType
  * @see Id
+ * @see Index
  * @see JoinColumn
  * @see ManyToOne
- * @see SequenceGenerator
+ * @see Table
+ * @see GenericGenerator
+ * @see ConfiguredSequenceGenerator
  * @see Version
  * @see DynamicInsert
  * @see DynamicUpdate
@@ -66,13 +76,17 @@ import org.hibernate.annotations.SelectBeforeUpdate;
 @Entity(name = "Working_Hours")
 @EntityListeners(AuditListener.class)
 @DynamicInsert
+@Table(indexes = @Index(name = "IDX_Working_Hours_Developer_Day", 
+                        columnList = "Developer_Id, Work_Day"))
 @SuppressWarnings({"PersistenceUnitPresent", "SerializableClass"})
 public class WorkingHours implements Auditable {
 
     @Id
     @GeneratedValue(generator = "workingHoursGEN", strategy = GenerationType.SEQUENCE)
-    @SequenceGenerator(allocationSize = 1, name = "workingHoursGEN", 
-                       sequenceName = "workingHoursSEQ")
+    @GenericGenerator(name = "workingHoursGEN", strategy = ConfiguredSequenceGenerator.STRATEGY, 
+                      parameters = {
+                          @Parameter(name = "sequence_name", value = "workingHoursSEQ"),
+                          @Parameter(name = "initial_value", value = "1")})
     @Column(name = "Id", nullable = false, unique = true, updatable = false)
     private Long id;
     
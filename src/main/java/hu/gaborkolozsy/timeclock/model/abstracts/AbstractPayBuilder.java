@@ -7,6 +7,7 @@ package hu.gaborkolozsy.timeclock.model.abstracts;
 import hu.gaborkolozsy.timeclock.model.Job;
 import hu.gaborkolozsy.timeclock.model.Pay;
 import hu.gaborkolozsy.timeclock.model.Pay.PayBuilder;
+import hu.gaborkolozsy.timeclock.model.embedded.Money;
 import java.time.LocalDateTime;
 
 /**
@@ -18,6 +19,7 @@ import java.time.LocalDateTime;
  * @param <B> type of builder
  * @since 0.0.1-SNAPSHOT
  * @see Job
+ * @see Money
  * @see LocalDateTime
  */
 public abstract class AbstractPayBuilder<E, B> extends AbstractEntity<E, B> implements Builder<E> {
@@ -33,9 +35,19 @@ public abstract class AbstractPayBuilder<E, B> extends AbstractEntity<E, B> impl
      * Set the {@code Pay}'s payment.
      * @param payment the payment
      * @return builder implement class
+     * @deprecated the {@code double} is not exact, use 
+     *             {@link #setMoney(Money)}
      */
+    @Deprecated
     public abstract B setPayment(double payment);
     
+    /**
+     * Set the {@code Pay}'s exact payment with its currency.
+     * @param money the payment
+     * @return builder implement class
+     */
+    public abstract B setMoney(Money money);
+    
     /**
      * Set the {@code Pay}'s currency.
      * @param currency currency
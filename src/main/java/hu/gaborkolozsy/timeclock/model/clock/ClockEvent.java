@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) 2017, Gabor Kolozsy. All rights reserved.
+ */
+
+package hu.gaborkolozsy.timeclock.model.clock;
+
+import java.time.LocalDateTime;
+
+/**
+ * Immutable clock-in or clock-out event of a developer, as recorded by a 
+ * clock terminal.
+ *
+ * @author Gabor Kolozsy (gabor.kolozsy.development@gmail.com)
+ * @since 0.0.1-SNAPSHOT
+ * @see Type
+ * @see ClockShift
+ */
+public final class ClockEvent {
+
+    private final Long developerId;
+    private final Type type;
+    private final LocalDateTime time;
+
+    /**
+     * Constructor with all values.
+     * @param developerId developer's ID
+     * @param type clock-in or clock-out
+     * @param time the event's time
+     */
+    public ClockEvent(Long developerId, Type type, LocalDateTime time) {
+        this.developerId = developerId;
+        this.type = type;
+        this.time = time;
+    }
+
+    /**
+     * Returns developer's ID.
+     * @return developer's ID
+     */
+    public Long getDeveloperId() {
+        return developerId;
+    }
+
+    /**
+     * Returns the event's type.
+     * @return clock-in or clock-out
+     */
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * Returns the event's time.
+     * @return time
+     */
+    public LocalDateTime getTime() {
+        return time;
+    }
+
+    /**
+     * Returns the developer, the type and the time (e.g. 
+     * <i>100 IN 2017-01-02T08:00</i>).
+     * @return string
+     */
+    @Override
+    public String toString() {
+        return developerId + " " + type + " " + time;
+    }
+
+    /**
+     * The clock event's type.
+     */
+    public enum Type {
+
+        /**
+         * Clock-in, opens a shift.
+         */
+        IN,
+
+        /**
+         * Clock-out, closes the developer's open shift.
+         */
+        OUT
+
+    }
+
+}
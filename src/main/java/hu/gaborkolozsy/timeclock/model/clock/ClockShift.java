@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2017, Gabor Kolozsy. All rights reserved.
+ */
+
+package hu.gaborkolozsy.timeclock.model.clock;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Immutable row of the {@code Working_Hours} table without the entity's 
+ * references, for the bulk writes (see 
+ * {@link hu.gaborkolozsy.timeclock.dao.WorkingHoursDao#insertShifts}).
+ *
+ * @author Gabor Kolozsy (gabor.kolozsy.development@gmail.com)
+ * @since 0.0.1-SNAPSHOT
+ * @see ClockEvent
+ */
+public final class ClockShift {
+
+    private final Long id;
+    private final Long developerId;
+    private final LocalDateTime workStart;
+    private final LocalDateTime workEnd;
+
+    /**
+     * Constructor with all values.
+     * @param id the working hours' ID or null if not yet inserted
+     * @param developerId developer's ID
+     * @param workStart the work's begin
+     * @param workEnd the work's end or null if the shift is open
+     */
+    public ClockShift(Long id, Long developerId, LocalDateTime workStart, 
+                      LocalDateTime workEnd) {
+        this.id = id;
+        this.developerId = developerId;
+        this.workStart = workStart;
+        this.workEnd = workEnd;
+    }
+
+    /**
+     * Returns the working hours' ID.
+     * @return ID or null if not yet inserted
+     */
+    public Long getId() {
+        return id;
+    }
+
+    /**
+     * Returns developer's ID.
+     * @return developer's ID
+     */
+    public Long getDeveloperId() {
+        return developerId;
+    }
+
+    /**
+     * Returns the work day, the day of the work's begin.
+     * @return work day
+     */
+    public LocalDate getDay() {
+        return workStart.toLocalDate();
+    }
+
+    /**
+     * Returns the work's begin.
+     * @return work's begin
+     */
+    public LocalDateTime getWorkStart() {
+        return workStart;
+    }
+
+    /**
+     * Returns the work's end.
+     * @return work's end or null if the shift is open
+     */
+    public LocalDateTime getWorkEnd() {
+        return workEnd;
+    }
+
+    /**
+     * Returns a copy closed at the specified time.
+     * @param workEnd the work's end
+     * @return {@code ClockShift}
+     */
+    public ClockShift close(LocalDateTime workEnd) {
+        return new ClockShift(id, developerId, workStart, workEnd);
+    }
+
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) 2017, Gabor Kolozsy. All rights reserved.
+ */
+
+package hu.gaborkolozsy.timeclock.model.clock;
+
+import java.time.Duration;
+
+/**
+ * Immutable result of a clock events' import.
+ *
+ * @author Gabor Kolozsy (gabor.kolozsy.development@gmail.com)
+ * @since 0.0.1-SNAPSHOT
+ * @see ClockEvent
+ */
+public final class ImportResult {
+
+    private final long resumedFrom;
+    private final long lines;
+    private final long inserted;
+    private final long closed;
+    private final long rejected;
+    private final Duration elapsed;
+
+    /**
+     * Constructor with all values.
+     * @param resumedFrom number of the lines processed by the previous runs
+     * @param lines number of the lines processed by this run
+     * @param inserted number of the inserted shifts
+     * @param closed number of the closed shifts which were open before
+     * @param rejected number of the rejected lines
+     * @param elapsed the run's time
+     */
+    public ImportResult(long resumedFrom, long lines, long inserted, long closed, 
+                        long rejected, Duration elapsed) {
+        this.resumedFrom = resumedFrom;
+        this.lines = lines;
+        this.inserted = inserted;
+        this.closed = closed;
+        this.rejected = rejected;
+        this.elapsed = elapsed;
+    }
+
+    /**
+     * Returns the number of the lines processed by the previous runs, which 
+     * were skipped by this run.
+     * @return number of lines
+     */
+    public long getResumedFrom() {
+        return resumedFrom;
+    }
+
+    /**
+     * Returns the number of the lines processed by this run.
+     * @return number of lines
+     */
+    public long getLines() {
+        return lines;
+    }
+
+    /**
+     * Returns the number of the inserted (closed or open) shifts.
+     * @return number of shifts
+     */
+    public long getInserted() {
+        return inserted;
+    }
+
+    /**
+     * Returns the number of the shifts opened before this run and closed by 
+     * its clock-out events.
+     * @return number of shifts
+     */
+    public long getClosed() {
+        return closed;
+    }
+
+    /**
+     * Returns the number of the rejected lines.
+     * @return number of lines
+     */
+    public long getRejected() {
+        return rejected;
+    }
+
+    /**
+     * Returns the run's time.
+     * @return elapsed time
+     */
+    public Duration getElapsed() {
+        return elapsed;
+    }
+
+    /**
+     * Returns the lines processed per second.
+     * @return throughput
+     */
+    public double getLinesPerSecond() {
+        return elapsed.isZero() ? 0 : lines * 1e9 / elapsed.toNanos();
+    }
+
+    /**
+     * Returns the counts (e.g. <i>1000 lines from 0: 480 inserted, 10 closed, 
+     * 20 rejected in PT1.2S</i>).
+     * @return string
+     */
+    @Override
+    public String toString() {
+        return String.format("%d lines from %d: %d inserted, %d closed, %d rejected in %s", 
+                lines, resumedFrom, inserted, closed, rejected, elapsed);
+    }
+
+}
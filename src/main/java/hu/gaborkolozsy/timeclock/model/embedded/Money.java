@@ -0,0 +1,171 @@
+/*
+ * Copyright (c) 2017, Gabor Kolozsy. All rights reserved.
+ */
+
+package hu.gaborkolozsy.timeclock.model.embedded;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Currency;
+import java.util.Objects;
+import javax.persistence.Column;
+import javax.persistence.Embeddable;
+
+/**
+ * Defines an exact {@code Money} amount whose instances are stored as an
+ * intrinsic part of an owning entity: the amount in the currency's minor
+ * unit (e.g. cent) as a whole number and the currency's code.
+ *
+ * <p>The number of the minor unit's digits is the currency's default
+ * fraction digits, or 2 if the currency is not set or not known. The
+ * amounts are summed up exactly in the database too (see
+ * {@link hu.gaborkolozsy.timeclock.dao.PayDao}).
+ *
+ * <p>The instances are immutable.
+ *
+ * @author Gabor Kolozsy (gabor.kolozsy.development@gmail.com)
+ * @since 0.0.1-SNAPSHOT
+ * @see Currency
+ * @see BigDecimal
+ * @see Column
+ * @see Embeddable
+ */
+@Embeddable
+@SuppressWarnings("SerializableClass")
+public class Money {
+
+    /**
+     * The fraction digits of the not set or not known currencies.
+     */
+    public static final int DEFAULT_FRACTION_DIGITS = 2;
+
+    @Column(name = "Amount_Minor")
+    private long amountMinor;
+
+    @Column(name = "Currency")
+    private String currency;
+
+    /**
+     * Constructor for {@code Hibernate}.
+     */
+    protected Money() {
+    }
+
+    /**
+     * Constructor with the amount in minor unit and the currency.
+     * @param amountMinor the amount in the currency's minor unit
+     * @param currency the currency's code (e.g. <i>EUR</i>) or null
+     */
+    public Money(long amountMinor, String currency) {
+        this.amountMinor = amountMinor;
+        this.currency = currency;
+    }
+
+    /**
+     * Create a {@code Money} from an amount. The amount is rounded half-even
+     * to the currency's minor unit.
+     * @param amount the amount (e.g. <i>531.72</i>)
+     * @param currency the currency's code (e.g. <i>EUR</i>) or null
+     * @return {@code Money}
+     * @throws ArithmeticException if the amount does not fit in the minor
+     *         unit's range
+     */
+    public static Money of(BigDecimal amount, String currency) {
+        return new Money(amount.setScale(getFractionDigits(currency), RoundingMode.HALF_EVEN)
+                .unscaledValue()
+                .longValueExact(), currency);
+    }
+
+    /**
+     * Returns the number of the currency's minor unit digits.
+     * @param currency the currency's code or null
+     * @return the fraction digits
+     */
+    public static int getFractionDigits(String currency) {
+        if (currency == null) {
+            return DEFAULT_FRACTION_DIGITS;
+        }
+        try {
+            int digits = Currency.getInstance(currency).getDefaultFractionDigits();
+            return digits < 0 ? DEFAULT_FRACTION_DIGITS : digits;
+        } catch (IllegalArgumentException ex) {
+            return DEFAULT_FRACTION_DIGITS;
+        }
+    }
+
+    /**
+     * Returns the amount in the currency's minor unit.
+     * @return amount in minor unit
+     */
+    public long getAmountMinor() {
+        return amountMinor;
+    }
+
+    /**
+     * Returns the currency's code.
+     * @return currency or null
+     */
+    public String getCurrency() {
+        return currency;
+    }
+
+    /**
+     * Returns the exact amount (e.g. <i>531.72</i>).
+     * @return amount
+     */
+    public BigDecimal getAmount() {
+        return BigDecimal.valueOf(amountMinor, getFractionDigits(currency));
+    }
+
+    /**
+     * Returns the sum of this and the other amount.
+     * @param other {@code Money} in the same currency
+     * @return {@code Money}
+     * @throws IllegalArgumentException if the currencies are different
+     * @throws ArithmeticException if the sum overflows
+     */
+    public Money plus(Money other) {
+        if (!Objects.equals(currency, other.currency)) {
+            throw new IllegalArgumentException("Different currencies: " + currency + ", "
+                    + other.currency + "!");
+        }
+        return new Money(Math.addExact(amountMinor, other.amountMinor), currency);
+    }
+
+    /**
+     * Returns the hash code.
+     * @return hash code
+     */
+    @Override
+    public int hashCode() {
+        return Objects.hash(amountMinor, currency);
+    }
+
+    /**
+     * Compare the amounts and the currencies.
+     * @param obj other object
+     * @return true if the amounts are equal
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof Money)) {
+            return false;
+        }
+        Money other = (Money) obj;
+        return amountMinor == other.amountMinor && Objects.equals(currency, other.currency);
+    }
+
+    /**
+     * Returns the amount and the currency (e.g. <i>531.72 EUR</i>).
+     * @return string
+     */
+    @Override
+    public String toString() {
+        return currency == null ? getAmount().toPlainString()
+                : getAmount().toPlainString() + " " + currency;
+    }
+
+}
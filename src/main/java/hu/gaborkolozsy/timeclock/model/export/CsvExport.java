@@ -0,0 +1,157 @@
+/*
+ * Copyright (c) 2017, Gabor Kolozsy. All rights reserved.
+ */
+
+package hu.gaborkolozsy.timeclock.model.export;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Immutable parameters of a CSV export: the table, the selected columns, the 
+ * optional date range and the compression.
+ *
+ * @author Gabor Kolozsy (gabor.kolozsy.development@gmail.com)
+ * @since 0.0.1-SNAPSHOT
+ * @see CsvExportBuilder
+ * @see ExportTable
+ */
+public final class CsvExport {
+
+    private final ExportTable table;
+    private final List<String> columns;
+    private final LocalDate from;
+    private final LocalDate to;
+    private final boolean gzip;
+
+    /**
+     * Constructor for the builder.
+     * @param builder {@code CsvExportBuilder}
+     */
+    private CsvExport(CsvExportBuilder builder) {
+        this.table = builder.table;
+        this.columns = builder.columns.isEmpty() ? table.getColumns() 
+                : Collections.unmodifiableList(new ArrayList<>(builder.columns));
+        this.from = builder.from;
+        this.to = builder.to;
+        this.gzip = builder.gzip;
+    }
+
+    /**
+     * Returns the exported table.
+     * @return {@code ExportTable}
+     */
+    public ExportTable getTable() {
+        return table;
+    }
+
+    /**
+     * Returns the exported columns in the file's order.
+     * @return columns' name (unmodifiable)
+     */
+    public List<String> getColumns() {
+        return columns;
+    }
+
+    /**
+     * Returns the date range's first day.
+     * @return the first day (inclusive) or null if not filtered
+     */
+    public LocalDate getFrom() {
+        return from;
+    }
+
+    /**
+     * Returns the date range's last day.
+     * @return the last day (inclusive) or null if not filtered
+     */
+    public LocalDate getTo() {
+        return to;
+    }
+
+    /**
+     * Check if the file is compressed.
+     * @return true if gzip compressed
+     */
+    public boolean isGzip() {
+        return gzip;
+    }
+
+    /**
+     * Builder of the {@link CsvExport}.
+     */
+    public static final class CsvExportBuilder {
+
+        private final ExportTable table;
+        private final Set<String> columns = new LinkedHashSet<>();
+        private LocalDate from;
+        private LocalDate to;
+        private boolean gzip;
+
+        /**
+         * Constructor with the exported table.
+         * @param table {@code ExportTable}
+         */
+        public CsvExportBuilder(ExportTable table) {
+            this.table = table;
+        }
+
+        /**
+         * Select the exported columns, in the file's order. Every column is 
+         * exported if none is selected.
+         * @param columns columns' name in any case
+         * @return {@code CsvExportBuilder}
+         * @throws IllegalArgumentException if the table has not a column
+         */
+        public CsvExportBuilder setColumns(String... columns) {
+            for (String column : columns) {
+                this.columns.add(table.getColumn(column));
+            }
+            return this;
+        }
+
+        /**
+         * Set the date range of the table's date column.
+         * @param from the first day (inclusive)
+         * @param to the last day (inclusive)
+         * @return {@code CsvExportBuilder}
+         */
+        public CsvExportBuilder setPeriod(LocalDate from, LocalDate to) {
+            this.from = from;
+            this.to = to;
+            return this;
+        }
+
+        /**
+         * Set the gzip compression.
+         * @param gzip true if the file is compressed
+         * @return {@code CsvExportBuilder}
+         */
+        public CsvExportBuilder setGzip(boolean gzip) {
+            this.gzip = gzip;
+            return this;
+        }
+
+        /**
+         * Build the {@link CsvExport}.
+         * @return {@code CsvExport}
+         * @throws IllegalArgumentException if the table is missing, or only 
+         *         one end of the period is set, or the period is invalid
+         */
+        public CsvExport build() {
+            if (table == null) {
+                throw new IllegalArgumentException("Missing table!");
+            }
+            if ((from == null) != (to == null) || from != null && from.isAfter(to)) {
+                throw new IllegalArgumentException("Invalid period: " + from + " - " + to + "!");
+            }
+            return new CsvExport(this);
+        }
+
+    }
+
+}
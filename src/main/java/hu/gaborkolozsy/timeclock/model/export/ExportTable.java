@@ -0,0 +1,107 @@
+/*
+ * Copyright (c) 2017, Gabor Kolozsy. All rights reserved.
+ */
+
+package hu.gaborkolozsy.timeclock.model.export;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The exportable tables with their columns and the column of the date range 
+ * filter.
+ *
+ * @author Gabor Kolozsy (gabor.kolozsy.development@gmail.com)
+ * @since 0.0.1-SNAPSHOT
+ * @see CsvExport
+ */
+public enum ExportTable {
+
+    /**
+     * The shifts, filtered by the work day.
+     */
+    WORKING_HOURS("Working_Hours", "Work_Day", false, "Id", "Developer_Id", "Work_Day", 
+            "Work_Begin", "Work_End", "Created", "Created_By", "Updated", "Updated_By", 
+            "Version"),
+
+    /**
+     * The jobs, filtered by the creation's day.
+     */
+    JOB("Job", "Created", true, "Id", "Order_Number", "Customer_Id", "Project", "Branch", 
+            "Package", "Class_Name", "Status", "Comment", "Created", "Created_By", "Updated", 
+            "Updated_By", "Version"),
+
+    /**
+     * The payments, filtered by the creation's day.
+     */
+    PAY("Pay", "Created", true, "Id", "Pay_Id", "Order_Number", "Amount_Minor", "Currency", 
+            "Payment_Time", "Payable", "Paid", "Created", "Created_By", "Updated", 
+            "Updated_By", "Version");
+
+    private final String tableName;
+    private final String dateColumn;
+    private final boolean timestamp;
+    private final List<String> columns;
+
+    /**
+     * Constructor with the table's name and columns.
+     * @param tableName the table's name
+     * @param dateColumn the column of the date range filter
+     * @param timestamp true if the date column is a timestamp
+     * @param columns the exportable columns
+     */
+    ExportTable(String tableName, String dateColumn, boolean timestamp, String... columns) {
+        this.tableName = tableName;
+        this.dateColumn = dateColumn;
+        this.timestamp = timestamp;
+        this.columns = Collections.unmodifiableList(Arrays.asList(columns));
+    }
+
+    /**
+     * Returns the table's name.
+     * @return table's name
+     */
+    public String getTableName() {
+        return tableName;
+    }
+
+    /**
+     * Returns the column of the date range filter.
+     * @return column's name
+     */
+    public String getDateColumn() {
+        return dateColumn;
+    }
+
+    /**
+     * Check if the date column is a timestamp.
+     * @return true if timestamp, false if date
+     */
+    public boolean isTimestamp() {
+        return timestamp;
+    }
+
+    /**
+     * Returns the exportable columns in the table's order.
+     * @return columns' name (unmodifiable)
+     */
+    public List<String> getColumns() {
+        return columns;
+    }
+
+    /**
+     * Returns the exportable column's name in the table's case.
+     * @param column the column's name in any case
+     * @return column's name
+     * @throws IllegalArgumentException if the table has not the column
+     */
+    public String getColumn(String column) {
+        return columns.stream()
+                .filter(column::equalsIgnoreCase)
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Unknown column of " 
+                        + tableName + ": " + column + "!"));
+    }
+
+}
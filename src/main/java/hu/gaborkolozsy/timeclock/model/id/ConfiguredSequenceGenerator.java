@@ -0,0 +1,65 @@
+/*
+ * Copyright (c) 2017, Gabor Kolozsy. All rights reserved.
+ */
+
+package hu.gaborkolozsy.timeclock.model.id;
+
+import java.util.Properties;
+import org.hibernate.MappingException;
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.type.Type;
+
+/**
+ * Sequence based identifier generator which allocation (increment) size
+ * comes from the {@code Hibernate} settings instead of the mapping.
+ *
+ * <p>The size of the sequence's ID block is read from the
+ * <strong>hibernate.id.&#060;sequence name&#062;.increment_size</strong>
+ * setting (e.g. <i>hibernate.id.workingHoursSEQ.increment_size</i>), and
+ * the optimizer from <strong>hibernate.id.optimizer.pooled.preferred</strong>
+ * (<i>pooled</i> or <i>pooled-lo</i>). Both optimizers take a whole block
+ * with one <i>next value</i> call, therefore several application instances
+ * can share the sequence as long as they use the same optimizer and the
+ * database sequence's increment equals with the block size.
+ *
+ * @author Gabor Kolozsy (gabor.kolozsy.development@gmail.com)
+ * @since 0.0.1-SNAPSHOT
+ * @see SequenceStyleGenerator
+ * @see ConfigurationService
+ */
+public class ConfiguredSequenceGenerator extends SequenceStyleGenerator {
+
+    /**
+     * The generator's strategy name for the {@code @GenericGenerator}.
+     */
+    public static final String STRATEGY =
+            "hu.gaborkolozsy.timeclock.model.id.ConfiguredSequenceGenerator";
+
+    /**
+     * The increment size setting's format, the argument is the sequence name.
+     */
+    public static final String INCREMENT_SETTING = "hibernate.id.%s.increment_size";
+
+    /**
+     * Set the increment size from the settings, after configure as a
+     * {@code SequenceStyleGenerator}.
+     * @param type the identifier's type
+     * @param params the generator's parameters
+     * @param serviceRegistry the service registry
+     * @throws MappingException if the configuration is invalid
+     */
+    @Override
+    public void configure(Type type, Properties params, ServiceRegistry serviceRegistry)
+            throws MappingException {
+        String setting = String.format(INCREMENT_SETTING, params.getProperty(SEQUENCE_PARAM));
+        Object incrementSize = serviceRegistry.getService(ConfigurationService.class)
+                .getSettings().get(setting);
+        if (incrementSize != null) {
+            params.setProperty(INCREMENT_PARAM, incrementSize.toString().trim());
+        }
+        super.configure(type, params, serviceRegistry);
+    }
+
+}
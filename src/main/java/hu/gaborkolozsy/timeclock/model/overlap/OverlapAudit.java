@@ -0,0 +1,95 @@
+/*
+ * Copyright (c) 2017, Gabor Kolozsy. All rights reserved.
+ */
+
+package hu.gaborkolozsy.timeclock.model.overlap;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Immutable result of the overlaps' and the gaps' audit of every working 
+ * hours.
+ *
+ * @author Gabor Kolozsy (gabor.kolozsy.development@gmail.com)
+ * @since 0.0.1-SNAPSHOT
+ * @see ShiftOverlap
+ * @see ShiftGap
+ */
+public final class OverlapAudit {
+
+    private final int developers;
+    private final long shifts;
+    private final List<ShiftOverlap> overlaps;
+    private final List<ShiftGap> gaps;
+    private final Duration elapsed;
+
+    /**
+     * Constructor with all values.
+     * @param developers number of the audited developers
+     * @param shifts number of the audited shifts
+     * @param overlaps the overlaps ordered by developer and shifts
+     * @param gaps the gaps ordered by developer and time
+     * @param elapsed the audit's time
+     */
+    public OverlapAudit(int developers, long shifts, List<ShiftOverlap> overlaps, 
+                        List<ShiftGap> gaps, Duration elapsed) {
+        this.developers = developers;
+        this.shifts = shifts;
+        this.overlaps = Collections.unmodifiableList(overlaps);
+        this.gaps = Collections.unmodifiableList(gaps);
+        this.elapsed = elapsed;
+    }
+
+    /**
+     * Returns the number of the audited developers.
+     * @return number of developers
+     */
+    public int getDevelopers() {
+        return developers;
+    }
+
+    /**
+     * Returns the number of the audited shifts.
+     * @return number of shifts
+     */
+    public long getShifts() {
+        return shifts;
+    }
+
+    /**
+     * Returns every overlapping pair of shifts.
+     * @return the overlaps ordered by developer and shifts (unmodifiable)
+     */
+    public List<ShiftOverlap> getOverlaps() {
+        return overlaps;
+    }
+
+    /**
+     * Returns the gaps between the shifts of the same day.
+     * @return the gaps ordered by developer and time (unmodifiable)
+     */
+    public List<ShiftGap> getGaps() {
+        return gaps;
+    }
+
+    /**
+     * Returns the audit's time.
+     * @return elapsed time
+     */
+    public Duration getElapsed() {
+        return elapsed;
+    }
+
+    /**
+     * Returns the numbers of the audit.
+     * @return string
+     */
+    @Override
+    public String toString() {
+        return String.format("%d shifts of %d developers: %d overlaps, %d gaps in %s", 
+                shifts, developers, overlaps.size(), gaps.size(), elapsed);
+    }
+
+}
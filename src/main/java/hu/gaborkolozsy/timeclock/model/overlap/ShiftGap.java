@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) 2017, Gabor Kolozsy. All rights reserved.
+ */
+
+package hu.gaborkolozsy.timeclock.model.overlap;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * Immutable gap between two shifts of a developer on the same day: the 
+ * time between the end of the earlier shifts and the begin of the next one.
+ *
+ * @author Gabor Kolozsy (gabor.kolozsy.development@gmail.com)
+ * @since 0.0.1-SNAPSHOT
+ * @see OverlapAudit
+ */
+public final class ShiftGap {
+
+    private final Long developerId;
+    private final Long beforeId;
+    private final Long afterId;
+    private final LocalDateTime start;
+    private final LocalDateTime end;
+
+    /**
+     * Constructor with all values.
+     * @param developerId developer's ID
+     * @param beforeId the ID of the shift which ends at the gap's start
+     * @param afterId the ID of the shift which begins at the gap's end
+     * @param start the gap's start
+     * @param end the gap's end
+     */
+    public ShiftGap(Long developerId, Long beforeId, Long afterId, LocalDateTime start, 
+                    LocalDateTime end) {
+        this.developerId = developerId;
+        this.beforeId = beforeId;
+        this.afterId = afterId;
+        this.start = start;
+        this.end = end;
+    }
+
+    /**
+     * Returns the developer's ID.
+     * @return developer's ID
+     */
+    public Long getDeveloperId() {
+        return developerId;
+    }
+
+    /**
+     * Returns the ID of the shift which ends at the gap's start.
+     * @return the working hours' ID
+     */
+    public Long getBeforeId() {
+        return beforeId;
+    }
+
+    /**
+     * Returns the ID of the shift which begins at the gap's end.
+     * @return the working hours' ID
+     */
+    public Long getAfterId() {
+        return afterId;
+    }
+
+    /**
+     * Returns the gap's start.
+     * @return start
+     */
+    public LocalDateTime getStart() {
+        return start;
+    }
+
+    /**
+     * Returns the gap's end.
+     * @return end
+     */
+    public LocalDateTime getEnd() {
+        return end;
+    }
+
+    /**
+     * Returns the gap's length.
+     * @return duration
+     */
+    public Duration getDuration() {
+        return Duration.between(start, end);
+    }
+
+    /**
+     * Returns the shifts and the gap (e.g. <i>100: 1 - 2 
+     * [2017-01-02T12:00, 2017-01-02T12:30)</i>).
+     * @return string
+     */
+    @Override
+    public String toString() {
+        return developerId + ": " + beforeId + " - " + afterId + " [" + start + ", " + end + ")";
+    }
+
+}
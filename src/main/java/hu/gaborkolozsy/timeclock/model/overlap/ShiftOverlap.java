@@ -0,0 +1,106 @@
+/*
+ * Copyright (c) 2017, Gabor Kolozsy. All rights reserved.
+ */
+
+package hu.gaborkolozsy.timeclock.model.overlap;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * Immutable overlap of two shifts of a developer: the time which is 
+ * counted by both.
+ * 
+ * <p>The shifts are half-open intervals (the end is excluded), so a shift 
+ * which begins at the end of the other one does not overlap it. The open 
+ * shift lasts forever.
+ *
+ * @author Gabor Kolozsy (gabor.kolozsy.development@gmail.com)
+ * @since 0.0.1-SNAPSHOT
+ * @see OverlapAudit
+ */
+public final class ShiftOverlap {
+
+    private final Long developerId;
+    private final Long firstId;
+    private final Long secondId;
+    private final LocalDateTime start;
+    private final LocalDateTime end;
+
+    /**
+     * Constructor with all values.
+     * @param developerId developer's ID
+     * @param firstId the earlier (existing) shift's ID
+     * @param secondId the later (new) shift's ID, or null if it is not saved
+     * @param start the overlap's start
+     * @param end the overlap's end, or null if both shifts are open
+     */
+    public ShiftOverlap(Long developerId, Long firstId, Long secondId, LocalDateTime start, 
+                        LocalDateTime end) {
+        this.developerId = developerId;
+        this.firstId = firstId;
+        this.secondId = secondId;
+        this.start = start;
+        this.end = end;
+    }
+
+    /**
+     * Returns the developer's ID.
+     * @return developer's ID
+     */
+    public Long getDeveloperId() {
+        return developerId;
+    }
+
+    /**
+     * Returns the earlier (existing) shift's ID.
+     * @return the working hours' ID
+     */
+    public Long getFirstId() {
+        return firstId;
+    }
+
+    /**
+     * Returns the later (new) shift's ID.
+     * @return the working hours' ID or null if it is not saved
+     */
+    public Long getSecondId() {
+        return secondId;
+    }
+
+    /**
+     * Returns the overlap's start.
+     * @return start
+     */
+    public LocalDateTime getStart() {
+        return start;
+    }
+
+    /**
+     * Returns the overlap's end.
+     * @return end or null if both shifts are open
+     */
+    public LocalDateTime getEnd() {
+        return end;
+    }
+
+    /**
+     * Returns the overlap's length.
+     * @return duration or null if both shifts are open
+     */
+    public Duration getDuration() {
+        return end == null ? null : Duration.between(start, end);
+    }
+
+    /**
+     * Returns the shifts and the overlap (e.g. <i>100: 1 &amp; 2 
+     * [2017-01-02T08:00, 2017-01-02T09:00)</i>).
+     * @return string
+     */
+    @Override
+    public String toString() {
+        return developerId + ": " + firstId + " & " + secondId + " [" + start + ", " 
+                + (end == null ? "open" : end) + ")";
+    }
+
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright (c) 2017, Gabor Kolozsy. All rights reserved.
+ */
+
+package hu.gaborkolozsy.timeclock.model.payroll;
+
+import java.math.BigDecimal;
+import java.util.Objects;
+
+/**
+ * Immutable hourly rate of a developer or of a customer.
+ *
+ * @author Gabor Kolozsy (gabor.kolozsy.development@gmail.com)
+ * @since 0.0.1-SNAPSHOT
+ * @see PayrollRun
+ * @see BigDecimal
+ */
+public final class PayRate {
+
+    private final BigDecimal hourly;
+    private final String currency;
+
+    /**
+     * Constructor with the hourly amount and its currency.
+     * @param hourly the amount of an hour
+     * @param currency the currency's code (e.g. <i>EUR</i>)
+     * @throws IllegalArgumentException if the amount is negative
+     */
+    public PayRate(BigDecimal hourly, String currency) {
+        if (hourly.signum() < 0) {
+            throw new IllegalArgumentException("The hourly rate " + hourly + " is negative!");
+        }
+        this.hourly = hourly;
+        this.currency = Objects.requireNonNull(currency, "Currency is null!");
+    }
+
+    /**
+     * Returns the amount of an hour.
+     * @return the hourly amount
+     */
+    public BigDecimal getHourly() {
+        return hourly;
+    }
+
+    /**
+     * Returns the currency's code.
+     * @return currency
+     */
+    public String getCurrency() {
+        return currency;
+    }
+
+    /**
+     * Returns the rate as a string.
+     * @return string
+     */
+    @Override
+    public String toString() {
+        return hourly + " " + currency + "/h";
+    }
+
+}
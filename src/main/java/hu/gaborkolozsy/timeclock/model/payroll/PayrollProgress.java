@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) 2017, Gabor Kolozsy. All rights reserved.
+ */
+
+package hu.gaborkolozsy.timeclock.model.payroll;
+
+import java.time.Duration;
+
+/**
+ * Immutable progress of a payroll run's computation.
+ *
+ * @author Gabor Kolozsy (gabor.kolozsy.development@gmail.com)
+ * @since 0.0.1-SNAPSHOT
+ * @see PayrollResult
+ */
+public final class PayrollProgress {
+
+    private final int developers;
+    private final int totalDevelopers;
+    private final long shifts;
+    private final Duration elapsed;
+
+    /**
+     * Constructor with all values.
+     * @param developers number of the computed developers
+     * @param totalDevelopers number of the paid developers
+     * @param shifts number of the computed shifts
+     * @param elapsed the elapsed time since the run started
+     */
+    public PayrollProgress(int developers, int totalDevelopers, long shifts, Duration elapsed) {
+        this.developers = developers;
+        this.totalDevelopers = totalDevelopers;
+        this.shifts = shifts;
+        this.elapsed = elapsed;
+    }
+
+    /**
+     * Returns the number of the computed developers.
+     * @return number of developers
+     */
+    public int getDevelopers() {
+        return developers;
+    }
+
+    /**
+     * Returns the number of the paid developers.
+     * @return number of developers
+     */
+    public int getTotalDevelopers() {
+        return totalDevelopers;
+    }
+
+    /**
+     * Returns the number of the computed shifts.
+     * @return number of shifts
+     */
+    public long getShifts() {
+        return shifts;
+    }
+
+    /**
+     * Returns the elapsed time since the run started.
+     * @return elapsed time
+     */
+    public Duration getElapsed() {
+        return elapsed;
+    }
+
+    /**
+     * Returns the throughput.
+     * @return computed shifts per second
+     */
+    public double getShiftsPerSecond() {
+        return elapsed.isZero() ? 0 : shifts * 1e9 / elapsed.toNanos();
+    }
+
+    /**
+     * Returns the progress as a string.
+     * @return string
+     */
+    @Override
+    public String toString() {
+        return String.format("%d/%d developers, %d shifts, %.0f shifts/s", developers, 
+                totalDevelopers, shifts, getShiftsPerSecond());
+    }
+
+}
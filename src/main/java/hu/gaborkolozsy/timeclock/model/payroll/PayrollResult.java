@@ -0,0 +1,81 @@
+/*
+ * Copyright (c) 2017, Gabor Kolozsy. All rights reserved.
+ */
+
+package hu.gaborkolozsy.timeclock.model.payroll;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Immutable result of a payroll run.
+ *
+ * @author Gabor Kolozsy (gabor.kolozsy.development@gmail.com)
+ * @since 0.0.1-SNAPSHOT
+ * @see PayrollProgress
+ */
+public final class PayrollResult {
+
+    private final PayrollProgress progress;
+    private final int openShifts;
+    private final List<String> created;
+    private final List<String> skipped;
+
+    /**
+     * Constructor with all values.
+     * @param progress the final progress
+     * @param openShifts number of the not paid open shifts
+     * @param created the created pays' ID
+     * @param skipped the already existing pays' ID
+     */
+    public PayrollResult(PayrollProgress progress, int openShifts, List<String> created, 
+                         List<String> skipped) {
+        this.progress = progress;
+        this.openShifts = openShifts;
+        this.created = Collections.unmodifiableList(created);
+        this.skipped = Collections.unmodifiableList(skipped);
+    }
+
+    /**
+     * Returns the final progress with the throughput of the whole run.
+     * @return {@code PayrollProgress}
+     */
+    public PayrollProgress getProgress() {
+        return progress;
+    }
+
+    /**
+     * Returns the number of the open shifts in the period, which are not paid.
+     * @return number of open shifts
+     */
+    public int getOpenShifts() {
+        return openShifts;
+    }
+
+    /**
+     * Returns the created pays' ID.
+     * @return pays' ID
+     */
+    public List<String> getCreated() {
+        return created;
+    }
+
+    /**
+     * Returns the pays' ID which existed already, so they are not created.
+     * @return pays' ID
+     */
+    public List<String> getSkipped() {
+        return skipped;
+    }
+
+    /**
+     * Returns the result as a string.
+     * @return string
+     */
+    @Override
+    public String toString() {
+        return progress + ", " + created.size() + " created, " + skipped.size() + " skipped";
+    }
+
+}
@@ -0,0 +1,168 @@
+/*
+ * Copyright (c) 2017, Gabor Kolozsy. All rights reserved.
+ */
+
+package hu.gaborkolozsy.timeclock.model.payroll;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Immutable parameters of a payroll run: the period, the job of every paid 
+ * developer and the rates.
+ * 
+ * <p>A developer's worked time is paid by the rate of its job's customer, 
+ * or if the customer has no rate, by the developer's own rate. One 
+ * {@code Pay} is created per job with the {@link #getPayId(Long)} ID, so 
+ * the run can be repeated.
+ *
+ * @author Gabor Kolozsy (gabor.kolozsy.development@gmail.com)
+ * @since 0.0.1-SNAPSHOT
+ * @see PayrollRunBuilder
+ * @see PayRate
+ */
+public final class PayrollRun {
+
+    private final LocalDate from;
+    private final LocalDate to;
+    private final Map<Long, Long> jobs;
+    private final Map<Long, PayRate> developerRates;
+    private final Map<Long, PayRate> customerRates;
+
+    /**
+     * Constructor for the builder.
+     * @param builder {@code PayrollRunBuilder}
+     */
+    private PayrollRun(PayrollRunBuilder builder) {
+        this.from = builder.from;
+        this.to = builder.to;
+        this.jobs = Collections.unmodifiableMap(new LinkedHashMap<>(builder.jobs));
+        this.developerRates = Collections.unmodifiableMap(new HashMap<>(builder.developerRates));
+        this.customerRates = Collections.unmodifiableMap(new HashMap<>(builder.customerRates));
+    }
+
+    /**
+     * Returns the period's first day.
+     * @return the first work day (inclusive)
+     */
+    public LocalDate getFrom() {
+        return from;
+    }
+
+    /**
+     * Returns the period's last day.
+     * @return the last work day (inclusive)
+     */
+    public LocalDate getTo() {
+        return to;
+    }
+
+    /**
+     * Returns the paid developers' job.
+     * @return the job's order number by developer's ID
+     */
+    public Map<Long, Long> getJobs() {
+        return jobs;
+    }
+
+    /**
+     * Returns the developers' rate.
+     * @return the rate by developer's ID
+     */
+    public Map<Long, PayRate> getDeveloperRates() {
+        return developerRates;
+    }
+
+    /**
+     * Returns the customers' rate.
+     * @return the rate by customer's ID
+     */
+    public Map<Long, PayRate> getCustomerRates() {
+        return customerRates;
+    }
+
+    /**
+     * Returns the ID of the job's {@code Pay} in this period, e.g. 
+     * <i>PR-20170101-100</i>.
+     * @param orderNumber the job's order number
+     * @return pay's ID
+     */
+    public String getPayId(Long orderNumber) {
+        return "PR-" + from.format(DateTimeFormatter.BASIC_ISO_DATE) + "-" + orderNumber;
+    }
+
+    /**
+     * Builder of the {@link PayrollRun}.
+     */
+    public static final class PayrollRunBuilder {
+
+        private LocalDate from;
+        private LocalDate to;
+        private final Map<Long, Long> jobs = new LinkedHashMap<>();
+        private final Map<Long, PayRate> developerRates = new HashMap<>();
+        private final Map<Long, PayRate> customerRates = new HashMap<>();
+
+        /**
+         * Set the period.
+         * @param from the first work day (inclusive)
+         * @param to the last work day (inclusive)
+         * @return {@code PayrollRunBuilder}
+         */
+        public PayrollRunBuilder setPeriod(LocalDate from, LocalDate to) {
+            this.from = from;
+            this.to = to;
+            return this;
+        }
+
+        /**
+         * Set the developer's job in the period.
+         * @param developerId developer's ID
+         * @param orderNumber the job's order number
+         * @return {@code PayrollRunBuilder}
+         */
+        public PayrollRunBuilder setJob(Long developerId, Long orderNumber) {
+            jobs.put(developerId, orderNumber);
+            return this;
+        }
+
+        /**
+         * Set the developer's rate.
+         * @param developerId developer's ID
+         * @param rate {@code PayRate}
+         * @return {@code PayrollRunBuilder}
+         */
+        public PayrollRunBuilder setDeveloperRate(Long developerId, PayRate rate) {
+            developerRates.put(developerId, rate);
+            return this;
+        }
+
+        /**
+         * Set the customer's rate, which overrides its developers' rate.
+         * @param customerId customer's ID
+         * @param rate {@code PayRate}
+         * @return {@code PayrollRunBuilder}
+         */
+        public PayrollRunBuilder setCustomerRate(Long customerId, PayRate rate) {
+            customerRates.put(customerId, rate);
+            return this;
+        }
+
+        /**
+         * Build the {@link PayrollRun}.
+         * @return {@code PayrollRun}
+         * @throws IllegalArgumentException if the period is missing or invalid
+         */
+        public PayrollRun build() {
+            if (from == null || to == null || from.isAfter(to)) {
+                throw new IllegalArgumentException("Invalid period: " + from + " - " + to + "!");
+            }
+            return new PayrollRun(this);
+        }
+
+    }
+
+}
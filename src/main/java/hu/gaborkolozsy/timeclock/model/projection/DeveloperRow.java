@@ -0,0 +1,69 @@
+/*
+ * Copyright (c) 2017, Gabor Kolozsy. All rights reserved.
+ */
+
+package hu.gaborkolozsy.timeclock.model.projection;
+
+/**
+ * Immutable row of a developer list: the developer's ID and name.
+ *
+ * <p>It is created by a JPQL constructor expression, so it is not managed
+ * by the persistence context and it carries no {@code Audit}, address nor
+ * working hours.
+ *
+ * @author Gabor Kolozsy (gabor.kolozsy.development@gmail.com)
+ * @since 0.0.1-SNAPSHOT
+ * @see JobRow
+ */
+public final class DeveloperRow {
+
+    private final Long developerId;
+    private final String forename;
+    private final String lastName;
+
+    /**
+     * Constructor with all values.
+     * @param developerId developer's ID
+     * @param forename developer's forename
+     * @param lastName developer's last name
+     */
+    public DeveloperRow(Long developerId, String forename, String lastName) {
+        this.developerId = developerId;
+        this.forename = forename;
+        this.lastName = lastName;
+    }
+
+    /**
+     * Returns developer's ID.
+     * @return developer's ID
+     */
+    public Long getDeveloperId() {
+        return developerId;
+    }
+
+    /**
+     * Returns developer's forename.
+     * @return developer's forename
+     */
+    public String getForename() {
+        return forename;
+    }
+
+    /**
+     * Returns developer's last name.
+     * @return developer's last name
+     */
+    public String getLastName() {
+        return lastName;
+    }
+
+    /**
+     * Returns the row's values separated with commas.
+     * @return string
+     */
+    @Override
+    public String toString() {
+        return developerId + ", " + forename + ", " + lastName;
+    }
+
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright (c) 2017, Gabor Kolozsy. All rights reserved.
+ */
+
+package hu.gaborkolozsy.timeclock.model.projection;
+
+/**
+ * Immutable row of a job list: the job's order number, project and status
+ * together with its customer's ID and name.
+ *
+ * <p>It is created by a JPQL constructor expression, so it is not managed
+ * by the persistence context and it carries no {@code Audit} nor any
+ * association.
+ *
+ * @author Gabor Kolozsy (gabor.kolozsy.development@gmail.com)
+ * @since 0.0.1-SNAPSHOT
+ * @see DeveloperRow
+ */
+public final class JobRow {
+
+    private final Long orderNumber;
+    private final String projectName;
+    private final String status;
+    private final Long customerId;
+    private final String customerName;
+
+    /**
+     * Constructor with all values.
+     * @param orderNumber job's order No.
+     * @param projectName project's name
+     * @param status project's status
+     * @param customerId customer's ID
+     * @param customerName customer's name
+     */
+    public JobRow(Long orderNumber, String projectName, String status, Long customerId,
+                  String customerName) {
+        this.orderNumber = orderNumber;
+        this.projectName = projectName;
+        this.status = status;
+        this.customerId = customerId;
+        this.customerName = customerName;
+    }
+
+    /**
+     * Returns job's order number.
+     * @return job's order number
+     */
+    public Long getOrderNumber() {
+        return orderNumber;
+    }
+
+    /**
+     * Returns project's name.
+     * @return project's name
+     */
+    public String getProjectName() {
+        return projectName;
+    }
+
+    /**
+     * Returns project's status.
+     * @return project's status
+     */
+    public String getStatus() {
+        return status;
+    }
+
+    /**
+     * Returns customer's ID.
+     * @return customer's ID
+     */
+    public Long getCustomerId() {
+        return customerId;
+    }
+
+    /**
+     * Returns customer's name.
+     * @return customer's name
+     */
+    public String getCustomerName() {
+        return customerName;
+    }
+
+    /**
+     * Returns the row's values separated with commas.
+     * @return string
+     */
+    @Override
+    public String toString() {
+        return orderNumber + ", " + projectName + ", " + status + ", " + customerId + ", "
+                + customerName;
+    }
+
+}
@@ -0,0 +1,41 @@
+/*
+ * Copyright (c) 2017, Gabor Kolozsy. All rights reserved.
+ */
+
+package hu.gaborkolozsy.timeclock.model.timesheet;
+
+/**
+ * How the timesheet counts the open shifts, which have no end yet 
+ * ({@code Work_End} is null).
+ * 
+ * <p>The open shifts are always counted in the {@link TimesheetEntry}'s 
+ * <i>openShifts</i>, the policy decides only their duration.
+ *
+ * @author Gabor Kolozsy (gabor.kolozsy.development@gmail.com)
+ * @since 0.0.1-SNAPSHOT
+ * @see TimesheetEntry
+ */
+public enum OpenShiftPolicy {
+
+    /**
+     * The open shifts' duration is zero.
+     */
+    EXCLUDE,
+
+    /**
+     * The open shifts last until the time of the query.
+     */
+    UNTIL_NOW,
+
+    /**
+     * The open shifts last until the end (midnight) of their work day.
+     */
+    UNTIL_END_OF_DAY,
+
+    /**
+     * The timesheet is refused with an {@code IllegalStateException} if it 
+     * contains any open shift.
+     */
+    REJECT
+
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright (c) 2017, Gabor Kolozsy. All rights reserved.
+ */
+
+package hu.gaborkolozsy.timeclock.model.timesheet;
+
+import java.time.Duration;
+import java.time.LocalDate;
+
+/**
+ * Immutable row of a timesheet: a developer's worked time in a period.
+ *
+ * @author Gabor Kolozsy (gabor.kolozsy.development@gmail.com)
+ * @since 0.0.1-SNAPSHOT
+ * @see TimesheetPeriod
+ * @see OpenShiftPolicy
+ * @see Duration
+ */
+public final class TimesheetEntry {
+
+    private final Long developerId;
+    private final LocalDate periodStart;
+    private final long durationMillis;
+    private final int shifts;
+    private final int openShifts;
+
+    /**
+     * Constructor with all values.
+     * @param developerId developer's ID
+     * @param periodStart the period's first day or null by the total
+     * @param durationMillis the worked time in milliseconds
+     * @param shifts number of shifts
+     * @param openShifts number of open shifts
+     */
+    public TimesheetEntry(Long developerId, LocalDate periodStart, long durationMillis, 
+                          int shifts, int openShifts) {
+        this.developerId = developerId;
+        this.periodStart = periodStart;
+        this.durationMillis = durationMillis;
+        this.shifts = shifts;
+        this.openShifts = openShifts;
+    }
+
+    /**
+     * Returns the developer's ID.
+     * @return developer's ID
+     */
+    public Long getDeveloperId() {
+        return developerId;
+    }
+
+    /**
+     * Returns the period's first day (e.g. the Monday of the ISO week).
+     * @return the first day or null by {@link TimesheetPeriod#TOTAL}
+     */
+    public LocalDate getPeriodStart() {
+        return periodStart;
+    }
+
+    /**
+     * Returns the worked time in milliseconds.
+     * @return the worked time
+     */
+    public long getDurationMillis() {
+        return durationMillis;
+    }
+
+    /**
+     * Returns the worked time.
+     * @return the worked time
+     */
+    public Duration getDuration() {
+        return Duration.ofMillis(durationMillis);
+    }
+
+    /**
+     * Returns the number of shifts in the period.
+     * @return number of shifts
+     */
+    public int getShifts() {
+        return shifts;
+    }
+
+    /**
+     * Returns the number of open shifts in the period.
+     * @return number of open shifts
+     */
+    public int getOpenShifts() {
+        return openShifts;
+    }
+
+    /**
+     * Returns the entry as a string.
+     * @return string
+     */
+    @Override
+    public String toString() {
+        return String.format("%d %s: %s (%d shifts, %d open)", developerId, 
+                periodStart == null ? "total" : periodStart, getDuration(), shifts, openShifts);
+    }
+
+}
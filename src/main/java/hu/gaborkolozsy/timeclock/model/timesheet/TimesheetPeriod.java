@@ -0,0 +1,39 @@
+/*
+ * Copyright (c) 2017, Gabor Kolozsy. All rights reserved.
+ */
+
+package hu.gaborkolozsy.timeclock.model.timesheet;
+
+/**
+ * The period by which the timesheet groups the working hours.
+ * 
+ * <p>A shift belongs to the period of its work day ({@code Work_Day}), 
+ * even if it ends on the next day.
+ *
+ * @author Gabor Kolozsy (gabor.kolozsy.development@gmail.com)
+ * @since 0.0.1-SNAPSHOT
+ * @see TimesheetEntry
+ */
+public enum TimesheetPeriod {
+
+    /**
+     * One entry per developer for the whole interval, without period start.
+     */
+    TOTAL,
+
+    /**
+     * One entry per developer and work day.
+     */
+    DAY,
+
+    /**
+     * One entry per developer and ISO week, which starts on Monday.
+     */
+    WEEK,
+
+    /**
+     * One entry per developer and calendar month.
+     */
+    MONTH
+
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright (c) 2017, Gabor Kolozsy. All rights reserved.
+ */
+
+package hu.gaborkolozsy.timeclock.service;
+
+import hu.gaborkolozsy.timeclock.dao.cache.ShiftColumns;
+import hu.gaborkolozsy.timeclock.dao.cache.ShiftColumns.ShiftVisitor;
+import hu.gaborkolozsy.timeclock.model.timesheet.TimesheetEntry;
+import hu.gaborkolozsy.timeclock.model.timesheet.TimesheetPeriod;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Analytics service interface. Query the read-only columnar copy of the 
+ * working hours (see {@link ShiftColumns}), which is refreshed on demand.
+ *
+ * @author Gabor Kolozsy (gabor.kolozsy.development@gmail.com)
+ * @since 0.0.1-SNAPSHOT
+ * @see ShiftColumns
+ * @see TimesheetEntry
+ */
+public interface AnalyticsService {
+
+    /**
+     * Load the working hours changed since the previous refresh (every 
+     * working hours at first) and remove the deleted ones.
+     * @return number of the loaded and removed shifts
+     */
+    int refresh();
+
+    /**
+     * Returns the number of the loaded shifts.
+     * @return number of shifts
+     */
+    int size();
+
+    /**
+     * Pass every loaded shift of the work days to the visitor.
+     * @param from the first work day (inclusive)
+     * @param to the last work day (inclusive)
+     * @param visitor receives the shifts' columns
+     * @throws IllegalArgumentException if <i>from</i> is after <i>to</i>
+     */
+    void scan(LocalDate from, LocalDate to, ShiftVisitor visitor);
+
+    /**
+     * Returns the developers' worked time grouped by the specified period, 
+     * as of the last refresh. The open shifts are counted, but their time is 
+     * excluded.
+     * @param developerIds developers' ID
+     * @param from the first work day (inclusive)
+     * @param to the last work day (inclusive)
+     * @param period the grouping period
+     * @return the entries ordered by developer's ID and period start
+     * @throws IllegalArgumentException if <i>from</i> is after <i>to</i>
+     */
+    List<TimesheetEntry> getTimesheet(Collection<Long> developerIds, LocalDate from, 
+            LocalDate to, TimesheetPeriod period);
+
+}
@@ -0,0 +1,51 @@
+/*
+ * Copyright (c) 2017, Gabor Kolozsy. All rights reserved.
+ */
+
+package hu.gaborkolozsy.timeclock.service;
+
+import hu.gaborkolozsy.timeclock.model.clock.ClockEvent;
+import hu.gaborkolozsy.timeclock.statistics.ClockBufferStatistics;
+import java.util.List;
+
+/**
+ * Clock buffer service interface. Write-behind buffer of the clock
+ * terminals' events: an event is acknowledged when it is queued, and the
+ * queued events are written into the developers' working hours in batches.
+ *
+ * @author Gabor Kolozsy (gabor.kolozsy.development@gmail.com)
+ * @since 0.0.1-SNAPSHOT
+ * @see ClockEvent
+ * @see ClockBufferStatistics
+ */
+public interface ClockBufferService {
+
+    /**
+     * Append the event to the buffer. While the buffer is full, the caller
+     * waits for a flush (backpressure), but not longer than the offer's
+     * timeout. Without write-behind the event is written immediately.
+     * @param event {@code ClockEvent}
+     * @return true if the event is accepted, false if the buffer stayed full
+     *         or it is closed
+     */
+    boolean submit(ClockEvent event);
+
+    /**
+     * Write every event accepted before this call and wait for the writes.
+     */
+    void flush();
+
+    /**
+     * Returns and removes the events whose writes failed, in the buffer's
+     * order, so they can be submitted again or imported.
+     * @return the failed events
+     */
+    List<ClockEvent> drainFailed();
+
+    /**
+     * Returns the snapshot of the buffer's metrics.
+     * @return {@code ClockBufferStatistics}
+     */
+    ClockBufferStatistics getStatistics();
+
+}
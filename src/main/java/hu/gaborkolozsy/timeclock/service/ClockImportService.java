@@ -0,0 +1,41 @@
+/*
+ * Copyright (c) 2017, Gabor Kolozsy. All rights reserved.
+ */
+
+package hu.gaborkolozsy.timeclock.service;
+
+import hu.gaborkolozsy.timeclock.model.clock.ClockEvent;
+import hu.gaborkolozsy.timeclock.model.clock.ImportResult;
+import java.nio.file.Path;
+
+/**
+ * Clock import service interface. Create the developers' working hours from 
+ * a file of clock-in and clock-out events.
+ *
+ * @author Gabor Kolozsy (gabor.kolozsy.development@gmail.com)
+ * @since 0.0.1-SNAPSHOT
+ * @see ClockEvent
+ * @see ImportResult
+ */
+public interface ClockImportService {
+
+    /**
+     * Import the clock events of the file (CSV or JSON lines), starting 
+     * after the lines of the previous runs. The invalid events are written 
+     * into the reject file with the line's number and the reason.
+     * @param file the clock events, in time order per developer
+     * @param rejectFile the rejected lines' file
+     * @return {@code ImportResult}
+     * @throws java.io.UncheckedIOException if a file can not be read or 
+     *         written
+     */
+    ImportResult importEvents(Path file, Path rejectFile);
+
+    /**
+     * Forget the progress of the file, so the next import starts at its 
+     * first line.
+     * @param file the clock events
+     */
+    void restart(Path file);
+
+}
@@ -0,0 +1,44 @@
+/*
+ * Copyright (c) 2017, Gabor Kolozsy. All rights reserved.
+ */
+
+package hu.gaborkolozsy.timeclock.service;
+
+import hu.gaborkolozsy.timeclock.model.clock.ClockEvent;
+import hu.gaborkolozsy.timeclock.statistics.ClockJournalStatistics;
+
+/**
+ * Clock journal service interface. Durable local journal of the clock
+ * terminals' events: an event is acknowledged when it is in the journal
+ * file, and the journal is replayed into the developers' working hours in
+ * the background, also while the database is slow or restarting.
+ *
+ * @author Gabor Kolozsy (gabor.kolozsy.development@gmail.com)
+ * @since 0.0.1-SNAPSHOT
+ * @see ClockEvent
+ * @see ClockJournalStatistics
+ */
+public interface ClockJournalService {
+
+    /**
+     * Append the event to the journal.
+     * @param event {@code ClockEvent}
+     * @return the event's sequence number
+     * @throws IllegalStateException if the journal is disabled
+     */
+    long append(ClockEvent event);
+
+    /**
+     * Replay the events appended after the checkpoint, and advance the
+     * checkpoint in the same transactions.
+     * @return number of the replayed events
+     */
+    long replay();
+
+    /**
+     * Returns the snapshot of the journal's metrics.
+     * @return {@code ClockJournalStatistics}
+     */
+    ClockJournalStatistics getStatistics();
+
+}
@@ -4,6 +4,12 @@
 
 package hu.gaborkolozsy.timeclock.service;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
 /**
  * The basic <strong>C.R.U.D.</strong> generic service interface.
  * <blockquote>
@@ -48,6 +54,16 @@ public interface CrudService<T, K> {
      * @param entity entity instance
      */
     void save(T entity);
+    
+    /**
+     * Make the given instances managed and persistent with batched inserts.
+     * 
+     * <p>The persistence context is flushed and cleared after each 
+     * <i>hibernate.jdbc.batch_size</i> entities and at the end, so the saved 
+     * (and the earlier loaded) entities become detached.
+     * @param entities entity instances
+     */
+    void saveAll(Iterable<? extends T> entities);
 
     /**
      * Find by primary key.
@@ -65,6 +81,27 @@ public interface CrudService<T, K> {
      */
     Iterable<T> getAll();
     
+    /**
+     * Performs the given action for each entity in primary key order, while 
+     * the entities are streamed from a database cursor, so the memory usage 
+     * not depends on the table's size.
+     * 
+     * <p>The entities are read-only and can be detached after the action, so 
+     * an entity should be used only while it is processed.
+     * @param action the action for each entity
+     * @return number of the processed entities
+     */
+    long forEach(Consumer<? super T> action);
+    
+    /**
+     * Returns a page of the entities ordered by primary key (keyset paging).
+     * @param afterId the last primary key of the previous page or null for 
+     * the first page
+     * @param limit the maximum size of the page
+     * @return a list of entity
+     */
+    List<T> page(K afterId, int limit);
+    
     /**
      * Merge the state of the given entity into the current persistence context.
      * Return the updated entity.
@@ -81,9 +118,14 @@ public interface CrudService<T, K> {
     void remove(T entity);
     
     /**
-     * Remove all entity instance.
+     * Remove all entity instance with set-based delete statements, together 
+     * with the rows which depend on them.
+     * 
+     * <p>The persistence context is flushed before and cleared after the 
+     * delete, so the earlier loaded entities become detached.
+     * @return number of the deleted rows
      */
-    void removeAll();
+    int removeAll();
     
     /**
      * Check if the instance is a managed entity instance belonging to the 
@@ -101,6 +143,37 @@ public interface CrudService<T, K> {
      */
     public boolean isExistEntity(T entity);
     
+    /**
+     * Check if an entity exists with the given value of the specified 
+     * (unique, natural key) attribute.
+     * @param attribute the attribute's name (e.g. <i>customerId</i>)
+     * @param value the attribute's value
+     * @return true if an entity exists with the given value
+     */
+    boolean isExistBy(String attribute, Object value);
+    
+    /**
+     * Returns those of the given values which exist in the specified 
+     * (unique, natural key) attribute.
+     * @param <V> type of the attribute
+     * @param attribute the attribute's name (e.g. <i>customerId</i>)
+     * @param values the attribute's values to check
+     * @return the existing values
+     */
+    <V> Set<V> getExistingBy(String attribute, Collection<V> values);
+    
+    /**
+     * Update the specified attributes of the entities with the given value 
+     * of the (natural key) attribute with one <strong>update</strong> 
+     * statement, incrementing the version and setting the updated audit 
+     * fields.
+     * @param attribute the key attribute's name (e.g. <i>customerId</i>)
+     * @param value the key attribute's value
+     * @param changes the updated attributes' names and new values
+     * @return number of the updated rows
+     */
+    int updateBy(String attribute, Object value, Map<String, ?> changes);
+    
     /**
      * Clear persistence context.
      */
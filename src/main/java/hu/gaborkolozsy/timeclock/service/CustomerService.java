@@ -21,6 +21,13 @@ public interface CustomerService extends CrudService<Customer, Long> {
      */
     Customer getByCustomerId(Long customerId);
     
+    /**
+     * Returns {@code Customer} with its jobs by the specified customer's ID.
+     * @param customerId customer's ID
+     * @return {@code Customer} instance with initialized jobs
+     */
+    Customer getByCustomerIdWithJobs(Long customerId);
+    
     /**
      * Returns {@code Customer} with the specified name.
      * @param name customer's name
@@ -32,8 +39,9 @@ public interface CustomerService extends CrudService<Customer, Long> {
      * Update the {@code Customer}'s contact person by specified ID.
      * @param customerId customer's ID
      * @param contact contact person's name by customer
+     * @return true if an entity matched
      */
-    void updateContactByCustomerId(Long customerId, String contact);
+    boolean updateContactByCustomerId(Long customerId, String contact);
     
     /**
      * Remove {@code Customer} by the specified customer's ID.
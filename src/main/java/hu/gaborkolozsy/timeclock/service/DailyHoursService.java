@@ -0,0 +1,35 @@
+/*
+ * Copyright (c) 2017, Gabor Kolozsy. All rights reserved.
+ */
+
+package hu.gaborkolozsy.timeclock.service;
+
+import hu.gaborkolozsy.timeclock.model.DailyHours;
+import hu.gaborkolozsy.timeclock.model.DailyHours.Key;
+import java.util.List;
+
+/**
+ * Daily hours service interface. Maintain the {@link DailyHours} rollup of 
+ * the developers' working hours.
+ *
+ * @author Gabor Kolozsy (gabor.kolozsy.development@gmail.com)
+ * @since 0.0.1-SNAPSHOT
+ * @see DailyHours
+ * @see Key
+ */
+public interface DailyHoursService {
+
+    /**
+     * Recompute the whole rollup from the working hours.
+     * @return number of the rollup rows
+     */
+    int rebuild();
+
+    /**
+     * Compare the rollup with the working hours.
+     * @return the keys of the inconsistent rollup rows, empty if the rollup 
+     *         is consistent
+     */
+    List<Key> verify();
+
+}
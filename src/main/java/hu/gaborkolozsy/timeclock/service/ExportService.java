@@ -0,0 +1,32 @@
+/*
+ * Copyright (c) 2017, Gabor Kolozsy. All rights reserved.
+ */
+
+package hu.gaborkolozsy.timeclock.service;
+
+import hu.gaborkolozsy.timeclock.model.export.CsvExport;
+import hu.gaborkolozsy.timeclock.model.export.ExportTable;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+
+/**
+ * Export service interface. Write the tables into CSV files.
+ *
+ * @author Gabor Kolozsy (gabor.kolozsy.development@gmail.com)
+ * @since 0.0.1-SNAPSHOT
+ * @see CsvExport
+ * @see ExportTable
+ */
+public interface ExportService {
+
+    /**
+     * Write the export's rows into the file with a header line of the 
+     * columns' name. An existing file is overwritten.
+     * @param export {@code CsvExport}
+     * @param file the target file
+     * @return number of the exported rows
+     * @throws UncheckedIOException if the file can not be written
+     */
+    long export(CsvExport export, Path file);
+
+}
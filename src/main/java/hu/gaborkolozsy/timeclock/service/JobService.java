@@ -5,6 +5,7 @@
 package hu.gaborkolozsy.timeclock.service;
 
 import hu.gaborkolozsy.timeclock.model.Job;
+import hu.gaborkolozsy.timeclock.model.projection.JobRow;
 import java.util.List;
 
 /**
@@ -37,23 +38,41 @@ public interface JobService extends CrudService<Job, Long> {
      */
     List<Job> getAllByStatus(String status);
     
+    /**
+     * Returns the list rows of the jobs by the specified project name.
+     * @param projectName project's name
+     * @return a list of {@code JobRow} ordered by order No.
+     */
+    List<JobRow> getRowsByProjectName(String projectName);
+    
+    /**
+     * Returns the list rows of the jobs by the specified status.
+     * @param status project's status
+     * @return a list of {@code JobRow} ordered by order No.
+     */
+    List<JobRow> getRowsByStatus(String status);
+    
     /**
      * Update {@link Job}'s status by specified order No..
      * @param orderNumber job's order No.
      * @param status the job's status
+     * @return true if an entity matched
      */
-    void updateStatusByOrderNumber(Long orderNumber, String status);
+    boolean updateStatusByOrderNumber(Long orderNumber, String status);
     
     /**
      * Update {@link Job}'s comment by specified order No..
      * @param orderNumber job's order No.
      * @param comment the job's comment
+     * @return true if an entity matched
      */
-    void updateCommentByOrderNumber(Long orderNumber, String comment);
+    boolean updateCommentByOrderNumber(Long orderNumber, String comment);
     
     /**
      * Remove {@link Job} entity with specified order No..
      * @param orderNumber job's order No.
+     * @throws org.springframework.dao.DataIntegrityViolationException if the 
+     *         job has pays
      */
     void removeByOrderNumber(Long orderNumber);
     
@@ -0,0 +1,36 @@
+/*
+ * Copyright (c) 2017, Gabor Kolozsy. All rights reserved.
+ */
+
+package hu.gaborkolozsy.timeclock.service;
+
+import hu.gaborkolozsy.timeclock.model.payroll.PayrollProgress;
+import hu.gaborkolozsy.timeclock.model.payroll.PayrollResult;
+import hu.gaborkolozsy.timeclock.model.payroll.PayrollRun;
+import java.util.function.Consumer;
+
+/**
+ * Payroll service interface. Create the {@code Pay}s of a period from the 
+ * developers' working hours.
+ *
+ * @author Gabor Kolozsy (gabor.kolozsy.development@gmail.com)
+ * @since 0.0.1-SNAPSHOT
+ * @see PayrollRun
+ * @see PayrollResult
+ */
+public interface PayrollService {
+
+    /**
+     * Compute the jobs' payable amount of the period from the closed shifts 
+     * and create their {@code Pay}s, except the already existing ones.
+     * @param run the payroll run's parameters
+     * @param progress receives the computation's progress (from several 
+     *        threads)
+     * @return {@code PayrollResult}
+     * @throws IllegalArgumentException if a developer has no rate or the 
+     *         rates of a job have different currencies
+     * @throws javax.persistence.NoResultException if a job does not exist
+     */
+    PayrollResult run(PayrollRun run, Consumer<PayrollProgress> progress);
+
+}
@@ -0,0 +1,52 @@
+/*
+ * Copyright (c) 2017, Gabor Kolozsy. All rights reserved.
+ */
+
+package hu.gaborkolozsy.timeclock.service;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Mark a transactional service method, whose transaction is re-run when it
+ * fails with a concurrent update conflict (an optimistic lock failure or a
+ * row lock conflict), after a jittered exponential backoff.
+ *
+ * <p>The method is retried only if it starts the transaction, because the
+ * transaction of the caller can not be continued after the conflict. The
+ * calls, the conflicts and the retries are counted per method (see
+ * {@code RetryMetrics}).
+ *
+ * @author Gabor Kolozsy (gabor.kolozsy.development@gmail.com)
+ * @since 0.0.1-SNAPSHOT
+ * @see org.springframework.dao.ConcurrencyFailureException
+ * @see javax.persistence.OptimisticLockException
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface RetryOnConflict {
+
+    /**
+     * Returns the number of attempts (the first run included).
+     * @return number of attempts
+     */
+    int maxAttempts() default 5;
+
+    /**
+     * Returns the backoff before the first retry in milliseconds. It is
+     * doubled before every next retry, and a random part of it is waited.
+     * @return milliseconds
+     */
+    long backoffMillis() default 10;
+
+    /**
+     * Returns the longest backoff in milliseconds.
+     * @return milliseconds
+     */
+    long maxBackoffMillis() default 500;
+
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright (c) 2017, Gabor Kolozsy. All rights reserved.
+ */
+
+package hu.gaborkolozsy.timeclock.service;
+
+import hu.gaborkolozsy.timeclock.model.timesheet.OpenShiftPolicy;
+import hu.gaborkolozsy.timeclock.model.timesheet.TimesheetEntry;
+import hu.gaborkolozsy.timeclock.model.timesheet.TimesheetPeriod;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Timesheet service interface. Aggregate the developers' working hours.
+ *
+ * @author Gabor Kolozsy (gabor.kolozsy.development@gmail.com)
+ * @since 0.0.1-SNAPSHOT
+ * @see TimesheetEntry
+ * @see TimesheetPeriod
+ * @see OpenShiftPolicy
+ */
+public interface TimesheetService {
+
+    /**
+     * Returns the developer's worked time grouped by the specified period.
+     * @param developerId developer's ID
+     * @param from the first work day (inclusive)
+     * @param to the last work day (inclusive)
+     * @param period the grouping period
+     * @param policy the open shifts' policy
+     * @return the entries ordered by period start
+     * @throws IllegalArgumentException if <i>from</i> is after <i>to</i>
+     * @throws IllegalStateException if the policy is 
+     *         {@link OpenShiftPolicy#REJECT} and there is an open shift
+     */
+    List<TimesheetEntry> getTimesheet(Long developerId, LocalDate from, LocalDate to, 
+                                      TimesheetPeriod period, OpenShiftPolicy policy);
+
+    /**
+     * Returns the developers' worked time grouped by the specified period.
+     * @param developerIds developers' ID
+     * @param from the first work day (inclusive)
+     * @param to the last work day (inclusive)
+     * @param period the grouping period
+     * @param policy the open shifts' policy
+     * @return the entries ordered by developer's ID and period start
+     * @throws IllegalArgumentException if <i>from</i> is after <i>to</i>
+     * @throws IllegalStateException if the policy is 
+     *         {@link OpenShiftPolicy#REJECT} and there is an open shift
+     */
+    List<TimesheetEntry> getTimesheet(Collection<Long> developerIds, LocalDate from, 
+            LocalDate to, TimesheetPeriod period, OpenShiftPolicy policy);
+
+    /**
+     * Returns the developer's total worked time.
+     * @param developerId developer's ID
+     * @param from the first work day (inclusive)
+     * @param to the last work day (inclusive)
+     * @param policy the open shifts' policy
+     * @return the worked time, zero if there is no shift
+     * @throws IllegalArgumentException if <i>from</i> is after <i>to</i>
+     * @throws IllegalStateException if the policy is 
+     *         {@link OpenShiftPolicy#REJECT} and there is an open shift
+     */
+    Duration getTotal(Long developerId, LocalDate from, LocalDate to, OpenShiftPolicy policy);
+
+}
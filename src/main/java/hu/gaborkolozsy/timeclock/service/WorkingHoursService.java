@@ -5,7 +5,12 @@
 package hu.gaborkolozsy.timeclock.service;
 
 import hu.gaborkolozsy.timeclock.model.WorkingHours;
+import hu.gaborkolozsy.timeclock.model.overlap.OverlapAudit;
+import hu.gaborkolozsy.timeclock.model.overlap.ShiftOverlap;
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
 
 /**
  * Extended {@code WorkingHoursService} interface.
@@ -13,6 +18,8 @@ import java.time.LocalDateTime;
  * @author Gabor Kolozsy (gabor.kolozsy.development@gmail.com)
  * @since 0.0.1-SNAPSHOT
  * @see LocalDateTime
+ * @see Set
+ * @see OverlapAudit
  */
 public interface WorkingHoursService extends CrudService<WorkingHours, Long> {
 
@@ -24,4 +31,77 @@ public interface WorkingHoursService extends CrudService<WorkingHours, Long> {
      */
     void updateWorkEnd(WorkingHours workingHours, LocalDateTime workEnd);
     
+    /**
+     * Clock in the developer: open a new shift beginning now, unless the 
+     * developer is already clocked in. So a repeated call has no effect.
+     * @param developerId developer's ID
+     * @return the developer's (last) open shift's ID
+     * @throws javax.persistence.NoResultException if the developer does not 
+     *         exist
+     */
+    Long clockIn(Long developerId);
+    
+    /**
+     * Clock out the developer: close the developer's last open shift now. If 
+     * the developer is not clocked in, nothing happens. So a repeated call 
+     * has no effect.
+     * @param developerId developer's ID
+     * @return the closed shift's ID or null if the developer was not clocked 
+     *         in
+     */
+    Long clockOut(Long developerId);
+    
+    /**
+     * Check if the developer has an open shift.
+     * @param developerId developer's ID
+     * @return true if the developer is clocked in
+     */
+    boolean isClockedIn(Long developerId);
+    
+    /**
+     * Returns the developers which have an open shift.
+     * @return developers' ID in ascending order
+     */
+    Set<Long> getClockedIn();
+    
+    /**
+     * Returns the developer's open shifts.
+     * @param developerId developer's ID
+     * @return the working hours' ID in ascending order
+     */
+    Set<Long> getOpenShiftIds(Long developerId);
+    
+    /**
+     * Returns the number of the open shifts.
+     * @return number of the open shifts
+     */
+    int countOpenShifts();
+    
+    /**
+     * Rebuild the open shifts' index from the database.
+     */
+    void rebuildOpenShiftIndex();
+    
+    /**
+     * Returns the developer's other shifts which overlap the working hours.
+     * @param workingHours {@code WorkingHours}
+     * @return the overlaps ordered by the other shift's begin
+     */
+    List<ShiftOverlap> getOverlaps(WorkingHours workingHours);
+    
+    /**
+     * Make the working hours persistent if it does not overlap any other 
+     * shift of its developer.
+     * @param workingHours {@code WorkingHours}
+     * @throws IllegalArgumentException if it overlaps another shift
+     */
+    void saveWithoutOverlap(WorkingHours workingHours);
+    
+    /**
+     * Find every overlap and gap between the shifts of every developer.
+     * @param minGap the shortest reported gap within a day
+     * @return {@code OverlapAudit}
+     */
+    OverlapAudit audit(Duration minGap);
+    
 }
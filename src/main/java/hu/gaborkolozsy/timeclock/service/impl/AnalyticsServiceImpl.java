@@ -0,0 +1,156 @@
+/*
+ * Copyright (c) 2017, Gabor Kolozsy. All rights reserved.
+ */
+
+package hu.gaborkolozsy.timeclock.service.impl;
+
+import hu.gaborkolozsy.timeclock.dao.WorkingHoursDao;
+import hu.gaborkolozsy.timeclock.dao.cache.ShiftColumns;
+import hu.gaborkolozsy.timeclock.dao.cache.ShiftColumns.ShiftVisitor;
+import hu.gaborkolozsy.timeclock.model.timesheet.TimesheetEntry;
+import hu.gaborkolozsy.timeclock.model.timesheet.TimesheetPeriod;
+import hu.gaborkolozsy.timeclock.service.AnalyticsService;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Analytics service implementation. Connect between Controller and DAO.
+ * 
+ * <p>The working hours are copied into a {@link ShiftColumns} store. A 
+ * refresh reads only the rows whose {@code Audit} time (the update's or 
+ * else the creation's time) is not earlier than the previous refresh's 
+ * start minus <i>refresh_overlap</i> seconds, because a row written before 
+ * the previous refresh may have been committed after it. The deleted rows 
+ * leave no audit time, so every refresh reads the table's IDs through a 
+ * cursor and removes the shifts missing from them. (Comparing only the 
+ * counts would miss a delete and an insert between two refreshes.)
+ *
+ * @author Gabor Kolozsy (gabor.kolozsy.development@gmail.com)
+ * @since 0.0.1-SNAPSHOT
+ * @see ShiftColumns
+ * @see WorkingHoursDao
+ */
+@Service
+public class AnalyticsServiceImpl implements AnalyticsService {
+
+    @Autowired
+    private WorkingHoursDao workingHoursDao;
+
+    /** 
+     * The <strong>timeclock.analytics.refresh_overlap</strong> property, 
+     * the re-read seconds before the previous refresh. 
+     */
+    @Value("${timeclock.analytics.refresh_overlap}")
+    private long refreshOverlap;
+
+    private final ShiftColumns store = new ShiftColumns();
+
+    /**
+     * The start of the previous refresh, or null before the first one.
+     */
+    private LocalDateTime refreshed;
+
+    /**
+     * Load the working hours changed since the previous refresh (every 
+     * working hours at first) and remove the deleted ones.
+     * 
+     * <p>The changes are read into a separate store and merged at once, so 
+     * the queries running meanwhile are blocked only by the merge. The 
+     * changes are read from the primary: a change missing from a lagging 
+     * replica would be older than the next refresh's start.
+     * @return number of the loaded and removed shifts
+     */
+    @Override
+    @Transactional
+    public synchronized int refresh() {
+        LocalDateTime start = LocalDateTime.now();
+        ShiftColumns changes = new ShiftColumns();
+        int count = workingHoursDao.scanChanges(
+                refreshed == null ? null : refreshed.minusSeconds(refreshOverlap), changes::put);
+        store.merge(changes);
+        count += store.retain(getIds());
+        refreshed = start;
+        return count;
+    }
+
+    /**
+     * Returns the number of the loaded shifts.
+     * @return number of shifts
+     */
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public int size() {
+        return store.size();
+    }
+
+    /**
+     * Pass every loaded shift of the work days to the visitor.
+     * @param from the first work day (inclusive)
+     * @param to the last work day (inclusive)
+     * @param visitor receives the shifts' columns
+     * @throws IllegalArgumentException if <i>from</i> is after <i>to</i>
+     */
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public void scan(LocalDate from, LocalDate to, ShiftVisitor visitor) {
+        checkDays(from, to);
+        store.scan(from, to, visitor);
+    }
+
+    /**
+     * Returns the developers' worked time grouped by the specified period, 
+     * as of the last refresh. The open shifts are counted, but their time is 
+     * excluded.
+     * @param developerIds developers' ID
+     * @param from the first work day (inclusive)
+     * @param to the last work day (inclusive)
+     * @param period the grouping period
+     * @return the entries ordered by developer's ID and period start
+     * @throws IllegalArgumentException if <i>from</i> is after <i>to</i>
+     */
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public List<TimesheetEntry> getTimesheet(Collection<Long> developerIds, LocalDate from, 
+            LocalDate to, TimesheetPeriod period) {
+        checkDays(from, to);
+        return store.getTimesheet(developerIds, from, to, period);
+    }
+
+    /**
+     * Returns the ID of every working hours.
+     * @return IDs in ascending order
+     */
+    private long[] getIds() {
+        long[][] ids = {new long[store.size()]};
+        int[] count = {0};
+        workingHoursDao.scanIds((id) -> {
+            if (count[0] == ids[0].length) {
+                ids[0] = Arrays.copyOf(ids[0], Math.max(16, count[0] * 2));
+            }
+            ids[0][count[0]++] = id;
+        });
+        return Arrays.copyOf(ids[0], count[0]);
+    }
+
+    /**
+     * Check the order of the work days.
+     * @param from the first work day
+     * @param to the last work day
+     * @throws IllegalArgumentException if <i>from</i> is after <i>to</i>
+     */
+    private static void checkDays(LocalDate from, LocalDate to) {
+        if (from.isAfter(to)) {
+            throw new IllegalArgumentException("The first day " + from 
+                    + " is after the last day " + to + "!");
+        }
+    }
+
+}
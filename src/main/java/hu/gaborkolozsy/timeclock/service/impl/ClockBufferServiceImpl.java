@@ -0,0 +1,446 @@
+/*
+ * Copyright (c) 2017, Gabor Kolozsy. All rights reserved.
+ */
+
+package hu.gaborkolozsy.timeclock.service.impl;
+
+import hu.gaborkolozsy.timeclock.model.clock.ClockEvent;
+import hu.gaborkolozsy.timeclock.service.ClockBufferService;
+import hu.gaborkolozsy.timeclock.statistics.ClockBufferStatistics;
+import hu.gaborkolozsy.timeclock.statistics.LatencyRecorder;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Clock buffer service implementation. Connect between Controller and DAO.
+ *
+ * <p>With <i>timeclock.clock.buffer.enabled</i> the events are queued in a
+ * bounded queue of <i>timeclock.clock.buffer.capacity</i> events, and one
+ * flusher thread writes them in the queue's order
+ * <ul>
+ *  <li>as soon as <i>timeclock.clock.buffer.batch_size</i> events are
+ *      queued, or <i>timeclock.clock.buffer.max_delay</i> milliseconds
+ *      after its previous flush, or on {@link #flush()},</li>
+ *  <li>at most <i>batch_size</i> events in one transaction, paired per
+ *      developer like the clock import does (see
+ *      {@link ClockEventWriter}).</li>
+ * </ul>
+ * A full queue blocks the submitters up to
+ * <i>timeclock.clock.buffer.offer_timeout</i> milliseconds, then the event
+ * is refused. On shutdown the queue is closed and the flusher writes the
+ * queued events, waiting for it at most
+ * <i>timeclock.clock.buffer.drain_timeout</i> milliseconds.
+ *
+ * <p>An accepted event is not durable until its flush commits, so the events
+ * of a crashed application's queue are lost; the terminals' files can be
+ * imported again by {@link ClockImportServiceImpl}. The invalid events (e.g.
+ * a second clock-in) are counted as rejected. A failed flush is written
+ * again before the newer events, <i>max_delay</i> milliseconds later, at
+ * most <i>timeclock.clock.buffer.max_attempts</i> times in all; the last
+ * time one event per transaction, and the events failing then are moved to
+ * the dead letters (see {@link #drainFailed()}) and counted as failed.
+ *
+ * <p>A flush holds the {@link StripedLocks} of its developers until the
+ * commit, like the clock-ins and clock-outs of
+ * {@link WorkingHoursServiceImpl} and the replay of the journal, so a
+ * developer's shifts are not written by them concurrently.
+ *
+ * <p>Without write-behind every event is written in its own transaction
+ * when it is submitted.
+ *
+ * @author Gabor Kolozsy (gabor.kolozsy.development@gmail.com)
+ * @since 0.0.1-SNAPSHOT
+ * @see ClockEventWriter
+ * @see StripedLocks
+ * @see ArrayBlockingQueue
+ * @see LatencyRecorder
+ */
+@Service
+public class ClockBufferServiceImpl implements ClockBufferService {
+
+    /**
+     * The number of the latest flushes in the percentiles.
+     */
+    private static final int WINDOW = 4096;
+
+    @Autowired
+    private ClockEventWriter clockEventWriter;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private StripedLocks stripedLocks;
+
+    /**
+     * The <strong>timeclock.clock.buffer.enabled</strong> property, false
+     * means every event is written when it is submitted.
+     */
+    @Value("${timeclock.clock.buffer.enabled}")
+    private boolean enabled;
+
+    /**
+     * The <strong>timeclock.clock.buffer.capacity</strong> property, number
+     * of the queued events at most.
+     */
+    @Value("${timeclock.clock.buffer.capacity}")
+    private int capacity;
+
+    /**
+     * The <strong>timeclock.clock.buffer.batch_size</strong> property,
+     * number of events written in one transaction at most.
+     */
+    @Value("${timeclock.clock.buffer.batch_size}")
+    private int batchSize;
+
+    /**
+     * The <strong>timeclock.clock.buffer.max_delay</strong> property, the
+     * time between two flushes at most in milliseconds.
+     */
+    @Value("${timeclock.clock.buffer.max_delay}")
+    private long maxDelay;
+
+    /**
+     * The <strong>timeclock.clock.buffer.offer_timeout</strong> property,
+     * the time a submitter waits for a full queue in milliseconds.
+     */
+    @Value("${timeclock.clock.buffer.offer_timeout}")
+    private long offerTimeout;
+
+    /**
+     * The <strong>timeclock.clock.buffer.drain_timeout</strong> property,
+     * the time the shutdown waits for the queue's flush in milliseconds.
+     */
+    @Value("${timeclock.clock.buffer.drain_timeout}")
+    private long drainTimeout;
+
+    /**
+     * The <strong>timeclock.clock.buffer.max_attempts</strong> property,
+     * number of the writes of a batch before its events are written one by
+     * one.
+     */
+    @Value("${timeclock.clock.buffer.max_attempts}")
+    private int maxAttempts;
+
+    /**
+     * Held by the submitters while they queue, and by the shutdown while it
+     * closes the queue, so no event is accepted after the last flush.
+     */
+    private final ReentrantReadWriteLock closing = new ReentrantReadWriteLock();
+
+    /**
+     * Guards the flush counts, the flusher waits on its {@code wakeUp}, the
+     * callers of {@link #flush()} on its {@code flushed} condition.
+     */
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition wakeUp = lock.newCondition();
+    private final Condition flushed = lock.newCondition();
+
+    private final LongAdder accepted = new LongAdder();
+    private final LongAdder refused = new LongAdder();
+    private final LongAdder written = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LatencyRecorder flushes = new LatencyRecorder(WINDOW);
+    private final LatencyRecorder delays = new LatencyRecorder(WINDOW);
+
+    /**
+     * The events whose writes failed, in the queue's order.
+     */
+    private final Queue<ClockEvent> deadLetters = new ConcurrentLinkedQueue<>();
+
+    private BlockingQueue<Pending> queue;
+    private TransactionTemplate transactionTemplate;
+    private Thread flusher;
+    private volatile boolean closed;
+
+    /**
+     * The number of the dequeued events, of the dequeued events being
+     * written, and of the events requested by {@link #flush()} (guarded by
+     * the lock).
+     */
+    private long processed;
+    private int inFlight;
+    private long requested;
+
+    /**
+     * Create the queue and start the flusher.
+     */
+    @PostConstruct
+    void start() {
+        queue = new ArrayBlockingQueue<>(Math.max(1, capacity));
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        if (enabled) {
+            flusher = new Thread(this::run, "clock-buffer-flusher");
+            flusher.setDaemon(true);
+            flusher.start();
+        }
+    }
+
+    /**
+     * Close the queue and wait for the flush of the queued events.
+     */
+    @PreDestroy
+    void close() {
+        closing.writeLock().lock();
+        try {
+            closed = true;
+        } finally {
+            closing.writeLock().unlock();
+        }
+        if (flusher == null) {
+            return;
+        }
+        signal(wakeUp);
+        try {
+            flusher.join(drainTimeout);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Append the event to the queue, waiting for a flush while it is full.
+     * Without write-behind the event is written in a new transaction.
+     * @param event {@code ClockEvent}
+     * @return true if the event is accepted, false if the queue stayed full
+     *         or it is closed
+     * @throws NullPointerException if the event is null
+     */
+    @Override
+    public boolean submit(ClockEvent event) {
+        Pending pending = new Pending(Objects.requireNonNull(event, "Clock event is null!"),
+                System.nanoTime());
+        if (flusher == null) {
+            write(Collections.singletonList(pending));
+            accepted.increment();
+            return true;
+        }
+        closing.readLock().lock();
+        try {
+            if (!closed && queue.offer(pending, offerTimeout, TimeUnit.MILLISECONDS)) {
+                accepted.increment();
+                if (queue.size() >= batchSize) {
+                    signal(wakeUp);
+                }
+                return true;
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } finally {
+            closing.readLock().unlock();
+        }
+        refused.increment();
+        return false;
+    }
+
+    /**
+     * Wake up the flusher and wait until it processed the events queued
+     * before this call. Returns early if the thread is interrupted or the
+     * flusher is stopped.
+     */
+    @Override
+    public void flush() {
+        if (flusher == null) {
+            return;
+        }
+        lock.lock();
+        try {
+            long target = processed + inFlight + queue.size();
+            requested = Math.max(requested, target);
+            wakeUp.signal();
+            while (processed < target && flusher.isAlive()) {
+                flushed.await(maxDelay, TimeUnit.MILLISECONDS);
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns and removes the events whose writes failed, in the queue's
+     * order, so they can be submitted again or imported.
+     * @return the dead letters
+     */
+    @Override
+    public List<ClockEvent> drainFailed() {
+        List<ClockEvent> events = new ArrayList<>();
+        ClockEvent event;
+        while ((event = deadLetters.poll()) != null) {
+            events.add(event);
+        }
+        return events;
+    }
+
+    /**
+     * Returns the snapshot of the buffer's metrics.
+     * @return {@code ClockBufferStatistics}
+     */
+    @Override
+    public ClockBufferStatistics getStatistics() {
+        return new ClockBufferStatistics(queue.size(), queue.size() + queue.remainingCapacity(),
+                accepted.sum(), refused.sum(), written.sum(), rejected.sum(), failed.sum(),
+                flushes.getSnapshot(), delays.getSnapshot());
+    }
+
+    /**
+     * The flusher's loop: wait for a full batch, a flush request, the
+     * delay's end or the shutdown, then write the next batch. Exits when the
+     * queue is closed and empty.
+     */
+    private void run() {
+        List<Pending> batch = new ArrayList<>(batchSize);
+        try {
+            while (true) {
+                lock.lock();
+                try {
+                    long nanos = TimeUnit.MILLISECONDS.toNanos(maxDelay);
+                    while (!closed && queue.size() < batchSize && requested <= processed
+                            && nanos > 0) {
+                        nanos = wakeUp.awaitNanos(nanos);
+                    }
+                    if (closed && queue.isEmpty()) {
+                        return;
+                    }
+                    inFlight = queue.drainTo(batch, batchSize);
+                } finally {
+                    lock.unlock();
+                }
+                if (!batch.isEmpty()) {
+                    writeOrDeadLetter(batch);
+                }
+                lock.lock();
+                try {
+                    processed += inFlight;
+                    inFlight = 0;
+                    flushed.signalAll();
+                } finally {
+                    lock.unlock();
+                }
+                batch.clear();
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } finally {
+            signal(flushed);
+        }
+    }
+
+    /**
+     * Write the batch, <i>max_delay</i> milliseconds after its failure
+     * again. The last attempt writes the events one by one and moves the
+     * failing ones to the dead letters. The events are dead letters also if
+     * the flusher is interrupted meanwhile.
+     * @param batch the events in the queue's order
+     * @throws InterruptedException if the flusher is interrupted
+     */
+    private void writeOrDeadLetter(List<Pending> batch) throws InterruptedException {
+        for (int attempt = 1; attempt < maxAttempts; attempt++) {
+            try {
+                write(batch);
+                return;
+            } catch (RuntimeException ex) {
+                try {
+                    TimeUnit.MILLISECONDS.sleep(maxDelay);
+                } catch (InterruptedException interrupted) {
+                    batch.forEach(this::deadLetter);
+                    throw interrupted;
+                }
+            }
+        }
+        for (Pending pending : batch) {
+            try {
+                write(Collections.singletonList(pending));
+            } catch (RuntimeException ex) {
+                deadLetter(pending);
+            }
+        }
+    }
+
+    /**
+     * Move the event to the dead letters.
+     * @param pending the failed event
+     */
+    private void deadLetter(Pending pending) {
+        deadLetters.add(pending.event);
+        failed.increment();
+    }
+
+    /**
+     * Write the events in one transaction, holding the locks of their
+     * developers, and record the flush's metrics.
+     * @param batch the events in the queue's order
+     */
+    private void write(List<Pending> batch) {
+        long start = System.nanoTime();
+        List<ClockEvent> events = new ArrayList<>(batch.size());
+        Set<Long> developerIds = new HashSet<>();
+        batch.forEach((pending) -> {
+            events.add(pending.event);
+            developerIds.add(pending.event.getDeveloperId());
+        });
+        int invalid = stripedLocks.callWithAll(developerIds, () -> 
+                transactionTemplate.execute((status) -> clockEventWriter.write(events)));
+        long end = System.nanoTime();
+        flushes.record(end - start);
+        delays.record(end - batch.get(0).submitted);
+        written.add(batch.size() - invalid);
+        rejected.add(invalid);
+    }
+
+    /**
+     * Signal the condition of the lock.
+     * @param condition {@code wakeUp} or {@code flushed}
+     */
+    private void signal(Condition condition) {
+        lock.lock();
+        try {
+            condition.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * A queued event with its submission's time.
+     */
+    private static final class Pending {
+
+        private final ClockEvent event;
+        private final long submitted;
+
+        /**
+         * Constructor with all values.
+         * @param event {@code ClockEvent}
+         * @param submitted {@link System#nanoTime()} of the submission
+         */
+        Pending(ClockEvent event, long submitted) {
+            this.event = event;
+            this.submitted = submitted;
+        }
+
+    }
+
+}
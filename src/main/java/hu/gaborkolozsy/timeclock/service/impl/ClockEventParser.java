@@ -0,0 +1,302 @@
+/*
+ * Copyright (c) 2017, Gabor Kolozsy. All rights reserved.
+ */
+
+package hu.gaborkolozsy.timeclock.service.impl;
+
+import hu.gaborkolozsy.timeclock.model.clock.ClockEvent;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Locale;
+
+/**
+ * Parse the lines of a clock events' file into {@link ClockEvent}s.
+ *
+ * <p>The CSV line is <i>developerId,type,time</i> (e.g.
+ * <i>100,IN,2017-01-02T08:00:00</i>), the JSON line is an object with the
+ * same members (e.g. <i>{"developerId":100,"type":"IN",
+ * "time":"2017-01-02T08:00:00"}</i>), whose other members are ignored. The
+ * type is <i>IN</i> or <i>OUT</i> (case-insensitive), the time is an ISO
+ * local date-time. The parsers are stateless, so the lines can be parsed
+ * from several threads.
+ *
+ * @author Gabor Kolozsy (gabor.kolozsy.development@gmail.com)
+ * @since 0.0.1-SNAPSHOT
+ * @see ClockEvent
+ */
+enum ClockEventParser {
+
+    /**
+     * Comma separated values, optionally with a header line.
+     */
+    CSV {
+        @Override
+        boolean isHeader(String line) {
+            String trimmed = line.trim();
+            return !trimmed.isEmpty() && !Character.isDigit(trimmed.charAt(0));
+        }
+
+        @Override
+        ClockEvent parse(String line) {
+            String[] fields = line.split(",", -1);
+            if (fields.length != 3) {
+                throw new IllegalArgumentException("Not 3 fields");
+            }
+            return create(fields[0].trim(), fields[1].trim(), fields[2].trim());
+        }
+    },
+
+    /**
+     * One JSON object per line (<i>JSON Lines</i>).
+     */
+    JSON {
+        @Override
+        boolean isHeader(String line) {
+            return false;
+        }
+
+        @Override
+        ClockEvent parse(String line) {
+            return new JsonObject(line).parse();
+        }
+    };
+
+    /**
+     * Returns the parser of the file by its extension: <i>.json</i>,
+     * <i>.jsonl</i> and <i>.ndjson</i> are JSON lines, the others CSV.
+     * @param file the clock events' file
+     * @return {@code ClockEventParser}
+     */
+    static ClockEventParser of(Path file) {
+        String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+        return name.endsWith(".json") || name.endsWith(".jsonl") || name.endsWith(".ndjson")
+                ? JSON : CSV;
+    }
+
+    /**
+     * Check if the first line of the file is a header line.
+     * @param line the first line
+     * @return true if the line is not an event
+     */
+    abstract boolean isHeader(String line);
+
+    /**
+     * Parse a not blank line.
+     * @param line the line
+     * @return {@code ClockEvent}
+     * @throws IllegalArgumentException with the reason if the line is
+     *         invalid
+     */
+    abstract ClockEvent parse(String line);
+
+    /**
+     * Create the event from the fields' text.
+     * @param developerId developer's ID
+     * @param type the event's type
+     * @param time the event's time
+     * @return {@code ClockEvent}
+     * @throws IllegalArgumentException if a field is invalid
+     */
+    private static ClockEvent create(String developerId, String type, String time) {
+        if (developerId == null || type == null || time == null) {
+            throw new IllegalArgumentException("Missing field");
+        }
+        Long id;
+        try {
+            id = Long.valueOf(developerId);
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException("Invalid developer ID");
+        }
+        ClockEvent.Type eventType;
+        if ("IN".equalsIgnoreCase(type)) {
+            eventType = ClockEvent.Type.IN;
+        } else if ("OUT".equalsIgnoreCase(type)) {
+            eventType = ClockEvent.Type.OUT;
+        } else {
+            throw new IllegalArgumentException("Invalid type");
+        }
+        try {
+            return new ClockEvent(id, eventType, LocalDateTime.parse(time));
+        } catch (DateTimeParseException ex) {
+            throw new IllegalArgumentException("Invalid time");
+        }
+    }
+
+    /**
+     * Minimal parser of a flat JSON object, whose values are strings,
+     * numbers, booleans or nulls.
+     */
+    private static final class JsonObject {
+
+        private final String text;
+        private int position;
+
+        /**
+         * Constructor with the object's text.
+         * @param text JSON object
+         */
+        JsonObject(String text) {
+            this.text = text;
+        }
+
+        /**
+         * Parse the object and create the event from its members.
+         * @return {@code ClockEvent}
+         * @throws IllegalArgumentException if the object is invalid
+         */
+        ClockEvent parse() {
+            String developerId = null;
+            String type = null;
+            String time = null;
+            expect('{');
+            if (!consume('}')) {
+                do {
+                    String name = readString();
+                    expect(':');
+                    String value = readValue();
+                    switch (name) {
+                        case "developerId":
+                            developerId = value;
+                            break;
+                        case "type":
+                            type = value;
+                            break;
+                        case "time":
+                            time = value;
+                            break;
+                        default:
+                            break;
+                    }
+                } while (consume(','));
+                expect('}');
+            }
+            skipWhitespace();
+            if (position < text.length()) {
+                throw invalid();
+            }
+            return create(developerId, type, time);
+        }
+
+        /**
+         * Read a scalar value.
+         * @return the value's text, or null for the JSON null
+         */
+        private String readValue() {
+            skipWhitespace();
+            if (position < text.length() && text.charAt(position) == '"') {
+                return readString();
+            }
+            int start = position;
+            while (position < text.length() && ",}".indexOf(text.charAt(position)) < 0
+                    && !Character.isWhitespace(text.charAt(position))) {
+                position++;
+            }
+            String literal = text.substring(start, position);
+            if (literal.isEmpty() || literal.charAt(0) == '{' || literal.charAt(0) == '[') {
+                throw invalid();
+            }
+            return "null".equals(literal) ? null : literal;
+        }
+
+        /**
+         * Read a quoted string with its escapes.
+         * @return the string
+         */
+        private String readString() {
+            expect('"');
+            StringBuilder value = new StringBuilder();
+            while (position < text.length()) {
+                char c = text.charAt(position++);
+                if (c == '"') {
+                    return value.toString();
+                }
+                if (c != '\\') {
+                    value.append(c);
+                    continue;
+                }
+                if (position >= text.length()) {
+                    break;
+                }
+                char escaped = text.charAt(position++);
+                switch (escaped) {
+                    case 'b':
+                        value.append('\b');
+                        break;
+                    case 'f':
+                        value.append('\f');
+                        break;
+                    case 'n':
+                        value.append('\n');
+                        break;
+                    case 'r':
+                        value.append('\r');
+                        break;
+                    case 't':
+                        value.append('\t');
+                        break;
+                    case 'u':
+                        if (position + 4 > text.length()) {
+                            throw invalid();
+                        }
+                        try {
+                            value.append((char) Integer.parseInt(
+                                    text.substring(position, position + 4), 16));
+                        } catch (NumberFormatException ex) {
+                            throw invalid();
+                        }
+                        position += 4;
+                        break;
+                    default:
+                        value.append(escaped);
+                        break;
+                }
+            }
+            throw invalid();
+        }
+
+        /**
+         * Skip the whitespaces and the expected char.
+         * @param c the expected char
+         * @throws IllegalArgumentException if the next char is another one
+         */
+        private void expect(char c) {
+            if (!consume(c)) {
+                throw invalid();
+            }
+        }
+
+        /**
+         * Skip the whitespaces and the char if it is the next one.
+         * @param c the char
+         * @return true if the char is skipped
+         */
+        private boolean consume(char c) {
+            skipWhitespace();
+            if (position < text.length() && text.charAt(position) == c) {
+                position++;
+                return true;
+            }
+            return false;
+        }
+
+        /**
+         * Skip the whitespaces.
+         */
+        private void skipWhitespace() {
+            while (position < text.length() && Character.isWhitespace(text.charAt(position))) {
+                position++;
+            }
+        }
+
+        /**
+         * Returns the exception of an invalid object.
+         * @return {@code IllegalArgumentException}
+         */
+        private IllegalArgumentException invalid() {
+            return new IllegalArgumentException("Invalid JSON at " + (position + 1));
+        }
+
+    }
+
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright (c) 2017, Gabor Kolozsy. All rights reserved.
+ */
+
+package hu.gaborkolozsy.timeclock.service.impl;
+
+import hu.gaborkolozsy.timeclock.dao.DeveloperDao;
+import hu.gaborkolozsy.timeclock.dao.WorkingHoursDao;
+import hu.gaborkolozsy.timeclock.model.clock.ClockEvent;
+import hu.gaborkolozsy.timeclock.model.clock.ClockShift;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Writer of a batch of clock events into the developers' working hours,
+ * paired per developer like the clock import does: one query checks the
+ * developers, one more reads their open shifts, and the shifts are inserted
+ * and closed with batched statements.
+ *
+ * <p>It runs in the caller's transaction.
+ *
+ * @author Gabor Kolozsy (gabor.kolozsy.development@gmail.com)
+ * @since 0.0.1-SNAPSHOT
+ * @see ClockImportServiceImpl
+ * @see WorkingHoursDao#insertShifts(List)
+ */
+@Component
+class ClockEventWriter {
+
+    @Autowired
+    private DeveloperDao developerDao;
+
+    @Autowired
+    private WorkingHoursDao workingHoursDao;
+
+    /**
+     * Write the events in the current transaction.
+     * @param events the events in time order per developer
+     * @return number of the invalid events (e.g. a second clock-in), which
+     *         are skipped
+     */
+    int write(List<ClockEvent> events) {
+        Set<Long> developerIds = new HashSet<>();
+        events.forEach((event) -> developerIds.add(event.getDeveloperId()));
+        Set<Long> existing = developerDao.getExistingBy("developerId", developerIds);
+        Map<Long, ClockShift> open = new HashMap<>(workingHoursDao.getLastOpenShifts(existing));
+        List<ClockShift> inserts = new ArrayList<>();
+        List<ClockShift> closes = new ArrayList<>();
+        int invalid = 0;
+        for (ClockEvent event : events) {
+            if (ClockImportServiceImpl.apply(event, existing, open, inserts, closes) != null) {
+                invalid++;
+            }
+        }
+        open.values().stream()
+                .filter((shift) -> shift.getId() == null)
+                .forEach(inserts::add);
+        workingHoursDao.insertShifts(inserts);
+        workingHoursDao.closeShifts(closes);
+        return invalid;
+    }
+
+}
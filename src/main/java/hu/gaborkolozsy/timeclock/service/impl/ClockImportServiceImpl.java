@@ -0,0 +1,422 @@
+/*
+ * Copyright (c) 2017, Gabor Kolozsy. All rights reserved.
+ */
+
+package hu.gaborkolozsy.timeclock.service.impl;
+
+import hu.gaborkolozsy.timeclock.dao.DeveloperDao;
+import hu.gaborkolozsy.timeclock.dao.ImportCheckpointDao;
+import hu.gaborkolozsy.timeclock.dao.WorkingHoursDao;
+import hu.gaborkolozsy.timeclock.model.ImportCheckpoint;
+import hu.gaborkolozsy.timeclock.model.clock.ClockEvent;
+import hu.gaborkolozsy.timeclock.model.clock.ClockShift;
+import hu.gaborkolozsy.timeclock.model.clock.ImportResult;
+import hu.gaborkolozsy.timeclock.service.ClockImportService;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Clock import service implementation. Connect between Controller and DAO.
+ *
+ * <p>The file is read by chunks of <i>timeclock.import.chunk_size</i>
+ * lines. Each chunk
+ * <ol>
+ *  <li>is parsed on a {@link ForkJoinPool} (see {@link ClockEventParser}),
+ *      </li>
+ *  <li>checks its developers with one query per 500 developers and reads
+ *      their open shift with one more,</li>
+ *  <li>pairs the events per developer in the file's order: an <i>IN</i>
+ *      opens a shift, an <i>OUT</i> closes the open one,</li>
+ *  <li>inserts the new shifts and closes the earlier open ones with batched
+ *      statements (see {@link WorkingHoursDao#insertShifts(List)}),</li>
+ *  <li>writes its rejected lines and the checkpoint of the file (see
+ *      {@link ImportCheckpoint}) in the same transaction.</li>
+ * </ol>
+ *
+ * <p>The chunk's transaction holds the {@link StripedLocks} of its
+ * developers until the commit, like the clock-in and the clock-out, so a
+ * developer's open shift is not read and written concurrently.
+ *
+ * <p>So the memory usage depends on the chunk's size only, and an
+ * interrupted import restarts after its last committed chunk. A shift which
+ * is still open at the chunk's end is inserted as open, and closed by a
+ * later chunk. The import of a completely imported file does nothing, the
+ * lines appended to it are imported by the next run.
+ *
+ * @author Gabor Kolozsy (gabor.kolozsy.development@gmail.com)
+ * @since 0.0.1-SNAPSHOT
+ * @see ClockEventParser
+ * @see WorkingHoursDao
+ * @see ImportCheckpointDao
+ * @see ForkJoinPool
+ * @see TransactionTemplate
+ * @see StripedLocks
+ */
+@Service
+public class ClockImportServiceImpl implements ClockImportService {
+
+    static final String UNKNOWN_DEVELOPER = "Unknown developer";
+    static final String CLOCKED_IN = "Already clocked in";
+    static final String NOT_CLOCKED_IN = "Not clocked in";
+    static final String OUT_BEFORE_IN = "Clock-out before clock-in";
+
+    /**
+     * The header of the reject file.
+     */
+    private static final Object[] REJECT_HEADER = {"Line", "Reason", "Original"};
+
+    /**
+     * The number of lines parsed by one fork-join task at most.
+     */
+    private static final int PARSE_THRESHOLD = 1024;
+
+    /**
+     * The size of the reader's and the reject writer's buffer in chars and
+     * bytes.
+     */
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    @Autowired
+    private DeveloperDao developerDao;
+
+    @Autowired
+    private WorkingHoursDao workingHoursDao;
+
+    @Autowired
+    private ImportCheckpointDao importCheckpointDao;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private StripedLocks stripedLocks;
+
+    /**
+     * The <strong>timeclock.import.parallelism</strong> property, 0 means
+     * the number of the available processors.
+     */
+    @Value("${timeclock.import.parallelism}")
+    private int parallelism;
+
+    /**
+     * The <strong>timeclock.import.chunk_size</strong> property, number of
+     * lines imported in one transaction.
+     */
+    @Value("${timeclock.import.chunk_size}")
+    private int chunkSize;
+
+    /**
+     * Import the clock events of the file (CSV or JSON lines), starting
+     * after the lines of the previous runs. The invalid events are written
+     * into the reject file with the line's number and the reason, the reject
+     * file is truncated to the last committed chunk's rejects first.
+     * @param file the clock events, in time order per developer
+     * @param rejectFile the rejected lines' file
+     * @return {@code ImportResult}
+     * @throws UncheckedIOException if a file can not be read or written
+     */
+    @Override
+    public ImportResult importEvents(Path file, Path rejectFile) {
+        long start = System.nanoTime();
+        String source = getSource(file);
+        // the checkpoint is read from the primary: a lagging replica's older 
+        // checkpoint would import the committed lines again
+        TransactionTemplate readWrite = new TransactionTemplate(transactionManager);
+        ImportCheckpoint checkpoint = readWrite.execute((status) ->
+                importCheckpointDao.get(source));
+        long resumedFrom = checkpoint == null ? 0 : checkpoint.getProcessedLines();
+        ClockEventParser parser = ClockEventParser.of(file);
+        ForkJoinPool pool = new ForkJoinPool(parallelism > 0 ? parallelism
+                : Runtime.getRuntime().availableProcessors());
+        long line = resumedFrom;
+        long inserted = 0;
+        long closed = 0;
+        long rejected = 0;
+        try (BufferedReader reader = new BufferedReader(Files.newBufferedReader(file,
+                        StandardCharsets.UTF_8), BUFFER_SIZE);
+                FileChannel rejects = FileChannel.open(rejectFile,
+                        StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+                CsvWriter writer = new CsvWriter(rejects, BUFFER_SIZE)) {
+            rejects.truncate(checkpoint == null ? 0 : checkpoint.getRejectBytes());
+            rejects.position(rejects.size());
+            if (rejects.size() == 0) {
+                writer.writeRow(REJECT_HEADER);
+            }
+            for (long skipped = 0; skipped < resumedFrom; skipped++) {
+                if (reader.readLine() == null) {
+                    break;
+                }
+            }
+            Chunk chunk;
+            while ((chunk = read(reader, line + 1)) != null) {
+                pool.invoke(new ParseTask(parser, chunk, 0, chunk.lines.length));
+                long processed = line + chunk.lines.length;
+                Chunk applied = chunk;
+                Set<Long> developerIds = getDeveloperIds(chunk);
+                stripedLocks.callWithAll(developerIds, () -> readWrite.execute((status) -> {
+                    apply(applied, developerIds, writer);
+                    writer.flush();
+                    force(rejects);
+                    importCheckpointDao.save(source, processed, position(rejects));
+                    return null;
+                }));
+                line = processed;
+                inserted += chunk.inserted;
+                closed += chunk.closed;
+                rejected += chunk.rejected;
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Import of " + file + " failed!", ex);
+        } finally {
+            pool.shutdown();
+        }
+        return new ImportResult(resumedFrom, line - resumedFrom, inserted, closed, rejected,
+                Duration.ofNanos(System.nanoTime() - start));
+    }
+
+    /**
+     * Delete the checkpoint of the file, so the next import starts at its
+     * first line.
+     * @param file the clock events
+     */
+    @Override
+    @Transactional
+    public void restart(Path file) {
+        importCheckpointDao.remove(getSource(file));
+    }
+
+    /**
+     * Returns the developers' ID of the chunk's parsed events.
+     * @param chunk the parsed chunk
+     * @return the developers' ID
+     */
+    private static Set<Long> getDeveloperIds(Chunk chunk) {
+        Set<Long> developerIds = new HashSet<>();
+        for (ClockEvent event : chunk.events) {
+            if (event != null) {
+                developerIds.add(event.getDeveloperId());
+            }
+        }
+        return developerIds;
+    }
+
+    /**
+     * Pair the chunk's events per developer, write the new and the closed
+     * shifts, and the rejected lines.
+     * @param chunk the parsed chunk
+     * @param developerIds the developers' ID of the chunk's events
+     * @param writer the reject file's writer
+     */
+    private void apply(Chunk chunk, Set<Long> developerIds, CsvWriter writer) {
+        Set<Long> existing = developerDao.getExistingBy("developerId", developerIds);
+        Map<Long, ClockShift> open = new HashMap<>(workingHoursDao.getLastOpenShifts(existing));
+        List<ClockShift> inserts = new ArrayList<>();
+        List<ClockShift> closes = new ArrayList<>();
+        chunk.rejected = 0;
+        for (int i = 0; i < chunk.lines.length; i++) {
+            String reason = chunk.errors[i];
+            if (reason == null && chunk.events[i] != null) {
+                reason = apply(chunk.events[i], existing, open, inserts, closes);
+            }
+            if (reason != null) {
+                writer.writeRow(new Object[] {chunk.firstLine + i, reason, chunk.lines[i]});
+                chunk.rejected++;
+            }
+        }
+        open.values().stream()
+                .filter((shift) -> shift.getId() == null)
+                .forEach(inserts::add);
+        chunk.inserted = workingHoursDao.insertShifts(inserts).length;
+        chunk.closed = workingHoursDao.closeShifts(closes);
+    }
+
+    /**
+     * Apply the event on the developers' open shifts.
+     * @param event {@code ClockEvent}
+     * @param existing the existing developers' ID
+     * @param open the open shift by developer's ID
+     * @param inserts the new closed shifts
+     * @param closes the closed shifts which were open in the database
+     * @return the reason of the rejection, or null if the event is applied
+     */
+    static String apply(ClockEvent event, Set<Long> existing,
+            Map<Long, ClockShift> open, List<ClockShift> inserts, List<ClockShift> closes) {
+        Long developerId = event.getDeveloperId();
+        if (!existing.contains(developerId)) {
+            return UNKNOWN_DEVELOPER;
+        }
+        ClockShift shift = open.get(developerId);
+        if (event.getType() == ClockEvent.Type.IN) {
+            if (shift != null) {
+                return CLOCKED_IN;
+            }
+            open.put(developerId, new ClockShift(null, developerId, event.getTime(), null));
+            return null;
+        }
+        if (shift == null) {
+            return NOT_CLOCKED_IN;
+        }
+        if (event.getTime().isBefore(shift.getWorkStart())) {
+            return OUT_BEFORE_IN;
+        }
+        open.remove(developerId);
+        (shift.getId() == null ? inserts : closes).add(shift.close(event.getTime()));
+        return null;
+    }
+
+    /**
+     * Read the next chunk's lines.
+     * @param reader the file's reader
+     * @param firstLine the number of the chunk's first line
+     * @return {@code Chunk} or null at the file's end
+     * @throws IOException if the file can not be read
+     */
+    private Chunk read(BufferedReader reader, long firstLine) throws IOException {
+        List<String> lines = new ArrayList<>(chunkSize);
+        String text;
+        while (lines.size() < chunkSize && (text = reader.readLine()) != null) {
+            lines.add(text);
+        }
+        return lines.isEmpty() ? null
+                : new Chunk(firstLine, lines.toArray(new String[lines.size()]));
+    }
+
+    /**
+     * Returns the checkpoint's key of the file.
+     * @param file the clock events
+     * @return the file's absolute, normalized path
+     */
+    private static String getSource(Path file) {
+        return file.toAbsolutePath().normalize().toString();
+    }
+
+    /**
+     * Force the reject file's content to the storage device.
+     * @param channel the reject file's channel
+     * @throws UncheckedIOException if the channel fails
+     */
+    private static void force(FileChannel channel) {
+        try {
+            channel.force(false);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /**
+     * Returns the reject file's position.
+     * @param channel the reject file's channel
+     * @return position in bytes
+     * @throws UncheckedIOException if the channel fails
+     */
+    private static long position(FileChannel channel) {
+        try {
+            return channel.position();
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /**
+     * The lines of a chunk and their parsed events.
+     */
+    private static final class Chunk {
+
+        private final long firstLine;
+        private final String[] lines;
+        private final ClockEvent[] events;
+        private final String[] errors;
+        private long inserted;
+        private long closed;
+        private long rejected;
+
+        /**
+         * Constructor with the lines.
+         * @param firstLine the number of the first line
+         * @param lines the lines
+         */
+        Chunk(long firstLine, String[] lines) {
+            this.firstLine = firstLine;
+            this.lines = lines;
+            this.events = new ClockEvent[lines.length];
+            this.errors = new String[lines.length];
+        }
+
+    }
+
+    /**
+     * Fork-join task, which splits the lines until the threshold and parses
+     * them. The blank lines and the header have neither event nor error.
+     */
+    private static final class ParseTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final transient ClockEventParser parser;
+        private final transient Chunk chunk;
+        private final int from;
+        private final int to;
+
+        /**
+         * Constructor with the lines' range.
+         * @param parser {@code ClockEventParser}
+         * @param chunk {@code Chunk}
+         * @param from the first line's index (inclusive)
+         * @param to the last line's index (exclusive)
+         */
+        ParseTask(ClockEventParser parser, Chunk chunk, int from, int to) {
+            this.parser = parser;
+            this.chunk = chunk;
+            this.from = from;
+            this.to = to;
+        }
+
+        /**
+         * Parse the lines or split them in two.
+         */
+        @Override
+        protected void compute() {
+            if (to - from > PARSE_THRESHOLD) {
+                int half = (from + to) >>> 1;
+                invokeAll(new ParseTask(parser, chunk, from, half),
+                        new ParseTask(parser, chunk, half, to));
+                return;
+            }
+            for (int i = from; i < to; i++) {
+                String line = chunk.lines[i];
+                if (line.trim().isEmpty()
+                        || (chunk.firstLine + i == 1 && parser.isHeader(line))) {
+                    continue;
+                }
+                try {
+                    chunk.events[i] = parser.parse(line);
+                } catch (IllegalArgumentException ex) {
+                    chunk.errors[i] = ex.getMessage();
+                }
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,471 @@
+/*
+ * Copyright (c) 2017, Gabor Kolozsy. All rights reserved.
+ */
+
+package hu.gaborkolozsy.timeclock.service.impl;
+
+import hu.gaborkolozsy.timeclock.model.clock.ClockEvent;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only journal of clock events in memory-mapped segment files of
+ * fixed-size records.
+ *
+ * <p>A segment file is named by its first sequence number (e.g.
+ * <i>00000000000000000001.journal</i>), it is created with its full size
+ * (<i>records * 32</i> bytes) and mapped once. A record is
+ * <pre>
+ *  0 long  sequence number
+ *  8 long  developer's ID
+ * 16 long  time in nanoseconds of the UTC epoch
+ * 24 int   type (1 = IN, 2 = OUT, 0 = free)
+ * 28 int   CRC-32 of the bytes 0 - 27
+ * </pre>
+ * An append writes into the mapped page and is durable by the
+ * {@link Fsync} policy: forced at once, by {@link #force()}, or whenever
+ * the operating system writes the pages back.
+ *
+ * <p>On opening, the last segment is scanned up to the first record which
+ * is free, torn (its CRC does not match) or out of sequence, that is the
+ * journal's end. The records behind it are cleared, so a record written
+ * before the crash but not reached by the scan can not come back. If the
+ * end is before the given first sequence number (e.g. the records of a
+ * checkpoint were not forced before a crash of the machine), the journal
+ * continues in a new segment from that number, so a sequence number is
+ * never used twice.
+ *
+ * <p>A journal created in an empty directory is <i>fresh</i> until
+ * {@link #markResolved()}: its records are new, whatever an earlier
+ * journal of the directory has replayed. A marker file keeps the state
+ * over a restart.
+ *
+ * <p>The appends are serialized, the reads of the appended records (see
+ * {@link #read(long, int)}) may run concurrently with them.
+ *
+ * @author Gabor Kolozsy (gabor.kolozsy.development@gmail.com)
+ * @since 0.0.1-SNAPSHOT
+ * @see MappedByteBuffer
+ * @see CRC32
+ */
+class ClockJournal implements AutoCloseable {
+
+    /**
+     * The size of a record in bytes.
+     */
+    static final int RECORD_SIZE = 32;
+
+    private static final int CHECKED_SIZE = 28;
+    private static final String SUFFIX = ".journal";
+    private static final String FRESH = "fresh.marker";
+    private static final long NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private final Path directory;
+    private final int records;
+    private final Fsync fsync;
+    private final ConcurrentNavigableMap<Long, Segment> segments = new ConcurrentSkipListMap<>();
+    private final CRC32 crc = new CRC32();
+    private final byte[] scratch = new byte[RECORD_SIZE];
+    private final ByteBuffer record = ByteBuffer.wrap(scratch);
+    private final AtomicLong forced = new AtomicLong();
+
+    private Segment current;
+    private int position;
+    private volatile long written;
+    private volatile boolean fresh;
+
+    /**
+     * Open the journal, recovering its end after a crash.
+     * @param directory the segments' directory (created if missing)
+     * @param records number of records per segment
+     * @param fsync {@code Fsync} policy
+     * @param firstSequence the first sequence number of an empty journal,
+     *        and the least sequence number of the next append
+     * @throws UncheckedIOException if a segment can not be opened
+     */
+    ClockJournal(Path directory, int records, Fsync fsync, long firstSequence) {
+        this.directory = directory;
+        this.records = records;
+        this.fsync = fsync;
+        try {
+            Files.createDirectories(directory);
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(directory,
+                    "*" + SUFFIX)) {
+                for (Path file : files) {
+                    String name = file.getFileName().toString();
+                    long first = Long.parseLong(name.substring(0, name.length()
+                            - SUFFIX.length()));
+                    segments.put(first, new Segment(first, map(file)));
+                }
+            }
+            Path marker = directory.resolve(FRESH);
+            if (segments.isEmpty() && !Files.exists(marker)) {
+                Files.createFile(marker);
+            }
+            fresh = Files.exists(marker);
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Journal " + directory + " can not be opened!", ex);
+        }
+        if (segments.isEmpty()) {
+            current = create(firstSequence);
+            position = 0;
+        } else {
+            current = segments.lastEntry().getValue();
+            position = recover(current);
+            if (current.first + position < firstSequence) {
+                current = create(firstSequence);
+                position = 0;
+            }
+        }
+        written = current.first + position - 1;
+        forced.set(written);
+    }
+
+    /**
+     * Append the event.
+     * @param event {@code ClockEvent}
+     * @return the event's sequence number
+     * @throws IllegalArgumentException if the event's time is out of the
+     *         journal's range (about 1677 - 2262)
+     * @throws UncheckedIOException if the next segment can not be created
+     */
+    synchronized long append(ClockEvent event) {
+        long time = toNanos(event.getTime());
+        if (position == records) {
+            current.buffer.force();
+            forced.accumulateAndGet(written, Math::max);
+            current = create(written + 1);
+            position = 0;
+        }
+        long sequence = written + 1;
+        record.clear();
+        record.putLong(sequence)
+                .putLong(event.getDeveloperId())
+                .putLong(time)
+                .putInt(event.getType() == ClockEvent.Type.IN ? 1 : 2);
+        crc.reset();
+        crc.update(scratch, 0, CHECKED_SIZE);
+        record.putInt((int) crc.getValue());
+        ByteBuffer target = current.writer;
+        target.position(position * RECORD_SIZE);
+        target.put(scratch);
+        position++;
+        written = sequence;
+        if (fsync == Fsync.ALWAYS) {
+            current.buffer.force();
+            forced.set(sequence);
+        }
+        return sequence;
+    }
+
+    /**
+     * Write the appended records of the current segment to the storage
+     * device. The earlier segments are forced when they are full. Nothing
+     * is forced if the current segment is empty.
+     */
+    void force() {
+        Segment segment;
+        long sequence;
+        synchronized (this) {
+            segment = current;
+            sequence = written;
+        }
+        if (sequence < segment.first) {
+            return;
+        }
+        segment.buffer.force();
+        forced.accumulateAndGet(sequence, Math::max);
+    }
+
+    /**
+     * Returns the appended events after the sequence number.
+     * @param after the sequence number of the last read event, not before
+     *        the first one - 1
+     * @param max number of events at most
+     * @return the events in the journal's order
+     * @throws IllegalArgumentException if the events after the sequence
+     *         number are released
+     */
+    List<ClockEvent> read(long after, int max) {
+        if (after < segments.firstKey() - 1) {
+            throw new IllegalArgumentException("Events after " + after + " are released!");
+        }
+        long last = Math.min(written, after + max);
+        List<ClockEvent> events = new ArrayList<>((int) Math.max(0, last - after));
+        for (long sequence = after + 1; sequence <= last; sequence++) {
+            Map.Entry<Long, Segment> entry = segments.floorEntry(sequence);
+            events.add(decode(entry.getValue().buffer,
+                    (int) (sequence - entry.getKey()) * RECORD_SIZE));
+        }
+        return events;
+    }
+
+    /**
+     * Delete the segments whose every record is at or before the sequence
+     * number, except the current one.
+     * @param sequence the sequence number of the last replayed event
+     * @return number of the deleted segments
+     */
+    synchronized int release(long sequence) {
+        int released = 0;
+        for (Segment segment : new ArrayList<>(segments.values())) {
+            if (segment != current && segment.first + records - 1 <= sequence) {
+                segments.remove(segment.first);
+                try {
+                    Files.deleteIfExists(file(segment.first));
+                    released++;
+                } catch (IOException ex) {
+                    throw new UncheckedIOException("Segment " + segment.first
+                            + " can not be deleted!", ex);
+                }
+            }
+        }
+        return released;
+    }
+
+    /**
+     * Returns true if the journal was created in an empty directory, and it
+     * is not resolved against a checkpoint yet.
+     * @return true if every record is new
+     */
+    boolean isFresh() {
+        return fresh;
+    }
+
+    /**
+     * Delete the marker of the fresh journal, after its checkpoint is
+     * saved.
+     * @throws UncheckedIOException if the marker can not be deleted
+     */
+    void markResolved() {
+        try {
+            Files.deleteIfExists(directory.resolve(FRESH));
+            fresh = false;
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Marker of " + directory
+                    + " can not be deleted!", ex);
+        }
+    }
+
+    /**
+     * Returns the first sequence number of the journal's oldest segment.
+     * @return sequence number
+     */
+    long getFirstSequence() {
+        return segments.firstKey();
+    }
+
+    /**
+     * Returns the sequence number of the last appended event.
+     * @return sequence number (the first one - 1 if the journal is empty)
+     */
+    long getWrittenSequence() {
+        return written;
+    }
+
+    /**
+     * Returns the sequence number of the last appended event which is
+     * forced to the storage device.
+     * @return sequence number
+     */
+    long getForcedSequence() {
+        return forced.get();
+    }
+
+    /**
+     * Returns the number of the segments.
+     * @return number of segments
+     */
+    int getSegments() {
+        return segments.size();
+    }
+
+    /**
+     * Force the current segment. The mappings are released by the garbage
+     * collector.
+     */
+    @Override
+    public synchronized void close() {
+        force();
+    }
+
+    /**
+     * Find the end of the segment and clear the records behind it.
+     * @param segment the journal's last segment
+     * @return the end's position
+     */
+    private int recover(Segment segment) {
+        ByteBuffer buffer = segment.buffer;
+        int end = 0;
+        while (end < records && isValid(buffer, end, segment.first + end)) {
+            end++;
+        }
+        boolean cleared = false;
+        for (int i = end; i < records; i++) {
+            int offset = i * RECORD_SIZE;
+            if (buffer.getLong(offset) != 0 || buffer.getInt(offset + 24) != 0) {
+                for (int j = 0; j < RECORD_SIZE; j += Long.BYTES) {
+                    buffer.putLong(offset + j, 0);
+                }
+                cleared = true;
+            }
+        }
+        if (cleared) {
+            segment.buffer.force();
+        }
+        return end;
+    }
+
+    /**
+     * Check the record.
+     * @param buffer the segment's mapping
+     * @param index the record's index
+     * @param sequence the expected sequence number
+     * @return true if the record is written completely
+     */
+    private boolean isValid(ByteBuffer buffer, int index, long sequence) {
+        int offset = index * RECORD_SIZE;
+        int type = buffer.getInt(offset + 24);
+        if (buffer.getLong(offset) != sequence || type != 1 && type != 2) {
+            return false;
+        }
+        ByteBuffer checked = buffer.duplicate();
+        checked.position(offset).limit(offset + CHECKED_SIZE);
+        checked.get(scratch, 0, CHECKED_SIZE);
+        crc.reset();
+        crc.update(scratch, 0, CHECKED_SIZE);
+        return (int) crc.getValue() == buffer.getInt(offset + CHECKED_SIZE);
+    }
+
+    /**
+     * Create and map the next segment.
+     * @param first its first sequence number
+     * @return {@code Segment}
+     * @throws UncheckedIOException if the segment can not be created
+     */
+    private Segment create(long first) {
+        try {
+            Segment segment = new Segment(first, map(file(first)));
+            segments.put(first, segment);
+            return segment;
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Segment " + first + " can not be created!", ex);
+        }
+    }
+
+    /**
+     * Map the segment file with its full size.
+     * @param file the segment file
+     * @return {@code MappedByteBuffer}
+     * @throws IOException if the file can not be mapped
+     */
+    private MappedByteBuffer map(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, (long) records * RECORD_SIZE);
+        }
+    }
+
+    /**
+     * Returns the segment's file.
+     * @param first its first sequence number
+     * @return file
+     */
+    private Path file(long first) {
+        return directory.resolve(String.format("%020d%s", first, SUFFIX));
+    }
+
+    /**
+     * Returns the event of the record.
+     * @param buffer the segment's mapping
+     * @param offset the record's offset
+     * @return {@code ClockEvent}
+     */
+    private static ClockEvent decode(ByteBuffer buffer, int offset) {
+        long nanos = buffer.getLong(offset + 16);
+        LocalDateTime time = LocalDateTime.ofEpochSecond(Math.floorDiv(nanos, NANOS_PER_SECOND),
+                (int) Math.floorMod(nanos, NANOS_PER_SECOND), ZoneOffset.UTC);
+        return new ClockEvent(buffer.getLong(offset + 8), buffer.getInt(offset + 24) == 1
+                ? ClockEvent.Type.IN : ClockEvent.Type.OUT, time);
+    }
+
+    /**
+     * Returns the time in nanoseconds of the UTC epoch.
+     * @param time the event's time
+     * @return nanoseconds
+     * @throws IllegalArgumentException if the time does not fit in a long
+     */
+    private static long toNanos(LocalDateTime time) {
+        try {
+            return Math.addExact(Math.multiplyExact(time.toEpochSecond(ZoneOffset.UTC),
+                    NANOS_PER_SECOND), time.getNano());
+        } catch (ArithmeticException ex) {
+            throw new IllegalArgumentException("Time out of the journal's range: " + time, ex);
+        }
+    }
+
+    /**
+     * When the appended records are forced to the storage device.
+     */
+    public enum Fsync {
+
+        /**
+         * After every append: nothing is lost in a crash of the machine.
+         */
+        ALWAYS,
+
+        /**
+         * By {@link ClockJournal#force()} periodically: the appends of the
+         * last interval may be lost in a crash of the machine.
+         */
+        INTERVAL,
+
+        /**
+         * By the operating system: the records survive the application's
+         * crash, but not the machine's. The replayed records are forced
+         * before their checkpoint is saved.
+         */
+        NEVER
+
+    }
+
+    /**
+     * A mapped segment file.
+     */
+    private static final class Segment {
+
+        private final long first;
+        private final MappedByteBuffer buffer;
+        private final ByteBuffer writer;
+
+        /**
+         * Constructor with all values.
+         * @param first its first sequence number
+         * @param buffer the file's mapping
+         */
+        Segment(long first, MappedByteBuffer buffer) {
+            this.first = first;
+            this.buffer = buffer;
+            this.writer = buffer.duplicate();
+        }
+
+    }
+
+}
@@ -0,0 +1,310 @@
+/*
+ * Copyright (c) 2017, Gabor Kolozsy. All rights reserved.
+ */
+
+package hu.gaborkolozsy.timeclock.service.impl;
+
+import hu.gaborkolozsy.timeclock.dao.ImportCheckpointDao;
+import hu.gaborkolozsy.timeclock.model.ImportCheckpoint;
+import hu.gaborkolozsy.timeclock.model.clock.ClockEvent;
+import hu.gaborkolozsy.timeclock.service.ClockJournalService;
+import hu.gaborkolozsy.timeclock.statistics.ClockJournalStatistics;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Clock journal service implementation. Connect between Controller and DAO.
+ *
+ * <p>The events are appended to a {@link ClockJournal} in the
+ * <i>timeclock.clock.journal.directory</i>, in segments of
+ * <i>timeclock.clock.journal.segment_records</i> records, forced by the
+ * <i>timeclock.clock.journal.fsync</i> policy (with <i>INTERVAL</i> every
+ * <i>timeclock.clock.journal.force_interval</i> milliseconds).
+ *
+ * <p>Every <i>timeclock.clock.journal.replay_interval</i> milliseconds a
+ * background thread replays the events after the checkpoint, at most
+ * <i>timeclock.clock.journal.batch_size</i> events in one transaction,
+ * paired per developer like the clock import does (see
+ * {@link ClockEventWriter}), holding the {@link StripedLocks} of the
+ * batch's developers until the commit. The checkpoint is an {@link ImportCheckpoint}
+ * of the journal's directory, saved in the same transaction, so an event is
+ * replayed exactly once, and a failed replay (e.g. while the database is
+ * restarting) is repeated by the next run. The events are forced before
+ * their checkpoint is saved, so the checkpoint is never after the end of
+ * the journal recovered after a crash. The segments before the checkpoint
+ * are deleted.
+ *
+ * <p>The journal is opened and accepts the events at the start, also
+ * while the database is not available: the checkpoint is read by the
+ * first replay. The events of a fresh journal (see
+ * {@link ClockJournal#isFresh()}) are replayed from the first one. The
+ * events appended before the start to a journal without checkpoint (e.g.
+ * the journal of an other, in-memory database, or of a lost checkpoint)
+ * are skipped if <i>timeclock.clock.journal.skip_unknown</i> is true,
+ * otherwise they are replayed. The skipped events are counted by the
+ * statistics.
+ *
+ * @author Gabor Kolozsy (gabor.kolozsy.development@gmail.com)
+ * @since 0.0.1-SNAPSHOT
+ * @see ClockJournal
+ * @see ClockEventWriter
+ * @see StripedLocks
+ * @see ImportCheckpointDao
+ */
+@Service
+public class ClockJournalServiceImpl implements ClockJournalService {
+
+    @Autowired
+    private ClockEventWriter clockEventWriter;
+
+    @Autowired
+    private StripedLocks stripedLocks;
+
+    @Autowired
+    private ImportCheckpointDao importCheckpointDao;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    /**
+     * The <strong>timeclock.clock.journal.enabled</strong> property.
+     */
+    @Value("${timeclock.clock.journal.enabled}")
+    private boolean enabled;
+
+    /**
+     * The <strong>timeclock.clock.journal.directory</strong> property, the
+     * directory of the segment files.
+     */
+    @Value("${timeclock.clock.journal.directory}")
+    private String directory;
+
+    /**
+     * The <strong>timeclock.clock.journal.segment_records</strong> property,
+     * number of records in a segment file.
+     */
+    @Value("${timeclock.clock.journal.segment_records}")
+    private int segmentRecords;
+
+    /**
+     * The <strong>timeclock.clock.journal.fsync</strong> property:
+     * <i>ALWAYS</i>, <i>INTERVAL</i> or <i>NEVER</i>.
+     */
+    @Value("${timeclock.clock.journal.fsync}")
+    private ClockJournal.Fsync fsync;
+
+    /**
+     * The <strong>timeclock.clock.journal.force_interval</strong> property,
+     * the time between two forces in milliseconds.
+     */
+    @Value("${timeclock.clock.journal.force_interval}")
+    private long forceInterval;
+
+    /**
+     * The <strong>timeclock.clock.journal.replay_interval</strong> property,
+     * the time between two replays in milliseconds.
+     */
+    @Value("${timeclock.clock.journal.replay_interval}")
+    private long replayInterval;
+
+    /**
+     * The <strong>timeclock.clock.journal.batch_size</strong> property,
+     * number of events replayed in one transaction at most.
+     */
+    @Value("${timeclock.clock.journal.batch_size}")
+    private int batchSize;
+
+    /**
+     * The <strong>timeclock.clock.journal.skip_unknown</strong> property,
+     * true if the events of a journal without checkpoint are not replayed.
+     */
+    @Value("${timeclock.clock.journal.skip_unknown}")
+    private boolean skipUnknown;
+
+    /**
+     * Serializes the replays of the background thread and the callers.
+     */
+    private final ReentrantLock replaying = new ReentrantLock();
+
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+
+    private ClockJournal journal;
+    private String source;
+    private TransactionTemplate transactionTemplate;
+    private ScheduledExecutorService scheduler;
+    private long opened;
+    private volatile boolean resolved;
+    private volatile long replayed;
+    private volatile long skipped;
+
+    /**
+     * Open the journal and start the background threads.
+     */
+    @PostConstruct
+    void start() {
+        if (!enabled) {
+            return;
+        }
+        Path path = Paths.get(directory).toAbsolutePath().normalize();
+        source = path.toString();
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        journal = new ClockJournal(path, segmentRecords, fsync, 1);
+        opened = journal.getWrittenSequence();
+        replayed = journal.getFirstSequence() - 1;
+        scheduler = Executors.newScheduledThreadPool(2, (runnable) -> {
+            Thread thread = new Thread(runnable, "clock-journal");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (fsync == ClockJournal.Fsync.INTERVAL) {
+            scheduler.scheduleWithFixedDelay(journal::force, forceInterval, forceInterval,
+                    TimeUnit.MILLISECONDS);
+        }
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                replay();
+            } catch (RuntimeException ex) {
+                failures.increment();
+            }
+        }, replayInterval, replayInterval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stop the background threads, then force the journal. The events which
+     * are not replayed yet are replayed after the next start.
+     */
+    @PreDestroy
+    void close() {
+        if (journal == null) {
+            return;
+        }
+        scheduler.shutdown();
+        try {
+            scheduler.awaitTermination(replayInterval, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        journal.close();
+    }
+
+    /**
+     * Append the event to the journal.
+     * @param event {@code ClockEvent}
+     * @return the event's sequence number
+     * @throws IllegalStateException if the journal is disabled
+     * @throws NullPointerException if the event is null
+     */
+    @Override
+    public long append(ClockEvent event) {
+        Objects.requireNonNull(event, "Clock event is null!");
+        if (journal == null) {
+            throw new IllegalStateException("Clock journal is disabled!");
+        }
+        return journal.append(event);
+    }
+
+    /**
+     * Replay the events appended after the checkpoint by batches, then
+     * delete the replayed segments.
+     * @return number of the replayed events
+     */
+    @Override
+    public long replay() {
+        if (journal == null) {
+            return 0;
+        }
+        replaying.lock();
+        try {
+            if (!resolved) {
+                resolve();
+            }
+            long count = 0;
+            List<ClockEvent> events;
+            while (!(events = journal.read(replayed, batchSize)).isEmpty()) {
+                long last = replayed + events.size();
+                if (journal.getForcedSequence() < last) {
+                    journal.force();
+                }
+                List<ClockEvent> batch = events;
+                Set<Long> developerIds = batch.stream()
+                        .map(ClockEvent::getDeveloperId)
+                        .collect(Collectors.toSet());
+                int invalid = stripedLocks.callWithAll(developerIds, () -> 
+                        transactionTemplate.execute((status) -> {
+                            int skipped = clockEventWriter.write(batch);
+                            importCheckpointDao.save(source, last, 0);
+                            return skipped;
+                        }));
+                replayed = last;
+                rejected.add(invalid);
+                count += events.size();
+            }
+            journal.release(replayed);
+            return count;
+        } finally {
+            replaying.unlock();
+        }
+    }
+
+    /**
+     * Read the checkpoint, and save the position of the replay: the
+     * checkpoint, the journal's start if it is fresh or it has no
+     * checkpoint, or its end at the start if its unknown events are
+     * skipped.
+     */
+    private void resolve() {
+        boolean fresh = journal.isFresh();
+        long first = journal.getFirstSequence() - 1;
+        long[] position = transactionTemplate.execute((status) -> {
+            ImportCheckpoint checkpoint = importCheckpointDao.get(source);
+            long start = first;
+            long unknown = 0;
+            if (!fresh && checkpoint != null) {
+                start = Math.max(checkpoint.getProcessedLines(), first);
+            } else if (!fresh && skipUnknown) {
+                start = Math.max(opened, first);
+                unknown = start - first;
+            }
+            importCheckpointDao.save(source, start, 0);
+            return new long[] {start, unknown};
+        });
+        if (fresh) {
+            journal.markResolved();
+        }
+        replayed = position[0];
+        skipped = position[1];
+        resolved = true;
+    }
+
+    /**
+     * Returns the snapshot of the journal's metrics.
+     * @return {@code ClockJournalStatistics}
+     */
+    @Override
+    public ClockJournalStatistics getStatistics() {
+        if (journal == null) {
+            return new ClockJournalStatistics(0, 0, 0, 0, 0, 0, 0);
+        }
+        return new ClockJournalStatistics(journal.getWrittenSequence(),
+                journal.getForcedSequence(), replayed, journal.getSegments(), rejected.sum(),
+                failures.sum(), skipped);
+    }
+
+}
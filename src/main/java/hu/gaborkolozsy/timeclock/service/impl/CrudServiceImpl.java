@@ -7,8 +7,15 @@ package hu.gaborkolozsy.timeclock.service.impl;
 import hu.gaborkolozsy.timeclock.dao.CrudDao;
 import hu.gaborkolozsy.timeclock.dao.impl.CrudDaoImpl;
 import hu.gaborkolozsy.timeclock.service.CrudService;
+import hu.gaborkolozsy.timeclock.service.RetryOnConflict;
 import java.io.Serializable;
+import java.util.Collection;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 import org.springframework.beans.factory.NoSuchBeanDefinitionException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.transaction.annotation.Transactional;
@@ -24,6 +31,9 @@ import org.springframework.transaction.annotation.Transactional;
  * @see CrudDao
  * @see CrudDaoImpl
  * @see List
+ * @see Collection
+ * @see Set
+ * @see Stream
  */
 @Transactional
 public class CrudServiceImpl<T, K extends Serializable> implements CrudService<T, K> {
@@ -50,6 +60,15 @@ public class CrudServiceImpl<T, K extends Serializable> implements CrudService<T
     public void save(T entity) {
         crudDao.save(entity);
     }
+    
+    /**
+     * Make the given instances managed and persistent with batched inserts.
+     * @param entities entity instances
+     */
+    @Override
+    public void saveAll(Iterable<? extends T> entities) {
+        crudDao.saveAll(entities);
+    }
 
     /**
      * Find by primary key.
@@ -60,6 +79,7 @@ public class CrudServiceImpl<T, K extends Serializable> implements CrudService<T
      * @return the found entity instance or null if the entity does not exist
      */
     @Override
+    @Transactional(readOnly = true)
     public T get(K primaryKey) {
         return crudDao.get(primaryKey);
     }
@@ -69,10 +89,44 @@ public class CrudServiceImpl<T, K extends Serializable> implements CrudService<T
      * @return a list of entity
      */
     @Override
+    @Transactional(readOnly = true)
     public List<T> getAll() {
         return (List<T>) crudDao.getAll();
     }
     
+    /**
+     * Performs the given action for each entity in primary key order, while 
+     * the entities are streamed from a database cursor.
+     * @param action the action for each entity
+     * @return number of the processed entities
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public long forEach(Consumer<? super T> action) {
+        long count = 0;
+        try (Stream<T> stream = crudDao.stream()) {
+            Iterator<T> iterator = stream.iterator();
+            while (iterator.hasNext()) {
+                action.accept(iterator.next());
+                count++;
+            }
+        }
+        return count;
+    }
+    
+    /**
+     * Returns a page of the entities ordered by primary key (keyset paging).
+     * @param afterId the last primary key of the previous page or null for 
+     * the first page
+     * @param limit the maximum size of the page
+     * @return a list of entity
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public List<T> page(K afterId, int limit) {
+        return crudDao.page(afterId, limit);
+    }
+    
     /**
      * Merge the state of the given entity into the current persistence context.
      * @param entity entity instance 
@@ -92,11 +146,13 @@ public class CrudServiceImpl<T, K extends Serializable> implements CrudService<T
     }
     
     /**
-     * Remove all entity instance.
+     * Remove all entity instance with set-based delete statements, together 
+     * with the rows which depend on them.
+     * @return number of the deleted rows
      */
     @Override
-    public void removeAll() {
-        crudDao.removeAll();
+    public int removeAll() {
+        return crudDao.removeAll();
     }
     
     /**
@@ -106,6 +162,7 @@ public class CrudServiceImpl<T, K extends Serializable> implements CrudService<T
      * @return boolean indicating if entity is in persistence context
      */
     @Override
+    @Transactional(readOnly = true)
     public boolean isExist(K primarykey) {
         return crudDao.isExist(primarykey);
     }
@@ -117,9 +174,53 @@ public class CrudServiceImpl<T, K extends Serializable> implements CrudService<T
      * @return boolean indicating if entity is in persistence context
      */
     @Override
+    @Transactional(readOnly = true)
     public boolean isExistEntity(T entity) {
         return crudDao.isExistEntity(entity);
     }
+    
+    /**
+     * Check if an entity exists with the given value of the specified 
+     * (unique, natural key) attribute.
+     * @param attribute the attribute's name (e.g. <i>customerId</i>)
+     * @param value the attribute's value
+     * @return true if an entity exists with the given value
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public boolean isExistBy(String attribute, Object value) {
+        return crudDao.isExistBy(attribute, value);
+    }
+    
+    /**
+     * Returns those of the given values which exist in the specified 
+     * (unique, natural key) attribute.
+     * @param <V> type of the attribute
+     * @param attribute the attribute's name (e.g. <i>customerId</i>)
+     * @param values the attribute's values to check
+     * @return the existing values
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public <V> Set<V> getExistingBy(String attribute, Collection<V> values) {
+        return crudDao.getExistingBy(attribute, values);
+    }
+    
+    /**
+     * Update the specified attributes of the entities with the given value 
+     * of the (natural key) attribute with one <strong>update</strong> 
+     * statement, incrementing the version and setting the updated audit 
+     * fields.
+     * @param attribute the key attribute's name (e.g. <i>customerId</i>)
+     * @param value the key attribute's value
+     * @param changes the updated attributes' names and new values
+     * @return number of the updated rows
+     */
+    @Override
+    @RetryOnConflict
+    public int updateBy(String attribute, Object value, Map<String, ?> changes) {
+        return crudDao.updateBy(attribute, value, changes);
+    }
 
     /**
      * Clear persistence context.
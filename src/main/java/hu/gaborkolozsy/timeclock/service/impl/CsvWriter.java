@@ -0,0 +1,292 @@
+/*
+ * Copyright (c) 2017, Gabor Kolozsy. All rights reserved.
+ */
+
+package hu.gaborkolozsy.timeclock.service.impl;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Write CSV rows (RFC 4180) in UTF-8 to a channel through one reusable 
+ * direct byte buffer.
+ * 
+ * <p>The values are encoded into the buffer directly: the whole numbers, 
+ * the dates (ISO <i>yyyy-MM-dd</i>) and the timestamps (ISO 
+ * <i>yyyy-MM-ddTHH:mm:ss[.fraction]</i>) without a {@code String}, the 
+ * texts char by char, quoted only if they contain a comma, a quote or a 
+ * line break. The {@code null} is an empty field. The buffer is written to 
+ * the channel only when it is full and at close.
+ *
+ * @author Gabor Kolozsy (gabor.kolozsy.development@gmail.com)
+ * @since 0.0.1-SNAPSHOT
+ * @see ByteBuffer
+ * @see WritableByteChannel
+ */
+final class CsvWriter implements Closeable {
+
+    /**
+     * The space of the longest value which is not split: a whole number, a 
+     * timestamp or a char.
+     */
+    private static final int MAX_VALUE_BYTES = 32;
+
+    private final WritableByteChannel channel;
+    private final ByteBuffer buffer;
+    private final byte[] digits = new byte[20];
+    private long bytes;
+
+    /**
+     * Constructor with the target channel.
+     * @param channel the target, which is not closed by this writer
+     * @param bufferSize the buffer's size in bytes
+     */
+    CsvWriter(WritableByteChannel channel, int bufferSize) {
+        this.channel = channel;
+        this.buffer = ByteBuffer.allocateDirect(Math.max(bufferSize, MAX_VALUE_BYTES));
+    }
+
+    /**
+     * Write a row of values.
+     * @param values the fields' value
+     * @throws UncheckedIOException if the channel fails
+     */
+    void writeRow(Object[] values) {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                put((byte) ',');
+            }
+            writeValue(values[i]);
+        }
+        put((byte) '\r');
+        put((byte) '\n');
+    }
+
+    /**
+     * Returns the number of the written bytes, including the buffered ones.
+     * @return number of bytes
+     */
+    long getBytes() {
+        return bytes + buffer.position();
+    }
+
+    /**
+     * Write the buffered bytes to the channel.
+     * @throws UncheckedIOException if the channel fails
+     */
+    void flush() {
+        try {
+            drain();
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /**
+     * Write the buffered bytes to the channel.
+     * @throws IOException if the channel fails
+     */
+    @Override
+    public void close() throws IOException {
+        drain();
+    }
+
+    /**
+     * Write a field's value.
+     * @param value the value or null
+     */
+    private void writeValue(Object value) {
+        if (value == null) {
+            return;
+        }
+        if (value instanceof Long || value instanceof Integer || value instanceof Short 
+                || value instanceof Byte) {
+            writeLong(((Number) value).longValue());
+        } else if (value instanceof BigInteger && ((BigInteger) value).bitLength() < 64) {
+            writeLong(((BigInteger) value).longValue());
+        } else if (value instanceof BigDecimal) {
+            writeText(((BigDecimal) value).toPlainString());
+        } else if (value instanceof Timestamp) {
+            writeDateTime(((Timestamp) value).toLocalDateTime());
+        } else if (value instanceof Date) {
+            writeDate(((Date) value).toLocalDate());
+        } else {
+            writeText(value.toString());
+        }
+    }
+
+    /**
+     * Write a whole number's decimal digits.
+     * @param value the number
+     */
+    private void writeLong(long value) {
+        ensure(MAX_VALUE_BYTES);
+        if (value == Long.MIN_VALUE) {
+            writeText(Long.toString(value));
+            return;
+        }
+        if (value < 0) {
+            buffer.put((byte) '-');
+            value = -value;
+        }
+        int length = 0;
+        do {
+            digits[length++] = (byte) ('0' + value % 10);
+            value /= 10;
+        } while (value > 0);
+        while (length > 0) {
+            buffer.put(digits[--length]);
+        }
+    }
+
+    /**
+     * Write a date as <i>yyyy-MM-dd</i>.
+     * @param date the date
+     */
+    private void writeDate(LocalDate date) {
+        if (date.getYear() < 0 || date.getYear() > 9999) {
+            writeText(date.toString());
+            return;
+        }
+        ensure(MAX_VALUE_BYTES);
+        writeDigits(date.getYear(), 4);
+        buffer.put((byte) '-');
+        writeDigits(date.getMonthValue(), 2);
+        buffer.put((byte) '-');
+        writeDigits(date.getDayOfMonth(), 2);
+    }
+
+    /**
+     * Write a timestamp as <i>yyyy-MM-ddTHH:mm:ss</i>, with 3, 6 or 9 
+     * fraction digits if the nanoseconds are not zero.
+     * @param time the timestamp
+     */
+    private void writeDateTime(LocalDateTime time) {
+        if (time.getYear() < 0 || time.getYear() > 9999) {
+            writeText(time.toString());
+            return;
+        }
+        writeDate(time.toLocalDate());
+        buffer.put((byte) 'T');
+        writeDigits(time.getHour(), 2);
+        buffer.put((byte) ':');
+        writeDigits(time.getMinute(), 2);
+        buffer.put((byte) ':');
+        writeDigits(time.getSecond(), 2);
+        int nano = time.getNano();
+        if (nano > 0) {
+            buffer.put((byte) '.');
+            if (nano % 1_000_000 == 0) {
+                writeDigits(nano / 1_000_000, 3);
+            } else if (nano % 1_000 == 0) {
+                writeDigits(nano / 1_000, 6);
+            } else {
+                writeDigits(nano, 9);
+            }
+        }
+    }
+
+    /**
+     * Write a not negative number with leading zeros (the buffer must have 
+     * the space).
+     * @param value the number
+     * @param length number of digits
+     */
+    private void writeDigits(int value, int length) {
+        for (int i = length - 1; i >= 0; i--) {
+            digits[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+        buffer.put(digits, 0, length);
+    }
+
+    /**
+     * Write a text in UTF-8, quoted if it contains a comma, a quote or a 
+     * line break.
+     * @param text the text
+     */
+    private void writeText(String text) {
+        boolean quoted = false;
+        for (int i = 0; i < text.length() && !quoted; i++) {
+            char c = text.charAt(i);
+            quoted = c == ',' || c == '"' || c == '\r' || c == '\n';
+        }
+        if (quoted) {
+            put((byte) '"');
+        }
+        for (int i = 0; i < text.length(); i++) {
+            ensure(4);
+            char c = text.charAt(i);
+            if (c < 0x80) {
+                if (c == '"') {
+                    buffer.put((byte) '"');
+                }
+                buffer.put((byte) c);
+            } else if (c < 0x800) {
+                buffer.put((byte) (0xC0 | c >> 6));
+                buffer.put((byte) (0x80 | c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < text.length() 
+                    && Character.isLowSurrogate(text.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, text.charAt(++i));
+                buffer.put((byte) (0xF0 | codePoint >> 18));
+                buffer.put((byte) (0x80 | codePoint >> 12 & 0x3F));
+                buffer.put((byte) (0x80 | codePoint >> 6 & 0x3F));
+                buffer.put((byte) (0x80 | codePoint & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                buffer.put((byte) '?');
+            } else {
+                buffer.put((byte) (0xE0 | c >> 12));
+                buffer.put((byte) (0x80 | c >> 6 & 0x3F));
+                buffer.put((byte) (0x80 | c & 0x3F));
+            }
+        }
+        if (quoted) {
+            put((byte) '"');
+        }
+    }
+
+    /**
+     * Write a byte.
+     * @param b the byte
+     */
+    private void put(byte b) {
+        ensure(1);
+        buffer.put(b);
+    }
+
+    /**
+     * Drain the buffer if it has not the specified space.
+     * @param space number of bytes
+     */
+    private void ensure(int space) {
+        if (buffer.remaining() < space) {
+            try {
+                drain();
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
+    }
+
+    /**
+     * Write the buffered bytes to the channel and clear the buffer.
+     * @throws IOException if the channel fails
+     */
+    private void drain() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            bytes += channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+}
@@ -10,10 +10,12 @@ import hu.gaborkolozsy.timeclock.dao.impl.CrudDaoImpl;
 import hu.gaborkolozsy.timeclock.dao.impl.CustomerDaoImpl;
 import hu.gaborkolozsy.timeclock.model.Customer;
 import hu.gaborkolozsy.timeclock.service.CustomerService;
+import hu.gaborkolozsy.timeclock.service.RetryOnConflict;
 import org.springframework.beans.factory.NoSuchBeanDefinitionException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 /**
  * Customer service implementation. Connect between Controller and Dao.
@@ -56,16 +58,29 @@ public class CustomerServiceImpl extends CrudServiceImpl<Customer, Long>
      * @return {@code Customer} instance
      */
     @Override
+    @Transactional(readOnly = true)
     public Customer getByCustomerId(Long customerId) {
         return customerDao.getByCustomerId(customerId);
     }
 
+    /**
+     * Returns {@code Customer} with its jobs by the specified customer's ID.
+     * @param customerId customer's ID
+     * @return {@code Customer} instance with initialized jobs
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public Customer getByCustomerIdWithJobs(Long customerId) {
+        return customerDao.getByCustomerIdWithJobs(customerId);
+    }
+
     /**
      * Returns {@code Customer} with the specified name.
      * @param name customer's name
      * @return {@code Customer} instance
      */
     @Override
+    @Transactional(readOnly = true)
     public Customer getByCustomerName(String name) {
         return customerDao.getByCustomerName(name);
     }
@@ -74,10 +89,12 @@ public class CustomerServiceImpl extends CrudServiceImpl<Customer, Long>
      * Update the {@code Customer}'s contact person by specified ID.
      * @param customerId customer's ID
      * @param contact contact person's name by customer
+     * @return true if an entity matched
      */
     @Override
-    public void updateContactByCustomerId(Long customerId, String contact) {
-        customerDao.updateContactByCustomerId(customerId, contact);
+    @RetryOnConflict
+    public boolean updateContactByCustomerId(Long customerId, String contact) {
+        return customerDao.updateContactByCustomerId(customerId, contact);
     }
 
     /**
@@ -96,6 +113,7 @@ public class CustomerServiceImpl extends CrudServiceImpl<Customer, Long>
      * @return boolean indicating if entity is in persistence context
      */
     @Override
+    @Transactional(readOnly = true)
     public boolean isExistWithCustomerId(Long customerId) {
         return customerDao.isExistWithCustomerId(customerId);
     }
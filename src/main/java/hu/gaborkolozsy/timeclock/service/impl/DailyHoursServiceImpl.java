@@ -0,0 +1,110 @@
+/*
+ * Copyright (c) 2017, Gabor Kolozsy. All rights reserved.
+ */
+
+package hu.gaborkolozsy.timeclock.service.impl;
+
+import hu.gaborkolozsy.timeclock.dao.DailyHoursDao;
+import hu.gaborkolozsy.timeclock.model.DailyHours.Key;
+import hu.gaborkolozsy.timeclock.service.DailyHoursService;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Daily hours service implementation. Connect between Controller and DAO.
+ * 
+ * <p>The rollup is kept up to date by the {@code WorkingHours} and 
+ * {@code Developer} DAOs in the writer's transaction, this service rebuilds 
+ * and checks it.
+ *
+ * @author Gabor Kolozsy (gabor.kolozsy.development@gmail.com)
+ * @since 0.0.1-SNAPSHOT
+ * @see DailyHoursDao
+ * @see TransactionTemplate
+ * @see ExecutorService
+ */
+@Service
+public class DailyHoursServiceImpl implements DailyHoursService {
+
+    @Autowired
+    private DailyHoursDao dailyHoursDao;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    /** 
+     * The <strong>timeclock.daily_hours.rebuild_chunk_size</strong> property, 
+     * number of developers rebuilt in one transaction. 
+     */
+    @Value("${timeclock.daily_hours.rebuild_chunk_size}")
+    private int chunkSize;
+
+    /** 
+     * The <strong>timeclock.daily_hours.rebuild_threads</strong> property. 
+     */
+    @Value("${timeclock.daily_hours.rebuild_threads}")
+    private int threads;
+
+    /**
+     * Recompute the whole rollup from the working hours.
+     * 
+     * <p>The ordered developers' IDs are split into disjoint ranges of 
+     * <i>rebuild_chunk_size</i> developers, and the ranges are rebuilt in 
+     * parallel on <i>rebuild_threads</i> threads, each in its own 
+     * transaction. A range's readers see either its old or its new rows.
+     * @return number of the rollup rows
+     * @throws IllegalStateException if the rebuild is interrupted
+     */
+    @Override
+    public int rebuild() {
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        List<Long> developerIds = template.execute((status) -> dailyHoursDao.getDeveloperIds());
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Integer>> chunks = new ArrayList<>();
+            for (int i = 0; i < developerIds.size(); i += chunkSize) {
+                Long from = developerIds.get(i);
+                Long to = developerIds.get(Math.min(i + chunkSize, developerIds.size()) - 1);
+                chunks.add(executor.submit(() -> 
+                        template.execute((status) -> dailyHoursDao.rebuild(from, to))));
+            }
+            int rows = 0;
+            for (Future<Integer> chunk : chunks) {
+                rows += chunk.get();
+            }
+            return rows;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Rebuild of the daily hours is interrupted!", ex);
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) ex.getCause();
+            }
+            throw new IllegalStateException(ex.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Compare the rollup with the working hours.
+     * @return the keys of the inconsistent rollup rows, empty if the rollup 
+     *         is consistent
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public List<Key> verify() {
+        return dailyHoursDao.verify();
+    }
+
+}
@@ -9,12 +9,16 @@ import hu.gaborkolozsy.timeclock.dao.DeveloperDao;
 import hu.gaborkolozsy.timeclock.dao.impl.CrudDaoImpl;
 import hu.gaborkolozsy.timeclock.dao.impl.DeveloperDaoImpl;
 import hu.gaborkolozsy.timeclock.model.Developer;
+import hu.gaborkolozsy.timeclock.model.projection.DeveloperRow;
 import hu.gaborkolozsy.timeclock.service.DeveloperService;
+import hu.gaborkolozsy.timeclock.service.RetryOnConflict;
+import java.time.LocalDate;
 import java.util.List;
 import org.springframework.beans.factory.NoSuchBeanDefinitionException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 /**
  * Developer service implementation. Connect between Controller and Dao.
@@ -58,28 +62,59 @@ public class DeveloperServiceImpl extends CrudServiceImpl<Developer, Long>
      * @return a {@code Developer} 
      */
     @Override
+    @Transactional(readOnly = true)
     public Developer getByDeveloperId(Long developerId) {
         return developerDao.getByDeveloperId(developerId);
     }
 
+    /**
+     * Returns a {@code Developer} entity by the specified developer's ID 
+     * with its working hours between the specified days (inclusive). The 
+     * developer's working hours list is partial.
+     * @param developerId developer's ID
+     * @param from the first day
+     * @param to the last day
+     * @return a {@code Developer} with initialized working hours
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public Developer getByDeveloperIdWithShiftsBetween(Long developerId, LocalDate from, 
+                                                       LocalDate to) {
+        return developerDao.getByDeveloperIdWithShiftsBetween(developerId, from, to);
+    }
+
     /**
      * Returns a list of the {@code Developer} entity by the specified fore name.
      * @param foreName fore Name
      * @return a list of {@code Developer}
      */
     @Override
+    @Transactional(readOnly = true)
     public List<Developer> getAllByForename(String foreName) {
         return developerDao.getAllByForename(foreName);
     }
 
+    /**
+     * Returns the list rows of the developers by the specified fore name.
+     * @param foreName fore Name
+     * @return a list of {@code DeveloperRow} ordered by developer's ID
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public List<DeveloperRow> getRowsByForename(String foreName) {
+        return developerDao.getRowsByForename(foreName);
+    }
+
     /**
      * Update lastname by {@link Developer}'s {@code developerId}.
      * @param developerId the developer's ID
      * @param lastname the developer's lastname
+     * @return true if an entity matched
      */
     @Override
-    public void updateLastnameByDeveloperId(Long developerId, String lastname) {
-        developerDao.updateLastnameByDeveloperId(developerId, lastname);
+    @RetryOnConflict
+    public boolean updateLastnameByDeveloperId(Long developerId, String lastname) {
+        return developerDao.updateLastnameByDeveloperId(developerId, lastname);
     }
     
     /**
@@ -98,6 +133,7 @@ public class DeveloperServiceImpl extends CrudServiceImpl<Developer, Long>
      * @return boolean indicating if entity is in persistence context
      */
     @Override
+    @Transactional(readOnly = true)
     public boolean isExistWithDeveloperId(Long developerId) {
         return developerDao.isExistWithDeveloperId(developerId);
     }
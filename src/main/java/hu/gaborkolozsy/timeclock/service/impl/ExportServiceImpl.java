@@ -0,0 +1,77 @@
+/*
+ * Copyright (c) 2017, Gabor Kolozsy. All rights reserved.
+ */
+
+package hu.gaborkolozsy.timeclock.service.impl;
+
+import hu.gaborkolozsy.timeclock.dao.ExportDao;
+import hu.gaborkolozsy.timeclock.model.export.CsvExport;
+import hu.gaborkolozsy.timeclock.service.ExportService;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.GZIPOutputStream;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Export service implementation. Connect between Controller and DAO.
+ * 
+ * <p>The rows are read through a database cursor (see {@link ExportDao}) 
+ * and encoded into one reusable buffer of <i>buffer_size</i> bytes, which 
+ * is written through a {@link FileChannel} (optionally gzip compressed). So 
+ * the memory usage is flat, whatever the number of the rows.
+ *
+ * @author Gabor Kolozsy (gabor.kolozsy.development@gmail.com)
+ * @since 0.0.1-SNAPSHOT
+ * @see ExportDao
+ * @see CsvWriter
+ * @see FileChannel
+ * @see GZIPOutputStream
+ */
+@Service
+public class ExportServiceImpl implements ExportService {
+
+    @Autowired
+    private ExportDao exportDao;
+
+    /** 
+     * The <strong>timeclock.export.buffer_size</strong> property, the size 
+     * of the encoding (and the compression) buffer in bytes. 
+     */
+    @Value("${timeclock.export.buffer_size}")
+    private int bufferSize;
+
+    /**
+     * Write the export's rows into the file with a header line of the 
+     * columns' name in one read-only transaction. An existing file is 
+     * overwritten.
+     * @param export {@code CsvExport}
+     * @param file the target file
+     * @return number of the exported rows
+     * @throws UncheckedIOException if the file can not be written
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public long export(CsvExport export, Path file) {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, 
+                        StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+                WritableByteChannel target = export.isGzip() 
+                        ? Channels.newChannel(new GZIPOutputStream(
+                                Channels.newOutputStream(channel), bufferSize))
+                        : channel;
+                CsvWriter writer = new CsvWriter(target, bufferSize)) {
+            writer.writeRow(export.getColumns().toArray());
+            return exportDao.scan(export, writer::writeRow);
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Export to " + file + " failed!", ex);
+        }
+    }
+
+}
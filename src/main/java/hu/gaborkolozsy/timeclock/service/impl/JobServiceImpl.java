@@ -8,12 +8,15 @@ import hu.gaborkolozsy.timeclock.dao.CrudDao;
 import hu.gaborkolozsy.timeclock.dao.JobDao;
 import hu.gaborkolozsy.timeclock.dao.impl.CrudDaoImpl;
 import hu.gaborkolozsy.timeclock.model.Job;
+import hu.gaborkolozsy.timeclock.model.projection.JobRow;
 import hu.gaborkolozsy.timeclock.service.JobService;
+import hu.gaborkolozsy.timeclock.service.RetryOnConflict;
 import java.util.List;
 import org.springframework.beans.factory.NoSuchBeanDefinitionException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 /**
  * Job service implementation. Connect between Controller and Dao.
@@ -56,6 +59,7 @@ public class JobServiceImpl extends CrudServiceImpl<Job, Long> implements JobSer
      * @return a {@code Job} instance
      */
     @Override
+    @Transactional(readOnly = true)
     public Job getByOrderNumber(Long orderNumber) {
         return jobDao.getByOrderNumber(orderNumber);
     }
@@ -66,6 +70,7 @@ public class JobServiceImpl extends CrudServiceImpl<Job, Long> implements JobSer
      * @return a list of {@code Job}
      */
     @Override
+    @Transactional(readOnly = true)
     public List<Job> getAllByProjectName(String projectName) {
         return jobDao.getAllByProjectName(projectName);
     }
@@ -76,33 +81,62 @@ public class JobServiceImpl extends CrudServiceImpl<Job, Long> implements JobSer
      * @return a list of {@code Job}
      */
     @Override
+    @Transactional(readOnly = true)
     public List<Job> getAllByStatus(String status) {
         return jobDao.getAllByStatus(status);
     }
 
+    /**
+     * Returns the list rows of the jobs by the specified project name.
+     * @param projectName project's name
+     * @return a list of {@code JobRow} ordered by order No.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public List<JobRow> getRowsByProjectName(String projectName) {
+        return jobDao.getRowsByProjectName(projectName);
+    }
+
+    /**
+     * Returns the list rows of the jobs by the specified status.
+     * @param status project's status
+     * @return a list of {@code JobRow} ordered by order No.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public List<JobRow> getRowsByStatus(String status) {
+        return jobDao.getRowsByStatus(status);
+    }
+
     /**
      * Update {@link Job}'s status by specified order No..
      * @param orderNumber job's order No.
      * @param status the job's status
+     * @return true if an entity matched
      */
     @Override
-    public void updateStatusByOrderNumber(Long orderNumber, String status) {
-        jobDao.updateStatusByOrderNumber(orderNumber, status);
+    @RetryOnConflict
+    public boolean updateStatusByOrderNumber(Long orderNumber, String status) {
+        return jobDao.updateStatusByOrderNumber(orderNumber, status);
     }
 
     /**
      * Update {@link Job}'s comment by specified order No..
      * @param orderNumber job's order No.
      * @param comment the job's comment
+     * @return true if an entity matched
      */
     @Override
-    public void updateCommentByOrderNumber(Long orderNumber, String comment) {
-        jobDao.updateCommentByOrderNumber(orderNumber, comment);
+    @RetryOnConflict
+    public boolean updateCommentByOrderNumber(Long orderNumber, String comment) {
+        return jobDao.updateCommentByOrderNumber(orderNumber, comment);
     }
 
     /**
      * Remove {@link Job} entity with specified order No..
      * @param orderNumber job's order No.
+     * @throws org.springframework.dao.DataIntegrityViolationException if the 
+     *         job has pays
      */
     @Override
     public void removeByOrderNumber(Long orderNumber) {
@@ -116,6 +150,7 @@ public class JobServiceImpl extends CrudServiceImpl<Job, Long> implements JobSer
      * @return boolean indicating if entity is in persistence context
      */
     @Override
+    @Transactional(readOnly = true)
     public boolean isExistWithOrderNumber(Long orderNumber) {
         return jobDao.isExistWithOrderNumber(orderNumber);
     }
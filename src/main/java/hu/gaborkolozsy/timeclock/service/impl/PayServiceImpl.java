@@ -8,12 +8,17 @@ import hu.gaborkolozsy.timeclock.dao.CrudDao;
 import hu.gaborkolozsy.timeclock.dao.PayDao;
 import hu.gaborkolozsy.timeclock.dao.impl.CrudDaoImpl;
 import hu.gaborkolozsy.timeclock.model.Pay;
+import hu.gaborkolozsy.timeclock.model.embedded.Money;
 import hu.gaborkolozsy.timeclock.service.PayService;
+import hu.gaborkolozsy.timeclock.service.RetryOnConflict;
+import java.time.YearMonth;
 import java.util.List;
+import java.util.Map;
 import org.springframework.beans.factory.NoSuchBeanDefinitionException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 /**
  * Pay service implementation. Connect between Controller and DAO.
@@ -24,6 +29,7 @@ import org.springframework.stereotype.Service;
  * @see PayDao
  * @see CrudDaoImpl
  * @see PayDAOImpl
+ * @see Money
  * @see List
  * @see Autowired
  * @see Qualifier
@@ -56,6 +62,7 @@ public class PayServiceImpl extends CrudServiceImpl<Pay, Long> implements PaySer
      * @return a {@code Pay} instance
      */
     @Override
+    @Transactional(readOnly = true)
     public Pay getByPayId(String payId) {
         return payDao.getByPayId(payId);
     }
@@ -67,6 +74,7 @@ public class PayServiceImpl extends CrudServiceImpl<Pay, Long> implements PaySer
      * @return a list of {@code Pay}
      */
     @Override
+    @Transactional(readOnly = true)
     public List<Pay> getByPayable(boolean payable) {
         return payDao.getByPayable(payable);
     }
@@ -78,38 +86,61 @@ public class PayServiceImpl extends CrudServiceImpl<Pay, Long> implements PaySer
      * @return a list of {@code Pay}
      */
     @Override
+    @Transactional(readOnly = true)
     public List<Pay> getByPaid(boolean paid) {
         return payDao.getByPaid(paid);
     }
 
     /**
-     * Update {@link Pay}'s payment by specified pay ID.
+     * Update {@link Pay}'s payment by specified pay ID. The payment is 
+     * rounded to the minor unit of the pay's currency.
      * @param payId pay's ID
      * @param payment payment
+     * @return true if an entity matched
+     * @deprecated the {@code double} is not exact, use 
+     *             {@link #updatePaymentByPayId(String, Money)}
      */
     @Override
-    public void updatePaymentByPayId(String payId, double payment) {
-        payDao.updatePaymentByPayId(payId, payment);
+    @RetryOnConflict
+    @Deprecated
+    public boolean updatePaymentByPayId(String payId, double payment) {
+        return payDao.updatePaymentByPayId(payId, payment);
+    }
+
+    /**
+     * Update {@link Pay}'s payment and currency by specified pay ID.
+     * @param payId pay's ID
+     * @param payment payment
+     * @return true if an entity matched
+     */
+    @Override
+    @RetryOnConflict
+    public boolean updatePaymentByPayId(String payId, Money payment) {
+        return payDao.updatePaymentByPayId(payId, payment);
     }
 
     /**
      * Update {@link Pay}'s payable by specified pay ID.
      * @param payId pay's ID
      * @param payable payable
+     * @return true if an entity matched
      */
     @Override
-    public void updatePayableByPayId(String payId, boolean payable) {
-        payDao.updatePayableByPayId(payId, payable);
+    @RetryOnConflict
+    public boolean updatePayableByPayId(String payId, boolean payable) {
+        return payDao.updatePayableByPayId(payId, payable);
     }
 
     /**
      * Update {@link Pay}'s paid by specified pay ID.
      * @param payId pay's ID
      * @param paid paid
+     * @return true if an entity matched
      */
     @Override
-    public void updatePaidByPayId(String payId, boolean paid) {
-        payDao.updatePaidByPayId(payId, paid);
+    @RetryOnConflict
+    public boolean updatePaidByPayId(String payId, boolean paid) {
+        return payDao.updatePaidByPayId(payId, paid);
     }
 
     /**
@@ -128,6 +159,7 @@ public class PayServiceImpl extends CrudServiceImpl<Pay, Long> implements PaySer
      * @return boolean indicating if entity is in persistence context
      */
     @Override
+    @Transactional(readOnly = true)
     public boolean isExistWithPayId(String payId) {
         return payDao.isExistWithPayId(payId);
     }
@@ -138,6 +170,7 @@ public class PayServiceImpl extends CrudServiceImpl<Pay, Long> implements PaySer
      * @return true if the relevant job is done
      */
     @Override
+    @Transactional(readOnly = true)
     public boolean isPayable(String payId) {
         return payDao.isPayable(payId);
     }
@@ -148,8 +181,42 @@ public class PayServiceImpl extends CrudServiceImpl<Pay, Long> implements PaySer
      * @return true if the relevant job is done and paid by customer
      */
     @Override
+    @Transactional(readOnly = true)
     public boolean isPaid(String payId) {
         return payDao.isPaid(payId);
     }
+
+    /**
+     * Returns the receivables (payable, but not paid payments) per customer 
+     * with one grouped query.
+     * @return the totals per currency by customer's ID in ascending order
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public Map<Long, List<Money>> getReceivablesByCustomer() {
+        return payDao.getReceivablesByCustomer();
+    }
+
+    /**
+     * Returns the total of the not paid payments per currency with one 
+     * grouped query.
+     * @return the totals by currency's code (null first)
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public Map<String, Money> getUnpaidTotalByCurrency() {
+        return payDao.getUnpaidTotalByCurrency();
+    }
+
+    /**
+     * Returns the paid payments per month of their payment time with one 
+     * grouped query. The paid payments without payment time are left out.
+     * @return the totals per currency by month in ascending order
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public Map<YearMonth, List<Money>> getPaidByMonth() {
+        return payDao.getPaidByMonth();
+    }
         
 }
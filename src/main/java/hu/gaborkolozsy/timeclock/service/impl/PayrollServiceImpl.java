@@ -0,0 +1,341 @@
+/*
+ * Copyright (c) 2017, Gabor Kolozsy. All rights reserved.
+ */
+
+package hu.gaborkolozsy.timeclock.service.impl;
+
+import hu.gaborkolozsy.timeclock.dao.DailyHoursDao;
+import hu.gaborkolozsy.timeclock.dao.JobDao;
+import hu.gaborkolozsy.timeclock.dao.PayDao;
+import hu.gaborkolozsy.timeclock.model.Job;
+import hu.gaborkolozsy.timeclock.model.Pay;
+import hu.gaborkolozsy.timeclock.model.Pay.PayBuilder;
+import hu.gaborkolozsy.timeclock.model.embedded.Money;
+import hu.gaborkolozsy.timeclock.model.payroll.PayRate;
+import hu.gaborkolozsy.timeclock.model.payroll.PayrollProgress;
+import hu.gaborkolozsy.timeclock.model.payroll.PayrollResult;
+import hu.gaborkolozsy.timeclock.model.payroll.PayrollRun;
+import hu.gaborkolozsy.timeclock.model.timesheet.OpenShiftPolicy;
+import hu.gaborkolozsy.timeclock.model.timesheet.TimesheetEntry;
+import hu.gaborkolozsy.timeclock.model.timesheet.TimesheetPeriod;
+import hu.gaborkolozsy.timeclock.service.PayrollService;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Payroll service implementation. Connect between Controller and DAO.
+ * 
+ * <p>The run has three steps:
+ * <ol>
+ *  <li>the jobs are loaded and every developer's rate is resolved, so an 
+ *      invalid run fails before any work,</li>
+ *  <li>the developers are split on a {@link ForkJoinPool} into chunks of 
+ *      <i>timeclock.payroll.chunk_size</i>, each chunk reads its developers' 
+ *      closed worked time from the daily hours rollup with one grouped 
+ *      query in its own read-only transaction and sums up the amounts by 
+ *      job,</li>
+ *  <li>the not yet existing pays are created with batched inserts in one 
+ *      transaction.</li>
+ * </ol>
+ * 
+ * <p>The pay's ID is derived from the period and the job (see 
+ * {@link PayrollRun#getPayId(Long)}), so a repeated run skips the pays of 
+ * the earlier one. The amounts are computed exactly and rounded half-even 
+ * to the currency's minor unit per job, the jobs without closed shift in 
+ * the period get no pay.
+ *
+ * @author Gabor Kolozsy (gabor.kolozsy.development@gmail.com)
+ * @since 0.0.1-SNAPSHOT
+ * @see DailyHoursDao
+ * @see PayDao
+ * @see ForkJoinPool
+ * @see TransactionTemplate
+ */
+@Service
+public class PayrollServiceImpl implements PayrollService {
+
+    private static final BigDecimal MILLIS_PER_HOUR = BigDecimal.valueOf(3_600_000L);
+
+    @Autowired
+    private DailyHoursDao dailyHoursDao;
+
+    @Autowired
+    private JobDao jobDao;
+
+    @Autowired
+    private PayDao payDao;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    /** 
+     * The <strong>timeclock.payroll.parallelism</strong> property, 0 means 
+     * the number of the available processors. 
+     */
+    @Value("${timeclock.payroll.parallelism}")
+    private int parallelism;
+
+    /** 
+     * The <strong>timeclock.payroll.chunk_size</strong> property, number of 
+     * developers read with one query (at most 500). 
+     */
+    @Value("${timeclock.payroll.chunk_size}")
+    private int chunkSize;
+
+    /**
+     * Compute the jobs' payable amount of the period from the closed shifts 
+     * and create their {@code Pay}s, except the already existing ones.
+     * @param run the payroll run's parameters
+     * @param progress receives the computation's progress (from several 
+     *        threads)
+     * @return {@code PayrollResult}
+     * @throws IllegalArgumentException if a developer has no rate or the 
+     *         rates of a job have different currencies
+     * @throws javax.persistence.NoResultException if a job does not exist
+     */
+    @Override
+    public PayrollResult run(PayrollRun run, Consumer<PayrollProgress> progress) {
+        long start = System.nanoTime();
+        // the shifts are read from the primary: the pays of a lagging 
+        // replica's missing shifts would never be created
+        TransactionTemplate primary = new TransactionTemplate(transactionManager);
+        Map<Long, Job> jobs = primary.execute((status) -> run.getJobs().values().stream()
+                .distinct()
+                .collect(Collectors.toMap((orderNumber) -> orderNumber, jobDao::getByOrderNumber)));
+        Map<Long, String> currencies = new HashMap<>();
+        Map<Long, PayRate> rates = getRates(run, jobs, currencies);
+
+        Computation computation = new Computation(run, rates, primary, progress, start);
+        ForkJoinPool pool = new ForkJoinPool(parallelism > 0 ? parallelism 
+                : Runtime.getRuntime().availableProcessors());
+        Partial total;
+        try {
+            total = pool.invoke(new PartialTask(computation, 
+                    new ArrayList<>(run.getJobs().keySet())));
+        } finally {
+            pool.shutdown();
+        }
+
+        List<Pay> pays = new ArrayList<>();
+        total.amounts.forEach((orderNumber, amount) -> {
+            Job job = jobs.get(orderNumber);
+            String currency = currencies.get(orderNumber);
+            pays.add(new PayBuilder()
+                    .setPayId(run.getPayId(orderNumber))
+                    .setMoney(Money.of(amount.divide(MILLIS_PER_HOUR, 
+                            Money.getFractionDigits(currency), RoundingMode.HALF_EVEN), currency))
+                    .setPayable(true)
+                    .setPaid(false)
+                    .setJob(job)
+                    .build());
+        });
+        List<String> created = new ArrayList<>();
+        List<String> skipped = new ArrayList<>();
+        new TransactionTemplate(transactionManager).execute((status) -> {
+            Set<String> existing = payDao.getExistingBy("payId", pays.stream()
+                    .map(Pay::getPayId)
+                    .collect(Collectors.toList()));
+            List<Pay> missing = new ArrayList<>();
+            for (Pay pay : pays) {
+                if (existing.contains(pay.getPayId())) {
+                    skipped.add(pay.getPayId());
+                } else {
+                    created.add(pay.getPayId());
+                    missing.add(pay);
+                }
+            }
+            payDao.saveAll(missing);
+            return null;
+        });
+        return new PayrollResult(computation.getProgress(), total.openShifts, created, skipped);
+    }
+
+    /**
+     * Returns every developer's rate: its job's customer's rate or its own.
+     * @param run the payroll run's parameters
+     * @param jobs the jobs by order number
+     * @param currencies receives the jobs' currency by order number
+     * @return the rates by developer's ID
+     * @throws IllegalArgumentException if a developer has no rate or the 
+     *         rates of a job have different currencies
+     */
+    private static Map<Long, PayRate> getRates(PayrollRun run, Map<Long, Job> jobs, 
+                                               Map<Long, String> currencies) {
+        Map<Long, PayRate> rates = new HashMap<>();
+        run.getJobs().forEach((developerId, orderNumber) -> {
+            PayRate rate = run.getCustomerRates().get(jobs.get(orderNumber).getCustomer()
+                    .getCustomerId());
+            if (rate == null) {
+                rate = run.getDeveloperRates().get(developerId);
+            }
+            if (rate == null) {
+                throw new IllegalArgumentException("Developer " + developerId 
+                        + " and the customer of job " + orderNumber + " have no rate!");
+            }
+            String currency = currencies.putIfAbsent(orderNumber, rate.getCurrency());
+            if (currency != null && !currency.equals(rate.getCurrency())) {
+                throw new IllegalArgumentException("The rates of job " + orderNumber 
+                        + " have different currencies: " + currency + ", " 
+                        + rate.getCurrency() + "!");
+            }
+            rates.put(developerId, rate);
+        });
+        return rates;
+    }
+
+    /**
+     * The shared state of a run's computation.
+     */
+    private final class Computation {
+
+        private final PayrollRun run;
+        private final Map<Long, PayRate> rates;
+        private final TransactionTemplate primary;
+        private final Consumer<PayrollProgress> listener;
+        private final long start;
+        private final LocalDateTime now = LocalDateTime.now();
+        private final AtomicInteger developers = new AtomicInteger();
+        private final AtomicLong shifts = new AtomicLong();
+
+        /**
+         * Constructor with the run's parameters.
+         * @param run the payroll run's parameters
+         * @param rates the rates by developer's ID
+         * @param primary the template of the transactions reading the 
+         *        primary database
+         * @param listener receives the progress
+         * @param start the run's start in nanoseconds
+         */
+        Computation(PayrollRun run, Map<Long, PayRate> rates, TransactionTemplate primary, 
+                    Consumer<PayrollProgress> listener, long start) {
+            this.run = run;
+            this.rates = rates;
+            this.primary = primary;
+            this.listener = listener;
+            this.start = start;
+        }
+
+        /**
+         * Compute the amounts of the developers.
+         * @param developerIds developers' ID
+         * @return {@code Partial}
+         */
+        Partial compute(List<Long> developerIds) {
+            List<TimesheetEntry> entries = primary.execute((status) -> 
+                    dailyHoursDao.getTimesheet(developerIds, run.getFrom(), run.getTo(), 
+                            TimesheetPeriod.TOTAL, OpenShiftPolicy.EXCLUDE, now));
+            Partial partial = new Partial();
+            long closed = 0;
+            for (TimesheetEntry entry : entries) {
+                partial.openShifts += entry.getOpenShifts();
+                closed += entry.getShifts() - entry.getOpenShifts();
+                if (entry.getDurationMillis() == 0) {
+                    continue;
+                }
+                BigDecimal amount = rates.get(entry.getDeveloperId()).getHourly()
+                        .multiply(BigDecimal.valueOf(entry.getDurationMillis()));
+                partial.amounts.merge(run.getJobs().get(entry.getDeveloperId()), amount, 
+                        BigDecimal::add);
+            }
+            developers.addAndGet(developerIds.size());
+            shifts.addAndGet(closed);
+            listener.accept(getProgress());
+            return partial;
+        }
+
+        /**
+         * Returns the current progress.
+         * @return {@code PayrollProgress}
+         */
+        PayrollProgress getProgress() {
+            return new PayrollProgress(developers.get(), run.getJobs().size(), shifts.get(), 
+                    Duration.ofNanos(System.nanoTime() - start));
+        }
+
+    }
+
+    /**
+     * The summed up amounts of some developers.
+     */
+    private static final class Partial {
+
+        /**
+         * The not rounded amounts (rate multiplied by milliseconds) by job.
+         */
+        private final Map<Long, BigDecimal> amounts = new TreeMap<>();
+
+        private int openShifts;
+
+        /**
+         * Add the other partial result to this one.
+         * @param other {@code Partial}
+         * @return this
+         */
+        Partial merge(Partial other) {
+            other.amounts.forEach((orderNumber, amount) -> 
+                    amounts.merge(orderNumber, amount, BigDecimal::add));
+            openShifts += other.openShifts;
+            return this;
+        }
+
+    }
+
+    /**
+     * Fork-join task, which splits the developers until a chunk.
+     */
+    private final class PartialTask extends RecursiveTask<Partial> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final transient Computation computation;
+        private final transient List<Long> developerIds;
+
+        /**
+         * Constructor with the developers.
+         * @param computation the run's shared state
+         * @param developerIds developers' ID
+         */
+        PartialTask(Computation computation, List<Long> developerIds) {
+            this.computation = computation;
+            this.developerIds = developerIds;
+        }
+
+        /**
+         * Compute the chunk or split it in two.
+         * @return {@code Partial}
+         */
+        @Override
+        protected Partial compute() {
+            if (developerIds.size() <= chunkSize) {
+                return computation.compute(developerIds);
+            }
+            int half = developerIds.size() / 2;
+            PartialTask left = new PartialTask(computation, developerIds.subList(0, half));
+            left.fork();
+            Partial right = new PartialTask(computation, 
+                    developerIds.subList(half, developerIds.size())).compute();
+            return left.join().merge(right);
+        }
+
+    }
+
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright (c) 2017, Gabor Kolozsy. All rights reserved.
+ */
+
+package hu.gaborkolozsy.timeclock.service.impl;
+
+import hu.gaborkolozsy.timeclock.service.RetryOnConflict;
+import hu.gaborkolozsy.timeclock.statistics.RetryMetrics;
+import java.lang.reflect.Method;
+import java.sql.SQLException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import javax.persistence.LockTimeoutException;
+import javax.persistence.OptimisticLockException;
+import javax.persistence.PessimisticLockException;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.hibernate.StaleStateException;
+import org.springframework.aop.ProxyMethodInvocation;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Re-run the invocation of a {@link RetryOnConflict} method when it fails
+ * with a concurrent update conflict, and record the counts in the
+ * {@link RetryMetrics}.
+ *
+ * <p>It must be applied before (outside of) the transaction interceptor, so
+ * every attempt runs in a new transaction. Within the caller's transaction
+ * the method is not retried. The backoff before the <i>n</i>th retry is a
+ * random time up to <i>backoffMillis * 2<sup>n-1</sup></i> (at most
+ * <i>maxBackoffMillis</i>), so the competing callers are spread out.
+ *
+ * <p>A conflict is a {@link ConcurrencyFailureException}, a JPA or
+ * {@code Hibernate} lock failure, or an {@code H2} concurrent update error
+ * (<i>90131</i>) anywhere in the exception's causes.
+ *
+ * @author Gabor Kolozsy (gabor.kolozsy.development@gmail.com)
+ * @since 0.0.1-SNAPSHOT
+ * @see RetryOnConflict
+ * @see RetryMetrics
+ */
+public class RetryOnConflictInterceptor implements MethodInterceptor {
+
+    /**
+     * The {@code H2} error code of a concurrent update of the same row.
+     */
+    private static final int CONCURRENT_UPDATE = 90131;
+
+    private final RetryMetrics retryMetrics;
+
+    /**
+     * Constructor with the metrics.
+     * @param retryMetrics receives the counts
+     */
+    public RetryOnConflictInterceptor(RetryMetrics retryMetrics) {
+        this.retryMetrics = retryMetrics;
+    }
+
+    /**
+     * Invoke the method and re-run it after a conflict until the number of
+     * attempts is reached.
+     * @param invocation the method's invocation
+     * @return the method's result
+     * @throws Throwable the method's exception, or the last conflict
+     */
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        Class<?> targetClass = AopUtils.getTargetClass(invocation.getThis());
+        Method method = AopUtils.getMostSpecificMethod(invocation.getMethod(), targetClass);
+        RetryOnConflict retry = AnnotatedElementUtils.findMergedAnnotation(method,
+                RetryOnConflict.class);
+        int maxAttempts = retry == null
+                || TransactionSynchronizationManager.isActualTransactionActive() ? 1
+                : Math.max(1, retry.maxAttempts());
+        String name = targetClass.getSimpleName() + "." + method.getName();
+        int conflicts = 0;
+        for (int attempt = 1; ; attempt++) {
+            try {
+                Object result = ((ProxyMethodInvocation) invocation).invocableClone().proceed();
+                retryMetrics.record(name, attempt, conflicts, false);
+                return result;
+            } catch (Throwable ex) {
+                if (!isConflict(ex)) {
+                    retryMetrics.record(name, attempt, conflicts, false);
+                    throw ex;
+                }
+                conflicts++;
+                if (attempt >= maxAttempts || !backOff(retry, attempt)) {
+                    retryMetrics.record(name, attempt, conflicts, true);
+                    throw ex;
+                }
+            }
+        }
+    }
+
+    /**
+     * Wait a random time before the next attempt.
+     * @param retry the method's annotation
+     * @param attempt the number of the failed attempt
+     * @return false if the thread is interrupted
+     */
+    private static boolean backOff(RetryOnConflict retry, int attempt) {
+        long bound = Math.min(retry.maxBackoffMillis(),
+                retry.backoffMillis() << Math.min(attempt - 1, 20));
+        try {
+            TimeUnit.MILLISECONDS.sleep(ThreadLocalRandom.current().nextLong(bound + 1));
+            return true;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * Check if the exception or one of its causes is a concurrent update
+     * conflict.
+     * @param ex the exception
+     * @return true if it is a conflict
+     */
+    static boolean isConflict(Throwable ex) {
+        for (Throwable cause = ex; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConcurrencyFailureException
+                    || cause instanceof OptimisticLockException
+                    || cause instanceof PessimisticLockException
+                    || cause instanceof LockTimeoutException
+                    || cause instanceof StaleStateException
+                    || cause instanceof SQLException
+                            && ((SQLException) cause).getErrorCode() == CONCURRENT_UPDATE) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+}
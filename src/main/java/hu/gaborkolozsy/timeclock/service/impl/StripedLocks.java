@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) 2017, Gabor Kolozsy. All rights reserved.
+ */
+
+package hu.gaborkolozsy.timeclock.service.impl;
+
+import java.util.Collection;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+import javax.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Fixed set of locks, which serializes the work of the same developer
+ * without a global lock: a developer's ID always selects the same lock, and
+ * the different developers mostly select different ones.
+ *
+ * <p>The locks are held only by the threads of this application instance.
+ *
+ * @author Gabor Kolozsy (gabor.kolozsy.development@gmail.com)
+ * @since 0.0.1-SNAPSHOT
+ * @see ReentrantLock
+ */
+@Component
+class StripedLocks {
+
+    /**
+     * The <strong>timeclock.clock.lock_stripes</strong> property, rounded up
+     * to a power of two.
+     */
+    @Value("${timeclock.clock.lock_stripes}")
+    private int stripes;
+
+    private ReentrantLock[] locks;
+
+    /**
+     * Create the locks.
+     */
+    @PostConstruct
+    void createLocks() {
+        locks = new ReentrantLock[stripes > 1 ? Integer.highestOneBit(stripes - 1) << 1 : 1];
+        for (int i = 0; i < locks.length; i++) {
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * Call the work while the developer's lock is held.
+     * @param <T> type of the result
+     * @param developerId developer's ID
+     * @param work the work
+     * @return the work's result
+     */
+    <T> T callWith(Long developerId, Supplier<T> work) {
+        ReentrantLock lock = locks[indexOf(developerId)];
+        lock.lock();
+        try {
+            return work.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Call the work while the locks of the developers are held. The locks
+     * are taken in the order of their indexes, so two batches of
+     * overlapping developers do not wait for each other's locks.
+     * @param <T> type of the result
+     * @param developerIds developers' ID
+     * @param work the work
+     * @return the work's result
+     */
+    <T> T callWithAll(Collection<Long> developerIds, Supplier<T> work) {
+        int[] indexes = developerIds.stream()
+                .mapToInt(this::indexOf)
+                .distinct()
+                .sorted()
+                .toArray();
+        int locked = 0;
+        try {
+            for (int index : indexes) {
+                locks[index].lock();
+                locked++;
+            }
+            return work.get();
+        } finally {
+            while (locked > 0) {
+                locks[indexes[--locked]].unlock();
+            }
+        }
+    }
+
+    /**
+     * Returns the number of the locks.
+     * @return number of the locks
+     */
+    int size() {
+        return locks.length;
+    }
+
+    /**
+     * Returns the index of the developer's lock. The ID's bits are mixed
+     * first, so the consecutive IDs are spread over the locks.
+     * @param developerId developer's ID
+     * @return the lock's index
+     */
+    private int indexOf(Long developerId) {
+        int hash = Long.hashCode(developerId) * 0x9E3779B9;
+        return (hash ^ (hash >>> 16)) & (locks.length - 1);
+    }
+
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) 2017, Gabor Kolozsy. All rights reserved.
+ */
+
+package hu.gaborkolozsy.timeclock.service.impl;
+
+import hu.gaborkolozsy.timeclock.dao.DailyHoursDao;
+import hu.gaborkolozsy.timeclock.model.timesheet.OpenShiftPolicy;
+import hu.gaborkolozsy.timeclock.model.timesheet.TimesheetEntry;
+import hu.gaborkolozsy.timeclock.model.timesheet.TimesheetPeriod;
+import hu.gaborkolozsy.timeclock.service.TimesheetService;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Timesheet service implementation. Connect between Controller and DAO.
+ * 
+ * <p>The aggregation runs in the database with grouped SQL over the 
+ * {@code Daily_Hours} rollup (see {@link DailyHoursDao#getTimesheet}), 
+ * so the individual shifts are never loaded and only the open ones are read.
+ *
+ * @author Gabor Kolozsy (gabor.kolozsy.development@gmail.com)
+ * @since 0.0.1-SNAPSHOT
+ * @see DailyHoursDao
+ * @see TimesheetEntry
+ */
+@Service
+@Transactional(readOnly = true)
+public class TimesheetServiceImpl implements TimesheetService {
+
+    @Autowired
+    private DailyHoursDao dailyHoursDao;
+
+    /**
+     * Returns the developer's worked time grouped by the specified period.
+     * @param developerId developer's ID
+     * @param from the first work day (inclusive)
+     * @param to the last work day (inclusive)
+     * @param period the grouping period
+     * @param policy the open shifts' policy
+     * @return the entries ordered by period start
+     * @throws IllegalArgumentException if <i>from</i> is after <i>to</i>
+     * @throws IllegalStateException if the policy is 
+     *         {@link OpenShiftPolicy#REJECT} and there is an open shift
+     */
+    @Override
+    public List<TimesheetEntry> getTimesheet(Long developerId, LocalDate from, LocalDate to, 
+                                             TimesheetPeriod period, OpenShiftPolicy policy) {
+        return getTimesheet(Collections.singletonList(developerId), from, to, period, policy);
+    }
+
+    /**
+     * Returns the developers' worked time grouped by the specified period.
+     * @param developerIds developers' ID
+     * @param from the first work day (inclusive)
+     * @param to the last work day (inclusive)
+     * @param period the grouping period
+     * @param policy the open shifts' policy
+     * @return the entries ordered by developer's ID and period start
+     * @throws IllegalArgumentException if <i>from</i> is after <i>to</i>
+     * @throws IllegalStateException if the policy is 
+     *         {@link OpenShiftPolicy#REJECT} and there is an open shift
+     */
+    @Override
+    public List<TimesheetEntry> getTimesheet(Collection<Long> developerIds, LocalDate from, 
+            LocalDate to, TimesheetPeriod period, OpenShiftPolicy policy) {
+        if (from.isAfter(to)) {
+            throw new IllegalArgumentException("The first day " + from 
+                    + " is after the last day " + to + "!");
+        }
+        if (developerIds.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<TimesheetEntry> entries = dailyHoursDao.getTimesheet(developerIds, from, to, 
+                period, policy, LocalDateTime.now());
+        if (policy == OpenShiftPolicy.REJECT) {
+            entries.stream()
+                    .filter((entry) -> entry.getOpenShifts() > 0)
+                    .findFirst()
+                    .ifPresent((entry) -> {
+                        throw new IllegalStateException("Developer " + entry.getDeveloperId() 
+                                + " has open shift between " + from + " and " + to + "!");
+                    });
+        }
+        return entries;
+    }
+
+    /**
+     * Returns the developer's total worked time.
+     * @param developerId developer's ID
+     * @param from the first work day (inclusive)
+     * @param to the last work day (inclusive)
+     * @param policy the open shifts' policy
+     * @return the worked time, zero if there is no shift
+     * @throws IllegalArgumentException if <i>from</i> is after <i>to</i>
+     * @throws IllegalStateException if the policy is 
+     *         {@link OpenShiftPolicy#REJECT} and there is an open shift
+     */
+    @Override
+    public Duration getTotal(Long developerId, LocalDate from, LocalDate to, 
+                             OpenShiftPolicy policy) {
+        return getTimesheet(developerId, from, to, TimesheetPeriod.TOTAL, policy).stream()
+                .findFirst()
+                .map(TimesheetEntry::getDuration)
+                .orElse(Duration.ZERO);
+    }
+
+}
@@ -5,20 +5,60 @@
 package hu.gaborkolozsy.timeclock.service.impl;
 
 import hu.gaborkolozsy.timeclock.dao.CrudDao;
+import hu.gaborkolozsy.timeclock.dao.DailyHoursDao;
+import hu.gaborkolozsy.timeclock.dao.DeveloperDao;
 import hu.gaborkolozsy.timeclock.dao.WorkingHoursDao;
+import hu.gaborkolozsy.timeclock.dao.cache.OpenShiftIndex;
+import hu.gaborkolozsy.timeclock.dao.cache.ShiftIntervalIndex;
+import hu.gaborkolozsy.timeclock.dao.cache.ShiftIntervalTree;
+import hu.gaborkolozsy.timeclock.dao.cache.ShiftIntervalTree.Interval;
 import hu.gaborkolozsy.timeclock.dao.impl.CrudDaoImpl;
 import hu.gaborkolozsy.timeclock.dao.impl.WorkingHoursDaoImpl;
 import hu.gaborkolozsy.timeclock.model.WorkingHours;
+import hu.gaborkolozsy.timeclock.model.WorkingHours.WorkingHoursBuilder;
+import hu.gaborkolozsy.timeclock.model.overlap.OverlapAudit;
+import hu.gaborkolozsy.timeclock.model.overlap.ShiftGap;
+import hu.gaborkolozsy.timeclock.model.overlap.ShiftOverlap;
 import hu.gaborkolozsy.timeclock.service.WorkingHoursService;
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.stream.Collectors;
+import javax.annotation.PostConstruct;
 import org.springframework.beans.factory.NoSuchBeanDefinitionException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 /**
  * Working hours service implementation. Connect between Controller and DAO.
+ * 
+ * <p>The clocked in developers are answered from the {@link OpenShiftIndex} 
+ * without a transaction or any query. The index is rebuilt at startup.
+ * 
+ * <p>The clock-in and the clock-out of a developer are serialized by the 
+ * developer's lock of the {@link StripedLocks}, which is held during the 
+ * whole transaction, so a developer gets at most one open shift by them. 
+ * The different developers are clocked concurrently.
+ * 
+ * <p>The overlaps of a shift are found in the developer's interval tree of 
+ * the {@link ShiftIntervalIndex}. The audit reads the developers' shifts 
+ * in chunks of {@value #CHUNK_SIZE} developers on a {@link ForkJoinPool}, 
+ * each chunk with one query in its own read-only transaction, and sweeps 
+ * every developer's shifts in begin order through a new 
+ * {@link ShiftIntervalTree}, so it takes <i>O(n log n + k)</i> time.
  *
  * @author Gabor Kolozsy (gabor.kolozsy.development@gmail.com)
  * @since 0.0.1-SNAPSHOT
@@ -27,15 +67,44 @@ import org.springframework.transaction.annotation.Transactional;
  * @see LocalDateTime
  * @see Autowired
  * @see Qualifier
+ * @see OpenShiftIndex
+ * @see ShiftIntervalIndex
  */
 @Service
 @Transactional
 public class WorkingHoursServiceImpl extends CrudServiceImpl<WorkingHours, Long> 
         implements WorkingHoursService {
 
+    /**
+     * Number of developers audited with one query.
+     */
+    private static final int CHUNK_SIZE = 500;
+
     @Autowired
     private final WorkingHoursDao workingHoursDao;
     
+    @Autowired
+    private OpenShiftIndex openShiftIndex;
+    
+    @Autowired
+    private DailyHoursDao dailyHoursDao;
+    
+    @Autowired
+    private DeveloperDao developerDao;
+    
+    @Autowired
+    private StripedLocks stripedLocks;
+    
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    /** 
+     * The <strong>timeclock.overlap.parallelism</strong> property, 0 means 
+     * the number of the available processors. 
+     */
+    @Value("${timeclock.overlap.parallelism}")
+    private int parallelism;
+    
     /**
      * Constructor in parameter wait a {@link CrudDaoImpl} instance with its
      * interface type.
@@ -65,4 +134,300 @@ public class WorkingHoursServiceImpl extends CrudServiceImpl<WorkingHours, Long>
         workingHoursDao.updateWorkEnd(workingHours, workEnd);
     }
     
+    /**
+     * Clock in the developer: open a new shift beginning now in its own 
+     * transaction, unless the developer is already clocked in. The 
+     * developer's lock is held until the commit.
+     * @param developerId developer's ID
+     * @return the developer's (last) open shift's ID
+     * @throws javax.persistence.NoResultException if the developer does not 
+     *         exist
+     */
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public Long clockIn(Long developerId) {
+        return stripedLocks.callWith(developerId, () -> {
+            Set<Long> open = openShiftIndex.getOpenShifts(developerId);
+            if (!open.isEmpty()) {
+                return Collections.max(open);
+            }
+            return new TransactionTemplate(transactionManager).execute((status) -> {
+                LocalDateTime now = LocalDateTime.now();
+                WorkingHours workingHours = new WorkingHoursBuilder()
+                        .setDay(now.toLocalDate())
+                        .setWorkStart(now)
+                        .setDeveloper(developerDao.getByDeveloperId(developerId))
+                        .build();
+                workingHoursDao.save(workingHours);
+                return workingHours.getId();
+            });
+        });
+    }
+    
+    /**
+     * Clock out the developer: close the developer's last open shift now in 
+     * its own transaction. The developer's lock is held until the commit.
+     * @param developerId developer's ID
+     * @return the closed shift's ID or null if the developer was not clocked 
+     *         in
+     */
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public Long clockOut(Long developerId) {
+        return stripedLocks.callWith(developerId, () -> {
+            Set<Long> open = openShiftIndex.getOpenShifts(developerId);
+            if (open.isEmpty()) {
+                return null;
+            }
+            Long id = Collections.max(open);
+            new TransactionTemplate(transactionManager).execute((status) -> {
+                WorkingHours workingHours = workingHoursDao.get(id);
+                LocalDateTime now = LocalDateTime.now();
+                workingHoursDao.updateWorkEnd(workingHours, 
+                        now.isBefore(workingHours.getWorkStart()) 
+                                ? workingHours.getWorkStart() : now);
+                return null;
+            });
+            return id;
+        });
+    }
+    
+    /**
+     * Check if the developer has an open shift.
+     * @param developerId developer's ID
+     * @return true if the developer is clocked in
+     */
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public boolean isClockedIn(Long developerId) {
+        return openShiftIndex.isClockedIn(developerId);
+    }
+    
+    /**
+     * Returns the developers which have an open shift.
+     * @return developers' ID in ascending order
+     */
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public Set<Long> getClockedIn() {
+        return openShiftIndex.getClockedIn();
+    }
+    
+    /**
+     * Returns the developer's open shifts.
+     * @param developerId developer's ID
+     * @return the working hours' ID in ascending order
+     */
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public Set<Long> getOpenShiftIds(Long developerId) {
+        return openShiftIndex.getOpenShifts(developerId);
+    }
+    
+    /**
+     * Returns the number of the open shifts.
+     * @return number of the open shifts
+     */
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public int countOpenShifts() {
+        return openShiftIndex.countOpenShifts();
+    }
+    
+    /**
+     * Rebuild the open shifts' index from the database with one query. 
+     * Called at startup too, before the proxy of the bean exists, so the 
+     * query runs in a new read-write transaction of a 
+     * {@link TransactionTemplate}: the shifts are read from the primary, the 
+     * index must not miss a shift of a lagging replica.
+     */
+    @Override
+    @PostConstruct
+    public void rebuildOpenShiftIndex() {
+        TransactionTemplate primary = new TransactionTemplate(transactionManager);
+        primary.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        openShiftIndex.rebuild(primary.execute((status) -> workingHoursDao.getOpenShiftIds()));
+    }
+    
+    /**
+     * Returns the developer's other shifts which overlap the working hours, 
+     * from the developer's interval tree.
+     * @param workingHours {@code WorkingHours}
+     * @return the overlaps ordered by the other shift's begin
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public List<ShiftOverlap> getOverlaps(WorkingHours workingHours) {
+        Long developerId = workingHours.getDeveloper().getDeveloperId();
+        Interval interval = new Interval(workingHours.getId(), workingHours.getWorkStart(), 
+                workingHours.getWorkEnd());
+        return workingHoursDao.getOverlaps(developerId, interval.getBegin(), 
+                interval.getEnd()).stream()
+                .filter((other) -> !other.getId().equals(interval.getId()))
+                .map((other) -> getOverlap(developerId, other, interval))
+                .collect(Collectors.toList());
+    }
+    
+    /**
+     * Make the working hours persistent if it does not overlap any other 
+     * shift of its developer. The check is not serialized with the 
+     * concurrent transactions of the same developer.
+     * @param workingHours {@code WorkingHours}
+     * @throws IllegalArgumentException if it overlaps another shift
+     */
+    @Override
+    public void saveWithoutOverlap(WorkingHours workingHours) {
+        List<ShiftOverlap> overlaps = getOverlaps(workingHours);
+        if (!overlaps.isEmpty()) {
+            throw new IllegalArgumentException("The shift overlaps " + overlaps + "!");
+        }
+        workingHoursDao.save(workingHours);
+    }
+    
+    /**
+     * Find every overlap and gap between the shifts of every developer. A 
+     * gap is the time between the end of the shifts and the next shift's 
+     * begin on the same day.
+     * @param minGap the shortest reported gap within a day
+     * @return {@code OverlapAudit}
+     */
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public OverlapAudit audit(Duration minGap) {
+        long start = System.nanoTime();
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        List<Long> developerIds = readOnly.execute((status) -> dailyHoursDao.getDeveloperIds());
+        ForkJoinPool pool = new ForkJoinPool(parallelism > 0 ? parallelism 
+                : Runtime.getRuntime().availableProcessors());
+        Sweep total;
+        try {
+            total = pool.invoke(new SweepTask(readOnly, minGap, developerIds));
+        } finally {
+            pool.shutdown();
+        }
+        return new OverlapAudit(developerIds.size(), total.shifts, total.overlaps, total.gaps, 
+                Duration.ofNanos(System.nanoTime() - start));
+    }
+    
+    /**
+     * Returns the overlap of the shifts.
+     * @param developerId developer's ID
+     * @param first the earlier (existing) shift
+     * @param second the later (new) shift
+     * @return {@code ShiftOverlap}
+     */
+    private static ShiftOverlap getOverlap(Long developerId, Interval first, 
+                                           Interval second) {
+        LocalDateTime begin = first.getBegin().isAfter(second.getBegin()) ? first.getBegin() 
+                : second.getBegin();
+        LocalDateTime end = first.getEndOrMax().isBefore(second.getEndOrMax()) 
+                ? first.getEndOrMax() : second.getEndOrMax();
+        return new ShiftOverlap(developerId, first.getId(), second.getId(), begin, 
+                end.equals(LocalDateTime.MAX) ? null : end);
+    }
+    
+    /**
+     * The overlaps and gaps of some developers.
+     */
+    private static final class Sweep {
+
+        private final List<ShiftOverlap> overlaps = new ArrayList<>();
+        private final List<ShiftGap> gaps = new ArrayList<>();
+        private long shifts;
+
+        /**
+         * Sweep the developer's shifts in begin order: find the earlier 
+         * shifts which overlap the next one in the tree, and the gap between 
+         * the end of the earlier shifts and the next one.
+         * @param developerId developer's ID
+         * @param intervals the shifts ordered by begin and ID
+         * @param minGap the shortest reported gap within a day
+         */
+        void add(Long developerId, List<Interval> intervals, Duration minGap) {
+            ShiftIntervalTree tree = new ShiftIntervalTree();
+            Interval covering = null;
+            for (Interval interval : intervals) {
+                for (Interval earlier : tree.getOverlaps(interval.getBegin(), 
+                        interval.getEnd())) {
+                    overlaps.add(getOverlap(developerId, earlier, interval));
+                }
+                if (covering != null && interval.getBegin().isAfter(covering.getEndOrMax())
+                        && interval.getBegin().toLocalDate()
+                                .equals(covering.getEnd().toLocalDate())
+                        && Duration.between(covering.getEnd(), interval.getBegin())
+                                .compareTo(minGap) >= 0) {
+                    gaps.add(new ShiftGap(developerId, covering.getId(), interval.getId(), 
+                            covering.getEnd(), interval.getBegin()));
+                }
+                if (covering == null || interval.getEndOrMax().isAfter(covering.getEndOrMax())) {
+                    covering = interval;
+                }
+                tree.put(interval);
+            }
+            shifts += intervals.size();
+        }
+
+        /**
+         * Append the other sweep's results, which follows this one in 
+         * developer's order.
+         * @param other {@code Sweep}
+         * @return this
+         */
+        Sweep merge(Sweep other) {
+            overlaps.addAll(other.overlaps);
+            gaps.addAll(other.gaps);
+            shifts += other.shifts;
+            return this;
+        }
+
+    }
+
+    /**
+     * Fork-join task, which splits the developers until a chunk.
+     */
+    private final class SweepTask extends RecursiveTask<Sweep> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final transient TransactionTemplate readOnly;
+        private final transient Duration minGap;
+        private final transient List<Long> developerIds;
+
+        /**
+         * Constructor with the developers.
+         * @param readOnly the template of the read-only transactions
+         * @param minGap the shortest reported gap within a day
+         * @param developerIds developers' ID in ascending order
+         */
+        SweepTask(TransactionTemplate readOnly, Duration minGap, List<Long> developerIds) {
+            this.readOnly = readOnly;
+            this.minGap = minGap;
+            this.developerIds = developerIds;
+        }
+
+        /**
+         * Sweep the chunk or split it in two.
+         * @return {@code Sweep}
+         */
+        @Override
+        protected Sweep compute() {
+            if (developerIds.size() <= CHUNK_SIZE) {
+                Map<Long, List<Interval>> intervals = readOnly.execute((status) -> 
+                        workingHoursDao.getIntervals(developerIds));
+                Sweep sweep = new Sweep();
+                intervals.forEach((developerId, shifts) -> 
+                        sweep.add(developerId, shifts, minGap));
+                return sweep;
+            }
+            int half = developerIds.size() / 2;
+            SweepTask left = new SweepTask(readOnly, minGap, developerIds.subList(0, half));
+            left.fork();
+            Sweep right = new SweepTask(readOnly, minGap, 
+                    developerIds.subList(half, developerIds.size())).compute();
+            return left.join().merge(right);
+        }
+
+    }
+    
 }
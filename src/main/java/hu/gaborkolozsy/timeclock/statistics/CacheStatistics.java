@@ -0,0 +1,172 @@
+/*
+ * Copyright (c) 2017, Gabor Kolozsy. All rights reserved.
+ */
+
+package hu.gaborkolozsy.timeclock.statistics;
+
+import javax.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.NaturalIdCacheStatistics;
+import org.hibernate.stat.SecondLevelCacheStatistics;
+import org.hibernate.stat.Statistics;
+
+/**
+ * Immutable snapshot of a second-level cache region's (or a query result 
+ * cache's) hit, miss and put counts.
+ * 
+ * <p>The counts are collected only if the <i>hibernate.generate_statistics</i>
+ * property is true, and they are zero if the region does not exist (e.g. 
+ * the second-level cache is switched off).
+ *
+ * @author Gabor Kolozsy (gabor.kolozsy.development@gmail.com)
+ * @since 0.0.1-SNAPSHOT
+ * @see Statistics
+ * @see SecondLevelCacheStatistics
+ * @see NaturalIdCacheStatistics
+ */
+public final class CacheStatistics {
+
+    private final String region;
+    private final long hitCount;
+    private final long missCount;
+    private final long putCount;
+    private final long elementCount;
+
+    /**
+     * Constructor with all counts.
+     * @param region the region's name
+     * @param hitCount number of hits
+     * @param missCount number of misses
+     * @param putCount number of puts
+     * @param elementCount number of elements in memory
+     */
+    private CacheStatistics(String region, long hitCount, long missCount, 
+                            long putCount, long elementCount) {
+        this.region = region;
+        this.hitCount = hitCount;
+        this.missCount = missCount;
+        this.putCount = putCount;
+        this.elementCount = elementCount;
+    }
+
+    /**
+     * Returns a snapshot of the given counts.
+     * @param region the region's (or query's) name
+     * @param hitCount number of hits
+     * @param missCount number of misses
+     * @param putCount number of puts
+     * @param elementCount number of elements in memory
+     * @return {@code CacheStatistics}
+     */
+    public static CacheStatistics of(String region, long hitCount, long missCount, 
+                                     long putCount, long elementCount) {
+        return new CacheStatistics(region, hitCount, missCount, putCount, elementCount);
+    }
+
+    /**
+     * Returns the snapshot of the specified entity region (e.g. 
+     * <i>customer</i>).
+     * @param entityManagerFactory {@code EntityManagerFactory}
+     * @param region the region's name
+     * @return {@code CacheStatistics}
+     */
+    public static CacheStatistics ofEntity(EntityManagerFactory entityManagerFactory, 
+                                           String region) {
+        SecondLevelCacheStatistics statistics = getStatistics(entityManagerFactory)
+                .getSecondLevelCacheStatistics(region);
+        if (statistics == null) {
+            return new CacheStatistics(region, 0, 0, 0, 0);
+        }
+        return new CacheStatistics(region, statistics.getHitCount(), 
+                statistics.getMissCount(), statistics.getPutCount(), 
+                statistics.getElementCountInMemory());
+    }
+
+    /**
+     * Returns the snapshot of the specified natural ID region (e.g. 
+     * <i>customerNaturalId</i>).
+     * @param entityManagerFactory {@code EntityManagerFactory}
+     * @param region the region's name
+     * @return {@code CacheStatistics}
+     */
+    public static CacheStatistics ofNaturalId(EntityManagerFactory entityManagerFactory, 
+                                              String region) {
+        NaturalIdCacheStatistics statistics = getStatistics(entityManagerFactory)
+                .getNaturalIdCacheStatistics(region);
+        if (statistics == null) {
+            return new CacheStatistics(region, 0, 0, 0, 0);
+        }
+        return new CacheStatistics(region, statistics.getHitCount(), 
+                statistics.getMissCount(), statistics.getPutCount(), 
+                statistics.getElementCountInMemory());
+    }
+
+    /**
+     * Returns the {@code Hibernate} statistics.
+     * @param entityManagerFactory {@code EntityManagerFactory}
+     * @return {@code Statistics}
+     */
+    private static Statistics getStatistics(EntityManagerFactory entityManagerFactory) {
+        return entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    /**
+     * Returns the region's name.
+     * @return the region's name
+     */
+    public String getRegion() {
+        return region;
+    }
+
+    /**
+     * Returns the number of cache hits.
+     * @return number of hits
+     */
+    public long getHitCount() {
+        return hitCount;
+    }
+
+    /**
+     * Returns the number of cache misses.
+     * @return number of misses
+     */
+    public long getMissCount() {
+        return missCount;
+    }
+
+    /**
+     * Returns the number of cache puts.
+     * @return number of puts
+     */
+    public long getPutCount() {
+        return putCount;
+    }
+
+    /**
+     * Returns the number of elements in memory.
+     * @return number of elements
+     */
+    public long getElementCount() {
+        return elementCount;
+    }
+
+    /**
+     * Returns the hit ratio.
+     * @return hits / (hits + misses) or 0 if the region was not read
+     */
+    public double getHitRatio() {
+        long reads = hitCount + missCount;
+        return reads == 0 ? 0 : hitCount / (double) reads;
+    }
+
+    /**
+     * Returns the string representation of the snapshot.
+     * @return the counts
+     */
+    @Override
+    public String toString() {
+        return String.format("%s: hit=%d, miss=%d, put=%d, elements=%d, ratio=%.2f", 
+                region, hitCount, missCount, putCount, elementCount, getHitRatio());
+    }
+
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright (c) 2017, Gabor Kolozsy. All rights reserved.
+ */
+
+package hu.gaborkolozsy.timeclock.statistics;
+
+import hu.gaborkolozsy.timeclock.statistics.LatencyRecorder.Snapshot;
+
+/**
+ * Immutable snapshot of the clock events' write-behind buffer metrics.
+ *
+ * @author Gabor Kolozsy (gabor.kolozsy.development@gmail.com)
+ * @since 0.0.1-SNAPSHOT
+ * @see hu.gaborkolozsy.timeclock.service.ClockBufferService
+ * @see Snapshot
+ */
+public final class ClockBufferStatistics {
+
+    private final int depth;
+    private final int capacity;
+    private final long accepted;
+    private final long refused;
+    private final long written;
+    private final long rejected;
+    private final long failed;
+    private final Snapshot flushes;
+    private final Snapshot delays;
+
+    /**
+     * Constructor with all metrics.
+     * @param depth number of the events in the queue
+     * @param capacity the queue's capacity
+     * @param accepted number of the accepted events
+     * @param refused number of the events refused because the queue was full
+     *        or closed
+     * @param written number of the events written into the database
+     * @param rejected number of the invalid events (e.g. a clock-out without
+     *        clock-in)
+     * @param failed number of the events moved to the dead letters by a
+     *        failed flush
+     * @param flushes the flushes' write times
+     * @param delays the times between the submission of a flush's first
+     *        event and the flush's commit
+     */
+    public ClockBufferStatistics(int depth, int capacity, long accepted, long refused,
+                                 long written, long rejected, long failed,
+                                 Snapshot flushes, Snapshot delays) {
+        this.depth = depth;
+        this.capacity = capacity;
+        this.accepted = accepted;
+        this.refused = refused;
+        this.written = written;
+        this.rejected = rejected;
+        this.failed = failed;
+        this.flushes = flushes;
+        this.delays = delays;
+    }
+
+    /**
+     * Returns the number of the events in the queue.
+     * @return the queue's depth
+     */
+    public int getDepth() {
+        return depth;
+    }
+
+    /**
+     * Returns the queue's capacity.
+     * @return the maximum number of the queued events
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Returns the number of the accepted events.
+     * @return number of accepted events
+     */
+    public long getAccepted() {
+        return accepted;
+    }
+
+    /**
+     * Returns the number of the events refused because the queue was full
+     * or closed.
+     * @return number of refused events
+     */
+    public long getRefused() {
+        return refused;
+    }
+
+    /**
+     * Returns the number of the events written into the database.
+     * @return number of written events
+     */
+    public long getWritten() {
+        return written;
+    }
+
+    /**
+     * Returns the number of the invalid events.
+     * @return number of rejected events
+     */
+    public long getRejected() {
+        return rejected;
+    }
+
+    /**
+     * Returns the number of the events moved to the dead letters by a failed
+     * flush.
+     * @return number of failed events
+     */
+    public long getFailed() {
+        return failed;
+    }
+
+    /**
+     * Returns the flushes' write times (the count is the number of the
+     * flushes).
+     * @return {@code Snapshot}
+     */
+    public Snapshot getFlushes() {
+        return flushes;
+    }
+
+    /**
+     * Returns the times between the submission of a flush's first event and
+     * the flush's commit, the longest time an event was not durable.
+     * @return {@code Snapshot}
+     */
+    public Snapshot getDelays() {
+        return delays;
+    }
+
+    /**
+     * Returns the string representation of the snapshot.
+     * @return the metrics
+     */
+    @Override
+    public String toString() {
+        return String.format("depth=%d/%d, accepted=%d, refused=%d, written=%d, rejected=%d, "
+                + "failed=%d, flushes=%d, flush p99=%.3f ms, delay p99=%.3f ms", depth, capacity,
+                accepted, refused, written, rejected, failed, flushes.getCount(),
+                flushes.getPercentile(99), delays.getPercentile(99));
+    }
+
+}
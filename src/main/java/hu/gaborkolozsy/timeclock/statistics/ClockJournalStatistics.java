@@ -0,0 +1,127 @@
+/*
+ * Copyright (c) 2017, Gabor Kolozsy. All rights reserved.
+ */
+
+package hu.gaborkolozsy.timeclock.statistics;
+
+/**
+ * Immutable snapshot of the clock events' journal metrics.
+ *
+ * @author Gabor Kolozsy (gabor.kolozsy.development@gmail.com)
+ * @since 0.0.1-SNAPSHOT
+ * @see hu.gaborkolozsy.timeclock.service.ClockJournalService
+ */
+public final class ClockJournalStatistics {
+
+    private final long appended;
+    private final long forced;
+    private final long replayed;
+    private final int segments;
+    private final long rejected;
+    private final long failures;
+    private final long skipped;
+
+    /**
+     * Constructor with all metrics.
+     * @param appended the sequence number of the last appended event
+     * @param forced the sequence number of the last event forced to the
+     *        storage device
+     * @param replayed the sequence number of the last replayed event (the
+     *        checkpoint)
+     * @param segments number of the journal's segment files
+     * @param rejected number of the invalid events (e.g. a clock-out without
+     *        clock-in)
+     * @param failures number of the failed replays
+     * @param skipped number of the events of a journal without checkpoint,
+     *        which are not replayed
+     */
+    public ClockJournalStatistics(long appended, long forced, long replayed, int segments,
+                                  long rejected, long failures, long skipped) {
+        this.appended = appended;
+        this.forced = forced;
+        this.replayed = replayed;
+        this.segments = segments;
+        this.rejected = rejected;
+        this.failures = failures;
+        this.skipped = skipped;
+    }
+
+    /**
+     * Returns the sequence number of the last appended event.
+     * @return sequence number
+     */
+    public long getAppended() {
+        return appended;
+    }
+
+    /**
+     * Returns the sequence number of the last event forced to the storage
+     * device.
+     * @return sequence number
+     */
+    public long getForced() {
+        return forced;
+    }
+
+    /**
+     * Returns the sequence number of the last replayed event.
+     * @return sequence number
+     */
+    public long getReplayed() {
+        return replayed;
+    }
+
+    /**
+     * Returns the number of the appended events which are not replayed yet.
+     * @return appended - replayed
+     */
+    public long getLag() {
+        return appended - replayed;
+    }
+
+    /**
+     * Returns the number of the journal's segment files.
+     * @return number of segments
+     */
+    public int getSegments() {
+        return segments;
+    }
+
+    /**
+     * Returns the number of the invalid events.
+     * @return number of rejected events
+     */
+    public long getRejected() {
+        return rejected;
+    }
+
+    /**
+     * Returns the number of the failed replays (e.g. while the database is
+     * not available).
+     * @return number of failures
+     */
+    public long getFailures() {
+        return failures;
+    }
+
+    /**
+     * Returns the number of the events of a journal without checkpoint,
+     * which are not replayed.
+     * @return number of skipped events
+     */
+    public long getSkipped() {
+        return skipped;
+    }
+
+    /**
+     * Returns the string representation of the snapshot.
+     * @return the metrics
+     */
+    @Override
+    public String toString() {
+        return String.format("appended=%d, forced=%d, replayed=%d, lag=%d, segments=%d, "
+                + "rejected=%d, failures=%d, skipped=%d", appended, forced, replayed, getLag(),
+                segments, rejected, failures, skipped);
+    }
+
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) 2017, Gabor Kolozsy. All rights reserved.
+ */
+
+package hu.gaborkolozsy.timeclock.statistics;
+
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+import com.zaxxer.hikari.metrics.MetricsTrackerFactory;
+import com.zaxxer.hikari.metrics.PoolStats;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Collect the metrics of the {@code HikariCP} connection pool: the 
+ * connection acquisition and usage times of the latest 
+ * {@value #WINDOW} connections and the acquisition timeouts.
+ * 
+ * <p>The connection counts are refreshed by the pool at most once per 
+ * second.
+ *
+ * @author Gabor Kolozsy (gabor.kolozsy.development@gmail.com)
+ * @since 0.0.1-SNAPSHOT
+ * @see MetricsTrackerFactory
+ * @see LatencyRecorder
+ * @see ConnectionPoolStatistics
+ */
+public class ConnectionPoolMetrics implements MetricsTrackerFactory {
+
+    /**
+     * The number of the latest connections in the percentiles.
+     */
+    private static final int WINDOW = 4096;
+
+    private final LatencyRecorder acquisition = new LatencyRecorder(WINDOW);
+    private final LatencyRecorder usage = new LatencyRecorder(WINDOW);
+    private final AtomicLong timeouts = new AtomicLong();
+    private volatile PoolStats poolStats;
+
+    /**
+     * Create the metrics tracker of the pool.
+     * @param poolName the pool's name
+     * @param poolStats the pool's connection counts
+     * @return {@code IMetricsTracker}
+     */
+    @Override
+    public IMetricsTracker create(String poolName, PoolStats poolStats) {
+        this.poolStats = poolStats;
+        return new IMetricsTracker() {
+            
+            @Override
+            public void recordConnectionAcquiredNanos(long elapsedAcquiredNanos) {
+                acquisition.record(elapsedAcquiredNanos);
+            }
+
+            @Override
+            public void recordConnectionUsageMillis(long elapsedBorrowedMillis) {
+                usage.record(TimeUnit.MILLISECONDS.toNanos(elapsedBorrowedMillis));
+            }
+
+            @Override
+            public void recordConnectionTimeout() {
+                timeouts.incrementAndGet();
+            }
+        };
+    }
+
+    /**
+     * Returns the snapshot of the pool's metrics.
+     * @return {@code ConnectionPoolStatistics}
+     */
+    public ConnectionPoolStatistics getStatistics() {
+        PoolStats stats = poolStats;
+        if (stats == null) {
+            return new ConnectionPoolStatistics(0, 0, 0, 0, timeouts.get(), 
+                    acquisition.getSnapshot(), usage.getSnapshot());
+        }
+        return new ConnectionPoolStatistics(stats.getActiveConnections(), 
+                stats.getIdleConnections(), stats.getPendingThreads(), 
+                stats.getMaxConnections(), timeouts.get(), 
+                acquisition.getSnapshot(), usage.getSnapshot());
+    }
+
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright (c) 2017, Gabor Kolozsy. All rights reserved.
+ */
+
+package hu.gaborkolozsy.timeclock.statistics;
+
+import hu.gaborkolozsy.timeclock.statistics.LatencyRecorder.Snapshot;
+
+/**
+ * Immutable snapshot of the connection pool's metrics.
+ *
+ * @author Gabor Kolozsy (gabor.kolozsy.development@gmail.com)
+ * @since 0.0.1-SNAPSHOT
+ * @see ConnectionPoolMetrics
+ * @see Snapshot
+ */
+public final class ConnectionPoolStatistics {
+
+    private final int active;
+    private final int idle;
+    private final int waiting;
+    private final int maximum;
+    private final long timeouts;
+    private final Snapshot acquisition;
+    private final Snapshot usage;
+
+    /**
+     * Constructor with all metrics.
+     * @param active number of connections in use
+     * @param idle number of idle connections
+     * @param waiting number of threads waiting for a connection
+     * @param maximum the pool's maximum size
+     * @param timeouts number of acquisition timeouts
+     * @param acquisition the acquisition times
+     * @param usage the usage times
+     */
+    ConnectionPoolStatistics(int active, int idle, int waiting, int maximum, long timeouts, 
+                             Snapshot acquisition, Snapshot usage) {
+        this.active = active;
+        this.idle = idle;
+        this.waiting = waiting;
+        this.maximum = maximum;
+        this.timeouts = timeouts;
+        this.acquisition = acquisition;
+        this.usage = usage;
+    }
+
+    /**
+     * Returns the number of connections in use.
+     * @return number of active connections
+     */
+    public int getActive() {
+        return active;
+    }
+
+    /**
+     * Returns the number of idle connections.
+     * @return number of idle connections
+     */
+    public int getIdle() {
+        return idle;
+    }
+
+    /**
+     * Returns the number of threads waiting for a connection.
+     * @return number of waiting threads
+     */
+    public int getWaiting() {
+        return waiting;
+    }
+
+    /**
+     * Returns the pool's maximum size.
+     * @return the maximum number of connections
+     */
+    public int getMaximum() {
+        return maximum;
+    }
+
+    /**
+     * Returns the number of acquisition timeouts.
+     * @return number of timeouts
+     */
+    public long getTimeouts() {
+        return timeouts;
+    }
+
+    /**
+     * Returns the connection acquisition times.
+     * @return {@code Snapshot}
+     */
+    public Snapshot getAcquisition() {
+        return acquisition;
+    }
+
+    /**
+     * Returns the connection usage (borrowed) times.
+     * @return {@code Snapshot}
+     */
+    public Snapshot getUsage() {
+        return usage;
+    }
+
+    /**
+     * Returns the string representation of the snapshot.
+     * @return the metrics
+     */
+    @Override
+    public String toString() {
+        return String.format("active=%d, idle=%d, waiting=%d, max=%d, timeouts=%d, "
+                + "acquisition p50=%.3f p95=%.3f p99=%.3f max=%.3f ms, usage p50=%.3f p99=%.3f ms", 
+                active, idle, waiting, maximum, timeouts, 
+                acquisition.getPercentile(50), acquisition.getPercentile(95), 
+                acquisition.getPercentile(99), acquisition.getMax(), 
+                usage.getPercentile(50), usage.getPercentile(99));
+    }
+
+}
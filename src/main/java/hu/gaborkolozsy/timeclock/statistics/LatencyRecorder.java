@@ -0,0 +1,118 @@
+/*
+ * Copyright (c) 2017, Gabor Kolozsy. All rights reserved.
+ */
+
+package hu.gaborkolozsy.timeclock.statistics;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free recorder of the latest latencies in a ring buffer, for 
+ * percentiles of a sliding window.
+ * 
+ * <p>Recording costs two atomic operations and does not allocate, so it can 
+ * be called on the hot path by many threads. The percentiles are computed 
+ * on a sorted copy by {@link #getSnapshot()}.
+ *
+ * @author Gabor Kolozsy (gabor.kolozsy.development@gmail.com)
+ * @since 0.0.1-SNAPSHOT
+ * @see AtomicLongArray
+ */
+public class LatencyRecorder {
+
+    private final AtomicLongArray samples;
+    private final AtomicLong count = new AtomicLong();
+
+    /**
+     * Constructor with the window's size.
+     * @param size the number of the latest latencies kept
+     */
+    public LatencyRecorder(int size) {
+        this.samples = new AtomicLongArray(size);
+    }
+
+    /**
+     * Record a latency.
+     * @param nanos the latency in nanoseconds
+     */
+    public void record(long nanos) {
+        samples.set((int) (count.getAndIncrement() % samples.length()), nanos);
+    }
+
+    /**
+     * Returns the snapshot of the window's latencies.
+     * @return {@code Snapshot}
+     */
+    public Snapshot getSnapshot() {
+        long total = count.get();
+        long[] sorted = new long[(int) Math.min(total, samples.length())];
+        for (int i = 0; i < sorted.length; i++) {
+            sorted[i] = samples.get(i);
+        }
+        Arrays.sort(sorted);
+        return new Snapshot(total, sorted);
+    }
+
+    /**
+     * Immutable, sorted snapshot of the window's latencies.
+     */
+    public static final class Snapshot {
+
+        private final long count;
+        private final long[] sorted;
+
+        /**
+         * Constructor with the sorted latencies.
+         * @param count number of all recorded latencies
+         * @param sorted the window's latencies in ascending order
+         */
+        private Snapshot(long count, long[] sorted) {
+            this.count = count;
+            this.sorted = sorted;
+        }
+
+        /**
+         * Returns the number of all recorded latencies.
+         * @return number of latencies
+         */
+        public long getCount() {
+            return count;
+        }
+
+        /**
+         * Returns the latency's given percentile in milliseconds (nearest 
+         * rank).
+         * @param percentile the percentile (e.g. 99.9)
+         * @return the latency in milliseconds or 0 if nothing was recorded
+         */
+        public double getPercentile(double percentile) {
+            if (sorted.length == 0) {
+                return 0;
+            }
+            int rank = (int) Math.ceil(percentile / 100 * sorted.length);
+            return millis(sorted[Math.max(0, Math.min(rank, sorted.length) - 1)]);
+        }
+
+        /**
+         * Returns the window's maximum latency in milliseconds.
+         * @return the latency in milliseconds or 0 if nothing was recorded
+         */
+        public double getMax() {
+            return sorted.length == 0 ? 0 : millis(sorted[sorted.length - 1]);
+        }
+
+        /**
+         * Returns the given nanoseconds in milliseconds.
+         * @param nanos nanoseconds
+         * @return milliseconds
+         */
+        private static double millis(long nanos) {
+            return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+        }
+
+    }
+
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright (c) 2017, Gabor Kolozsy. All rights reserved.
+ */
+
+package hu.gaborkolozsy.timeclock.statistics;
+
+/**
+ * Immutable snapshot of the read-only transactions' routing metrics.
+ *
+ * @author Gabor Kolozsy (gabor.kolozsy.development@gmail.com)
+ * @since 0.0.1-SNAPSHOT
+ * @see hu.gaborkolozsy.timeclock.config.ReplicaRoutingDataSource
+ */
+public final class ReplicaStatistics {
+
+    private final boolean available;
+    private final long lag;
+    private final long replicaReads;
+    private final long fallbacks;
+    private final long failures;
+
+    /**
+     * Constructor with all metrics.
+     * @param available true if the replica answered the last check and its
+     *        lag is tolerated
+     * @param lag the replica's lag at the last check in milliseconds, -1 if
+     *        the replica did not answer
+     * @param replicaReads number of the read-only connections of the replica
+     * @param fallbacks number of the read-only connections of the primary
+     *        (the replica is missing, lagging or not available)
+     * @param failures number of the failed checks and connections of the
+     *        replica
+     */
+    public ReplicaStatistics(boolean available, long lag, long replicaReads, long fallbacks,
+                             long failures) {
+        this.available = available;
+        this.lag = lag;
+        this.replicaReads = replicaReads;
+        this.fallbacks = fallbacks;
+        this.failures = failures;
+    }
+
+    /**
+     * Returns true if the read-only transactions are routed to the replica.
+     * @return true if the replica is available
+     */
+    public boolean isAvailable() {
+        return available;
+    }
+
+    /**
+     * Returns the replica's lag at the last check.
+     * @return milliseconds or -1 if the replica did not answer
+     */
+    public long getLag() {
+        return lag;
+    }
+
+    /**
+     * Returns the number of the read-only connections of the replica.
+     * @return number of reads
+     */
+    public long getReplicaReads() {
+        return replicaReads;
+    }
+
+    /**
+     * Returns the number of the read-only connections of the primary.
+     * @return number of fallbacks
+     */
+    public long getFallbacks() {
+        return fallbacks;
+    }
+
+    /**
+     * Returns the number of the failed checks and connections of the
+     * replica.
+     * @return number of failures
+     */
+    public long getFailures() {
+        return failures;
+    }
+
+    /**
+     * Returns the string representation of the snapshot.
+     * @return the metrics
+     */
+    @Override
+    public String toString() {
+        return String.format("available=%b, lag=%d ms, replicaReads=%d, fallbacks=%d, "
+                + "failures=%d", available, lag, replicaReads, fallbacks, failures);
+    }
+
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) 2017, Gabor Kolozsy. All rights reserved.
+ */
+
+package hu.gaborkolozsy.timeclock.statistics;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import org.springframework.stereotype.Component;
+
+/**
+ * Collect the counts of the methods retried on a concurrent update conflict,
+ * so the hot rows are visible by a high conflict rate of their update
+ * methods.
+ *
+ * @author Gabor Kolozsy (gabor.kolozsy.development@gmail.com)
+ * @since 0.0.1-SNAPSHOT
+ * @see RetryStatistics
+ * @see hu.gaborkolozsy.timeclock.service.RetryOnConflict
+ */
+@Component
+public class RetryMetrics {
+
+    private final ConcurrentMap<String, Counts> counts = new ConcurrentHashMap<>();
+
+    /**
+     * Record a finished call of the method.
+     * @param method the method's name
+     * @param attempts number of attempts
+     * @param conflicts number of attempts failed with a conflict
+     * @param failed true if the call failed with a conflict after the last
+     *        attempt
+     */
+    public void record(String method, int attempts, int conflicts, boolean failed) {
+        Counts methodCounts = counts.computeIfAbsent(method, (name) -> new Counts());
+        methodCounts.calls.increment();
+        methodCounts.attempts.add(attempts);
+        methodCounts.conflicts.add(conflicts);
+        if (failed) {
+            methodCounts.failures.increment();
+        }
+    }
+
+    /**
+     * Returns the snapshot of the method's counts.
+     * @param method the method's name (e.g.
+     *        <i>JobServiceImpl.updateStatusByOrderNumber</i>)
+     * @return {@code RetryStatistics} (with zero counts if the method was not
+     *         called)
+     */
+    public RetryStatistics getStatistics(String method) {
+        Counts methodCounts = counts.get(method);
+        return methodCounts == null ? new RetryStatistics(method, 0, 0, 0, 0)
+                : methodCounts.getSnapshot(method);
+    }
+
+    /**
+     * Returns the snapshots of every called method.
+     * @return {@code RetryStatistics} by method's name
+     */
+    public Map<String, RetryStatistics> getStatistics() {
+        Map<String, RetryStatistics> statistics = new TreeMap<>();
+        counts.forEach((method, methodCounts) ->
+                statistics.put(method, methodCounts.getSnapshot(method)));
+        return statistics;
+    }
+
+    /**
+     * Reset every count.
+     */
+    public void reset() {
+        counts.clear();
+    }
+
+    /**
+     * The counts of a method.
+     */
+    private static final class Counts {
+
+        private final LongAdder calls = new LongAdder();
+        private final LongAdder attempts = new LongAdder();
+        private final LongAdder conflicts = new LongAdder();
+        private final LongAdder failures = new LongAdder();
+
+        /**
+         * Returns the snapshot of the counts.
+         * @param method the method's name
+         * @return {@code RetryStatistics}
+         */
+        RetryStatistics getSnapshot(String method) {
+            return new RetryStatistics(method, calls.sum(), attempts.sum(), conflicts.sum(),
+                    failures.sum());
+        }
+
+    }
+
+}
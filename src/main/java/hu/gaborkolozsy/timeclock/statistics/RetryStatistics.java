@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2017, Gabor Kolozsy. All rights reserved.
+ */
+
+package hu.gaborkolozsy.timeclock.statistics;
+
+/**
+ * Immutable snapshot of a retried method's call, attempt, conflict and
+ * failure counts.
+ *
+ * @author Gabor Kolozsy (gabor.kolozsy.development@gmail.com)
+ * @since 0.0.1-SNAPSHOT
+ * @see RetryMetrics
+ */
+public final class RetryStatistics {
+
+    private final String method;
+    private final long calls;
+    private final long attempts;
+    private final long conflicts;
+    private final long failures;
+
+    /**
+     * Constructor with all counts.
+     * @param method the method's name
+     * @param calls number of calls
+     * @param attempts number of attempts (the first runs and the retries)
+     * @param conflicts number of attempts failed with a conflict
+     * @param failures number of calls failed with a conflict after the last
+     *        attempt
+     */
+    public RetryStatistics(String method, long calls, long attempts, long conflicts,
+                           long failures) {
+        this.method = method;
+        this.calls = calls;
+        this.attempts = attempts;
+        this.conflicts = conflicts;
+        this.failures = failures;
+    }
+
+    /**
+     * Returns the method's name (e.g. <i>JobServiceImpl.updateStatusByOrderNumber</i>).
+     * @return the method's name
+     */
+    public String getMethod() {
+        return method;
+    }
+
+    /**
+     * Returns the number of calls.
+     * @return number of calls
+     */
+    public long getCalls() {
+        return calls;
+    }
+
+    /**
+     * Returns the number of attempts: the first runs and the retries.
+     * @return number of attempts
+     */
+    public long getAttempts() {
+        return attempts;
+    }
+
+    /**
+     * Returns the number of retries.
+     * @return attempts - calls
+     */
+    public long getRetries() {
+        return attempts - calls;
+    }
+
+    /**
+     * Returns the number of attempts failed with a conflict.
+     * @return number of conflicts
+     */
+    public long getConflicts() {
+        return conflicts;
+    }
+
+    /**
+     * Returns the number of calls failed with a conflict after the last
+     * attempt.
+     * @return number of failures
+     */
+    public long getFailures() {
+        return failures;
+    }
+
+    /**
+     * Returns the conflict rate.
+     * @return conflicts / attempts or 0 if the method was not called
+     */
+    public double getConflictRate() {
+        return attempts == 0 ? 0 : conflicts / (double) attempts;
+    }
+
+    /**
+     * Returns the string representation of the snapshot.
+     * @return the counts
+     */
+    @Override
+    public String toString() {
+        return String.format("%s: calls=%d, retries=%d, conflicts=%d, failures=%d, rate=%.2f",
+                method, calls, getRetries(), conflicts, failures, getConflictRate());
+    }
+
+}
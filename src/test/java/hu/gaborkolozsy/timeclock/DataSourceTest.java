@@ -0,0 +1,59 @@
+/*
+ * Copyright (c) 2017, Gabor Kolozsy. All rights reserved.
+ */
+
+package hu.gaborkolozsy.timeclock;
+
+import com.zaxxer.hikari.HikariDataSource;
+import hu.gaborkolozsy.timeclock.statistics.ConnectionPoolMetrics;
+import hu.gaborkolozsy.timeclock.statistics.ConnectionPoolStatistics;
+import java.sql.Connection;
+import java.sql.SQLException;
+import javax.sql.DataSource;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.junit4.SpringRunner;
+
+/**
+ * The connection pool test.
+ * 
+ * @author Gabor Kolozsy (gabor.kolozsy.development@gmail.com)
+ * @since 0.0.1-SNAPSHOT
+ * @see HikariDataSource
+ * @see ConnectionPoolMetrics
+ */
+@Development
+@RunWith(SpringRunner.class)
+public class DataSourceTest {
+
+    @Autowired
+    private DataSource dataSource;
+    
+    @Autowired
+    private ConnectionPoolMetrics connectionPoolMetrics;
+    
+    @Test
+    public void testDataSourceIsPool() {
+        assertTrue("The DataSource is not a pool!", dataSource instanceof HikariDataSource);
+    }
+    
+    @Test
+    public void testConnectionPoolMetrics() throws SQLException {
+        long count = connectionPoolMetrics.getStatistics().getAcquisition().getCount();
+        try (Connection connection = dataSource.getConnection()) {
+            assertTrue("The connection is not valid!", connection.isValid(1));
+        }
+        ConnectionPoolStatistics statistics = connectionPoolMetrics.getStatistics();
+        assertEquals("The acquisition is not recorded!", 
+                count + 1, statistics.getAcquisition().getCount());
+        assertTrue("The acquisition time is negative!", 
+                statistics.getAcquisition().getPercentile(99) >= 0);
+        assertEquals("The maximum pool size is not 10!", 10, statistics.getMaximum());
+    }
+    
+}
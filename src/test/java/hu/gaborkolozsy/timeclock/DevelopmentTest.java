@@ -23,6 +23,8 @@ import hu.gaborkolozsy.timeclock.service.WorkingHoursService;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.function.Supplier;
+import javax.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
 import org.junit.After;
 
 import static org.junit.Assert.assertEquals;
@@ -69,6 +71,9 @@ public class DevelopmentTest extends AbstractJUnit4SpringContextTests {
     @Autowired
     private PayService payService;
     
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    
     public final Long valid;
     public final Long invalid;
     public final String isNull;
@@ -117,7 +122,8 @@ public class DevelopmentTest extends AbstractJUnit4SpringContextTests {
     }
     
     /**
-     * Remove all entity instance after all test method.
+     * Remove all entity instance after all test method and evict the 
+     * second-level cache, so every test method starts with an empty cache.
      */
     @After
     public void after() {        
@@ -126,6 +132,18 @@ public class DevelopmentTest extends AbstractJUnit4SpringContextTests {
         workingHoursService.removeAll();
         developerService.removeAll();        
         customerService.removeAll();
+        entityManagerFactory.unwrap(SessionFactory.class).getCache().evictAllRegions();
+    }
+    
+    /**
+     * Returns the number of JDBC statements prepared since the start, so 
+     * the difference of two calls is the number of queries between them.
+     * @return number of prepared statements
+     */
+    public long getPrepareStatementCount() {
+        return entityManagerFactory.unwrap(SessionFactory.class)
+                .getStatistics()
+                .getPrepareStatementCount();
     }
     
     /**
@@ -0,0 +1,233 @@
+/*
+ * Copyright (c) 2017, Gabor Kolozsy. All rights reserved.
+ */
+
+package hu.gaborkolozsy.timeclock;
+
+import com.zaxxer.hikari.HikariDataSource;
+import hu.gaborkolozsy.timeclock.config.ReplicaRoutingDataSource;
+import hu.gaborkolozsy.timeclock.dao.cache.QueryResultCaches;
+import hu.gaborkolozsy.timeclock.model.Developer;
+import hu.gaborkolozsy.timeclock.service.DeveloperService;
+import hu.gaborkolozsy.timeclock.service.JobService;
+import hu.gaborkolozsy.timeclock.service.WorkingHoursService;
+import hu.gaborkolozsy.timeclock.statistics.CacheStatistics;
+import hu.gaborkolozsy.timeclock.statistics.ReplicaStatistics;
+import java.sql.Connection;
+import java.sql.SQLException;
+import javax.persistence.EntityManagerFactory;
+import javax.sql.DataSource;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Test {@code ReplicaRoutingDataSource} class.
+ *
+ * @author Gabor Kolozsy (gabor.kolozsy.development@gmail.com)
+ * @since 0.0.1-SNAPSHOT
+ * @see ReplicaRoutingDataSource
+ */
+public class ReplicaRoutingDataSourceTest extends DevelopmentTest {
+
+    @Autowired
+    private ReplicaRoutingDataSource routingDataSource;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private DeveloperService developerService;
+
+    @Autowired
+    private JobService jobService;
+
+    @Autowired
+    private WorkingHoursService workingHoursService;
+
+    @Autowired
+    private QueryResultCaches queryResultCaches;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    /**
+     * Test of the routing of the read-only and the read-write transactions.
+     * After a write the thread reads the primary, until the replica returns
+     * a beat written after it.
+     */
+    @Test
+    public void testReadOnlyTransactionRoutedToReplica() {
+        ReplicaStatistics before = routingDataSource.getStatistics();
+        message = "Replica is not available!";
+        assertTrue(message, before.isAvailable());
+        assertEquals(message, 0, before.getLag());
+
+        developerService.updateLastnameByDeveloperId(valid, "Replica");
+        ReplicaStatistics statistics = routingDataSource.getStatistics();
+        message = "Read-write transaction is routed to the replica!";
+        assertEquals(message, before.getReplicaReads(), statistics.getReplicaReads());
+
+        message = "Write is not read by the writer!";
+        assertEquals(message, "Replica", developerService.getByDeveloperId(valid).getLastName());
+        ReplicaStatistics afterWrite = routingDataSource.getStatistics();
+        message = "Read after the write is routed to the replica, which may lag!";
+        assertEquals(message, before.getReplicaReads(), afterWrite.getReplicaReads());
+        assertEquals(message, before.getFallbacks() + 1, afterWrite.getFallbacks());
+
+        routingDataSource.check();
+        entityManagerFactory.unwrap(SessionFactory.class).getCache().evictAllRegions();
+        message = "Write is not read from the replica!";
+        assertEquals(message, "Replica", developerService.getByDeveloperId(valid).getLastName());
+        ReplicaStatistics after = routingDataSource.getStatistics();
+        message = "Read-only transaction is not routed to the replica!";
+        assertEquals(message, before.getReplicaReads() + 1, after.getReplicaReads());
+        assertEquals(message, afterWrite.getFallbacks(), after.getFallbacks());
+    }
+
+    /**
+     * Test of the caches of the transactions routed to the replica: the
+     * entities, the natural ID resolutions and the query results read from
+     * the replica are not cached, the ones read from the primary are.
+     */
+    @Test
+    public void testReplicaReadsNotCached() {
+        Cache cache = entityManagerFactory.unwrap(SessionFactory.class).getCache();
+        cache.evictAllRegions();
+        queryResultCaches.invalidateAll();
+        long puts = queryResultCaches.getStatistics("getAllByStatus").getPutCount();
+        routingDataSource.check();
+        long reads = routingDataSource.getStatistics().getReplicaReads();
+
+        Developer developer = developerService.getByDeveloperId(valid);
+        message = "Read-only transaction is not routed to the replica!";
+        assertEquals(message, reads + 1, routingDataSource.getStatistics().getReplicaReads());
+        message = "Developer of the replica is in the second-level cache!";
+        assertFalse(message, cache.containsEntity(Developer.class, developer.getId()));
+        message = "Natural ID resolution of the replica is in the cache!";
+        assertEquals(message, 0, getNaturalIdCount());
+
+        message = "List size is not 2!";
+        assertEquals(message, 2, jobService.getAllByStatus("WIP").size());
+        message = "Query result of the replica is in the cache!";
+        assertEquals(message, puts, queryResultCaches.getStatistics("getAllByStatus")
+                .getPutCount());
+
+        new TransactionTemplate(transactionManager).execute((status) -> 
+                developerService.getByDeveloperId(valid));
+        message = "Developer of the primary is not in the second-level cache!";
+        assertTrue(message, cache.containsEntity(Developer.class, developer.getId()));
+        message = "Natural ID resolution of the primary is not in the cache!";
+        assertEquals(message, 1, getNaturalIdCount());
+
+        routingDataSource.check();
+        developerService.getByDeveloperId(valid);
+        message = "Natural ID resolution of a cached developer is evicted!";
+        assertEquals(message, 1, getNaturalIdCount());
+    }
+
+    /**
+     * Test of the rebuild of the open shifts' index, which reads the primary 
+     * within a read-only transaction too.
+     */
+    @Test
+    public void testOpenShiftIndexRebuiltFromPrimary() {
+        routingDataSource.check();
+        long reads = routingDataSource.getStatistics().getReplicaReads();
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        readOnly.execute((status) -> {
+            workingHoursService.rebuildOpenShiftIndex();
+            return null;
+        });
+        message = "Open shifts are read from the replica!";
+        assertEquals(message, reads, routingDataSource.getStatistics().getReplicaReads());
+        message = "Number of open shifts is not 6!";
+        assertEquals(message, 6, workingHoursService.countOpenShifts());
+    }
+
+    /**
+     * Test of the fallback to the primary, while the replica is missing or
+     * lagging.
+     * @throws SQLException if a connection fails
+     */
+    @Test
+    public void testFallbackToPrimary() throws SQLException {
+        HikariDataSource replica = new HikariDataSource();
+        replica.setJdbcUrl("jdbc:h2:mem:replica");
+        ReplicaRoutingDataSource routing =
+                new ReplicaRoutingDataSource(dataSource, replica, 1000, 3_600_000);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        try {
+            routing.afterPropertiesSet();
+            message = "Replica without heartbeat is available!";
+            assertFalse(message, routing.getStatistics().isAvailable());
+            assertEquals(message, "testdb", getDatabase(routing));
+
+            JdbcTemplate jdbcTemplate = new JdbcTemplate(replica);
+            jdbcTemplate.execute("create table " + ReplicaRoutingDataSource.HEARTBEAT
+                    + " (Id int primary key, Beat bigint not null)");
+            jdbcTemplate.update("insert into " + ReplicaRoutingDataSource.HEARTBEAT
+                    + " values (1, ?)", System.currentTimeMillis() - 60_000);
+            routing.check();
+            message = "Lagging replica is available!";
+            assertFalse(message, routing.getStatistics().isAvailable());
+            assertTrue(message, routing.getStatistics().getLag() >= 60_000);
+            assertEquals(message, "testdb", getDatabase(routing));
+
+            jdbcTemplate.update("update " + ReplicaRoutingDataSource.HEARTBEAT
+                    + " set Beat = ?", Long.MAX_VALUE);
+            routing.check();
+            message = "Replica in sync is not available!";
+            assertTrue(message, routing.getStatistics().isAvailable());
+            assertEquals(message, "replica", getDatabase(routing));
+
+            ReplicaStatistics statistics = routing.getStatistics();
+            message = "Statistics are not correct!";
+            assertEquals(message, 1, statistics.getReplicaReads());
+            assertEquals(message, 2, statistics.getFallbacks());
+            assertEquals(message, 1, statistics.getFailures());
+        } finally {
+            TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+            routing.close();
+        }
+        message = "Replica's pool is not closed!";
+        assertTrue(message, replica.isClosed());
+    }
+
+    /**
+     * Returns the number of the cached natural ID resolutions of the
+     * developers.
+     * @return number of resolutions
+     */
+    private long getNaturalIdCount() {
+        return CacheStatistics.ofNaturalId(entityManagerFactory, "developerNaturalId")
+                .getElementCount();
+    }
+
+    /**
+     * Returns the name of the database of the routed connection.
+     * @param routing {@code ReplicaRoutingDataSource}
+     * @return database name
+     * @throws SQLException if the connection fails
+     */
+    private static String getDatabase(ReplicaRoutingDataSource routing) throws SQLException {
+        try (Connection connection = routing.getConnection()) {
+            return connection.getCatalog().toLowerCase();
+        }
+    }
+
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright (c) 2017, Gabor Kolozsy. All rights reserved.
+ */
+
+package hu.gaborkolozsy.timeclock.benchmark;
+
+import hu.gaborkolozsy.timeclock.config.ApplicationConfig;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import javax.persistence.EntityManagerFactory;
+import javax.sql.DataSource;
+import org.hibernate.SessionFactory;
+import org.junit.After;
+import org.junit.Before;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.AbstractJUnit4SpringContextTests;
+import org.springframework.test.context.support.AnnotationConfigContextLoader;
+
+/**
+ * Common base class of the benchmarks.
+ *
+ * <p>The benchmarks run against the embedded H2 database of the
+ * <i>development</i> profile, but <strong>not</strong> in a test managed
+ * transaction, so every benchmark must clean up its own rows.
+ *
+ * <p>The benchmarks are not part of the default build, run them with the
+ * <i>benchmark</i> profile: <pre>    mvn test -P benchmark</pre>
+ * or one by one: <pre>    mvn test -Dtest=ExistsBenchmark</pre>
+ *
+ * @author Gabor Kolozsy (gabor.kolozsy.development@gmail.com)
+ * @since 0.0.1-SNAPSHOT
+ * @see DataSource
+ * @see JdbcTemplate
+ */
+@ActiveProfiles("development")
+@ContextConfiguration(classes = ApplicationConfig.class,
+                      loader = AnnotationConfigContextLoader.class)
+public abstract class AbstractBenchmark extends AbstractJUnit4SpringContextTests {
+
+    @Autowired
+    protected DataSource dataSource;
+    
+    @Autowired
+    protected EntityManagerFactory entityManagerFactory;
+
+    protected JdbcTemplate jdbcTemplate;
+
+    /**
+     * Create the {@code JdbcTemplate} for seeding and cleaning up.
+     */
+    @Before
+    public void setUpJdbcTemplate() {
+        jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+    
+    /**
+     * Evict the second-level cache, because the benchmarks clean up their 
+     * rows with plain JDBC.
+     */
+    @After
+    public void evictCache() {
+        entityManagerFactory.unwrap(SessionFactory.class).getCache().evictAllRegions();
+    }
+
+    /**
+     * Returns the sizes given in the specified system property as a comma
+     * separated list (e.g. <i>-Dbenchmark.rows=10000,100000</i>) or the
+     * defaults.
+     * @param property system property's name
+     * @param defaults the default sizes
+     * @return the sizes
+     */
+    protected static int[] sizes(String property, int... defaults) {
+        String value = System.getProperty(property);
+        if (value == null || value.trim().isEmpty()) {
+            return defaults;
+        }
+        return Arrays.stream(value.split(","))
+                .map(String::trim)
+                .mapToInt(Integer::parseInt)
+                .toArray();
+    }
+
+    /**
+     * Run the given task the specified times after one warm up run and
+     * returns the average elapsed time.
+     * @param times number of measured runs
+     * @param task the measured task
+     * @return the average elapsed time in nanoseconds
+     */
+    protected static long measure(int times, Runnable task) {
+        task.run();
+        long start = System.nanoTime();
+        for (int i = 0; i < times; i++) {
+            task.run();
+        }
+        return (System.nanoTime() - start) / times;
+    }
+
+    /**
+     * Returns the given nanoseconds in milliseconds.
+     * @param nanos nanoseconds
+     * @return milliseconds
+     */
+    protected static double millis(long nanos) {
+        return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    /**
+     * Print a line of the benchmark's report.
+     * @param format format string
+     * @param args arguments of the format string
+     */
+    protected void report(String format, Object... args) {
+        System.out.println(String.format("[%s] ", getClass().getSimpleName())
+                + String.format(format, args));
+    }
+
+}
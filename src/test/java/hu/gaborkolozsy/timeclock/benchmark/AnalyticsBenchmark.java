@@ -0,0 +1,154 @@
+/*
+ * Copyright (c) 2017, Gabor Kolozsy. All rights reserved.
+ */
+
+package hu.gaborkolozsy.timeclock.benchmark;
+
+import hu.gaborkolozsy.timeclock.model.timesheet.OpenShiftPolicy;
+import hu.gaborkolozsy.timeclock.model.timesheet.TimesheetPeriod;
+import hu.gaborkolozsy.timeclock.service.AnalyticsService;
+import hu.gaborkolozsy.timeclock.service.DailyHoursService;
+import hu.gaborkolozsy.timeclock.service.TimesheetService;
+import hu.gaborkolozsy.timeclock.service.WorkingHoursService;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.After;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+/**
+ * Measure the columnar analytic store: its full and incremental refresh, 
+ * and its monthly timesheet compared with the SQL rollup and with 
+ * streaming the {@code WorkingHours} entities and grouping them in Java.
+ *
+ * <p>Sizes: <i>-Dbenchmark.developers=500</i> (default) developers with
+ * one 8 hours shift per day of 2017.
+ *
+ * @author Gabor Kolozsy (gabor.kolozsy.development@gmail.com)
+ * @since 0.0.1-SNAPSHOT
+ * @see AnalyticsService
+ */
+public class AnalyticsBenchmark extends AbstractBenchmark {
+
+    private static final long OFFSET = 1_000_000_000L;
+    private static final LocalDate FROM = LocalDate.parse("2017-01-01");
+    private static final LocalDate TO = LocalDate.parse("2017-12-31");
+
+    @Autowired
+    private AnalyticsService analyticsService;
+
+    @Autowired
+    private TimesheetService timesheetService;
+
+    @Autowired
+    private DailyHoursService dailyHoursService;
+
+    @Autowired
+    private WorkingHoursService workingHoursService;
+
+    /**
+     * Remove the seeded developers, their shifts and rollup.
+     */
+    @After
+    public void cleanUp() {
+        jdbcTemplate.update("delete from Daily_Hours where Developer_Id >= ?", OFFSET);
+        jdbcTemplate.update("delete from Working_Hours where Developer_Id >= ?", OFFSET);
+        jdbcTemplate.update("delete from Developer where Developer_Id >= ?", OFFSET);
+    }
+
+    /**
+     * Refresh of the store and monthly timesheet of every developer.
+     */
+    @Test
+    public void benchmarkAnalytics() {
+        for (int developers : sizes("benchmark.developers", 500)) {
+            int rows = seed(developers);
+            dailyHoursService.rebuild();
+            long start = System.nanoTime();
+            int loaded = analyticsService.refresh();
+            long full = System.nanoTime() - start;
+            report("%,9d rows: full refresh %8.3f ms (%,d shifts)", rows, millis(full), loaded);
+            assertEquals("Store is not loaded!", rows, analyticsService.size());
+
+            long noop = measure(5, analyticsService::refresh);
+            jdbcTemplate.update("update Working_Hours set Updated = current_timestamp() "
+                    + "where Developer_Id >= ? and mod(Id, 100) = 0", OFFSET);
+            start = System.nanoTime();
+            int changed = analyticsService.refresh();
+            report("%,9d rows: refresh without change %8.3f ms, with changes %8.3f ms "
+                    + "(%,d shifts)", rows, millis(noop), millis(System.nanoTime() - start), 
+                    changed);
+
+            List<Long> developerIds = LongStream.range(OFFSET, OFFSET + developers)
+                    .boxed()
+                    .collect(Collectors.toList());
+            assertEquals("Timesheets are different!", 
+                    timesheetService.getTimesheet(developerIds, FROM, TO, 
+                            TimesheetPeriod.MONTH, OpenShiftPolicy.EXCLUDE).toString(),
+                    analyticsService.getTimesheet(developerIds, FROM, TO, 
+                            TimesheetPeriod.MONTH).toString());
+            long store = measure(5, () -> analyticsService.getTimesheet(developerIds, FROM, 
+                    TO, TimesheetPeriod.MONTH));
+            long sql = measure(5, () -> timesheetService.getTimesheet(developerIds, FROM, TO, 
+                    TimesheetPeriod.MONTH, OpenShiftPolicy.EXCLUDE));
+            long jpa = measure(1, this::groupByMonth);
+            report("%,9d rows: MONTH store %8.3f ms, SQL rollup %8.3f ms, JPA stream %8.3f ms",
+                    rows, millis(store), millis(sql), millis(jpa));
+
+            long[] worked = new long[1];
+            long scan = measure(5, () -> analyticsService.scan(FROM, TO, 
+                    (id, developerId, day, begin, end) -> worked[0] += end - begin));
+            report("%,9d rows: scan %8.3f ms", rows, millis(scan));
+            cleanUp();
+            analyticsService.refresh();
+            evictCache();
+        }
+    }
+
+    /**
+     * Stream every {@code WorkingHours} entity and sum up the worked time by 
+     * developer and month in Java.
+     * @return the worked time by developer's ID and month's first day
+     */
+    private Map<Long, Map<LocalDate, Duration>> groupByMonth() {
+        Map<Long, Map<LocalDate, Duration>> totals = new HashMap<>();
+        workingHoursService.forEach((shift) -> totals
+                .computeIfAbsent(shift.getDeveloper().getDeveloperId(), (id) -> new HashMap<>())
+                .merge(shift.getDay().withDayOfMonth(1), 
+                        Duration.between(shift.getWorkStart(), shift.getWorkEnd()), 
+                        Duration::plus));
+        return totals;
+    }
+
+    /**
+     * Insert the given number of developers with one 8 hours shift per day
+     * of 2017, each created at its end.
+     * @param developers number of developers
+     * @return number of shifts
+     */
+    private int seed(int developers) {
+        jdbcTemplate.update("insert into Developer "
+                + "(Id, Developer_Id, Forename, Last_Name, Zip, POB, Created, Created_By, Version) "
+                + "select X, X, 'Bench', 'Mark' || X, 0, 0, current_timestamp(), 'benchmark', 0 "
+                + "from system_range(?, ?)", OFFSET, OFFSET + developers - 1);
+        int rows = jdbcTemplate.update("insert into Working_Hours (Id, Work_Day, Work_Begin, "
+                + "Work_End, Developer_Id, Created, Created_By, Version) "
+                + "select d.X * 1000 + s.X, dateadd('DAY', s.X, ?), "
+                + "dateadd('HOUR', 8, dateadd('DAY', s.X, cast(? as timestamp))), "
+                + "dateadd('HOUR', 16, dateadd('DAY', s.X, cast(? as timestamp))), "
+                + "d.X, dateadd('HOUR', 16, dateadd('DAY', s.X, cast(? as timestamp))), "
+                + "'benchmark', 0 from system_range(?, ?) d, system_range(0, 364) s",
+                FROM, FROM, FROM, FROM, OFFSET, OFFSET + developers - 1);
+        assertEquals("Shifts are not seeded!", developers * 365, rows);
+        return rows;
+    }
+
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2017, Gabor Kolozsy. All rights reserved.
+ */
+
+package hu.gaborkolozsy.timeclock.benchmark;
+
+import hu.gaborkolozsy.timeclock.service.WorkingHoursService;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.After;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+/**
+ * Measure the throughput of the clock-ins and clock-outs of different
+ * developers by the number of threads: every thread clocks in and out its
+ * own developers.
+ *
+ * <p>Sizes: <i>-Dbenchmark.threads=1,2,4,8</i> (default) threads, 2000
+ * clock-ins and clock-outs per size. The number of the developers' locks
+ * can be set with <i>-Dtimeclock.clock.lock_stripes</i>.
+ *
+ * @author Gabor Kolozsy (gabor.kolozsy.development@gmail.com)
+ * @since 0.0.1-SNAPSHOT
+ * @see WorkingHoursService
+ */
+public class ClockBenchmark extends AbstractBenchmark {
+
+    private static final long OFFSET = 1_000_000_000L;
+    private static final int DEVELOPERS = 1000;
+    private static final int OPERATIONS = 2000;
+
+    @Autowired
+    private WorkingHoursService workingHoursService;
+
+    /**
+     * Remove the seeded developers and their shifts.
+     */
+    @After
+    public void cleanUp() {
+        jdbcTemplate.update("delete from Daily_Hours where Developer_Id >= ?", OFFSET);
+        jdbcTemplate.update("delete from Working_Hours where Developer_Id >= ?", OFFSET);
+        jdbcTemplate.update("delete from Developer where Developer_Id >= ?", OFFSET);
+    }
+
+    /**
+     * Clock-ins and clock-outs by threads.
+     * @throws Exception if a clock-in or a clock-out fails
+     */
+    @Test
+    public void benchmarkClockInAndOut() throws Exception {
+        seed();
+        for (int threads : sizes("benchmark.threads", 1, 2, 4, 8)) {
+            ExecutorService executor = Executors.newFixedThreadPool(threads);
+            try {
+                List<Callable<Object>> tasks = new ArrayList<>();
+                for (int thread = 0; thread < threads; thread++) {
+                    int first = thread;
+                    tasks.add(Executors.callable(() -> {
+                        for (int i = first; i < OPERATIONS / 2; i += threads) {
+                            long developerId = OFFSET + i % DEVELOPERS;
+                            workingHoursService.clockIn(developerId);
+                            workingHoursService.clockOut(developerId);
+                        }
+                    }));
+                }
+                long start = System.nanoTime();
+                for (Future<Object> task : executor.invokeAll(tasks)) {
+                    task.get();
+                }
+                long nanos = System.nanoTime() - start;
+                assertEquals("Developers are still clocked in!", 0,
+                        workingHoursService.countOpenShifts());
+                report("%2d threads: %8.3f ms, %,8.0f clock-ins and clock-outs/s", threads,
+                        millis(nanos), OPERATIONS * 1e9 / nanos);
+            } finally {
+                executor.shutdown();
+            }
+        }
+    }
+
+    /**
+     * Insert the developers.
+     */
+    private void seed() {
+        jdbcTemplate.update("insert into Developer "
+                + "(Id, Developer_Id, Forename, Last_Name, Zip, POB, Created, Created_By, Version) "
+                + "select X, X, 'Bench', 'Mark' || X, 0, 0, current_timestamp(), 'benchmark', 0 "
+                + "from system_range(?, ?)", OFFSET, OFFSET + DEVELOPERS - 1);
+    }
+
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright (c) 2017, Gabor Kolozsy. All rights reserved.
+ */
+
+package hu.gaborkolozsy.timeclock.benchmark;
+
+import hu.gaborkolozsy.timeclock.model.clock.ClockEvent;
+import hu.gaborkolozsy.timeclock.service.ClockBufferService;
+import hu.gaborkolozsy.timeclock.service.WorkingHoursService;
+import hu.gaborkolozsy.timeclock.statistics.ClockBufferStatistics;
+import java.time.LocalDateTime;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+/**
+ * Measure a shift change's burst of clock events written one transaction
+ * per event against the write-behind buffer: the time until the burst is
+ * acknowledged and until it is written.
+ *
+ * <p>Sizes: <i>-Dbenchmark.events=1000,4000</i> (default) clock-ins and
+ * clock-outs of 1000 developers.
+ *
+ * @author Gabor Kolozsy (gabor.kolozsy.development@gmail.com)
+ * @since 0.0.1-SNAPSHOT
+ * @see ClockBufferService
+ * @see WorkingHoursService
+ */
+public class ClockBufferBenchmark extends AbstractBenchmark {
+
+    private static final long OFFSET = 1_000_000_000L;
+    private static final int DEVELOPERS = 1000;
+
+    @Autowired
+    private ClockBufferService clockBufferService;
+
+    @Autowired
+    private WorkingHoursService workingHoursService;
+
+    /**
+     * Remove the seeded developers and their shifts.
+     */
+    @After
+    public void cleanUp() {
+        jdbcTemplate.update("delete from Daily_Hours where Developer_Id >= ?", OFFSET);
+        jdbcTemplate.update("delete from Working_Hours where Developer_Id >= ?", OFFSET);
+        jdbcTemplate.update("delete from Developer where Developer_Id >= ?", OFFSET);
+    }
+
+    /**
+     * Bursts of events per transaction and buffered.
+     */
+    @Test
+    public void benchmarkBurst() {
+        seed();
+        for (int events : sizes("benchmark.events", 1000, 4000)) {
+            long start = System.nanoTime();
+            for (int i = 0; i < events / 2; i++) {
+                long developerId = OFFSET + i % DEVELOPERS;
+                workingHoursService.clockIn(developerId);
+                workingHoursService.clockOut(developerId);
+            }
+            long direct = System.nanoTime() - start;
+
+            ClockBufferStatistics before = clockBufferService.getStatistics();
+            LocalDateTime time = LocalDateTime.now();
+            start = System.nanoTime();
+            for (int i = 0; i < events / 2; i++) {
+                long developerId = OFFSET + i % DEVELOPERS;
+                time = time.plusSeconds(1);
+                assertTrue("Event is not accepted!", clockBufferService.submit(
+                        new ClockEvent(developerId, ClockEvent.Type.IN, time)));
+                assertTrue("Event is not accepted!", clockBufferService.submit(
+                        new ClockEvent(developerId, ClockEvent.Type.OUT, time.plusHours(8))));
+            }
+            long acknowledged = System.nanoTime() - start;
+            clockBufferService.flush();
+            long buffered = System.nanoTime() - start;
+            ClockBufferStatistics after = clockBufferService.getStatistics();
+            assertEquals("Events are not written!", before.getWritten() + events,
+                    after.getWritten());
+            report("%,6d events: per transaction %9.3f ms, buffered acknowledged %8.3f ms, "
+                    + "written %9.3f ms (%,d flushes, p99 %.3f ms)", events, millis(direct),
+                    millis(acknowledged), millis(buffered),
+                    after.getFlushes().getCount() - before.getFlushes().getCount(),
+                    after.getFlushes().getPercentile(99));
+        }
+    }
+
+    /**
+     * Insert the developers.
+     */
+    private void seed() {
+        jdbcTemplate.update("insert into Developer "
+                + "(Id, Developer_Id, Forename, Last_Name, Zip, POB, Created, Created_By, Version) "
+                + "select X, X, 'Bench', 'Mark' || X, 0, 0, current_timestamp(), 'benchmark', 0 "
+                + "from system_range(?, ?)", OFFSET, OFFSET + DEVELOPERS - 1);
+    }
+
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright (c) 2017, Gabor Kolozsy. All rights reserved.
+ */
+
+package hu.gaborkolozsy.timeclock.benchmark;
+
+import hu.gaborkolozsy.timeclock.model.clock.ImportResult;
+import hu.gaborkolozsy.timeclock.service.ClockImportService;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.After;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+/**
+ * Measure the import of a CSV file of clock events: every developer clocks
+ * in at 8:00 and out at 16:00 every day, ordered by day. The repeated
+ * import of the completely imported file is measured too, which only skips
+ * its lines.
+ *
+ * <p>Sizes: <i>-Dbenchmark.events=100000,1000000</i> (default) events of
+ * 1000 developers.
+ *
+ * @author Gabor Kolozsy (gabor.kolozsy.development@gmail.com)
+ * @since 0.0.1-SNAPSHOT
+ * @see ClockImportService
+ */
+public class ClockImportBenchmark extends AbstractBenchmark {
+
+    private static final long OFFSET = 1_000_000_000L;
+    private static final int DEVELOPERS = 1000;
+    private static final LocalDate FROM = LocalDate.parse("2017-01-01");
+
+    private Path file;
+    private Path rejectFile;
+
+    @Autowired
+    private ClockImportService clockImportService;
+
+    /**
+     * Remove the seeded developers, their shifts and the files.
+     * @throws IOException if a file can not be deleted
+     */
+    @After
+    public void cleanUp() throws IOException {
+        if (file != null) {
+            clockImportService.restart(file);
+            Files.deleteIfExists(file);
+            Files.deleteIfExists(rejectFile);
+        }
+        jdbcTemplate.update("delete from Daily_Hours where Developer_Id >= ?", OFFSET);
+        jdbcTemplate.update("delete from Working_Hours where Developer_Id >= ?", OFFSET);
+        jdbcTemplate.update("delete from Developer where Developer_Id >= ?", OFFSET);
+    }
+
+    /**
+     * Import of the generated files.
+     * @throws IOException if a file fails
+     */
+    @Test
+    public void benchmarkImport() throws IOException {
+        seed();
+        for (int events : sizes("benchmark.events", 100_000, 1_000_000)) {
+            file = Files.createTempFile("clock", ".csv");
+            rejectFile = Files.createTempFile("clock", ".rejects.csv");
+            write(events);
+
+            ImportResult result = clockImportService.importEvents(file, rejectFile);
+            assertEquals("Events are rejected!", 0, result.getRejected());
+            assertEquals("Not every shift is inserted!", events / 2, result.getInserted());
+            report("%,9d events: %8.3f ms, %,8.0f events/s (%,d shifts)", events,
+                    millis(result.getElapsed().toNanos()), result.getLinesPerSecond(),
+                    result.getInserted());
+
+            result = clockImportService.importEvents(file, rejectFile);
+            assertEquals("Imported lines are imported again!", 0, result.getLines());
+            report("%,9d events: %8.3f ms repeated import", events,
+                    millis(result.getElapsed().toNanos()));
+            cleanUp();
+            seed();
+        }
+    }
+
+    /**
+     * Write the given number of events into the file.
+     * @param events number of events (a multiple of 2000)
+     * @throws IOException if the file can not be written
+     */
+    private void write(int events) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writer.write("developerId,type,time\n");
+            for (int day = 0; day < events / (2 * DEVELOPERS); day++) {
+                String date = FROM.plusDays(day).toString();
+                for (String event : new String[] {",IN," + date + "T08:00:00\n",
+                        ",OUT," + date + "T16:00:00\n"}) {
+                    for (long developer = OFFSET; developer < OFFSET + DEVELOPERS; developer++) {
+                        writer.write(Long.toString(developer));
+                        writer.write(event);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Insert the developers.
+     */
+    private void seed() {
+        jdbcTemplate.update("insert into Developer "
+                + "(Id, Developer_Id, Forename, Last_Name, Zip, POB, Created, Created_By, Version) "
+                + "select X, X, 'Bench', 'Mark' || X, 0, 0, current_timestamp(), 'benchmark', 0 "
+                + "from system_range(?, ?)", OFFSET, OFFSET + DEVELOPERS - 1);
+    }
+
+}
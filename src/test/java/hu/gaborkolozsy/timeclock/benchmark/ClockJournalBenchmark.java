@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) 2017, Gabor Kolozsy. All rights reserved.
+ */
+
+package hu.gaborkolozsy.timeclock.benchmark;
+
+import hu.gaborkolozsy.timeclock.model.clock.ClockEvent;
+import hu.gaborkolozsy.timeclock.service.ClockJournalService;
+import hu.gaborkolozsy.timeclock.statistics.ClockJournalStatistics;
+import java.time.LocalDateTime;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.After;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+/**
+ * Measure the single-threaded appends of the clock events' journal, and the
+ * replay of the appended events into the working hours.
+ *
+ * <p>Sizes: <i>-Dbenchmark.appends=1000000</i> (default) appends,
+ * <i>-Dbenchmark.events=20000</i> (default) replayed clock-ins and
+ * clock-outs of 1000 developers. The fsync policy can be set with
+ * <i>-Dtimeclock.clock.journal.fsync</i>. The background replay runs once an
+ * hour, so only the measured replay writes the events.
+ *
+ * @author Gabor Kolozsy (gabor.kolozsy.development@gmail.com)
+ * @since 0.0.1-SNAPSHOT
+ * @see ClockJournalService
+ */
+public class ClockJournalBenchmark extends AbstractBenchmark {
+
+    private static final long OFFSET = 1_000_000_000L;
+    private static final int DEVELOPERS = 1000;
+
+    static {
+        if (System.getProperty("timeclock.clock.journal.replay_interval") == null) {
+            System.setProperty("timeclock.clock.journal.replay_interval", "3600000");
+        }
+    }
+
+    @Autowired
+    private ClockJournalService clockJournalService;
+
+    /**
+     * Remove the seeded developers and their shifts.
+     */
+    @After
+    public void cleanUp() {
+        jdbcTemplate.update("delete from Daily_Hours where Developer_Id >= ?", OFFSET);
+        jdbcTemplate.update("delete from Working_Hours where Developer_Id >= ?", OFFSET);
+        jdbcTemplate.update("delete from Developer where Developer_Id >= ?", OFFSET);
+    }
+
+    /**
+     * Appends of an unknown developer's events, which are rejected by the
+     * replay.
+     */
+    @Test
+    public void benchmarkAppend() {
+        ClockEvent event = new ClockEvent(OFFSET - 1, ClockEvent.Type.IN, LocalDateTime.now());
+        for (int appends : sizes("benchmark.appends", 1_000_000)) {
+            clockJournalService.replay();
+            long start = System.nanoTime();
+            for (int i = 0; i < appends; i++) {
+                clockJournalService.append(event);
+            }
+            long nanos = System.nanoTime() - start;
+            ClockJournalStatistics statistics = clockJournalService.getStatistics();
+            report("%,9d appends: %9.3f ms, %,12.0f appends/s (%d segments)", appends,
+                    millis(nanos), appends * 1e9 / nanos, statistics.getSegments());
+            clockJournalService.replay();
+        }
+    }
+
+    /**
+     * Replay of the appended clock-ins and clock-outs.
+     */
+    @Test
+    public void benchmarkReplay() {
+        seed();
+        for (int events : sizes("benchmark.events", 20_000)) {
+            clockJournalService.replay();
+            LocalDateTime time = LocalDateTime.now();
+            for (int i = 0; i < events / 2; i++) {
+                long developerId = OFFSET + i % DEVELOPERS;
+                time = time.plusSeconds(1);
+                clockJournalService.append(new ClockEvent(developerId, ClockEvent.Type.IN, time));
+                clockJournalService.append(new ClockEvent(developerId, ClockEvent.Type.OUT,
+                        time.plusHours(8)));
+            }
+            ClockJournalStatistics before = clockJournalService.getStatistics();
+            long start = System.nanoTime();
+            clockJournalService.replay();
+            long nanos = System.nanoTime() - start;
+            ClockJournalStatistics after = clockJournalService.getStatistics();
+            assertEquals("Events are not replayed!", 0, after.getLag());
+            assertEquals("Events are rejected!", before.getRejected(), after.getRejected());
+            report("%,9d events replayed: %9.3f ms, %,10.0f events/s", events, millis(nanos),
+                    events * 1e9 / nanos);
+        }
+    }
+
+    /**
+     * Insert the developers.
+     */
+    private void seed() {
+        jdbcTemplate.update("insert into Developer "
+                + "(Id, Developer_Id, Forename, Last_Name, Zip, POB, Created, Created_By, Version) "
+                + "select X, X, 'Bench', 'Mark' || X, 0, 0, current_timestamp(), 'benchmark', 0 "
+                + "from system_range(?, ?)", OFFSET, OFFSET + DEVELOPERS - 1);
+    }
+
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) 2017, Gabor Kolozsy. All rights reserved.
+ */
+
+package hu.gaborkolozsy.timeclock.benchmark;
+
+import hu.gaborkolozsy.timeclock.service.CustomerService;
+import java.util.List;
+import java.util.Objects;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+import java.util.stream.StreamSupport;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+/**
+ * Compare the natural key existence check by loading every entity with the
+ * index backed <strong>select 1 ... limit 1</strong> probe and its batch
+ * variant.
+ *
+ * <p>Sizes: <i>-Dbenchmark.rows=10000,100000,1000000</i> (default), the full
+ * scan is only measured up to <i>-Dbenchmark.scan.max=10000</i> rows.
+ *
+ * @author Gabor Kolozsy (gabor.kolozsy.development@gmail.com)
+ * @since 0.0.1-SNAPSHOT
+ * @see CustomerService
+ */
+public class ExistsBenchmark extends AbstractBenchmark {
+
+    private static final long OFFSET = 1_000_000_000L;
+    private static final int PROBES = 1_000;
+
+    @Autowired
+    private CustomerService customerService;
+
+    /**
+     * Remove the seeded customers.
+     */
+    @After
+    public void cleanUp() {
+        jdbcTemplate.update("delete from Customer where Customer_Id >= ?", OFFSET);
+    }
+
+    /**
+     * Existence check with growing table.
+     */
+    @Test
+    public void benchmarkIsExistWithCustomerId() {
+        int scanMax = Integer.getInteger("benchmark.scan.max", 10_000);
+        Random random = new Random(42);
+        for (int rows : sizes("benchmark.rows", 10_000, 100_000, 1_000_000)) {
+            seed(rows);
+            long[] keys = random.longs(PROBES, OFFSET, OFFSET + 2L * rows).toArray();
+
+            long probe = measure(1, () -> {
+                for (long key : keys) {
+                    customerService.isExistWithCustomerId(key);
+                }
+            }) / PROBES;
+
+            List<Long> batch = LongStream.of(keys).boxed().collect(Collectors.toList());
+            int found = customerService.getExistingBy("customerId", batch).size();
+            long batched = measure(5, () -> customerService.getExistingBy("customerId", batch));
+
+            assertTrue("No existing key was probed!", found > 0);
+            report("%,9d rows: probe %8.3f ms/check, batch %8.3f ms/%d keys (%d found)",
+                    rows, millis(probe), millis(batched), PROBES, found);
+
+            if (rows <= scanMax) {
+                long scan = measure(3, () -> StreamSupport.stream(customerService.getAll().spliterator(), false)
+                        .anyMatch((customer) -> Objects.equals(customer.getCustomerId(), keys[0])));
+                report("%,9d rows: full scan %8.3f ms/check", rows, millis(scan));
+            }
+            cleanUp();
+        }
+    }
+
+    /**
+     * Insert the given number of customers with one statement.
+     * @param rows number of customers
+     */
+    private void seed(int rows) {
+        int inserted = jdbcTemplate.update("insert into Customer "
+                + "(Id, Customer_Id, Name, Zip, POB, Created, Created_By, Version) "
+                + "select X + ?, X + ?, 'Company' || X, 0, 0, current_timestamp(), 'benchmark', 0 "
+                + "from system_range(0, ?)", OFFSET, OFFSET, 2L * (rows - 1));
+        jdbcTemplate.update("delete from Customer where Customer_Id >= ? and mod(Customer_Id, 2) = 1",
+                OFFSET);
+        assertEquals("Customers are not seeded!", 2 * rows - 1, inserted);
+        assertEquals("Customer rows!", rows, (int) jdbcTemplate.queryForObject(
+                "select count(*) from Customer where Customer_Id >= ?", Integer.class, OFFSET));
+    }
+
+}
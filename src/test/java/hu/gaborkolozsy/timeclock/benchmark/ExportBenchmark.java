@@ -0,0 +1,131 @@
+/*
+ * Copyright (c) 2017, Gabor Kolozsy. All rights reserved.
+ */
+
+package hu.gaborkolozsy.timeclock.benchmark;
+
+import hu.gaborkolozsy.timeclock.model.export.CsvExport.CsvExportBuilder;
+import hu.gaborkolozsy.timeclock.model.export.ExportTable;
+import hu.gaborkolozsy.timeclock.service.ExportService;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.After;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+/**
+ * Measure the CSV export of the working hours, plain and gzip compressed, 
+ * with the growth of the old generation's heap during the export. The 
+ * first read of the seeded table fills the database's caches, so it is a 
+ * warm-up.
+ *
+ * <p>Sizes: <i>-Dbenchmark.developers=500,2000</i> (default) developers 
+ * with one 8 hours shift per day of 2017.
+ *
+ * @author Gabor Kolozsy (gabor.kolozsy.development@gmail.com)
+ * @since 0.0.1-SNAPSHOT
+ * @see ExportService
+ */
+public class ExportBenchmark extends AbstractBenchmark {
+
+    private static final long OFFSET = 1_000_000_000L;
+    private static final LocalDate FROM = LocalDate.parse("2017-01-01");
+
+    @Autowired
+    private ExportService exportService;
+
+    /**
+     * Remove the seeded developers and their shifts.
+     */
+    @After
+    public void cleanUp() {
+        jdbcTemplate.update("delete from Working_Hours where Developer_Id >= ?", OFFSET);
+        jdbcTemplate.update("delete from Developer where Developer_Id >= ?", OFFSET);
+    }
+
+    /**
+     * Export of every shift into a plain and a compressed file.
+     * @throws IOException if the file fails
+     */
+    @Test
+    public void benchmarkExport() throws IOException {
+        Path file = Files.createTempFile("export", ".csv");
+        try {
+            for (int developers : sizes("benchmark.developers", 500, 2000)) {
+                int rows = seed(developers);
+                exportService.export(new CsvExportBuilder(ExportTable.WORKING_HOURS).build(), 
+                        file);
+                for (boolean gzip : new boolean[] {false, true}) {
+                    System.gc();
+                    long baseline = getOldGeneration(false);
+                    long start = System.nanoTime();
+                    long exported = exportService.export(
+                            new CsvExportBuilder(ExportTable.WORKING_HOURS)
+                                    .setGzip(gzip)
+                                    .build(), file);
+                    long nanos = System.nanoTime() - start;
+                    assertEquals("Not every shift is exported!", rows, exported);
+                    long size = Files.size(file);
+                    report("%,9d rows: %-5s %8.3f ms, %,8.0f rows/s, %6.1f MB/s "
+                            + "(%,d KB file, old generation's growth %,d KB)", rows, 
+                            gzip ? "gzip" : "plain", millis(nanos), rows * 1e9 / nanos, 
+                            size * 1e9 / nanos / (1 << 20), size / 1024, 
+                            (getOldGeneration(true) - baseline) / 1024);
+                }
+                cleanUp();
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    /**
+     * Returns the usage of the heap's tenured pool (which holds the in-memory 
+     * database too). The peak is reset after it is read.
+     * @param peak true for the peak usage since the last reset
+     * @return bytes
+     */
+    private static long getOldGeneration(boolean peak) {
+        long used = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP && (pool.getName().contains("Old") 
+                    || pool.getName().contains("Tenured"))) {
+                used += peak ? pool.getPeakUsage().getUsed() : pool.getUsage().getUsed();
+                pool.resetPeakUsage();
+            }
+        }
+        return used;
+    }
+
+    /**
+     * Insert the given number of developers with one 8 hours shift per day
+     * of 2017.
+     * @param developers number of developers
+     * @return number of shifts
+     */
+    private int seed(int developers) {
+        jdbcTemplate.update("insert into Developer "
+                + "(Id, Developer_Id, Forename, Last_Name, Zip, POB, Created, Created_By, Version) "
+                + "select X, X, 'Bench', 'Mark' || X, 0, 0, current_timestamp(), 'benchmark', 0 "
+                + "from system_range(?, ?)", OFFSET, OFFSET + developers - 1);
+        int rows = jdbcTemplate.update("insert into Working_Hours (Id, Work_Day, Work_Begin, "
+                + "Work_End, Developer_Id, Created, Created_By, Version) "
+                + "select d.X * 1000 + s.X, dateadd('DAY', s.X, ?), "
+                + "dateadd('HOUR', 8, dateadd('DAY', s.X, cast(? as timestamp))), "
+                + "dateadd('HOUR', 16, dateadd('DAY', s.X, cast(? as timestamp))), "
+                + "d.X, current_timestamp(), 'benchmark', 0 "
+                + "from system_range(?, ?) d, system_range(0, 364) s",
+                FROM, FROM, FROM, OFFSET, OFFSET + developers - 1);
+        assertEquals("Shifts are not seeded!", developers * 365, rows);
+        return rows;
+    }
+
+}
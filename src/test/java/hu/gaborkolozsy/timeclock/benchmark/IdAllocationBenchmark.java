@@ -0,0 +1,149 @@
+/*
+ * Copyright (c) 2017, Gabor Kolozsy. All rights reserved.
+ */
+
+package hu.gaborkolozsy.timeclock.benchmark;
+
+import hu.gaborkolozsy.timeclock.model.Developer;
+import hu.gaborkolozsy.timeclock.model.Developer.DeveloperBuilder;
+import hu.gaborkolozsy.timeclock.model.WorkingHours;
+import hu.gaborkolozsy.timeclock.model.WorkingHours.WorkingHoursBuilder;
+import hu.gaborkolozsy.timeclock.service.DeveloperService;
+import hu.gaborkolozsy.timeclock.service.WorkingHoursService;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.id.enhanced.DatabaseStructure;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+/**
+ * Count the <strong>next value for workingHoursSEQ</strong> round-trips of
+ * concurrent single inserts with the configured ID block size. Without the
+ * pooled allocation every insert costs one round-trip.
+ *
+ * <p>Sizes: <i>-Dbenchmark.rows=10000</i> (default) inserts on
+ * <i>-Dbenchmark.threads=1,4,8</i> (default) threads.
+ *
+ * @author Gabor Kolozsy (gabor.kolozsy.development@gmail.com)
+ * @since 0.0.1-SNAPSHOT
+ * @see SequenceStyleGenerator
+ * @see DatabaseStructure
+ */
+public class IdAllocationBenchmark extends AbstractBenchmark {
+
+    private static final long DEVELOPER_ID = 1_000_000_001L;
+
+    @Autowired
+    private DeveloperService developerService;
+
+    @Autowired
+    private WorkingHoursService workingHoursService;
+
+    private Developer developer;
+
+    /**
+     * Save the developer of the working hours.
+     */
+    @Before
+    public void setUp() {
+        developer = new DeveloperBuilder()
+                .setDeveloperId(DEVELOPER_ID)
+                .setForename("Bench")
+                .setLastName("Mark")
+                .build();
+        developerService.save(developer);
+    }
+
+    /**
+     * Remove the saved rows.
+     */
+    @After
+    public void cleanUp() {
+        deleteWorkingHours();
+        jdbcTemplate.update("delete from Developer where Developer_Id = ?", DEVELOPER_ID);
+    }
+
+    /**
+     * Concurrent inserts of working hours.
+     * @throws Exception if an insert fails
+     */
+    @Test
+    public void benchmarkIdAllocation() throws Exception {
+        DatabaseStructure sequence = ((SequenceStyleGenerator) entityManagerFactory
+                .unwrap(SessionFactoryImplementor.class)
+                .getMetamodel()
+                .entityPersister(WorkingHours.class)
+                .getIdentifierGenerator())
+                .getDatabaseStructure();
+        for (int threads : sizes("benchmark.threads", 1, 4, 8)) {
+            for (int rows : sizes("benchmark.rows", 10_000)) {
+                int accessed = sequence.getTimesAccessed();
+                long start = System.nanoTime();
+                insert(threads, rows);
+                long nanos = System.nanoTime() - start;
+                int roundTrips = sequence.getTimesAccessed() - accessed;
+                assertEquals("Not all saved!", rows, deleteWorkingHours());
+
+                report("%d threads, %,9d inserts: %,7d sequence round-trips (%,d saved, "
+                        + "block size %d), %,10.0f rows/s", threads, rows, roundTrips,
+                        rows - roundTrips, sequence.getIncrementSize(), rows / (nanos / 1e9));
+            }
+        }
+    }
+
+    /**
+     * Save the given number of working hours one by one on the specified
+     * number of threads.
+     * @param threads number of threads
+     * @param rows number of working hours
+     * @throws Exception if an insert fails
+     */
+    private void insert(int threads, int rows) throws Exception {
+        LocalDateTime begin = LocalDateTime.parse("2017-01-02T08:00:00");
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>(threads);
+            for (int t = 0; t < threads; t++) {
+                int first = t;
+                futures.add(executor.submit(() -> {
+                    for (int i = first; i < rows; i += threads) {
+                        LocalDateTime start = begin.plusDays(i);
+                        workingHoursService.save(new WorkingHoursBuilder()
+                                .setDay(start.toLocalDate())
+                                .setWorkStart(start)
+                                .setWorkEnd(start.plusHours(8))
+                                .setDeveloper(developer)
+                                .build());
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Delete the benchmark developer's working hours and their rollup.
+     * @return number of deleted rows
+     */
+    private int deleteWorkingHours() {
+        jdbcTemplate.update("delete from Daily_Hours where Developer_Id = ?", DEVELOPER_ID);
+        return jdbcTemplate.update("delete from Working_Hours where Developer_Id = ?",
+                DEVELOPER_ID);
+    }
+
+}
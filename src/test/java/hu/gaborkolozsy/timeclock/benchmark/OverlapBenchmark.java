@@ -0,0 +1,131 @@
+/*
+ * Copyright (c) 2017, Gabor Kolozsy. All rights reserved.
+ */
+
+package hu.gaborkolozsy.timeclock.benchmark;
+
+import hu.gaborkolozsy.timeclock.model.Developer;
+import hu.gaborkolozsy.timeclock.model.WorkingHours;
+import hu.gaborkolozsy.timeclock.model.WorkingHours.WorkingHoursBuilder;
+import hu.gaborkolozsy.timeclock.model.overlap.OverlapAudit;
+import hu.gaborkolozsy.timeclock.service.DailyHoursService;
+import hu.gaborkolozsy.timeclock.service.DeveloperService;
+import hu.gaborkolozsy.timeclock.service.WorkingHoursService;
+import java.time.Duration;
+import java.time.LocalDate;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.After;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+/**
+ * Measure the overlap audit of every developer's shifts and the overlap
+ * check of a new shift: the first check of a developer loads its interval
+ * tree, the next ones only look it up.
+ *
+ * <p>Sizes: <i>-Dbenchmark.developers=1000</i> (default) developers with
+ * two shifts per day of 2017 (8:00-12:00 and 12:30-16:30) and an
+ * overlapping third one (16:00-18:00) on every 30th day. The pool's size
+ * can be set with <i>-Dtimeclock.overlap.parallelism</i>.
+ *
+ * @author Gabor Kolozsy (gabor.kolozsy.development@gmail.com)
+ * @since 0.0.1-SNAPSHOT
+ * @see WorkingHoursService
+ */
+public class OverlapBenchmark extends AbstractBenchmark {
+
+    private static final long OFFSET = 1_000_000_000L;
+    private static final LocalDate FROM = LocalDate.parse("2017-01-01");
+    private static final int DAYS = 365;
+    private static final int OVERLAPPING_DAYS = 13;
+
+    @Autowired
+    private WorkingHoursService workingHoursService;
+
+    @Autowired
+    private DeveloperService developerService;
+
+    @Autowired
+    private DailyHoursService dailyHoursService;
+
+    /**
+     * Remove the seeded rows.
+     */
+    @After
+    public void cleanUp() {
+        jdbcTemplate.update("delete from Daily_Hours where Developer_Id >= ?", OFFSET);
+        jdbcTemplate.update("delete from Working_Hours where Developer_Id >= ?", OFFSET);
+        jdbcTemplate.update("delete from Developer where Developer_Id >= ?", OFFSET);
+    }
+
+    /**
+     * Audit of a year and the checks of a new shift.
+     */
+    @Test
+    public void benchmarkAudit() {
+        for (int developers : sizes("benchmark.developers", 1000)) {
+            int rows = seed(developers);
+            dailyHoursService.rebuild();
+            evictCache();
+
+            OverlapAudit audit = workingHoursService.audit(Duration.ofMinutes(15));
+            assertEquals("Overlaps are not found!", developers * OVERLAPPING_DAYS,
+                    audit.getOverlaps().size());
+            assertEquals("Gaps are not found!", developers * DAYS, audit.getGaps().size());
+            report("%,9d rows: audit %8.3f ms, %,12.0f shifts/s", rows,
+                    millis(audit.getElapsed().toNanos()),
+                    rows / (audit.getElapsed().toNanos() / 1e9));
+
+            Developer developer = developerService.getByDeveloperId(OFFSET);
+            WorkingHours shift = new WorkingHoursBuilder()
+                    .setDay(FROM.plusDays(DAYS / 2))
+                    .setWorkStart(FROM.plusDays(DAYS / 2).atTime(11, 0))
+                    .setWorkEnd(FROM.plusDays(DAYS / 2).atTime(13, 0))
+                    .setDeveloper(developer)
+                    .build();
+            long start = System.nanoTime();
+            assertEquals("Overlaps are not found!", 2,
+                    workingHoursService.getOverlaps(shift).size());
+            long first = System.nanoTime() - start;
+            long next = measure(1000, () -> workingHoursService.getOverlaps(shift));
+            report("%,9d shifts per developer: first check %8.3f ms, next check %8.3f ms",
+                    rows / developers, millis(first), millis(next));
+            cleanUp();
+            evictCache();
+        }
+    }
+
+    /**
+     * Insert the given number of developers with two shifts per day of 2017
+     * and an overlapping one on every 30th day.
+     * @param developers number of developers
+     * @return number of shifts
+     */
+    private int seed(int developers) {
+        jdbcTemplate.update("insert into Developer "
+                + "(Id, Developer_Id, Forename, Last_Name, Zip, POB, Created, Created_By, Version) "
+                + "select X, X, 'Bench', 'Mark' || X, 0, 0, current_timestamp(), 'benchmark', 0 "
+                + "from system_range(?, ?)", OFFSET, OFFSET + developers - 1);
+        int rows = 0;
+        int[][] shifts = {{0, 8 * 60, 12 * 60, 1}, {1, 12 * 60 + 30, 16 * 60 + 30, 1},
+                {2, 16 * 60, 18 * 60, 30}};
+        for (int[] shift : shifts) {
+            rows += jdbcTemplate.update("insert into Working_Hours (Id, Work_Day, Work_Begin, "
+                    + "Work_End, Developer_Id, Created, Created_By, Version) "
+                    + "select (d.X * 1000 + s.X) * 3 + ?, dateadd('DAY', s.X, ?), "
+                    + "dateadd('MINUTE', ?, dateadd('DAY', s.X, cast(? as timestamp))), "
+                    + "dateadd('MINUTE', ?, dateadd('DAY', s.X, cast(? as timestamp))), "
+                    + "d.X, current_timestamp(), 'benchmark', 0 "
+                    + "from system_range(?, ?) d, system_range(0, ?) s "
+                    + "where mod(s.X, ?) = 0",
+                    shift[0], FROM, shift[1], FROM, shift[2], FROM, OFFSET,
+                    OFFSET + developers - 1, DAYS - 1, shift[3]);
+        }
+        assertEquals("Shifts are not seeded!", developers * (2 * DAYS + OVERLAPPING_DAYS),
+                rows);
+        return rows;
+    }
+
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright (c) 2017, Gabor Kolozsy. All rights reserved.
+ */
+
+package hu.gaborkolozsy.timeclock.benchmark;
+
+import hu.gaborkolozsy.timeclock.model.payroll.PayRate;
+import hu.gaborkolozsy.timeclock.model.payroll.PayrollResult;
+import hu.gaborkolozsy.timeclock.model.payroll.PayrollRun;
+import hu.gaborkolozsy.timeclock.model.payroll.PayrollRun.PayrollRunBuilder;
+import hu.gaborkolozsy.timeclock.service.DailyHoursService;
+import hu.gaborkolozsy.timeclock.service.PayrollService;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.After;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+/**
+ * Measure the payroll run of a year, from the daily hours rollup to the 
+ * batched insert of the pays, and its repeated (skipping) run.
+ *
+ * <p>Sizes: <i>-Dbenchmark.developers=1000</i> (default) developers with
+ * one 8 hours shift per day of 2017, 10 developers per job; 2740 
+ * developers are one million shifts. The pool's size can be set with 
+ * <i>-Dtimeclock.payroll.parallelism</i>.
+ *
+ * @author Gabor Kolozsy (gabor.kolozsy.development@gmail.com)
+ * @since 0.0.1-SNAPSHOT
+ * @see PayrollService
+ */
+public class PayrollBenchmark extends AbstractBenchmark {
+
+    private static final long OFFSET = 1_000_000_000L;
+    private static final LocalDate FROM = LocalDate.parse("2017-01-01");
+    private static final LocalDate TO = LocalDate.parse("2017-12-31");
+    private static final int DEVELOPERS_PER_JOB = 10;
+
+    @Autowired
+    private PayrollService payrollService;
+
+    @Autowired
+    private DailyHoursService dailyHoursService;
+
+    /**
+     * Remove the seeded rows and the pays of the run.
+     */
+    @After
+    public void cleanUp() {
+        jdbcTemplate.update("delete from Pay where Order_Number >= ?", OFFSET);
+        jdbcTemplate.update("delete from Job where Order_Number >= ?", OFFSET);
+        jdbcTemplate.update("delete from Customer where Customer_Id >= ?", OFFSET);
+        jdbcTemplate.update("delete from Daily_Hours where Developer_Id >= ?", OFFSET);
+        jdbcTemplate.update("delete from Working_Hours where Developer_Id >= ?", OFFSET);
+        jdbcTemplate.update("delete from Developer where Developer_Id >= ?", OFFSET);
+    }
+
+    /**
+     * Payroll run of a year.
+     */
+    @Test
+    public void benchmarkRun() {
+        for (int developers : sizes("benchmark.developers", 1000)) {
+            int rows = seed(developers);
+            dailyHoursService.rebuild();
+            evictCache();
+            PayrollRunBuilder builder = new PayrollRunBuilder()
+                    .setPeriod(FROM, TO)
+                    .setCustomerRate(OFFSET, new PayRate(new BigDecimal("12.50"), "EUR"));
+            for (long i = 0; i < developers; i++) {
+                builder.setJob(OFFSET + i, OFFSET + i / DEVELOPERS_PER_JOB);
+            }
+            PayrollRun run = builder.build();
+
+            AtomicInteger reports = new AtomicInteger();
+            PayrollResult result = payrollService.run(run, (progress) -> 
+                    reports.incrementAndGet());
+            int jobs = (developers + DEVELOPERS_PER_JOB - 1) / DEVELOPERS_PER_JOB;
+            assertEquals("Pays are not created!", jobs, result.getCreated().size());
+            assertEquals("Shifts are not processed!", rows, result.getProgress().getShifts());
+            report("%,9d rows: run %8.3f ms, %,12.0f shifts/s, %,d pays, %,d progress reports", 
+                    rows, millis(result.getProgress().getElapsed().toNanos()), 
+                    result.getProgress().getShiftsPerSecond(), jobs, reports.get());
+
+            result = payrollService.run(run, (progress) -> { });
+            assertEquals("Pays are not skipped!", jobs, result.getSkipped().size());
+            report("%,9d rows: repeated run %8.3f ms", rows, 
+                    millis(result.getProgress().getElapsed().toNanos()));
+            cleanUp();
+            evictCache();
+        }
+    }
+
+    /**
+     * Insert the given number of developers with one 8 hours shift per day
+     * of 2017, one customer and a job per 10 developers.
+     * @param developers number of developers
+     * @return number of shifts
+     */
+    private int seed(int developers) {
+        jdbcTemplate.update("insert into Customer "
+                + "(Id, Customer_Id, Name, Zip, POB, Created, Created_By, Version) "
+                + "values (?, ?, 'Bench', 0, 0, current_timestamp(), 'benchmark', 0)", 
+                OFFSET, OFFSET);
+        jdbcTemplate.update("insert into Job "
+                + "(Id, Order_Number, Project, Status, Customer_Id, Created, Created_By, Version) "
+                + "select X, X, 'Bench', 'WIP', ?, current_timestamp(), 'benchmark', 0 "
+                + "from system_range(?, ?)", OFFSET, OFFSET, 
+                OFFSET + (developers - 1) / DEVELOPERS_PER_JOB);
+        jdbcTemplate.update("insert into Developer "
+                + "(Id, Developer_Id, Forename, Last_Name, Zip, POB, Created, Created_By, Version) "
+                + "select X, X, 'Bench', 'Mark' || X, 0, 0, current_timestamp(), 'benchmark', 0 "
+                + "from system_range(?, ?)", OFFSET, OFFSET + developers - 1);
+        int rows = jdbcTemplate.update("insert into Working_Hours (Id, Work_Day, Work_Begin, "
+                + "Work_End, Developer_Id, Created, Created_By, Version) "
+                + "select d.X * 1000 + s.X, dateadd('DAY', s.X, ?), "
+                + "dateadd('HOUR', 8, dateadd('DAY', s.X, cast(? as timestamp))), "
+                + "dateadd('HOUR', 16, dateadd('DAY', s.X, cast(? as timestamp))), "
+                + "d.X, current_timestamp(), 'benchmark', 0 "
+                + "from system_range(?, ?) d, system_range(0, 364) s",
+                FROM, FROM, FROM, OFFSET, OFFSET + developers - 1);
+        assertEquals("Shifts are not seeded!", developers * 365, rows);
+        return rows;
+    }
+
+}
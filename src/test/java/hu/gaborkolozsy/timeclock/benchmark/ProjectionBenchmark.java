@@ -0,0 +1,102 @@
+/*
+ * Copyright (c) 2017, Gabor Kolozsy. All rights reserved.
+ */
+
+package hu.gaborkolozsy.timeclock.benchmark;
+
+import hu.gaborkolozsy.timeclock.service.JobService;
+import java.lang.management.ManagementFactory;
+import java.util.function.Supplier;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.After;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+/**
+ * Compare the job list of a project as managed {@code Job} entities (with
+ * their {@code Audit} and {@code Customer}) and as {@code JobRow} projections
+ * of a constructor expression: the latency and the heap allocated by a call.
+ *
+ * <p>Sizes: <i>-Dbenchmark.jobs=1000,10000</i> (default) jobs of the same
+ * project, 10 jobs per customer.
+ *
+ * @author Gabor Kolozsy (gabor.kolozsy.development@gmail.com)
+ * @since 0.0.1-SNAPSHOT
+ * @see JobService
+ */
+public class ProjectionBenchmark extends AbstractBenchmark {
+
+    private static final long OFFSET = 1_000_000_000L;
+    private static final int JOBS_PER_CUSTOMER = 10;
+    private static final String PROJECT = "Bench";
+
+    @Autowired
+    private JobService jobService;
+
+    /**
+     * Remove the seeded rows.
+     */
+    @After
+    public void cleanUp() {
+        jdbcTemplate.update("delete from Job where Order_Number >= ?", OFFSET);
+        jdbcTemplate.update("delete from Customer where Customer_Id >= ?", OFFSET);
+    }
+
+    /**
+     * Job list of a project.
+     */
+    @Test
+    public void benchmarkGetAllByProjectName() {
+        for (int jobs : sizes("benchmark.jobs", 1000, 10_000)) {
+            seed(jobs);
+            evictCache();
+            assertEquals("Jobs are not listed!", jobs,
+                    jobService.getAllByProjectName(PROJECT).size());
+            assertEquals("Rows are not listed!", jobs,
+                    jobService.getRowsByProjectName(PROJECT).size());
+
+            report("%,9d jobs: entities    %8.3f ms, %,9d KB allocated", jobs,
+                    millis(measure(10, () -> jobService.getAllByProjectName(PROJECT))),
+                    allocated(() -> jobService.getAllByProjectName(PROJECT)) / 1024);
+            report("%,9d jobs: projections %8.3f ms, %,9d KB allocated", jobs,
+                    millis(measure(10, () -> jobService.getRowsByProjectName(PROJECT))),
+                    allocated(() -> jobService.getRowsByProjectName(PROJECT)) / 1024);
+            cleanUp();
+            evictCache();
+        }
+    }
+
+    /**
+     * Returns the heap allocated by the current thread during the call.
+     * @param call the measured call
+     * @return bytes
+     */
+    private static long allocated(Supplier<?> call) {
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long id = Thread.currentThread().getId();
+        long before = threads.getThreadAllocatedBytes(id);
+        call.get();
+        return threads.getThreadAllocatedBytes(id) - before;
+    }
+
+    /**
+     * Insert the given number of jobs of the same project and a customer per
+     * 10 jobs.
+     * @param jobs number of jobs
+     */
+    private void seed(int jobs) {
+        jdbcTemplate.update("insert into Customer "
+                + "(Id, Customer_Id, Name, Zip, POB, Created, Created_By, Version) "
+                + "select X, X, 'Company' || X, 0, 0, current_timestamp(), 'benchmark', 0 "
+                + "from system_range(?, ?)", OFFSET, OFFSET + (jobs - 1) / JOBS_PER_CUSTOMER);
+        jdbcTemplate.update("insert into Job "
+                + "(Id, Order_Number, Project, Status, Customer_Id, Created, Created_By, Version) "
+                + "select X, X, ?, 'WIP', ? + (X - ?) / ?, current_timestamp(), 'benchmark', 0 "
+                + "from system_range(?, ?)", PROJECT, OFFSET, OFFSET, JOBS_PER_CUSTOMER,
+                OFFSET, OFFSET + jobs - 1);
+    }
+
+}
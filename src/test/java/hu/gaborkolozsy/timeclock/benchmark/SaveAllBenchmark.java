@@ -0,0 +1,123 @@
+/*
+ * Copyright (c) 2017, Gabor Kolozsy. All rights reserved.
+ */
+
+package hu.gaborkolozsy.timeclock.benchmark;
+
+import hu.gaborkolozsy.timeclock.model.Developer;
+import hu.gaborkolozsy.timeclock.model.Developer.DeveloperBuilder;
+import hu.gaborkolozsy.timeclock.model.WorkingHours;
+import hu.gaborkolozsy.timeclock.model.WorkingHours.WorkingHoursBuilder;
+import hu.gaborkolozsy.timeclock.service.DeveloperService;
+import hu.gaborkolozsy.timeclock.service.WorkingHoursService;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+/**
+ * Compare the insert throughput of the single {@code save} path (one
+ * transaction and one insert statement per entity) with the batched
+ * {@code saveAll}.
+ *
+ * <p>Sizes: <i>-Dbenchmark.rows=10000</i> (default).
+ *
+ * @author Gabor Kolozsy (gabor.kolozsy.development@gmail.com)
+ * @since 0.0.1-SNAPSHOT
+ * @see WorkingHoursService
+ */
+public class SaveAllBenchmark extends AbstractBenchmark {
+
+    private static final long DEVELOPER_ID = 1_000_000_000L;
+
+    @Autowired
+    private DeveloperService developerService;
+
+    @Autowired
+    private WorkingHoursService workingHoursService;
+
+    private Developer developer;
+
+    /**
+     * Save the developer of the working hours.
+     */
+    @Before
+    public void setUp() {
+        developer = new DeveloperBuilder()
+                .setDeveloperId(DEVELOPER_ID)
+                .setForename("Bench")
+                .setLastName("Mark")
+                .build();
+        developerService.save(developer);
+    }
+
+    /**
+     * Remove the saved rows.
+     */
+    @After
+    public void cleanUp() {
+        deleteWorkingHours();
+        jdbcTemplate.update("delete from Developer where Developer_Id = ?", DEVELOPER_ID);
+    }
+
+    /**
+     * Single save and batched save of working hours.
+     */
+    @Test
+    public void benchmarkSaveAll() {
+        for (int rows : sizes("benchmark.rows", 10_000)) {
+            List<WorkingHours> single = createWorkingHours(rows);
+            long start = System.nanoTime();
+            single.forEach(workingHoursService::save);
+            long singleNanos = System.nanoTime() - start;
+            assertEquals("Not all saved!", rows, deleteWorkingHours());
+
+            List<WorkingHours> batched = createWorkingHours(rows);
+            start = System.nanoTime();
+            workingHoursService.saveAll(batched);
+            long batchedNanos = System.nanoTime() - start;
+            assertEquals("Not all saved!", rows, deleteWorkingHours());
+
+            report("%,9d rows: save %,10.0f rows/s, saveAll %,10.0f rows/s (%.1fx)", rows,
+                    rows / (singleNanos / 1e9), rows / (batchedNanos / 1e9),
+                    singleNanos / (double) batchedNanos);
+        }
+    }
+
+    /**
+     * Create the given number of closed working hours.
+     * @param rows number of working hours
+     * @return list of working hours
+     */
+    private List<WorkingHours> createWorkingHours(int rows) {
+        LocalDateTime begin = LocalDateTime.parse("2017-01-02T08:00:00");
+        List<WorkingHours> list = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            LocalDateTime start = begin.plusDays(i);
+            list.add(new WorkingHoursBuilder()
+                    .setDay(start.toLocalDate())
+                    .setWorkStart(start)
+                    .setWorkEnd(start.plusHours(8))
+                    .setDeveloper(developer)
+                    .build());
+        }
+        return list;
+    }
+
+    /**
+     * Delete the benchmark developer's working hours and their rollup.
+     * @return number of deleted rows
+     */
+    private int deleteWorkingHours() {
+        jdbcTemplate.update("delete from Daily_Hours where Developer_Id = ?", DEVELOPER_ID);
+        return jdbcTemplate.update("delete from Working_Hours where Developer_Id = ?",
+                DEVELOPER_ID);
+    }
+
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright (c) 2017, Gabor Kolozsy. All rights reserved.
+ */
+
+package hu.gaborkolozsy.timeclock.benchmark;
+
+import hu.gaborkolozsy.timeclock.dao.WorkingHoursDao;
+import hu.gaborkolozsy.timeclock.model.Developer;
+import hu.gaborkolozsy.timeclock.model.WorkingHours;
+import hu.gaborkolozsy.timeclock.model.timesheet.OpenShiftPolicy;
+import hu.gaborkolozsy.timeclock.model.timesheet.TimesheetPeriod;
+import hu.gaborkolozsy.timeclock.service.DailyHoursService;
+import hu.gaborkolozsy.timeclock.service.DeveloperService;
+import hu.gaborkolozsy.timeclock.service.TimesheetService;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.After;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+/**
+ * Measure the grouped SQL timesheet over a year of shifts from the daily 
+ * hours rollup and from the raw working hours, the rollup's rebuild, and 
+ * compare the one developer's total with loading and summing up its shifts 
+ * in Java.
+ *
+ * <p>Sizes: <i>-Dbenchmark.developers=500</i> (default) developers with
+ * one 8 hours shift per day of 2017.
+ *
+ * @author Gabor Kolozsy (gabor.kolozsy.development@gmail.com)
+ * @since 0.0.1-SNAPSHOT
+ * @see TimesheetService
+ * @see DailyHoursService
+ */
+public class TimesheetBenchmark extends AbstractBenchmark {
+
+    private static final long OFFSET = 1_000_000_000L;
+    private static final LocalDate FROM = LocalDate.parse("2017-01-01");
+    private static final LocalDate TO = LocalDate.parse("2017-12-31");
+
+    @Autowired
+    private TimesheetService timesheetService;
+
+    @Autowired
+    private DeveloperService developerService;
+
+    @Autowired
+    private DailyHoursService dailyHoursService;
+
+    @Autowired
+    private WorkingHoursDao workingHoursDao;
+
+    /**
+     * Remove the seeded developers, their shifts and rollup.
+     */
+    @After
+    public void cleanUp() {
+        jdbcTemplate.update("delete from Daily_Hours where Developer_Id >= ?", OFFSET);
+        jdbcTemplate.update("delete from Working_Hours where Developer_Id >= ?", OFFSET);
+        jdbcTemplate.update("delete from Developer where Developer_Id >= ?", OFFSET);
+    }
+
+    /**
+     * Timesheet of every developer by period, and one developer's total.
+     */
+    @Test
+    public void benchmarkTimesheet() {
+        for (int developers : sizes("benchmark.developers", 500)) {
+            int rows = seed(developers);
+            long start = System.nanoTime();
+            int days = dailyHoursService.rebuild();
+            report("%,9d rows: rebuild %8.3f ms (%,d days)", rows, 
+                    millis(System.nanoTime() - start), days);
+            List<Long> developerIds = LongStream.range(OFFSET, OFFSET + developers)
+                    .boxed()
+                    .collect(Collectors.toList());
+
+            for (TimesheetPeriod period : TimesheetPeriod.values()) {
+                int entries = timesheetService.getTimesheet(developerIds, FROM, TO, period,
+                        OpenShiftPolicy.REJECT).size();
+                long nanos = measure(5, () -> timesheetService.getTimesheet(developerIds,
+                        FROM, TO, period, OpenShiftPolicy.REJECT));
+                long raw = measure(5, () -> workingHoursDao.getTimesheet(developerIds, FROM, 
+                        TO, period, OpenShiftPolicy.REJECT, LocalDateTime.now()));
+                report("%,9d rows: %-5s rollup %8.3f ms, raw %8.3f ms (%,d entries)", rows, 
+                        period, millis(nanos), millis(raw), entries);
+            }
+
+            Duration total = timesheetService.getTotal(OFFSET, FROM, TO, OpenShiftPolicy.REJECT);
+            assertEquals("Total is not correct!", Duration.ofHours(8 * 365), total);
+            long sql = measure(20, () -> timesheetService.getTotal(OFFSET, FROM, TO,
+                    OpenShiftPolicy.REJECT));
+            long java = measure(20, () -> sumUp(OFFSET));
+            assertEquals("Java total is not correct!", total, sumUp(OFFSET));
+            report("%,9d rows: one developer's total: SQL %8.3f ms, Java %8.3f ms", rows,
+                    millis(sql), millis(java));
+            cleanUp();
+            evictCache();
+        }
+    }
+
+    /**
+     * Load one developer's shifts and sum up their durations in Java.
+     * @param developerId developer's ID
+     * @return the total worked time
+     */
+    private Duration sumUp(long developerId) {
+        Developer developer = developerService.getByDeveloperIdWithShiftsBetween(developerId,
+                FROM, TO);
+        Duration total = Duration.ZERO;
+        for (WorkingHours shift : developer.getWorkingHours()) {
+            total = total.plus(Duration.between(shift.getWorkStart(), shift.getWorkEnd()));
+        }
+        return total;
+    }
+
+    /**
+     * Insert the given number of developers with one 8 hours shift per day
+     * of 2017.
+     * @param developers number of developers
+     * @return number of shifts
+     */
+    private int seed(int developers) {
+        jdbcTemplate.update("insert into Developer "
+                + "(Id, Developer_Id, Forename, Last_Name, Zip, POB, Created, Created_By, Version) "
+                + "select X, X, 'Bench', 'Mark' || X, 0, 0, current_timestamp(), 'benchmark', 0 "
+                + "from system_range(?, ?)", OFFSET, OFFSET + developers - 1);
+        int rows = jdbcTemplate.update("insert into Working_Hours (Id, Work_Day, Work_Begin, "
+                + "Work_End, Developer_Id, Created, Created_By, Version) "
+                + "select d.X * 1000 + s.X, dateadd('DAY', s.X, ?), "
+                + "dateadd('HOUR', 8, dateadd('DAY', s.X, cast(? as timestamp))), "
+                + "dateadd('HOUR', 16, dateadd('DAY', s.X, cast(? as timestamp))), "
+                + "d.X, current_timestamp(), 'benchmark', 0 "
+                + "from system_range(?, ?) d, system_range(0, 364) s",
+                FROM, FROM, FROM, OFFSET, OFFSET + developers - 1);
+        assertEquals("Shifts are not seeded!", developers * 365, rows);
+        return rows;
+    }
+
+}
@@ -0,0 +1,195 @@
+/*
+ * Copyright (c) 2017, Gabor Kolozsy. All rights reserved.
+ */
+
+package hu.gaborkolozsy.timeclock.service.impl;
+
+import hu.gaborkolozsy.timeclock.DevelopmentTest;
+import hu.gaborkolozsy.timeclock.dao.cache.ShiftColumns;
+import hu.gaborkolozsy.timeclock.model.Developer;
+import hu.gaborkolozsy.timeclock.model.WorkingHours;
+import hu.gaborkolozsy.timeclock.model.WorkingHours.WorkingHoursBuilder;
+import hu.gaborkolozsy.timeclock.model.timesheet.OpenShiftPolicy;
+import hu.gaborkolozsy.timeclock.model.timesheet.TimesheetPeriod;
+import hu.gaborkolozsy.timeclock.service.AnalyticsService;
+import hu.gaborkolozsy.timeclock.service.DeveloperService;
+import hu.gaborkolozsy.timeclock.service.TimesheetService;
+import hu.gaborkolozsy.timeclock.service.WorkingHoursService;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import javax.sql.DataSource;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Test {@code AnalyticsServiceImpl} class. The columnar store's timesheets
+ * are compared with the SQL ones of the {@code TimesheetService}.
+ *
+ * <p>Beside the open shifts of today, the valid developer has closed shifts
+ * in 2017: 8 hours on 2 January (Monday), 4 hours on 3 January and 2 hours 
+ * on 1 February (Wednesday).
+ *
+ * @author Gabor Kolozsy (gabor.kolozsy.development@gmail.com)
+ * @since 0.0.1-SNAPSHOT
+ */
+public class AnalyticsServiceImplTest extends DevelopmentTest {
+
+    private static final LocalDate FROM = LocalDate.parse("2017-01-01");
+
+    private final List<Long> developerIds = Arrays.asList(valid, valid + 1, invalid);
+
+    @Autowired
+    private AnalyticsService analyticsService;
+
+    @Autowired
+    private TimesheetService timesheetService;
+
+    @Autowired
+    private DeveloperService developerService;
+
+    @Autowired
+    private WorkingHoursService workingHoursService;
+
+    @Autowired
+    private DataSource dataSource;
+
+    /**
+     * Save the closed shifts of the valid developer and load the store.
+     */
+    @Before
+    public void setUp() {
+        Developer developer = developerService.getByDeveloperId(valid);
+        workingHoursService.saveAll(Arrays.asList(
+                createShift(developer, "2017-01-02T08:00:00", 8),
+                createShift(developer, "2017-01-03T08:00:00", 4),
+                createShift(developer, "2017-02-01T12:00:00", 2)));
+        analyticsService.refresh();
+    }
+
+    /**
+     * Test of getTimesheet method, of class AnalyticsServiceImpl.
+     */
+    @Test
+    public void testGetTimesheet() {
+        message = "Number of shifts is not 9!";
+        assertEquals(message, 9, analyticsService.size());
+        assertSameAsSql();
+    }
+
+    /**
+     * Test of refresh method after a clock-out and a delete, of class 
+     * AnalyticsServiceImpl.
+     */
+    @Test
+    public void testRefresh() {
+        Long id = workingHoursService.getOpenShiftIds(valid).iterator().next();
+        WorkingHours shift = workingHoursService.get(id);
+        workingHoursService.updateWorkEnd(shift, shift.getWorkStart().plusHours(1));
+        workingHoursService.remove(workingHoursService.get(
+                workingHoursService.getOpenShiftIds(valid + 1).iterator().next()));
+
+        message = "Not refreshed!";
+        assertEquals(message, 9, analyticsService.size());
+        analyticsService.refresh();
+        message = "Deleted shift is not removed!";
+        assertEquals(message, 8, analyticsService.size());
+        assertSameAsSql();
+    }
+
+    /**
+     * Test of refresh method after a delete and an insert, which keep the 
+     * number of shifts, of class AnalyticsServiceImpl. The insert's audit 
+     * time is before the previous refresh (its transaction committed late), 
+     * so the refresh does not read it.
+     */
+    @Test
+    public void testRefreshAfterDeleteAndInsert() {
+        Long deleted = workingHoursService.getOpenShiftIds(valid + 1).iterator().next();
+        workingHoursService.remove(workingHoursService.get(deleted));
+        WorkingHours inserted = createShift(developerService.getByDeveloperId(valid), 
+                "2017-01-04T08:00:00", 3);
+        workingHoursService.save(inserted);
+        new JdbcTemplate(dataSource).update("update Working_Hours set Created = ? "
+                + "where Id = ?", Timestamp.valueOf(FROM.atStartOfDay()), inserted.getId());
+
+        analyticsService.refresh();
+        Set<Long> ids = new HashSet<>();
+        analyticsService.scan(FROM, LocalDate.now(), 
+                (id, developerId, day, begin, end) -> ids.add(id));
+        message = "Deleted shift is not removed!";
+        assertFalse(message, ids.contains(deleted));
+    }
+
+    /**
+     * Test of scan method, of class AnalyticsServiceImpl.
+     */
+    @Test
+    public void testScan() {
+        long[] counts = new long[2];
+        analyticsService.scan(FROM, LocalDate.parse("2017-01-31"), 
+                (id, developerId, day, begin, end) -> {
+            counts[0]++;
+            counts[1] += end == ShiftColumns.OPEN ? 0 : end - begin;
+        });
+        message = "Number of shifts in January is not 2!";
+        assertEquals(message, 2, counts[0]);
+        message = "Worked seconds in January is not 12 hours!";
+        assertEquals(message, 12 * 3600, counts[1]);
+    }
+
+    /**
+     * Test of getTimesheet method with invalid interval, of class
+     * AnalyticsServiceImpl.
+     */
+    @Test
+    public void testThrowsExceptionWhenIntervalIsInvalid() {
+        message = "Throws exception test is not ok!";
+        assertEquals(message, "OK", new ExceptionVerifier(() -> analyticsService
+                .getTimesheet(developerIds, LocalDate.now(), FROM, TimesheetPeriod.DAY))
+                .isThrowing(IllegalArgumentException.class));
+    }
+
+    /**
+     * Compare the store's timesheets with the SQL ones by every period.
+     */
+    private void assertSameAsSql() {
+        LocalDate today = LocalDate.now();
+        for (TimesheetPeriod period : TimesheetPeriod.values()) {
+            message = "Timesheet by " + period + " is different!";
+            assertEquals(message, 
+                    timesheetService.getTimesheet(developerIds, FROM, today, period, 
+                            OpenShiftPolicy.EXCLUDE).toString(),
+                    analyticsService.getTimesheet(developerIds, FROM, today, period)
+                            .toString());
+        }
+    }
+
+    /**
+     * Create a closed shift.
+     * @param developer {@code Developer}
+     * @param start the shift's start
+     * @param hours the shift's length in hours
+     * @return {@code WorkingHours}
+     */
+    private static WorkingHours createShift(Developer developer, String start, int hours) {
+        LocalDateTime begin = LocalDateTime.parse(start);
+        return new WorkingHoursBuilder()
+                .setDeveloper(developer)
+                .setDay(begin.toLocalDate())
+                .setWorkStart(begin)
+                .setWorkEnd(begin.plusHours(hours))
+                .build();
+    }
+
+}
@@ -0,0 +1,261 @@
+/*
+ * Copyright (c) 2017, Gabor Kolozsy. All rights reserved.
+ */
+
+package hu.gaborkolozsy.timeclock.service.impl;
+
+import hu.gaborkolozsy.timeclock.DevelopmentTest;
+import hu.gaborkolozsy.timeclock.model.clock.ClockEvent;
+import hu.gaborkolozsy.timeclock.model.clock.ClockEvent.Type;
+import hu.gaborkolozsy.timeclock.model.timesheet.OpenShiftPolicy;
+import hu.gaborkolozsy.timeclock.service.ClockBufferService;
+import hu.gaborkolozsy.timeclock.service.DailyHoursService;
+import hu.gaborkolozsy.timeclock.service.TimesheetService;
+import hu.gaborkolozsy.timeclock.service.WorkingHoursService;
+import hu.gaborkolozsy.timeclock.statistics.ClockBufferStatistics;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * Test {@code ClockBufferServiceImpl} class.
+ *
+ * @author Gabor Kolozsy (gabor.kolozsy.development@gmail.com)
+ * @since 0.0.1-SNAPSHOT
+ */
+public class ClockBufferServiceImplTest extends DevelopmentTest {
+
+    private static final LocalDate DAY = LocalDate.parse("2017-01-02");
+
+    /**
+     * The time after the open shifts' begin of the developers.
+     */
+    private final LocalDateTime later = LocalDateTime.now().plusHours(1);
+
+    @Autowired
+    private ClockBufferService clockBufferService;
+
+    @Autowired
+    private WorkingHoursService workingHoursService;
+
+    @Autowired
+    private TimesheetService timesheetService;
+
+    @Autowired
+    private DailyHoursService dailyHoursService;
+
+    @Autowired
+    private StripedLocks stripedLocks;
+
+    /**
+     * Test of submit and flush methods, of class ClockBufferServiceImpl.
+     */
+    @Test
+    public void testSubmitAndFlush() {
+        ClockBufferStatistics before = clockBufferService.getStatistics();
+        message = "Event is not accepted!";
+        assertTrue(message, clockBufferService.submit(new ClockEvent(valid, Type.OUT, later)));
+        assertTrue(message, clockBufferService.submit(event(valid, Type.IN, DAY, 8)));
+        assertTrue(message, clockBufferService.submit(event(valid, Type.OUT, DAY, 16)));
+        assertTrue(message, clockBufferService.submit(event(valid + 1, Type.IN, DAY, 9)));
+        assertTrue(message, clockBufferService.submit(event(999L, Type.IN, DAY, 8)));
+        clockBufferService.flush();
+
+        ClockBufferStatistics after = clockBufferService.getStatistics();
+        message = "Statistics are not correct!";
+        assertEquals(message, 0, after.getDepth());
+        assertEquals(message, before.getAccepted() + 5, after.getAccepted());
+        assertEquals(message, before.getWritten() + 3, after.getWritten());
+        assertEquals(message, before.getRejected() + 2, after.getRejected());
+        assertEquals(message, before.getFailed(), after.getFailed());
+        assertTrue(message, after.getFlushes().getCount() > before.getFlushes().getCount());
+
+        message = "Worked time is not 8 hours!";
+        assertEquals(message, Duration.ofHours(8),
+                timesheetService.getTotal(valid, DAY, DAY, OpenShiftPolicy.EXCLUDE));
+        message = "Number of open shifts is not 2!";
+        assertEquals(message, 2, workingHoursService.getOpenShiftIds(valid).size());
+        message = "Rollup is not consistent!";
+        assertEquals(message, Collections.emptyList(), dailyHoursService.verify());
+    }
+
+    /**
+     * Test of submit method by concurrent terminals, of class
+     * ClockBufferServiceImpl.
+     * @throws Exception if a submitter fails
+     */
+    @Test
+    public void testSubmitConcurrently() throws Exception {
+        int days = 100;
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            List<Callable<Object>> tasks = new ArrayList<>();
+            for (long developerId = valid; developerId < valid + 2; developerId++) {
+                long id = developerId;
+                tasks.add(Executors.callable(() -> {
+                    assertTrue("Event is not accepted!", clockBufferService.submit(
+                            new ClockEvent(id, Type.OUT, later)));
+                    for (int day = 0; day < days; day++) {
+                        assertTrue("Event is not accepted!", clockBufferService.submit(
+                                event(id, Type.IN, DAY.plusDays(day), 8)));
+                        assertTrue("Event is not accepted!", clockBufferService.submit(
+                                event(id, Type.OUT, DAY.plusDays(day), 12)));
+                    }
+                }));
+            }
+            for (Future<Object> task : executor.invokeAll(tasks)) {
+                task.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        clockBufferService.flush();
+
+        message = "Worked time is not 4 hours per day!";
+        for (long developerId = valid; developerId < valid + 2; developerId++) {
+            assertEquals(message, Duration.ofHours(4 * days), timesheetService.getTotal(
+                    developerId, DAY, DAY.plusDays(days - 1), OpenShiftPolicy.EXCLUDE));
+        }
+        message = "Rollup is not consistent!";
+        assertEquals(message, Collections.emptyList(), dailyHoursService.verify());
+    }
+
+    /**
+     * Test of the queue's drain on shutdown, of class ClockBufferServiceImpl.
+     */
+    @Test
+    public void testCloseDrainsQueue() {
+        ClockBufferServiceImpl buffer = applicationContext.getAutowireCapableBeanFactory()
+                .createBean(ClockBufferServiceImpl.class);
+        buffer.submit(new ClockEvent(valid, Type.OUT, later));
+        for (int day = 0; day < 10; day++) {
+            buffer.submit(event(valid, Type.IN, DAY.plusDays(day), 8));
+            buffer.submit(event(valid, Type.OUT, DAY.plusDays(day), 10));
+        }
+        buffer.close();
+
+        message = "Queued events are not written!";
+        assertEquals(message, 21, buffer.getStatistics().getWritten());
+        assertEquals(message, Duration.ofHours(20), timesheetService.getTotal(valid, DAY,
+                DAY.plusDays(9), OpenShiftPolicy.EXCLUDE));
+        message = "Event is accepted after the shutdown!";
+        assertFalse(message, buffer.submit(event(valid, Type.IN, DAY, 8)));
+        assertEquals(message, 1, buffer.getStatistics().getRefused());
+    }
+
+    /**
+     * Test of the flush, which waits for the lock of its developer held by 
+     * a clock-in or clock-out, of class ClockBufferServiceImpl.
+     * @throws Exception if the flush fails
+     */
+    @Test
+    public void testFlushHoldsDeveloperLock() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<?> flush = stripedLocks.callWith(valid, () -> {
+                clockBufferService.submit(new ClockEvent(valid, Type.OUT, later));
+                Future<?> submitted = executor.submit(clockBufferService::flush);
+                message = "Flush does not wait for the developer's lock!";
+                assertTrue(message, isWaiting(submitted));
+                return submitted;
+            });
+            flush.get();
+            message = "Event is not written after the lock is released!";
+            assertEquals(message, 2, workingHoursService.getOpenShiftIds(valid).size());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Test of the retries of a failed flush and of the dead letters, of 
+     * class ClockBufferServiceImpl.
+     */
+    @Test
+    public void testFailedFlushMovedToDeadLetters() {
+        ClockEvent poison = event(valid + 1, Type.IN, DAY, 9);
+        ClockEventWriter writer = applicationContext.getBean(ClockEventWriter.class);
+        AtomicInteger attempts = new AtomicInteger();
+        ClockBufferServiceImpl buffer = applicationContext.getAutowireCapableBeanFactory()
+                .createBean(ClockBufferServiceImpl.class);
+        ReflectionTestUtils.setField(buffer, "clockEventWriter", new ClockEventWriter() {
+            @Override
+            int write(List<ClockEvent> events) {
+                if (events.contains(poison)) {
+                    attempts.incrementAndGet();
+                    throw new IllegalStateException("Poison event!");
+                }
+                return writer.write(events);
+            }
+        });
+        try {
+            buffer.submit(new ClockEvent(valid, Type.OUT, later));
+            buffer.submit(poison);
+            buffer.submit(new ClockEvent(valid, Type.OUT, later.plusMinutes(1)));
+            buffer.flush();
+
+            ClockBufferStatistics statistics = buffer.getStatistics();
+            message = "Failed flush is not retried!";
+            assertEquals(message, 3, attempts.get());
+            message = "Other events of the failed flush are not written!";
+            assertEquals(message, 2, statistics.getWritten());
+            assertEquals(message, 0, statistics.getRejected());
+            assertEquals(message, 1, workingHoursService.getOpenShiftIds(valid).size());
+            message = "Failing event is not a dead letter!";
+            assertEquals(message, 1, statistics.getFailed());
+            assertEquals(message, Collections.singletonList(poison), buffer.drainFailed());
+            message = "Dead letters are not removed!";
+            assertTrue(message, buffer.drainFailed().isEmpty());
+        } finally {
+            buffer.close();
+        }
+    }
+
+    /**
+     * Returns the developer's event at the day's hour.
+     * @param developerId developer's ID
+     * @param type clock-in or clock-out
+     * @param day the day
+     * @param hour the hour
+     * @return {@code ClockEvent}
+     */
+    private static ClockEvent event(Long developerId, Type type, LocalDate day, int hour) {
+        return new ClockEvent(developerId, type, day.atTime(hour, 0));
+    }
+
+    /**
+     * Returns true if the task is not done within half a second.
+     * @param task {@code Future} of the task
+     * @return true if the task is still running
+     */
+    private static boolean isWaiting(Future<?> task) {
+        try {
+            task.get(500, TimeUnit.MILLISECONDS);
+            return false;
+        } catch (TimeoutException ex) {
+            return true;
+        } catch (InterruptedException | ExecutionException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+}
@@ -0,0 +1,314 @@
+/*
+ * Copyright (c) 2017, Gabor Kolozsy. All rights reserved.
+ */
+
+package hu.gaborkolozsy.timeclock.service.impl;
+
+import hu.gaborkolozsy.timeclock.DevelopmentTest;
+import hu.gaborkolozsy.timeclock.model.WorkingHours;
+import hu.gaborkolozsy.timeclock.model.clock.ImportResult;
+import hu.gaborkolozsy.timeclock.model.timesheet.OpenShiftPolicy;
+import hu.gaborkolozsy.timeclock.service.ClockImportService;
+import hu.gaborkolozsy.timeclock.service.DailyHoursService;
+import hu.gaborkolozsy.timeclock.service.TimesheetService;
+import hu.gaborkolozsy.timeclock.service.WorkingHoursService;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+/**
+ * Test {@code ClockImportServiceImpl} class and its {@code ClockEventParser}.
+ *
+ * @author Gabor Kolozsy (gabor.kolozsy.development@gmail.com)
+ * @since 0.0.1-SNAPSHOT
+ */
+public class ClockImportServiceImplTest extends DevelopmentTest {
+
+    private static final LocalDate DAY = LocalDate.parse("2017-01-02");
+
+    private Path csvFile;
+    private Path jsonFile;
+    private Path rejectFile;
+
+    /**
+     * The time after the open shifts' begin of the developers.
+     */
+    private final String later = LocalDateTime.now().plusHours(1).withNano(0).toString();
+
+    @Autowired
+    private ClockImportService clockImportService;
+
+    @Autowired
+    private WorkingHoursService workingHoursService;
+
+    @Autowired
+    private TimesheetService timesheetService;
+
+    @Autowired
+    private DailyHoursService dailyHoursService;
+
+    @Autowired
+    private StripedLocks stripedLocks;
+
+    /**
+     * Create the import and the reject files.
+     * @throws IOException if a file can not be created
+     */
+    @Before
+    public void createFiles() throws IOException {
+        csvFile = Files.createTempFile("clock", ".csv");
+        jsonFile = Files.createTempFile("clock", ".jsonl");
+        rejectFile = Files.createTempFile("clock", ".rejects.csv");
+    }
+
+    /**
+     * Forget the imports and delete the files.
+     * @throws IOException if a file can not be deleted
+     */
+    @After
+    public void deleteFiles() throws IOException {
+        clockImportService.restart(csvFile);
+        clockImportService.restart(jsonFile);
+        Files.deleteIfExists(csvFile);
+        Files.deleteIfExists(jsonFile);
+        Files.deleteIfExists(rejectFile);
+    }
+
+    /**
+     * Test of importEvents method with a CSV file, of class
+     * ClockImportServiceImpl.
+     * @throws IOException if a file can not be written or read
+     */
+    @Test
+    public void testImportEventsCsv() throws IOException {
+        write(csvFile, "developerId,type,time",
+                valid + ",OUT," + later,
+                valid + ",IN,2017-01-02T08:00:00",
+                valid + ", out ,2017-01-02T16:00:00",
+                (valid + 1) + ",IN,2017-01-02T09:00:00",
+                "",
+                "999,IN,2017-01-02T08:00:00",
+                valid + ",OUT,2017-01-02T17:00:00",
+                valid + ",IN,2017-01-03T08:00:00",
+                valid + ",OUT,2017-01-03T07:00:00",
+                "abc");
+        ImportResult result = clockImportService.importEvents(csvFile, rejectFile);
+        message = "Result is not correct!";
+        assertEquals(message, "0 11 2 1 5", toString(result));
+
+        message = "Worked time is not 8 hours!";
+        assertEquals(message, Duration.ofHours(8),
+                timesheetService.getTotal(valid, DAY, DAY, OpenShiftPolicy.EXCLUDE));
+        message = "Number of open shifts is not 3!";
+        assertEquals(message, 3, workingHoursService.getOpenShiftIds(valid).size());
+        message = "Rollup is not consistent!";
+        assertEquals(message, Collections.emptyList(), dailyHoursService.verify());
+
+        message = "Rejects are not correct!";
+        assertEquals(message, Arrays.asList("Line,Reason,Original",
+                "5,Already clocked in,\"" + (valid + 1) + ",IN,2017-01-02T09:00:00\"",
+                "7,Unknown developer,\"999,IN,2017-01-02T08:00:00\"",
+                "8,Not clocked in,\"" + valid + ",OUT,2017-01-02T17:00:00\"",
+                "10,Clock-out before clock-in,\"" + valid + ",OUT,2017-01-03T07:00:00\"",
+                "11,Not 3 fields,abc"),
+                Files.readAllLines(rejectFile, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Test of importEvents method with a JSON lines file resumed after new
+     * lines, of class ClockImportServiceImpl.
+     * @throws IOException if a file can not be written or read
+     */
+    @Test
+    public void testImportEventsJsonResumed() throws IOException {
+        write(jsonFile, "{\"developerId\": " + valid + ", \"type\": \"OUT\", \"time\": \""
+                        + later + "\"}",
+                "{\"source\":\"gate \\\"A\\\"\",\"developerId\":" + valid
+                        + ",\"type\":\"in\",\"time\":\"2017-01-02T08:00:00\"}");
+        ImportResult result = clockImportService.importEvents(jsonFile, rejectFile);
+        message = "Result is not correct!";
+        assertEquals(message, "0 2 1 1 0", toString(result));
+
+        result = clockImportService.importEvents(jsonFile, rejectFile);
+        message = "Completely imported file is imported again!";
+        assertEquals(message, "2 0 0 0 0", toString(result));
+
+        write(jsonFile, "{\"developerId\":" + valid
+                        + ",\"type\":\"OUT\",\"time\":\"2017-01-02T12:30:00\"}",
+                "{\"developerId\":" + valid + ",\"type\":\"IN\",\"time\":42}",
+                "{\"developerId\":" + valid + ",\"type\":\"IN\"");
+        result = clockImportService.importEvents(jsonFile, rejectFile);
+        message = "Resumed result is not correct!";
+        assertEquals(message, "2 3 0 1 2", toString(result));
+
+        message = "Worked time is not 4.5 hours!";
+        assertEquals(message, Duration.ofMinutes(270),
+                timesheetService.getTotal(valid, DAY, DAY, OpenShiftPolicy.EXCLUDE));
+        message = "Rejects are not correct!";
+        assertEquals(message, Arrays.asList("Line,Reason,Original",
+                "4,Invalid time,\"{\"\"developerId\"\":" + valid
+                        + ",\"\"type\"\":\"\"IN\"\",\"\"time\"\":42}\"",
+                "5,Invalid JSON at 31,\"{\"\"developerId\"\":" + valid
+                        + ",\"\"type\"\":\"\"IN\"\"\""),
+                Files.readAllLines(rejectFile, StandardCharsets.UTF_8));
+
+        clockImportService.restart(jsonFile);
+        result = clockImportService.importEvents(jsonFile, rejectFile);
+        message = "Restarted import is not started at the first line!";
+        assertEquals(message, 0, result.getResumedFrom());
+        assertEquals(message, 5, result.getLines());
+    }
+
+    /**
+     * Test of importEvents method, which waits for the lock of its 
+     * developers held by a clock-in or clock-out, of class 
+     * ClockImportServiceImpl.
+     * @throws Exception if the import fails
+     */
+    @Test
+    public void testImportEventsHoldsDeveloperLock() throws Exception {
+        write(csvFile, "developerId,type,time", valid + ",OUT," + later);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<ImportResult> imported = stripedLocks.callWith(valid, () -> {
+                Future<ImportResult> submitted = executor.submit(() -> 
+                        clockImportService.importEvents(csvFile, rejectFile));
+                message = "Import does not wait for the developer's lock!";
+                assertTrue(message, isWaiting(submitted));
+                return submitted;
+            });
+            message = "Result is not correct!";
+            assertEquals(message, "0 2 0 1 0", toString(imported.get()));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Stress test of importEvents method with clock-ins from several 
+     * threads, of class ClockImportServiceImpl: no developer gets two open 
+     * shifts.
+     * @throws Exception if an import or a clock-in fails
+     */
+    @Test
+    public void testImportEventsAndClockInConcurrently() throws Exception {
+        List<Long> developerIds = Arrays.asList(valid, valid + 1);
+        int threads = 8;
+        List<Path> files = new ArrayList<>();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            for (int round = 0; round < 10; round++) {
+                for (Long developerId : developerIds) {
+                    while (workingHoursService.clockOut(developerId) != null) {
+                        // close the open shifts of the previous round
+                    }
+                }
+                String now = LocalDateTime.now().withNano(0).toString();
+                List<Callable<Object>> tasks = new ArrayList<>();
+                for (int i = 0; i < threads; i++) {
+                    if (i % 2 == 0) {
+                        Path file = Files.createTempFile("clock", ".csv");
+                        files.add(file);
+                        write(file, "developerId,type,time", valid + ",IN," + now, 
+                                (valid + 1) + ",IN," + now);
+                        tasks.add(() -> clockImportService.importEvents(file, rejectFile));
+                    } else {
+                        tasks.add(Executors.callable(() -> 
+                                developerIds.forEach(workingHoursService::clockIn)));
+                    }
+                }
+                for (Future<Object> task : executor.invokeAll(tasks)) {
+                    task.get();
+                }
+                for (Long developerId : developerIds) {
+                    message = "Developer " + developerId + " has not exactly one open shift "
+                            + "in round " + round + "!";
+                    assertEquals(message, 1, getOpenShiftCount(developerId));
+                }
+            }
+        } finally {
+            executor.shutdown();
+            for (Path file : files) {
+                clockImportService.restart(file);
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    /**
+     * Returns the number of the developer's open shifts in the database.
+     * @param developerId developer's ID
+     * @return number of open shifts
+     */
+    private long getOpenShiftCount(Long developerId) {
+        long count = 0;
+        for (WorkingHours wh : workingHoursService.getAll()) {
+            if (wh.getWorkEnd() == null && developerId.equals(wh.getDeveloper().getDeveloperId())) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Returns true if the task is not done within half a second.
+     * @param task {@code Future} of the task
+     * @return true if the task is still running
+     */
+    private static boolean isWaiting(Future<?> task) {
+        try {
+            task.get(500, TimeUnit.MILLISECONDS);
+            return false;
+        } catch (TimeoutException ex) {
+            return true;
+        } catch (InterruptedException | ExecutionException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    /**
+     * Append the lines to the file.
+     * @param file the file
+     * @param lines the lines
+     * @throws IOException if the file can not be written
+     */
+    private static void write(Path file, String... lines) throws IOException {
+        Files.write(file, Arrays.asList(lines), StandardCharsets.UTF_8,
+                StandardOpenOption.APPEND);
+    }
+
+    /**
+     * Returns the result's numbers separated with spaces.
+     * @param result {@code ImportResult}
+     * @return string
+     */
+    private static String toString(ImportResult result) {
+        return result.getResumedFrom() + " " + result.getLines() + " " + result.getInserted()
+                + " " + result.getClosed() + " " + result.getRejected();
+    }
+
+}
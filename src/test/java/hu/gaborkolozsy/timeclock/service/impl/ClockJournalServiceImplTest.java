@@ -0,0 +1,285 @@
+/*
+ * Copyright (c) 2017, Gabor Kolozsy. All rights reserved.
+ */
+
+package hu.gaborkolozsy.timeclock.service.impl;
+
+import hu.gaborkolozsy.timeclock.DevelopmentTest;
+import hu.gaborkolozsy.timeclock.dao.ImportCheckpointDao;
+import hu.gaborkolozsy.timeclock.model.clock.ClockEvent;
+import hu.gaborkolozsy.timeclock.model.clock.ClockEvent.Type;
+import hu.gaborkolozsy.timeclock.model.timesheet.OpenShiftPolicy;
+import hu.gaborkolozsy.timeclock.service.ClockJournalService;
+import hu.gaborkolozsy.timeclock.service.DailyHoursService;
+import hu.gaborkolozsy.timeclock.service.TimesheetService;
+import hu.gaborkolozsy.timeclock.statistics.ClockJournalStatistics;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Test {@code ClockJournalServiceImpl} class and its {@code ClockJournal}.
+ *
+ * @author Gabor Kolozsy (gabor.kolozsy.development@gmail.com)
+ * @since 0.0.1-SNAPSHOT
+ */
+public class ClockJournalServiceImplTest extends DevelopmentTest {
+
+    private static final LocalDate DAY = LocalDate.parse("2017-01-02");
+
+    private Path directory;
+
+    @Autowired
+    private ClockJournalService clockJournalService;
+
+    @Autowired
+    private TimesheetService timesheetService;
+
+    @Autowired
+    private DailyHoursService dailyHoursService;
+
+    @Autowired
+    private ImportCheckpointDao importCheckpointDao;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    /**
+     * Create the directory of a test journal.
+     * @throws IOException if the directory can not be created
+     */
+    @Before
+    public void createDirectory() throws IOException {
+        directory = Files.createTempDirectory("journal");
+    }
+
+    /**
+     * Delete the test journal.
+     * @throws IOException if a file can not be deleted
+     */
+    @After
+    public void deleteDirectory() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : files.collect(Collectors.toList())) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(directory);
+    }
+
+    /**
+     * Test of append and replay methods, of class ClockJournalServiceImpl.
+     */
+    @Test
+    public void testAppendAndReplay() {
+        ClockJournalStatistics before = clockJournalService.getStatistics();
+        long sequence = clockJournalService.append(new ClockEvent(valid, Type.OUT,
+                LocalDateTime.now().plusHours(1)));
+        message = "Sequence number is not the next one!";
+        assertEquals(message, before.getAppended() + 1, sequence);
+        clockJournalService.append(new ClockEvent(valid, Type.IN, DAY.atTime(8, 0)));
+        clockJournalService.append(new ClockEvent(valid, Type.OUT, DAY.atTime(16, 0)));
+        clockJournalService.append(new ClockEvent(valid, Type.OUT, DAY.atTime(17, 0)));
+        clockJournalService.replay();
+
+        ClockJournalStatistics after = clockJournalService.getStatistics();
+        message = "Statistics are not correct!";
+        assertEquals(message, sequence + 3, after.getAppended());
+        assertEquals(message, 0, after.getLag());
+        assertEquals(message, before.getRejected() + 1, after.getRejected());
+        message = "Replayed events are replayed again!";
+        assertEquals(message, 0, clockJournalService.replay());
+
+        message = "Worked time is not 8 hours!";
+        assertEquals(message, Duration.ofHours(8),
+                timesheetService.getTotal(valid, DAY, DAY, OpenShiftPolicy.EXCLUDE));
+        message = "Rollup is not consistent!";
+        assertEquals(message, Collections.emptyList(), dailyHoursService.verify());
+    }
+
+    /**
+     * Test of the recovery of ClockJournal after a crash with a torn record,
+     * and of its segments.
+     * @throws IOException if a segment can not be written
+     */
+    @Test
+    public void testRecoverAfterCrash() throws IOException {
+        List<ClockEvent> events = new ArrayList<>();
+        ClockJournal journal = new ClockJournal(directory, 4, ClockJournal.Fsync.NEVER, 1);
+        for (int i = 0; i < 6; i++) {
+            ClockEvent event = new ClockEvent(valid + i % 2, i % 4 < 2 ? Type.IN : Type.OUT,
+                    LocalDateTime.now().plusNanos(i));
+            events.add(event);
+            journal.append(event);
+        }
+        journal.force();
+        message = "Number of segments is not 2!";
+        assertEquals(message, 2, journal.getSegments());
+
+        Path segment = directory.resolve(String.format("%020d.journal", 5));
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            ByteBuffer torn = ByteBuffer.allocate(ClockJournal.RECORD_SIZE);
+            torn.putLong(7).putLong(valid).putLong(42).putInt(1).putInt(0).flip();
+            channel.write(torn, 2 * ClockJournal.RECORD_SIZE);
+            torn.rewind();
+            torn.putLong(0, 8);
+            channel.write(torn, 3 * ClockJournal.RECORD_SIZE);
+        }
+
+        journal = new ClockJournal(directory, 4, ClockJournal.Fsync.ALWAYS, 1);
+        message = "Recovered end is not the last complete record!";
+        assertEquals(message, 6, journal.getWrittenSequence());
+        message = "Recovered events are not the appended ones!";
+        assertEquals(message, toString(events), toString(journal.read(0, 10)));
+        message = "Sequence number is not the next one!";
+        assertEquals(message, 7, journal.append(events.get(0)));
+        message = "Append is not forced!";
+        assertEquals(message, 7, journal.getForcedSequence());
+
+        journal = new ClockJournal(directory, 4, ClockJournal.Fsync.NEVER, 1);
+        message = "Record behind the torn one is recovered!";
+        assertEquals(message, 7, journal.getWrittenSequence());
+        message = "Replayed segment is not deleted!";
+        assertEquals(message, 1, journal.release(6));
+        assertEquals(message, 5, journal.getFirstSequence());
+        assertEquals(message, toString(events.subList(4, 6)), toString(journal.read(4, 2)));
+    }
+
+    /**
+     * Test of the reopening of ClockJournal behind the checkpoint, and of
+     * the force of an empty journal.
+     */
+    @Test
+    public void testReopenBehindCheckpoint() {
+        ClockJournal journal = new ClockJournal(directory, 4, ClockJournal.Fsync.INTERVAL, 1);
+        journal.force();
+        message = "Empty journal is forced!";
+        assertEquals(message, 0, journal.getForcedSequence());
+        ClockEvent event = new ClockEvent(valid, Type.IN, LocalDateTime.now());
+        journal.append(event);
+        journal.append(event);
+        journal.close();
+
+        journal = new ClockJournal(directory, 4, ClockJournal.Fsync.INTERVAL, 6);
+        message = "Sequence number at or before the checkpoint is used again!";
+        assertEquals(message, 6, journal.append(event));
+        assertEquals(message, toString(Collections.singletonList(event)),
+                toString(journal.read(5, 10)));
+        journal.force();
+        message = "Reopened journal is not forced!";
+        assertEquals(message, 6, journal.getForcedSequence());
+        message = "Segment before the checkpoint is not deleted!";
+        assertEquals(message, 1, journal.release(5));
+        assertEquals(message, 6, journal.getFirstSequence());
+    }
+
+    /**
+     * Test of the start with a journal without checkpoint, of class
+     * ClockJournalServiceImpl: the events appended before the start are
+     * skipped, the events appended after it are replayed.
+     */
+    @Test
+    public void testStartWithoutCheckpoint() {
+        ClockJournal journal = new ClockJournal(directory, 4, ClockJournal.Fsync.NEVER, 1);
+        journal.append(new ClockEvent(valid, Type.IN, DAY.atTime(8, 0)));
+        journal.append(new ClockEvent(valid, Type.OUT, DAY.atTime(16, 0)));
+        journal.markResolved();
+        journal.close();
+
+        ClockJournalServiceImpl service = createService();
+        try {
+            service.append(new ClockEvent(valid, Type.OUT, LocalDateTime.now().plusHours(1)));
+            message = "Events appended after the start are not replayed!";
+            assertEquals(message, 1, service.replay());
+            ClockJournalStatistics statistics = service.getStatistics();
+            message = "Events appended before the start are not skipped!";
+            assertEquals(message, 2, statistics.getSkipped());
+            assertEquals(message, 0, statistics.getLag());
+            assertEquals(message, Duration.ZERO,
+                    timesheetService.getTotal(valid, DAY, DAY, OpenShiftPolicy.EXCLUDE));
+        } finally {
+            destroy(service);
+        }
+    }
+
+    /**
+     * Test of the start with a fresh journal and the checkpoint of a lost
+     * one, of class ClockJournalServiceImpl: every event is replayed.
+     */
+    @Test
+    public void testStartFreshWithLostCheckpoint() {
+        new TransactionTemplate(transactionManager).execute((status) -> {
+            importCheckpointDao.save(directory.toAbsolutePath().normalize().toString(), 100, 0);
+            return null;
+        });
+        ClockJournalServiceImpl service = createService();
+        try {
+            service.append(new ClockEvent(valid, Type.OUT, LocalDateTime.now().plusHours(1)));
+            service.append(new ClockEvent(valid, Type.IN, DAY.atTime(8, 0)));
+            service.append(new ClockEvent(valid, Type.OUT, DAY.atTime(16, 0)));
+            message = "Events of the fresh journal are not replayed!";
+            assertEquals(message, 3, service.replay());
+            assertEquals(message, 0, service.getStatistics().getSkipped());
+            assertEquals(message, Duration.ofHours(8),
+                    timesheetService.getTotal(valid, DAY, DAY, OpenShiftPolicy.EXCLUDE));
+        } finally {
+            destroy(service);
+        }
+        message = "Fresh journal is not resolved!";
+        assertFalse(message, Files.exists(directory.resolve("fresh.marker")));
+    }
+
+    /**
+     * Create a journal service of the test directory.
+     * @return {@code ClockJournalServiceImpl}
+     */
+    private ClockJournalServiceImpl createService() {
+        String property = "timeclock.clock.journal.directory";
+        System.setProperty(property, directory.toString());
+        try {
+            return applicationContext.getAutowireCapableBeanFactory()
+                    .createBean(ClockJournalServiceImpl.class);
+        } finally {
+            System.clearProperty(property);
+        }
+    }
+
+    /**
+     * Close the journal service.
+     * @param service {@code ClockJournalServiceImpl}
+     */
+    private void destroy(ClockJournalServiceImpl service) {
+        applicationContext.getAutowireCapableBeanFactory().destroyBean(service);
+    }
+
+    /**
+     * Returns the events' string representation.
+     * @param events {@code ClockEvent} list
+     * @return strings
+     */
+    private static List<String> toString(List<ClockEvent> events) {
+        return events.stream().map(ClockEvent::toString).collect(Collectors.toList());
+    }
+
+}
@@ -8,7 +8,11 @@ import hu.gaborkolozsy.timeclock.dao.CrudDao;
 import hu.gaborkolozsy.timeclock.model.Customer;
 import hu.gaborkolozsy.timeclock.model.Customer.CustomerBuilder;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
@@ -28,6 +32,7 @@ import org.mockito.Mock;
 import static org.mockito.Mockito.atLeastOnce;
 import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
@@ -93,6 +98,20 @@ public class CrudServiceImplTest {
         verifyNoMoreInteractions(crudDao);
     }
 
+    /**
+     * Test of saveAll method, of class CrudServiceImpl.
+     */
+    @Test
+    public void testSaveAll() {
+        List<Customer> list = Arrays.asList(new Customer(), new Customer());
+        
+        doNothing().when(crudDao).saveAll(list);
+        crudService.saveAll(list);
+        
+        verify(crudDao).saveAll(list);
+        verifyNoMoreInteractions(crudDao);
+    }
+
     /**
      * Test of get method, of class CrudServiceImpl.
      */
@@ -135,6 +154,44 @@ public class CrudServiceImplTest {
         assertEquals("Customer lists are not the same!", list, customerList);
     }
 
+    /**
+     * Test of forEach method, of class CrudServiceImpl.
+     */
+    @Test
+    public void testForEach() {
+        List<Customer> list = new ArrayList<>();
+        for (int i = 1; i <= 10; i++) {
+            list.add(new CustomerBuilder()
+                .setCustomerId(100L+i)
+                .build());
+        }
+        
+        when(crudDao.stream()).thenReturn(list.stream());
+        
+        List<Customer> processed = new ArrayList<>();
+        long count = crudService.forEach((customer) -> processed.add((Customer) customer));
+        assertEquals("Not all customers processed!", 10, count);
+        assertEquals("Customer lists are not the same!", list, processed);
+        
+        verify(crudDao).stream();
+        verifyNoMoreInteractions(crudDao);
+    }
+
+    /**
+     * Test of page method, of class CrudServiceImpl.
+     */
+    @Test
+    public void testPage() {
+        List<Customer> page = Collections.singletonList(new Customer());
+        
+        when(crudDao.page(100L, 1)).thenReturn(page);
+        
+        assertEquals("Pages are not the same!", page, crudService.page(100L, 1));
+        
+        verify(crudDao).page(100L, 1);
+        verifyNoMoreInteractions(crudDao);
+    }
+
     /**
      * Test of update method, of class CrudServiceImpl.
      */
@@ -201,19 +258,19 @@ public class CrudServiceImplTest {
         final String[] message = new String[1];
         final int[] removedAll = new int[1];
         
-        doNothing().when(crudDao).removeAll();
+        doReturn(0).when(crudDao).removeAll();
         crudService.removeAll();
         
         assertEquals("Something wrong!", 0, removedAll[0]);
         
-        doAnswer((Answer<String>) new Answer() {
+        doAnswer((Answer<Integer>) new Answer() {
             @Override
-            public String answer(InvocationOnMock invocation) throws Throwable {
+            public Integer answer(InvocationOnMock invocation) throws Throwable {
                 message[0] = s;
                 removedAll[0]++;
-                return message[0];
+                return removedAll[0];
             }
-        }).doNothing()
+        }).doReturn(0)
         .doThrow(NullPointerException.class)
                 .when(crudDao)
                 .removeAll();
@@ -268,6 +325,53 @@ public class CrudServiceImplTest {
         verifyNoMoreInteractions(crudDao);
     }
 
+    /**
+     * Test of isExistBy method, of class CrudServiceImpl.
+     */
+    @Test
+    public void testIsExistBy() {
+        when(crudDao.isExistBy("customerId", 10L)).thenReturn(Boolean.FALSE);
+        when(crudDao.isExistBy("customerId", 100L)).thenReturn(Boolean.TRUE);
+        
+        assertTrue("Not exist!", crudService.isExistBy("customerId", 100L));
+        assertFalse("Exist!", crudService.isExistBy("customerId", 10L));
+        
+        verify(crudDao, times(2)).isExistBy(any(String.class), any(Long.class));
+        verifyNoMoreInteractions(crudDao);
+    }
+
+    /**
+     * Test of getExistingBy method, of class CrudServiceImpl.
+     */
+    @Test
+    public void testGetExistingBy() {
+        List<Long> values = Arrays.asList(10L, 100L);
+        Set<Long> existing = Collections.singleton(100L);
+        
+        when(crudDao.getExistingBy("customerId", values)).thenReturn(existing);
+        
+        assertEquals("Existing sets are not the same!", existing, 
+                crudService.getExistingBy("customerId", values));
+        
+        verify(crudDao).getExistingBy("customerId", values);
+        verifyNoMoreInteractions(crudDao);
+    }
+
+    /**
+     * Test of updateBy method, of class CrudServiceImpl.
+     */
+    @Test
+    public void testUpdateBy() {
+        Map<String, String> changes = Collections.singletonMap("contact", "Updated");
+        
+        when(crudDao.updateBy("customerId", 100L, changes)).thenReturn(1);
+        
+        assertEquals("Not one row updated!", 1, crudService.updateBy("customerId", 100L, changes));
+        
+        verify(crudDao).updateBy("customerId", 100L, changes);
+        verifyNoMoreInteractions(crudDao);
+    }
+
     /**
      * Test of clear method, of class CrudServiceImpl.
      */
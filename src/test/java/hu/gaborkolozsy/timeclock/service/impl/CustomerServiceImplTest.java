@@ -5,15 +5,22 @@
 package hu.gaborkolozsy.timeclock.service.impl;
 
 import hu.gaborkolozsy.timeclock.DevelopmentTest;
+import hu.gaborkolozsy.timeclock.model.Admin;
 import hu.gaborkolozsy.timeclock.model.Customer;
 import hu.gaborkolozsy.timeclock.service.CustomerService;
 import hu.gaborkolozsy.timeclock.service.PayService;
+import hu.gaborkolozsy.timeclock.statistics.CacheStatistics;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import javax.persistence.EntityManagerFactory;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 
+import org.hibernate.Hibernate;
 import org.junit.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.dao.EmptyResultDataAccessException;
@@ -33,6 +40,9 @@ public class CustomerServiceImplTest extends DevelopmentTest {
     @Autowired
     private PayService payService;
     
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    
     /**
      * Test of getByCustomerId method, of class CustomerServiceImpl.
      */
@@ -44,6 +54,87 @@ public class CustomerServiceImplTest extends DevelopmentTest {
         assertEquals(message, valid, customer.getCustomerId());
     }
 
+    /**
+     * Test of getByCustomerId method from the second-level cache, of class 
+     * CustomerServiceImpl.
+     */
+    @Test
+    public void testGetByCustomerIdFromCache() {
+        customerService.getByCustomerId(valid);
+        CacheStatistics entity = CacheStatistics.ofEntity(entityManagerFactory, "customer");
+        CacheStatistics naturalId = 
+                CacheStatistics.ofNaturalId(entityManagerFactory, "customerNaturalId");
+        
+        Customer customer = customerService.getByCustomerId(valid);
+        assertNotNull(isNull, customer);
+        message = "Identifiers not equals!";
+        assertEquals(message, valid, customer.getCustomerId());
+        message = "Customer is not from the cache!";
+        assertEquals(message, entity.getHitCount() + 1, 
+                CacheStatistics.ofEntity(entityManagerFactory, "customer").getHitCount());
+        message = "Customer ID is not resolved from the cache!";
+        assertEquals(message, naturalId.getHitCount() + 1, CacheStatistics
+                .ofNaturalId(entityManagerFactory, "customerNaturalId").getHitCount());
+    }
+
+    /**
+     * Test of getByCustomerId method, that the jobs are not loaded, of 
+     * class CustomerServiceImpl.
+     */
+    @Test
+    public void testGetByCustomerIdIsLazy() {
+        Customer customer = customerService.getByCustomerId(valid);
+        message = "Jobs are loaded!";
+        assertFalse(message, Hibernate.isInitialized(customer.getJobs()));
+    }
+
+    /**
+     * Test of getByCustomerIdWithJobs method with cached customer, of class 
+     * CustomerServiceImpl.
+     */
+    @Test
+    public void testGetByCustomerIdWithJobs() {
+        customerService.getByCustomerId(valid);
+        long statements = getPrepareStatementCount();
+        Customer customer = customerService.getByCustomerIdWithJobs(valid);
+        message = "Not one query!";
+        assertEquals(message, statements + 1, getPrepareStatementCount());
+        
+        assertNotNull(isNull, customer);
+        message = "Jobs are not loaded!";
+        assertTrue(message, Hibernate.isInitialized(customer.getJobs()));
+        message = "List size is not 1!";
+        assertEquals(message, 1, customer.getJobs().size());
+        message = "Order number is not " + valid + "!";
+        assertEquals(message, valid, customer.getJobs().get(0).getOrderNumber());
+        
+        message = "Throws exception test is not ok!";
+        assertEquals(message, "OK", 
+                new ExceptionVerifier(() -> customerService.getByCustomerIdWithJobs(invalid))
+                .isThrowing(EmptyResultDataAccessException.class));
+    }
+
+    /**
+     * Test of getAll method, that it loads the customers with one query 
+     * (no N+1), of class CustomerServiceImpl.
+     */
+    @Test
+    public void testGetAllWithoutJobs() {
+        long statements = getPrepareStatementCount();
+        Iterable<Customer> customers = customerService.getAll();
+        message = "Not one query!";
+        assertEquals(message, statements + 1, getPrepareStatementCount());
+        
+        int size = 0;
+        for (Customer customer : customers) {
+            message = "Jobs are loaded!";
+            assertFalse(message, Hibernate.isInitialized(customer.getJobs()));
+            size++;
+        }
+        message = "Size is not 2!";
+        assertEquals(message, 2, size);
+    }
+
     /**
      * Test of getByCustomerName method, of class CustomerServiceImpl.
      */
@@ -67,11 +158,20 @@ public class CustomerServiceImplTest extends DevelopmentTest {
         message = "Contact is not " + contact + "!";
         assertEquals(message, contact, customer.getContact());        
         
+        int version = customer.getVersion();
+        
         contact = "Updated";
-        customerService.updateContactByCustomerId(valid, contact);        
+        assertTrue("No customer matched!", 
+                customerService.updateContactByCustomerId(valid, contact));
         customer = customerService.getByCustomerId(valid);
         assertNotNull(isNull, customer);
         assertEquals(message, contact, customer.getContact());
+        assertEquals("Version is not incremented!", version + 1, customer.getVersion());
+        assertNotNull("Updated is null!", customer.getAudit().getUpdated());
+        assertEquals("Updater is not the admin!", Admin.getAdmin(), 
+                customer.getAudit().getUpdatedBy());
+        assertFalse("Customer matched!", 
+                customerService.updateContactByCustomerId(invalid, contact));
     }
 
     /**
@@ -106,6 +206,39 @@ public class CustomerServiceImplTest extends DevelopmentTest {
         assertFalse(message, result);
     }
     
+    /**
+     * Test of removeAll method, of class CustomerServiceImpl.
+     */
+    @Test
+    public void testRemoveAll() {
+        int removed = customerService.removeAll();
+        message = "Not removed the customers with their jobs and pays!";
+        assertEquals(message, 6, removed);
+        
+        result = customerService.isExistWithCustomerId(valid);
+        message = "Customer is exist!";
+        assertFalse(message, result);
+        
+        result = payService.isExistWithPayId(PAYID + valid);
+        message = "Pay is exist!";
+        assertFalse(message, result);
+    }
+    
+    /**
+     * Test of getExistingBy method, of class CustomerServiceImpl.
+     */
+    @Test
+    public void testGetExistingBy() {
+        Set<Long> existing = customerService.getExistingBy("customerId", 
+                Arrays.asList(valid, valid + 1, invalid, valid));
+        message = "Existing customer IDs are not the expected!";
+        assertEquals(message, new HashSet<>(Arrays.asList(valid, valid + 1)), existing);
+        
+        result = customerService.isExistBy("name", "Company" + valid);
+        message = "Customer is not exist!";
+        assertTrue(message, result);
+    }
+    
     /**
      * Test throws exception by non exist ID.
      */
@@ -0,0 +1,285 @@
+/*
+ * Copyright (c) 2017, Gabor Kolozsy. All rights reserved.
+ */
+
+package hu.gaborkolozsy.timeclock.service.impl;
+
+import hu.gaborkolozsy.timeclock.DevelopmentTest;
+import hu.gaborkolozsy.timeclock.model.DailyHours.Key;
+import hu.gaborkolozsy.timeclock.model.WorkingHours;
+import hu.gaborkolozsy.timeclock.model.WorkingHours.WorkingHoursBuilder;
+import hu.gaborkolozsy.timeclock.model.timesheet.OpenShiftPolicy;
+import hu.gaborkolozsy.timeclock.model.timesheet.TimesheetEntry;
+import hu.gaborkolozsy.timeclock.model.timesheet.TimesheetPeriod;
+import hu.gaborkolozsy.timeclock.service.DailyHoursService;
+import hu.gaborkolozsy.timeclock.service.DeveloperService;
+import hu.gaborkolozsy.timeclock.service.TimesheetService;
+import hu.gaborkolozsy.timeclock.service.WorkingHoursService;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import javax.sql.DataSource;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Test {@code DailyHoursServiceImpl} class and the maintenance of the daily
+ * hours rollup by the {@code WorkingHours} and {@code Developer} data access
+ * layer.
+ *
+ * @author Gabor Kolozsy (gabor.kolozsy.development@gmail.com)
+ * @since 0.0.1-SNAPSHOT
+ */
+public class DailyHoursServiceImplTest extends DevelopmentTest {
+
+    @Autowired
+    private DailyHoursService dailyHoursService;
+
+    @Autowired
+    private TimesheetService timesheetService;
+
+    @Autowired
+    private DeveloperService developerService;
+
+    @Autowired
+    private WorkingHoursService workingHoursService;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    /**
+     * Test of the rollup's maintenance by updateWorkEnd and remove methods,
+     * of class WorkingHoursServiceImpl.
+     */
+    @Test
+    public void testRollupFollowsWorkingHours() {
+        message = "Rollup is not consistent after save!";
+        assertTrue(message, dailyHoursService.verify().isEmpty());
+        assertToday(0, 3);
+
+        WorkingHours shift = getShiftOfValid();
+        workingHoursService.updateWorkEnd(shift, shift.getWorkStart().plusHours(2));
+        message = "Rollup is not consistent after updateWorkEnd!";
+        assertTrue(message, dailyHoursService.verify().isEmpty());
+        assertToday(2, 2);
+
+        workingHoursService.remove(workingHoursService.get(shift.getId()));
+        message = "Rollup is not consistent after remove!";
+        assertTrue(message, dailyHoursService.verify().isEmpty());
+        assertToday(0, 2);
+    }
+
+    /**
+     * Test of the rollup's maintenance by removeByDeveloperId method, of
+     * class DeveloperServiceImpl.
+     */
+    @Test
+    public void testRollupFollowsRemovedDeveloper() {
+        developerService.removeByDeveloperId(valid);
+        message = "Rollup is not consistent after remove!";
+        assertTrue(message, dailyHoursService.verify().isEmpty());
+        message = "Removed developer has rollup!";
+        assertTrue(message, timesheetService.getTimesheet(valid, LocalDate.now(),
+                LocalDate.now(), TimesheetPeriod.DAY, OpenShiftPolicy.EXCLUDE).isEmpty());
+    }
+
+    /**
+     * Test of verify and rebuild methods, of class DailyHoursServiceImpl.
+     */
+    @Test
+    public void testVerifyAndRebuild() {
+        LocalDate today = LocalDate.now();
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.update("update Daily_Hours set Worked_Millis = 1 where Developer_Id = ?",
+                valid);
+        jdbcTemplate.update("delete from Daily_Hours where Developer_Id = ?", valid + 1);
+        jdbcTemplate.update("insert into Daily_Hours "
+                + "(Developer_Id, Work_Day, Worked_Millis, Shifts, Open_Shifts) "
+                + "values (?, ?, 0, 1, 1)", invalid, today);
+
+        List<Key> expected = Arrays.asList(new Key(invalid, today), new Key(valid, today),
+                new Key(valid + 1, today));
+        message = "Inconsistent rows are not found!";
+        assertEquals(message, expected, dailyHoursService.verify());
+
+        message = "Number of the rebuilt rows is not 2!";
+        assertEquals(message, 2, dailyHoursService.rebuild());
+        message = "Rollup is not consistent after rebuild!";
+        assertTrue(message, dailyHoursService.verify().isEmpty());
+    }
+
+    /**
+     * Test of the rollup's maintenance by the concurrent transactions, which
+     * save shifts on the same day of the same developer.
+     */
+    @Test
+    public void testRollupFollowsConcurrentSaves() {
+        LocalDate day = LocalDate.parse("2017-01-02");
+        workingHoursService.save(newShift(day, "06:00", "07:00"));
+        saveConcurrently(newShift(day, "08:00", "10:00"), newShift(day, "12:00", "16:00"));
+
+        message = "Rollup is not consistent after the concurrent saves!";
+        assertTrue(message, dailyHoursService.verify().isEmpty());
+        List<TimesheetEntry> entries = timesheetService.getTimesheet(valid, day, day,
+                TimesheetPeriod.DAY, OpenShiftPolicy.EXCLUDE);
+        message = "Duration is not 7 hours!";
+        assertEquals(message, Duration.ofHours(7), entries.get(0).getDuration());
+    }
+
+    /**
+     * Test of the developer's lock held by the rollup's maintenance until the
+     * commit, even if the transactions save shifts on different days.
+     */
+    @Test
+    public void testRollupHoldsDeveloperLock() {
+        LocalDate day = LocalDate.parse("2017-01-02");
+        saveConcurrently(newShift(day, "08:00", "10:00"),
+                newShift(day.plusDays(1), "08:00", "10:00"));
+
+        message = "Rollup is not consistent after the concurrent saves!";
+        assertTrue(message, dailyHoursService.verify().isEmpty());
+    }
+
+    /**
+     * Save the shifts in two concurrent transactions. The second one must 
+     * wait for the commit of the first one.
+     * @param first the shift of the first transaction
+     * @param second the shift of the second transaction
+     */
+    private void saveConcurrently(WorkingHours first, WorkingHours second) {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        CountDownLatch saved = new CountDownLatch(1);
+        CountDownLatch commit = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<?> firstTask = executor.submit(() -> 
+                    transactionTemplate.execute((status) -> {
+                        workingHoursService.save(first);
+                        saved.countDown();
+                        await(commit);
+                        return null;
+                    }));
+            await(saved);
+            Future<?> secondTask = executor.submit(() -> 
+                    transactionTemplate.execute((status) -> {
+                        workingHoursService.save(second);
+                        return null;
+                    }));
+            message = "Second transaction does not wait for the first one!";
+            assertTrue(message, isWaiting(secondTask));
+            commit.countDown();
+            get(firstTask);
+            get(secondTask);
+        } finally {
+            commit.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Returns a closed shift of the valid developer.
+     * @param day the day of the shift
+     * @param begin the start of the shift
+     * @param end the end of the shift
+     * @return {@code WorkingHours}
+     */
+    private WorkingHours newShift(LocalDate day, String begin, String end) {
+        return new WorkingHoursBuilder()
+                .setDay(day)
+                .setWorkStart(day.atTime(LocalTime.parse(begin)))
+                .setWorkEnd(day.atTime(LocalTime.parse(end)))
+                .setDeveloper(developerService.getByDeveloperId(valid))
+                .build();
+    }
+
+    /**
+     * Wait for the end of the task.
+     * @param task {@code Future} of the task
+     */
+    private static void get(Future<?> task) {
+        try {
+            task.get();
+        } catch (InterruptedException | ExecutionException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    /**
+     * Wait for the latch at most ten seconds.
+     * @param latch {@code CountDownLatch}
+     */
+    private static void await(CountDownLatch latch) {
+        try {
+            if (!latch.await(10, TimeUnit.SECONDS)) {
+                throw new IllegalStateException("Latch is not released!");
+            }
+        } catch (InterruptedException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    /**
+     * Returns true if the task is not done within half a second.
+     * @param task {@code Future} of the task
+     * @return true if the task is still running
+     */
+    private static boolean isWaiting(Future<?> task) {
+        try {
+            task.get(500, TimeUnit.MILLISECONDS);
+            return false;
+        } catch (TimeoutException ex) {
+            return true;
+        } catch (InterruptedException | ExecutionException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    /**
+     * Returns an open shift of the valid developer.
+     * @return {@code WorkingHours}
+     */
+    private WorkingHours getShiftOfValid() {
+        for (WorkingHours shift : workingHoursService.getAll()) {
+            if (valid.equals(shift.getDeveloper().getDeveloperId())) {
+                return shift;
+            }
+        }
+        throw new AssertionError("Valid developer has no shift!");
+    }
+
+    /**
+     * Check the valid developer's today from the rollup.
+     * @param hours the expected worked time in hours
+     * @param openShifts the expected number of open shifts
+     */
+    private void assertToday(long hours, int openShifts) {
+        List<TimesheetEntry> entries = timesheetService.getTimesheet(valid, LocalDate.now(),
+                LocalDate.now(), TimesheetPeriod.DAY, OpenShiftPolicy.EXCLUDE);
+        message = "List size is not 1!";
+        assertEquals(message, 1, entries.size());
+        message = "Duration is not " + hours + " hours!";
+        assertEquals(message, Duration.ofHours(hours), entries.get(0).getDuration());
+        message = "Number of open shifts is not " + openShifts + "!";
+        assertEquals(message, openShifts, entries.get(0).getOpenShifts());
+    }
+
+}
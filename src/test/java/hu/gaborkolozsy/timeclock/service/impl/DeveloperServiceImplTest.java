@@ -6,14 +6,22 @@ package hu.gaborkolozsy.timeclock.service.impl;
 
 import hu.gaborkolozsy.timeclock.DevelopmentTest;
 import hu.gaborkolozsy.timeclock.model.Developer;
+import hu.gaborkolozsy.timeclock.model.Developer.DeveloperBuilder;
+import hu.gaborkolozsy.timeclock.model.projection.DeveloperRow;
 import hu.gaborkolozsy.timeclock.service.DeveloperService;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.stream.Collectors;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 
+import org.hibernate.Hibernate;
 import org.junit.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.dao.EmptyResultDataAccessException;
@@ -39,6 +47,29 @@ public class DeveloperServiceImplTest extends DevelopmentTest {
         assertNotNull(developerService);
     }
 
+    /**
+     * Test of saveAll method, of class DeveloperServiceImpl.
+     */
+    @Test
+    public void testSaveAll() {
+        List<Developer> developers = new ArrayList<>();
+        List<Long> developerIds = new ArrayList<>();
+        for (long id = 1000; id < 1120; id++) {
+            developers.add(new DeveloperBuilder()
+                    .setDeveloperId(id)
+                    .setForename("Batch")
+                    .setLastName("Saved")
+                    .build());
+            developerIds.add(id);
+        }
+        
+        developerService.saveAll(developers);
+        message = "Not all developers saved!";
+        assertEquals(message, new HashSet<>(developerIds), 
+                developerService.getExistingBy("developerId", developerIds));
+        assertEquals(message, 120, developerService.getAllByForename("Batch").size());
+    }
+    
     /**
      * Test of getByDeveloperId method, of class DeveloperServiceImpl.
      */
@@ -50,6 +81,43 @@ public class DeveloperServiceImplTest extends DevelopmentTest {
         assertEquals(message, valid, developer.getDeveloperId());
     }
 
+    /**
+     * Test of getByDeveloperId method, that the working hours are not 
+     * loaded, of class DeveloperServiceImpl.
+     */
+    @Test
+    public void testGetByDeveloperIdIsLazy() {
+        Developer developer = developerService.getByDeveloperId(valid);
+        message = "Working hours are loaded!";
+        assertFalse(message, Hibernate.isInitialized(developer.getWorkingHours()));
+    }
+
+    /**
+     * Test of getByDeveloperIdWithShiftsBetween method, of class 
+     * DeveloperServiceImpl.
+     */
+    @Test
+    public void testGetByDeveloperIdWithShiftsBetween() {
+        LocalDate today = LocalDate.now();
+        developerService.getByDeveloperId(valid);
+        long statements = getPrepareStatementCount();
+        Developer developer = 
+                developerService.getByDeveloperIdWithShiftsBetween(valid, today, today);
+        message = "Not one query!";
+        assertEquals(message, statements + 1, getPrepareStatementCount());
+        
+        assertNotNull(isNull, developer);
+        message = "Working hours are not loaded!";
+        assertTrue(message, Hibernate.isInitialized(developer.getWorkingHours()));
+        message = "List size is not 3!";
+        assertEquals(message, 3, developer.getWorkingHours().size());
+        
+        developer = developerService.getByDeveloperIdWithShiftsBetween(valid, 
+                today.minusDays(7), today.minusDays(1));
+        message = "Working hours are not filtered!";
+        assertTrue(message, developer.getWorkingHours().isEmpty());
+    }
+
     /**
      * Test of getAllByForename method, of class DeveloperServiceImpl.
      */
@@ -66,6 +134,17 @@ public class DeveloperServiceImplTest extends DevelopmentTest {
         });
     }
 
+    /**
+     * Test of getRowsByForename method, of class DeveloperServiceImpl.
+     */
+    @Test
+    public void testGetRowsByForename() {
+        List<DeveloperRow> rows = developerService.getRowsByForename("Megan");
+        message = "Rows are not the developers!";
+        assertEquals(message, Arrays.asList(valid + ", Megan, Fox", (valid + 1) + ", Megan, Fox"), 
+                rows.stream().map(DeveloperRow::toString).collect(Collectors.toList()));
+    }
+
     /**
      * Test of updateLastnameByDeveloperId method, of class DeveloperServiceImpl.
      */
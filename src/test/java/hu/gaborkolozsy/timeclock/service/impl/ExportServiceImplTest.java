@@ -0,0 +1,180 @@
+/*
+ * Copyright (c) 2017, Gabor Kolozsy. All rights reserved.
+ */
+
+package hu.gaborkolozsy.timeclock.service.impl;
+
+import hu.gaborkolozsy.timeclock.DevelopmentTest;
+import hu.gaborkolozsy.timeclock.model.WorkingHours.WorkingHoursBuilder;
+import hu.gaborkolozsy.timeclock.model.export.CsvExport.CsvExportBuilder;
+import hu.gaborkolozsy.timeclock.model.export.ExportTable;
+import hu.gaborkolozsy.timeclock.service.DeveloperService;
+import hu.gaborkolozsy.timeclock.service.ExportService;
+import hu.gaborkolozsy.timeclock.service.JobService;
+import hu.gaborkolozsy.timeclock.service.WorkingHoursService;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+/**
+ * Test {@code ExportServiceImpl} class and its {@code CsvWriter}.
+ *
+ * @author Gabor Kolozsy (gabor.kolozsy.development@gmail.com)
+ * @since 0.0.1-SNAPSHOT
+ */
+public class ExportServiceImplTest extends DevelopmentTest {
+
+    private Path file;
+
+    @Autowired
+    private ExportService exportService;
+
+    @Autowired
+    private DeveloperService developerService;
+
+    @Autowired
+    private WorkingHoursService workingHoursService;
+
+    @Autowired
+    private JobService jobService;
+
+    /**
+     * Create the target file.
+     * @throws IOException if the file can not be created
+     */
+    @Before
+    public void createFile() throws IOException {
+        file = Files.createTempFile("export", ".csv");
+    }
+
+    /**
+     * Delete the target file.
+     * @throws IOException if the file can not be deleted
+     */
+    @After
+    public void deleteFile() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    /**
+     * Test of export method with every column, of class ExportServiceImpl.
+     * @throws IOException if the file can not be read
+     */
+    @Test
+    public void testExport() throws IOException {
+        long rows = exportService.export(new CsvExportBuilder(ExportTable.WORKING_HOURS)
+                .build(), file);
+        message = "Number of rows is not 6!";
+        assertEquals(message, 6, rows);
+
+        List<String> lines = read(false);
+        message = "Number of lines is not 7!";
+        assertEquals(message, 7, lines.size());
+        message = "Header is not correct!";
+        assertEquals(message, String.join(",", ExportTable.WORKING_HOURS.getColumns()), 
+                lines.get(0));
+        message = "Open shift's end is not empty!";
+        assertEquals(message, 10, lines.get(1).split(",", -1).length);
+        assertEquals(message, "", lines.get(1).split(",", -1)[4]);
+    }
+
+    /**
+     * Test of export method with selected columns and period, of class 
+     * ExportServiceImpl.
+     * @throws IOException if the file can not be read
+     */
+    @Test
+    public void testExportColumnsAndPeriod() throws IOException {
+        LocalDateTime begin = LocalDateTime.parse("2017-01-02T08:00:00.250");
+        workingHoursService.save(new WorkingHoursBuilder()
+                .setDeveloper(developerService.getByDeveloperId(valid))
+                .setDay(begin.toLocalDate())
+                .setWorkStart(begin)
+                .setWorkEnd(begin.plusHours(8).withNano(0))
+                .build());
+        long rows = exportService.export(new CsvExportBuilder(ExportTable.WORKING_HOURS)
+                .setColumns("work_day", "DEVELOPER_ID", "Work_Begin", "Work_End")
+                .setPeriod(LocalDate.parse("2017-01-01"), LocalDate.parse("2017-01-31"))
+                .build(), file);
+        message = "Number of rows is not 1!";
+        assertEquals(message, 1, rows);
+
+        message = "Lines are not correct!";
+        assertEquals(message, Arrays.asList("Work_Day,Developer_Id,Work_Begin,Work_End", 
+                "2017-01-02," + valid + ",2017-01-02T08:00:00.250,2017-01-02T16:00:00"), 
+                read(false));
+    }
+
+    /**
+     * Test of export method with quoted texts and compression, of class 
+     * ExportServiceImpl.
+     * @throws IOException if the file can not be read
+     */
+    @Test
+    public void testExportQuotedGzip() throws IOException {
+        String text = "\u00c1rv\u00edzt\u0171r\u0151 \ud834\udd1e";
+        jobService.updateCommentByOrderNumber(valid, "Say \"hi\",\n" + text);
+        LocalDate today = LocalDate.now();
+        exportService.export(new CsvExportBuilder(ExportTable.JOB)
+                .setColumns("Order_Number", "Comment")
+                .setPeriod(today, today)
+                .setGzip(true)
+                .build(), file);
+
+        message = "Lines are not correct!";
+        assertEquals(message, Arrays.asList("Order_Number,Comment", 
+                valid + ",\"Say \"\"hi\"\",", text + "\"", (valid + 1) + ","), read(true));
+
+        message = "Number of rows is not 0!";
+        assertEquals(message, 0, exportService.export(new CsvExportBuilder(ExportTable.PAY)
+                .setPeriod(today.minusDays(2), today.minusDays(1))
+                .build(), file));
+    }
+
+    /**
+     * Test of export with invalid parameters, of class ExportServiceImpl.
+     */
+    @Test
+    public void testThrowsExceptionWhenParameterIsInvalid() {
+        message = "Throws exception test is not ok!";
+        assertEquals(message, "OK", new ExceptionVerifier(() -> 
+                new CsvExportBuilder(ExportTable.PAY).setColumns("Id; drop table Pay"))
+                .isThrowing(IllegalArgumentException.class));
+        assertEquals(message, "OK", new ExceptionVerifier(() -> 
+                new CsvExportBuilder(ExportTable.PAY)
+                        .setPeriod(LocalDate.now(), null)
+                        .build())
+                .isThrowing(IllegalArgumentException.class));
+    }
+
+    /**
+     * Read the lines of the target file.
+     * @param gzip true if the file is compressed
+     * @return lines
+     * @throws IOException if the file can not be read
+     */
+    private List<String> read(boolean gzip) throws IOException {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(gzip 
+                ? new GZIPInputStream(Files.newInputStream(file)) : Files.newInputStream(file), 
+                StandardCharsets.UTF_8))) {
+            return reader.lines().collect(Collectors.toList());
+        }
+    }
+
+}
@@ -5,9 +5,21 @@
 package hu.gaborkolozsy.timeclock.service.impl;
 
 import hu.gaborkolozsy.timeclock.DevelopmentTest;
+import hu.gaborkolozsy.timeclock.dao.JobDao;
+import hu.gaborkolozsy.timeclock.dao.cache.QueryResultCaches;
 import hu.gaborkolozsy.timeclock.model.Job;
+import hu.gaborkolozsy.timeclock.model.projection.JobRow;
 import hu.gaborkolozsy.timeclock.service.JobService;
+import hu.gaborkolozsy.timeclock.service.PayService;
+import hu.gaborkolozsy.timeclock.statistics.CacheStatistics;
+import hu.gaborkolozsy.timeclock.statistics.RetryMetrics;
+import hu.gaborkolozsy.timeclock.statistics.RetryStatistics;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
@@ -17,7 +29,11 @@ import static org.junit.Assert.assertTrue;
 
 import org.junit.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 /**
  * Test {@code JobServiceImpl} class and part of {@code Job} data access layer 
@@ -31,6 +47,18 @@ public class JobServiceImplTest extends DevelopmentTest {
     @Autowired
     private JobService jobService;
     
+    @Autowired
+    private QueryResultCaches queryResultCaches;
+    
+    @Autowired
+    private PayService payService;
+    
+    @Autowired
+    private RetryMetrics retryMetrics;
+    
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
     /**
      * Test of getByOrderNumber method, of class JobServiceImpl.
      */
@@ -74,6 +102,64 @@ public class JobServiceImplTest extends DevelopmentTest {
         });
     }
 
+    /**
+     * Test of getRowsByProjectName and getRowsByStatus methods, of class 
+     * JobServiceImpl.
+     */
+    @Test
+    public void testGetRows() {
+        for (List<JobRow> rows : Arrays.asList(jobService.getRowsByProjectName("Project"), 
+                jobService.getRowsByStatus("WIP"))) {
+            message = "Rows are not the jobs!";
+            assertEquals(message, Arrays.asList(valid, valid + 1), rows.stream()
+                    .map(JobRow::getOrderNumber)
+                    .collect(Collectors.toList()));
+            for (JobRow row : rows) {
+                Job job = jobService.getByOrderNumber(row.getOrderNumber());
+                message = "Row is not in line with the job!";
+                assertEquals(message, job.getProjectName(), row.getProjectName());
+                assertEquals(message, job.getStatus(), row.getStatus());
+                assertEquals(message, job.getCustomer().getCustomerId(), row.getCustomerId());
+                assertEquals(message, job.getCustomer().getName(), row.getCustomerName());
+            }
+        }
+        message = "DONE rows are not empty!";
+        assertTrue(message, jobService.getRowsByStatus("DONE").isEmpty());
+    }
+
+    /**
+     * Test of getAllByStatus method's result cache and its invalidation, of 
+     * class JobServiceImpl.
+     */
+    @Test
+    public void testGetAllByStatusFromCache() {
+        jobService.getAllByStatus("WIP");
+        CacheStatistics statistics = queryResultCaches.getStatistics("getAllByStatus");
+        
+        message = "List size is not 2!";
+        assertEquals(message, 2, jobService.getAllByStatus("WIP").size());
+        message = "Result is not from the cache!";
+        assertEquals(message, statistics.getHitCount() + 1, 
+                queryResultCaches.getStatistics("getAllByStatus").getHitCount());
+        
+        jobService.updateCommentByOrderNumber(valid, "blah bla");
+        List<Job> jobs = jobService.getAllByStatus("WIP");
+        message = "Result is not from the cache after a comment update!";
+        assertEquals(message, statistics.getHitCount() + 2, 
+                queryResultCaches.getStatistics("getAllByStatus").getHitCount());
+        message = "Comment is not updated in the cached result!";
+        assertTrue(message, jobs.stream().anyMatch((job) -> "blah bla".equals(job.getComment())));
+        
+        message = "DONE list is not empty!";
+        assertTrue(message, jobService.getAllByStatus("DONE").isEmpty());
+        assertTrue("No job matched!", jobService.updateStatusByOrderNumber(valid, "DONE"));
+        message = "List size is not 1!";
+        assertEquals(message, 1, jobService.getAllByStatus("WIP").size());
+        assertEquals(message, 1, jobService.getAllByStatus("DONE").size());
+        message = "Order No. is not " + valid + "!";
+        assertEquals(message, valid, jobService.getAllByStatus("DONE").get(0).getOrderNumber());
+    }
+
     /**
      * Test of updateStatusByOrderNumber method, of class JobServiceImpl.
      */
@@ -92,6 +178,68 @@ public class JobServiceImplTest extends DevelopmentTest {
         assertEquals(message, status, job.getStatus());
     }
 
+    /**
+     * Test of updateStatusByOrderNumber method's retry after the conflicts 
+     * of the update, of class JobServiceImpl. The DAO fails with a conflict 
+     * on its first calls, then updates the job.
+     */
+    @Test
+    public void testUpdateStatusByOrderNumberRetriedOnConflict() {
+        String method = "JobServiceImpl.updateStatusByOrderNumber";
+        AtomicInteger updates = new AtomicInteger();
+        JobService retried = createJobService(updates, 2);
+        RetryStatistics before = retryMetrics.getStatistics(method);
+        
+        assertTrue("No job matched!", retried.updateStatusByOrderNumber(valid, "DONE"));
+        RetryStatistics after = retryMetrics.getStatistics(method);
+        message = "Update is not retried after the conflicts!";
+        assertEquals(message, 3, updates.get());
+        assertEquals(message, before.getCalls() + 1, after.getCalls());
+        assertEquals(message, before.getAttempts() + 3, after.getAttempts());
+        assertEquals(message, before.getRetries() + 2, after.getRetries());
+        message = "Retries are not the conflicts!";
+        assertEquals(message, before.getConflicts() + 2, after.getConflicts());
+        message = "Update is failed!";
+        assertEquals(message, before.getFailures(), after.getFailures());
+        message = "Status is not DONE!";
+        assertEquals(message, "DONE", jobService.getByOrderNumber(valid).getStatus());
+    }
+
+    /**
+     * Test of updateStatusByOrderNumber method's failure after its last 
+     * attempt, and within the caller's transaction after its first attempt, 
+     * of class JobServiceImpl.
+     */
+    @Test
+    public void testUpdateStatusByOrderNumberFailedAfterMaxAttempts() {
+        String method = "JobServiceImpl.updateStatusByOrderNumber";
+        AtomicInteger updates = new AtomicInteger();
+        JobService retried = createJobService(updates, Integer.MAX_VALUE);
+        String status = jobService.getByOrderNumber(valid).getStatus();
+        RetryStatistics before = retryMetrics.getStatistics(method);
+        
+        assertEquals("OK", new ExceptionVerifier(() -> 
+                retried.updateStatusByOrderNumber(valid, "DONE"))
+                .isThrowing(PessimisticLockingFailureException.class));
+        RetryStatistics after = retryMetrics.getStatistics(method);
+        message = "Update is not attempted 5 times!";
+        assertEquals(message, 5, updates.get());
+        assertEquals(message, before.getAttempts() + 5, after.getAttempts());
+        assertEquals(message, before.getConflicts() + 5, after.getConflicts());
+        message = "Failure is not recorded!";
+        assertEquals(message, before.getFailures() + 1, after.getFailures());
+        message = "Status is changed!";
+        assertEquals(message, status, jobService.getByOrderNumber(valid).getStatus());
+        
+        updates.set(0);
+        assertEquals("OK", new ExceptionVerifier(() -> 
+                new TransactionTemplate(transactionManager).execute((transaction) -> 
+                        retried.updateStatusByOrderNumber(valid, "DONE")))
+                .isThrowing(PessimisticLockingFailureException.class));
+        message = "Update is retried within the caller's transaction!";
+        assertEquals(message, 1, updates.get());
+    }
+
     /**
      * Test of updateCommentByOrderNumber method, of class JobServiceImpl.
      */
@@ -111,17 +259,29 @@ public class JobServiceImplTest extends DevelopmentTest {
     }
 
     /**
-     * Test of removeByOrderNumber method, of class JobServiceImpl.
+     * Test of removeByOrderNumber method, which removes a job only without 
+     * its pays, of class JobServiceImpl.
      */
     @Test
     public void testRemoveByOrderNumber() {
         Job job = jobService.getByOrderNumber(valid);
         assertNotNull(isNull, job);
         
+        message = "Job with pay is removed!";
+        assertEquals(message, "OK", new ExceptionVerifier(() -> {
+            jobService.removeByOrderNumber(valid);
+            return null;
+        }).isThrowing(DataIntegrityViolationException.class));
+        assertTrue(message, jobService.isExistWithOrderNumber(valid));
+        message = "Pay of the job is removed!";
+        assertTrue(message, payService.isExistWithPayId(PAYID + valid));
+        
+        payService.removeByPayId(PAYID + valid);
         jobService.removeByOrderNumber(valid);
         result = jobService.isExistEntity(job);
         message = "Job is exist!";
         assertFalse(message, result);
+        assertFalse(message, jobService.isExistWithOrderNumber(valid));
     }
 
     /**
@@ -152,4 +312,29 @@ public class JobServiceImplTest extends DevelopmentTest {
                 .isThrowing(EmptyResultDataAccessException.class));
     }
 
+    /**
+     * Create a {@code JobServiceImpl} bean whose DAO fails the job's status 
+     * updates with a conflict the specified times, and counts them.
+     * @param updates counts the DAO's status updates
+     * @param conflicts number of the failed updates
+     * @return the advised {@code JobService}
+     */
+    private JobService createJobService(AtomicInteger updates, int conflicts) {
+        JobDao jobDao = applicationContext.getBean("jobDaoImpl", JobDao.class);
+        JobDao conflicting = (JobDao) Proxy.newProxyInstance(JobDao.class.getClassLoader(), 
+                new Class<?>[] {JobDao.class}, (proxy, daoMethod, args) -> {
+                    if (daoMethod.getName().equals("updateStatusByOrderNumber") 
+                            && updates.incrementAndGet() <= conflicts) {
+                        throw new PessimisticLockingFailureException("Row is locked");
+                    }
+                    try {
+                        return daoMethod.invoke(jobDao, args);
+                    } catch (InvocationTargetException ex) {
+                        throw ex.getCause();
+                    }
+                });
+        return (JobService) applicationContext.getAutowireCapableBeanFactory()
+                .initializeBean(new JobServiceImpl(conflicting), "conflictingJobService");
+    }
+
 }
\ No newline at end of file
@@ -5,18 +5,35 @@
 package hu.gaborkolozsy.timeclock.service.impl;
 
 import hu.gaborkolozsy.timeclock.DevelopmentTest;
+import hu.gaborkolozsy.timeclock.config.PaymentMigration;
+import hu.gaborkolozsy.timeclock.model.Job;
 import hu.gaborkolozsy.timeclock.model.Pay;
+import hu.gaborkolozsy.timeclock.model.Pay.PayBuilder;
+import hu.gaborkolozsy.timeclock.model.embedded.Money;
+import hu.gaborkolozsy.timeclock.service.JobService;
 import hu.gaborkolozsy.timeclock.service.PayService;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import javax.persistence.EntityManagerFactory;
+import javax.sql.DataSource;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 
+import org.hibernate.SessionFactory;
 import org.junit.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
 
 /**
  * Test {@code PayServiceImpl} class and part of {@code Pay} data access layer 
@@ -30,6 +47,18 @@ public class PayServiceImplTest extends DevelopmentTest {
     @Autowired
     private PayService payService;
     
+    @Autowired
+    private JobService jobService;
+    
+    @Autowired
+    private PaymentMigration paymentMigration;
+    
+    @Autowired
+    private DataSource dataSource;
+    
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    
     /**
      * Test of getByPayId method, of class PayServiceImpl.
      */
@@ -91,6 +120,138 @@ public class PayServiceImplTest extends DevelopmentTest {
         assertEquals(message, payment, pay.getPayment(), 0.001);
     }
 
+    /**
+     * Test of updatePaymentByPayId method with {@code Money}, of class 
+     * PayServiceImpl.
+     */
+    @Test
+    public void testUpdatePaymentByPayIdWithMoney() {
+        Money payment = Money.of(new BigDecimal("531.72"), "EUR");
+        result = payService.updatePaymentByPayId(PAYID+valid, payment);
+        message = "Pay is not updated!";
+        assertTrue(message, result);
+        
+        Pay pay = payService.getByPayId(PAYID+valid);
+        message = "Payment is not " + payment + "!";
+        assertEquals(message, payment, pay.getMoney());
+        message = "Amount in minor unit is not 53172!";
+        assertEquals(message, 53172L, pay.getMoney().getAmountMinor());
+        message = "Currency is not EUR!";
+        assertEquals(message, "EUR", pay.getCurrency());
+        
+        payService.updatePaymentByPayId(PAYID+valid, 1.005);
+        message = "Deprecated payment is not rounded half-even in EUR!";
+        assertEquals(message, new Money(100, "EUR"), 
+                payService.getByPayId(PAYID+valid).getMoney());
+        
+        result = payService.updatePaymentByPayId(PAYID+invalid, payment);
+        message = "Not existing pay is updated!";
+        assertFalse(message, result);
+    }
+
+    /**
+     * Test of getReceivablesByCustomer, getUnpaidTotalByCurrency and 
+     * getPaidByMonth methods, of class PayServiceImpl.
+     */
+    @Test
+    public void testAggregates() {
+        Job job = jobService.getByOrderNumber(valid);
+        Job other = jobService.getByOrderNumber(valid + 1);
+        List<Pay> pays = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            pays.add(createPay("EUR-" + i, job, new Money(10, "EUR"), null));
+        }
+        pays.add(createPay("JPY", other, Money.of(new BigDecimal("500"), "JPY"), null));
+        pays.add(createPay("MARCH-1", other, new Money(12345, "EUR"), 
+                LocalDateTime.parse("2017-03-15T10:00:00")));
+        pays.add(createPay("MARCH-2", job, new Money(55, "EUR"), 
+                LocalDateTime.parse("2017-03-31T23:59:59")));
+        pays.add(createPay("APRIL", job, new Money(100, "HUF"), 
+                LocalDateTime.parse("2017-04-01T00:00:00")));
+        payService.saveAll(pays);
+
+        Map<Long, List<Money>> receivables = new TreeMap<>();
+        receivables.put(valid, Arrays.asList(new Money(0, null), new Money(100, "EUR")));
+        receivables.put(valid + 1, Arrays.asList(new Money(0, null), new Money(500, "JPY")));
+        long count = getPrepareStatementCount();
+        message = "Receivables are not correct!";
+        assertEquals(message, receivables, payService.getReceivablesByCustomer());
+        message = "Receivables are not read with one query!";
+        assertEquals(message, 1, getPrepareStatementCount() - count);
+        message = "Receivable in EUR is not exactly 1.00!";
+        assertEquals(message, new BigDecimal("1.00"), 
+                payService.getReceivablesByCustomer().get(valid).get(1).getAmount());
+
+        Map<String, Money> unpaid = new LinkedHashMap<>();
+        unpaid.put(null, new Money(0, null));
+        unpaid.put("EUR", new Money(100, "EUR"));
+        unpaid.put("JPY", new Money(500, "JPY"));
+        message = "Unpaid totals are not correct!";
+        assertEquals(message, unpaid, payService.getUnpaidTotalByCurrency());
+
+        Map<YearMonth, List<Money>> paid = new TreeMap<>();
+        paid.put(YearMonth.of(2017, 3), Arrays.asList(new Money(12400, "EUR")));
+        paid.put(YearMonth.of(2017, 4), Arrays.asList(new Money(100, "HUF")));
+        message = "Paid totals by month are not correct!";
+        assertEquals(message, paid, payService.getPaidByMonth());
+    }
+
+    /**
+     * Test of migrate method, of class PaymentMigration.
+     */
+    @Test
+    public void testPaymentMigration() {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("alter table Pay add column Payment double");
+        jdbcTemplate.update("update Pay set Payment = ?, Currency = ?, Amount_Minor = null "
+                + "where Pay_Id = ?", 531.72, "EUR", PAYID+valid);
+        jdbcTemplate.update("update Pay set Payment = ?, Amount_Minor = null "
+                + "where Pay_Id = ?", 0.1, PAYID+(valid+1));
+
+        paymentMigration.migrate();
+        entityManagerFactory.unwrap(SessionFactory.class).getCache().evictAllRegions();
+        message = "Payment is not migrated!";
+        assertEquals(message, new Money(53172, "EUR"), payService.getByPayId(PAYID+valid)
+                .getMoney());
+        message = "Payment without currency is not migrated!";
+        assertEquals(message, new Money(10, null), payService.getByPayId(PAYID+(valid+1))
+                .getMoney());
+        message = "Legacy column is not dropped!";
+        assertEquals(message, 0, (int) jdbcTemplate.queryForObject("select count(*) "
+                + "from INFORMATION_SCHEMA.COLUMNS where TABLE_NAME = 'PAY' "
+                + "and COLUMN_NAME = 'PAYMENT'", Integer.class));
+        
+        paymentMigration.migrate();
+        message = "Repeated migration changed the payment!";
+        assertEquals(message, new Money(53172, "EUR"), payService.getByPayId(PAYID+valid)
+                .getMoney());
+    }
+
+    /**
+     * Test of migrate method with tie values, of class PaymentMigration: 
+     * the payments are rounded half-even, like by the {@code Pay}'s setter.
+     */
+    @Test
+    public void testPaymentMigrationRoundsHalfEven() {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("alter table Pay add column Payment double");
+        jdbcTemplate.update("update Pay set Payment = ?, Currency = ?, Amount_Minor = null "
+                + "where Pay_Id = ?", 0.125, "EUR", PAYID+valid);
+        jdbcTemplate.update("update Pay set Payment = ?, Amount_Minor = null "
+                + "where Pay_Id = ?", 2.675, PAYID+(valid+1));
+
+        paymentMigration.migrate();
+        entityManagerFactory.unwrap(SessionFactory.class).getCache().evictAllRegions();
+        message = "Tie payment is not rounded half-even!";
+        assertEquals(message, new Money(12, "EUR"), payService.getByPayId(PAYID+valid)
+                .getMoney());
+        assertEquals(message, Money.of(BigDecimal.valueOf(0.125), "EUR"), 
+                payService.getByPayId(PAYID+valid).getMoney());
+        message = "Payment is not converted exactly!";
+        assertEquals(message, new Money(268, null), payService.getByPayId(PAYID+(valid+1))
+                .getMoney());
+    }
+
     /**
      * Test of updatePayableByPayId method, of class PayServiceImpl.
      */
@@ -205,4 +366,24 @@ public class PayServiceImplTest extends DevelopmentTest {
                 .isThrowing(EmptyResultDataAccessException.class));
     }
 
+    /**
+     * Create a payable {@code Pay}, which is paid if it has payment time.
+     * @param payId pay's ID
+     * @param job the relevant job
+     * @param money payment
+     * @param paymentTime payment time or null
+     * @return {@code Pay}
+     */
+    private static Pay createPay(String payId, Job job, Money money, 
+                                 LocalDateTime paymentTime) {
+        return new PayBuilder()
+                .setPayId(payId)
+                .setJob(job)
+                .setMoney(money)
+                .setPaymentTime(paymentTime)
+                .setPayable(true)
+                .setPaid(paymentTime != null)
+                .build();
+    }
+
 }
\ No newline at end of file
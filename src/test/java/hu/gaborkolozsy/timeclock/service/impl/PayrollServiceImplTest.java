@@ -0,0 +1,206 @@
+/*
+ * Copyright (c) 2017, Gabor Kolozsy. All rights reserved.
+ */
+
+package hu.gaborkolozsy.timeclock.service.impl;
+
+import hu.gaborkolozsy.timeclock.DevelopmentTest;
+import hu.gaborkolozsy.timeclock.model.Job;
+import hu.gaborkolozsy.timeclock.model.Job.JobBuilder;
+import hu.gaborkolozsy.timeclock.model.Pay;
+import hu.gaborkolozsy.timeclock.model.WorkingHours;
+import hu.gaborkolozsy.timeclock.model.WorkingHours.WorkingHoursBuilder;
+import hu.gaborkolozsy.timeclock.model.payroll.PayRate;
+import hu.gaborkolozsy.timeclock.model.payroll.PayrollProgress;
+import hu.gaborkolozsy.timeclock.model.payroll.PayrollResult;
+import hu.gaborkolozsy.timeclock.model.payroll.PayrollRun;
+import hu.gaborkolozsy.timeclock.model.payroll.PayrollRun.PayrollRunBuilder;
+import hu.gaborkolozsy.timeclock.service.CustomerService;
+import hu.gaborkolozsy.timeclock.service.DeveloperService;
+import hu.gaborkolozsy.timeclock.service.JobService;
+import hu.gaborkolozsy.timeclock.service.PayService;
+import hu.gaborkolozsy.timeclock.service.PayrollService;
+import hu.gaborkolozsy.timeclock.service.WorkingHoursService;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+/**
+ * Test {@code PayrollServiceImpl} class.
+ *
+ * @author Gabor Kolozsy (gabor.kolozsy.development@gmail.com)
+ * @since 0.0.1-SNAPSHOT
+ */
+public class PayrollServiceImplTest extends DevelopmentTest {
+
+    private static final LocalDate FROM = LocalDate.parse("2017-01-01");
+    private static final LocalDate TO = LocalDate.parse("2017-01-31");
+
+    @Autowired
+    private PayrollService payrollService;
+
+    @Autowired
+    private PayService payService;
+
+    @Autowired
+    private JobService jobService;
+
+    @Autowired
+    private CustomerService customerService;
+
+    @Autowired
+    private DeveloperService developerService;
+
+    @Autowired
+    private WorkingHoursService workingHoursService;
+
+    /**
+     * Save closed shifts in January 2017 (valid developer: 8, 4 and 2 hours, 
+     * other developer: 4 hours) and one job per customer without pay.
+     */
+    @Before
+    public void setUp() {
+        saveShift(valid, 2, 8);
+        saveShift(valid, 3, 4);
+        saveShift(valid, 4, 2);
+        saveShift(valid + 1, 2, 4);
+        for (long i = valid; i < valid + 2; i++) {
+            jobService.save(new JobBuilder()
+                    .setOrderNumber(i + 100)
+                    .setProjectName("Payroll")
+                    .setStatus("WIP")
+                    .setCustomer(customerService.getByCustomerId(i))
+                    .build());
+        }
+    }
+
+    /**
+     * Test of run method, of class PayrollServiceImpl.
+     */
+    @Test
+    public void testRun() {
+        List<PayrollProgress> progress = Collections.synchronizedList(new ArrayList<>());
+        PayrollResult result = payrollService.run(getRun(), progress::add);
+
+        List<String> expected = Arrays.asList("PR-20170101-200", "PR-20170101-201");
+        message = "Created pays are not correct!";
+        assertEquals(message, expected, result.getCreated());
+        message = "Skipped pays are not empty!";
+        assertTrue(message, result.getSkipped().isEmpty());
+
+        Pay pay = payService.getByPayId("PR-20170101-200");
+        message = "Developer rate's payment is not 140.00!";
+        assertEquals(message, new BigDecimal("140.00"), pay.getMoney().getAmount());
+        message = "Currency is not EUR!";
+        assertEquals(message, "EUR", pay.getCurrency());
+        message = "Pay is not payable or paid!";
+        assertTrue(message, pay.isPayable() && !pay.isPaid());
+        message = "Customer rate's payment is not 100.00!";
+        assertEquals(message, new BigDecimal("100.00"), 
+                payService.getByPayId("PR-20170101-201").getMoney().getAmount());
+
+        message = "Number of processed shifts is not 4!";
+        assertEquals(message, 4, result.getProgress().getShifts());
+        message = "Every developer is not processed!";
+        assertEquals(message, 2, result.getProgress().getDevelopers());
+        message = "Progress is not reported!";
+        assertFalse(message, progress.isEmpty());
+        message = "Open shifts of January are counted!";
+        assertEquals(message, 0, result.getOpenShifts());
+    }
+
+    /**
+     * Test of run method repeated, of class PayrollServiceImpl.
+     */
+    @Test
+    public void testRunIsIdempotent() {
+        payrollService.run(getRun(), (progress) -> { });
+        PayrollResult result = payrollService.run(getRun(), (progress) -> { });
+
+        message = "Created pays are not empty!";
+        assertTrue(message, result.getCreated().isEmpty());
+        message = "Skipped pays are not correct!";
+        assertEquals(message, Arrays.asList("PR-20170101-200", "PR-20170101-201"), 
+                result.getSkipped());
+        message = "Number of pays is not 4!";
+        assertEquals(message, 4, payService.getAll().spliterator().getExactSizeIfKnown());
+    }
+
+    /**
+     * Test of run method with open shifts, of class PayrollServiceImpl.
+     */
+    @Test
+    public void testRunCountsOpenShifts() {
+        PayrollRun run = new PayrollRunBuilder()
+                .setPeriod(LocalDate.now(), LocalDate.now())
+                .setJob(valid, valid + 100)
+                .setDeveloperRate(valid, new PayRate(BigDecimal.TEN, "EUR"))
+                .build();
+        PayrollResult result = payrollService.run(run, (progress) -> { });
+
+        message = "Number of open shifts is not 3!";
+        assertEquals(message, 3, result.getOpenShifts());
+        message = "Pay is created without closed shift!";
+        assertTrue(message, result.getCreated().isEmpty());
+    }
+
+    /**
+     * Test of run method without rate, of class PayrollServiceImpl.
+     */
+    @Test
+    public void testRunWithoutRate() {
+        PayrollRun run = new PayrollRunBuilder()
+                .setPeriod(FROM, TO)
+                .setJob(valid, valid + 100)
+                .build();
+        message = "IllegalArgumentException is not thrown!";
+        assertEquals(message, "OK", new ExceptionVerifier(() -> 
+                payrollService.run(run, (progress) -> { }))
+                .isThrowing(IllegalArgumentException.class));
+    }
+
+    /**
+     * Returns the payroll run of January 2017: the valid developer works for 
+     * job 200 by own rate, the other for job 201 by its customer's rate.
+     * @return {@code PayrollRun}
+     */
+    private PayrollRun getRun() {
+        return new PayrollRunBuilder()
+                .setPeriod(FROM, TO)
+                .setJob(valid, valid + 100)
+                .setJob(valid + 1, valid + 101)
+                .setDeveloperRate(valid, new PayRate(BigDecimal.TEN, "EUR"))
+                .setDeveloperRate(valid + 1, new PayRate(BigDecimal.ONE, "EUR"))
+                .setCustomerRate(valid + 1, new PayRate(BigDecimal.valueOf(25), "EUR"))
+                .build();
+    }
+
+    /**
+     * Save a closed shift of the developer in January 2017.
+     * @param developerId developer's ID
+     * @param day day of the month
+     * @param hours worked hours
+     */
+    private void saveShift(Long developerId, int day, int hours) {
+        LocalDate date = FROM.withDayOfMonth(day);
+        WorkingHours shift = new WorkingHoursBuilder()
+                .setDeveloper(developerService.getByDeveloperId(developerId))
+                .setDay(date)
+                .setWorkStart(date.atTime(8, 0))
+                .setWorkEnd(date.atTime(8 + hours, 0))
+                .build();
+        workingHoursService.save(shift);
+    }
+
+}
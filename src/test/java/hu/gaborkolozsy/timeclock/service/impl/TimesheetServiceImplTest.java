@@ -0,0 +1,210 @@
+/*
+ * Copyright (c) 2017, Gabor Kolozsy. All rights reserved.
+ */
+
+package hu.gaborkolozsy.timeclock.service.impl;
+
+import hu.gaborkolozsy.timeclock.DevelopmentTest;
+import hu.gaborkolozsy.timeclock.model.Developer;
+import hu.gaborkolozsy.timeclock.model.WorkingHours;
+import hu.gaborkolozsy.timeclock.model.WorkingHours.WorkingHoursBuilder;
+import hu.gaborkolozsy.timeclock.model.timesheet.OpenShiftPolicy;
+import hu.gaborkolozsy.timeclock.model.timesheet.TimesheetEntry;
+import hu.gaborkolozsy.timeclock.model.timesheet.TimesheetPeriod;
+import hu.gaborkolozsy.timeclock.service.DeveloperService;
+import hu.gaborkolozsy.timeclock.service.TimesheetService;
+import hu.gaborkolozsy.timeclock.service.WorkingHoursService;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+/**
+ * Test {@code TimesheetServiceImpl} class and the timesheet query of the
+ * {@code WorkingHours} data access layer through with it.
+ *
+ * <p>Beside the open shifts of today, the valid developer has closed shifts
+ * in 2017: 8 hours on 2 January (Monday), 4 hours on 3 January, 2 hours on
+ * 9 January and 1 hour on 1 February (Wednesday).
+ *
+ * @author Gabor Kolozsy (gabor.kolozsy.development@gmail.com)
+ * @since 0.0.1-SNAPSHOT
+ */
+public class TimesheetServiceImplTest extends DevelopmentTest {
+
+    private static final LocalDate FROM = LocalDate.parse("2017-01-01");
+    private static final LocalDate TO = LocalDate.parse("2017-12-31");
+
+    @Autowired
+    private TimesheetService timesheetService;
+
+    @Autowired
+    private DeveloperService developerService;
+
+    @Autowired
+    private WorkingHoursService workingHoursService;
+
+    /**
+     * Save the closed shifts of the valid developer.
+     */
+    @Before
+    public void saveClosedShifts() {
+        Developer developer = developerService.getByDeveloperId(valid);
+        workingHoursService.saveAll(Arrays.asList(
+                createShift(developer, "2017-01-02T08:00:00", 8),
+                createShift(developer, "2017-01-03T08:00:00", 4),
+                createShift(developer, "2017-01-09T10:00:00", 2),
+                createShift(developer, "2017-02-01T12:00:00", 1)));
+    }
+
+    /**
+     * Test of getTotal method, of class TimesheetServiceImpl.
+     */
+    @Test
+    public void testGetTotal() {
+        message = "Total is not 15 hours!";
+        assertEquals(message, Duration.ofHours(15),
+                timesheetService.getTotal(valid, FROM, TO, OpenShiftPolicy.REJECT));
+        message = "Total is not zero!";
+        assertEquals(message, Duration.ZERO,
+                timesheetService.getTotal(invalid, FROM, TO, OpenShiftPolicy.REJECT));
+    }
+
+    /**
+     * Test of getTimesheet method by day, of class TimesheetServiceImpl.
+     */
+    @Test
+    public void testGetTimesheetByDay() {
+        List<TimesheetEntry> entries = timesheetService.getTimesheet(valid, FROM, TO,
+                TimesheetPeriod.DAY, OpenShiftPolicy.EXCLUDE);
+        message = "List size is not 4!";
+        assertEquals(message, 4, entries.size());
+        assertEntry(entries.get(0), "2017-01-02", 8);
+        assertEntry(entries.get(1), "2017-01-03", 4);
+        assertEntry(entries.get(2), "2017-01-09", 2);
+        assertEntry(entries.get(3), "2017-02-01", 1);
+    }
+
+    /**
+     * Test of getTimesheet method by ISO week, of class TimesheetServiceImpl.
+     */
+    @Test
+    public void testGetTimesheetByWeek() {
+        List<TimesheetEntry> entries = timesheetService.getTimesheet(valid, FROM, TO,
+                TimesheetPeriod.WEEK, OpenShiftPolicy.EXCLUDE);
+        message = "List size is not 3!";
+        assertEquals(message, 3, entries.size());
+        assertEntry(entries.get(0), "2017-01-02", 12);
+        assertEntry(entries.get(1), "2017-01-09", 2);
+        assertEntry(entries.get(2), "2017-01-30", 1);
+    }
+
+    /**
+     * Test of getTimesheet method by month, of class TimesheetServiceImpl.
+     */
+    @Test
+    public void testGetTimesheetByMonth() {
+        List<TimesheetEntry> entries = timesheetService.getTimesheet(valid, FROM, TO,
+                TimesheetPeriod.MONTH, OpenShiftPolicy.EXCLUDE);
+        message = "List size is not 2!";
+        assertEquals(message, 2, entries.size());
+        assertEntry(entries.get(0), "2017-01-01", 14);
+        assertEntry(entries.get(1), "2017-02-01", 1);
+        message = "Number of shifts is not 3!";
+        assertEquals(message, 3, entries.get(0).getShifts());
+    }
+
+    /**
+     * Test of getTimesheet method with more developers and open shifts, of
+     * class TimesheetServiceImpl.
+     */
+    @Test
+    public void testGetTimesheetWithOpenShifts() {
+        LocalDate today = LocalDate.now();
+        List<Long> developerIds = Arrays.asList(valid + 1, valid, invalid);
+        List<TimesheetEntry> entries = timesheetService.getTimesheet(developerIds, today,
+                today, TimesheetPeriod.TOTAL, OpenShiftPolicy.EXCLUDE);
+        message = "List size is not 2!";
+        assertEquals(message, 2, entries.size());
+        message = "Not ordered by developer's ID!";
+        assertEquals(message, valid, entries.get(0).getDeveloperId());
+        for (TimesheetEntry entry : entries) {
+            assertNull("Total has period start!", entry.getPeriodStart());
+            message = "Open shifts are counted!";
+            assertEquals(message, 0, entry.getDurationMillis());
+            message = "Number of open shifts is not 3!";
+            assertEquals(message, 3, entry.getOpenShifts());
+        }
+
+        message = "Open shifts are not counted until now!";
+        entries = timesheetService.getTimesheet(developerIds, today, today,
+                TimesheetPeriod.TOTAL, OpenShiftPolicy.UNTIL_NOW);
+        assertTrue(message, entries.get(0).getDurationMillis() >= 0);
+        assertTrue(message, entries.get(0).getDuration().compareTo(Duration.ofDays(3)) <= 0);
+
+        message = "Open shifts are not counted until the end of day!";
+        entries = timesheetService.getTimesheet(developerIds, today, today,
+                TimesheetPeriod.TOTAL, OpenShiftPolicy.UNTIL_END_OF_DAY);
+        assertTrue(message, entries.get(0).getDurationMillis() > 0);
+
+        message = "Throws exception test is not ok!";
+        assertEquals(message, "OK", new ExceptionVerifier(() -> timesheetService
+                .getTimesheet(developerIds, today, today, TimesheetPeriod.DAY,
+                        OpenShiftPolicy.REJECT))
+                .isThrowing(IllegalStateException.class));
+    }
+
+    /**
+     * Test of getTimesheet method with invalid interval, of class
+     * TimesheetServiceImpl.
+     */
+    @Test
+    public void testThrowsExceptionWhenIntervalIsInvalid() {
+        message = "Throws exception test is not ok!";
+        assertEquals(message, "OK", new ExceptionVerifier(() -> timesheetService
+                .getTimesheet(valid, TO, FROM, TimesheetPeriod.DAY, OpenShiftPolicy.EXCLUDE))
+                .isThrowing(IllegalArgumentException.class));
+    }
+
+    /**
+     * Check the entry's period start and duration.
+     * @param entry {@code TimesheetEntry}
+     * @param periodStart the expected period start
+     * @param hours the expected duration in hours
+     */
+    private void assertEntry(TimesheetEntry entry, String periodStart, long hours) {
+        message = "Developer's ID is not " + valid + "!";
+        assertEquals(message, valid, entry.getDeveloperId());
+        message = "Period start is not " + periodStart + "!";
+        assertEquals(message, LocalDate.parse(periodStart), entry.getPeriodStart());
+        message = "Duration is not " + hours + " hours!";
+        assertEquals(message, Duration.ofHours(hours), entry.getDuration());
+    }
+
+    /**
+     * Create a closed shift.
+     * @param developer {@code Developer}
+     * @param start the shift's start
+     * @param hours the shift's length in hours
+     * @return {@code WorkingHours}
+     */
+    private static WorkingHours createShift(Developer developer, String start, int hours) {
+        LocalDateTime begin = LocalDateTime.parse(start);
+        return new WorkingHoursBuilder()
+                .setDay(begin.toLocalDate())
+                .setWorkStart(begin)
+                .setWorkEnd(begin.plusHours(hours))
+                .setDeveloper(developer)
+                .build();
+    }
+
+}
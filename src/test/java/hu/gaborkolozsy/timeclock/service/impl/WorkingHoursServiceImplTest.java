@@ -5,17 +5,49 @@
 package hu.gaborkolozsy.timeclock.service.impl;
 
 import hu.gaborkolozsy.timeclock.DevelopmentTest;
+import hu.gaborkolozsy.timeclock.config.SequenceIncrementVerifier;
+import hu.gaborkolozsy.timeclock.config.SequenceMigration;
+import hu.gaborkolozsy.timeclock.dao.WorkingHoursDao;
+import hu.gaborkolozsy.timeclock.dao.cache.ShiftIntervalIndex;
+import hu.gaborkolozsy.timeclock.dao.cache.ShiftIntervalTree.Interval;
+import hu.gaborkolozsy.timeclock.model.Developer;
 import hu.gaborkolozsy.timeclock.model.WorkingHours;
+import hu.gaborkolozsy.timeclock.model.WorkingHours.WorkingHoursBuilder;
+import hu.gaborkolozsy.timeclock.model.clock.ClockShift;
+import hu.gaborkolozsy.timeclock.model.overlap.OverlapAudit;
+import hu.gaborkolozsy.timeclock.model.overlap.ShiftGap;
+import hu.gaborkolozsy.timeclock.model.overlap.ShiftOverlap;
+import hu.gaborkolozsy.timeclock.service.DeveloperService;
 import hu.gaborkolozsy.timeclock.service.WorkingHoursService;
+import java.time.Duration;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+import javax.sql.DataSource;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 
 import org.junit.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 /**
  * Test {@code WorkingHoursServiceImpl} class and part of {@code WorkingHours} data 
@@ -29,6 +61,27 @@ public class WorkingHoursServiceImplTest extends DevelopmentTest {
     @Autowired
     private WorkingHoursService workingHoursService;
     
+    @Autowired
+    private DeveloperService developerService;
+    
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ShiftIntervalIndex shiftIntervalIndex;
+    
+    @Autowired
+    private WorkingHoursDao workingHoursDao;
+    
+    @Autowired
+    private SequenceMigration sequenceMigration;
+    
+    @Autowired
+    private SequenceIncrementVerifier sequenceIncrementVerifier;
+    
+    @Autowired
+    private DataSource dataSource;
+    
     /**
      * Test services that not null.
      */
@@ -37,6 +90,39 @@ public class WorkingHoursServiceImplTest extends DevelopmentTest {
         assertNotNull(workingHoursService);
     }
     
+    /**
+     * Test of migrate method, of class SequenceMigration: the legacy 
+     * sequence's increment is altered to the configured block size, and an 
+     * unexpected increment is left to the SequenceIncrementVerifier.
+     */
+    @Test
+    public void testSequenceMigration() {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        String select = "select INCREMENT from INFORMATION_SCHEMA.SEQUENCES "
+                + "where upper(SEQUENCE_NAME) = 'WORKINGHOURSSEQ'";
+        try {
+            jdbcTemplate.execute("alter sequence workingHoursSEQ increment by 1");
+            sequenceMigration.migrate();
+            sequenceMigration.migrate();
+            message = "Legacy increment is not altered to 100!";
+            assertEquals(message, Long.valueOf(100), 
+                    jdbcTemplate.queryForObject(select, Long.class));
+            sequenceIncrementVerifier.verify();
+
+            jdbcTemplate.execute("alter sequence workingHoursSEQ increment by 7");
+            sequenceMigration.migrate();
+            message = "Unexpected increment is altered!";
+            assertEquals(message, Long.valueOf(7), 
+                    jdbcTemplate.queryForObject(select, Long.class));
+            assertEquals(message, "OK", new ExceptionVerifier(() -> {
+                sequenceIncrementVerifier.verify();
+                return null;
+            }).isThrowing(IllegalStateException.class));
+        } finally {
+            jdbcTemplate.execute("alter sequence workingHoursSEQ increment by 100");
+        }
+    }
+    
     /**
      * Test of updateWorkEnd method, of class WorkingHoursServiceImpl.
      */
@@ -70,6 +156,400 @@ public class WorkingHoursServiceImplTest extends DevelopmentTest {
         }        
     }
     
+    /**
+     * Test of forEach method, of class WorkingHoursServiceImpl.
+     */
+    @Test
+    public void testForEach() {
+        List<Long> ids = new ArrayList<>();
+        long count = workingHoursService.forEach((wh) -> ids.add(wh.getId()));
+        message = "Not all working hours processed!";
+        assertEquals(message, 6, count);
+        assertEquals(message, 6, ids.size());
+        
+        List<Long> sorted = new ArrayList<>(ids);
+        Collections.sort(sorted);
+        message = "Working hours are not ordered by ID!";
+        assertEquals(message, sorted, ids);
+    }
+    
+    /**
+     * Test of the stream of the working hours, which keeps the entities and 
+     * the changes of the caller's persistence context.
+     */
+    @Test
+    public void testStreamKeepsCallersEntities() {
+        int before = workingHoursService.page(null, 100).size();
+        List<Long> ids = new ArrayList<>();
+        new TransactionTemplate(transactionManager).execute((status) -> {
+            WorkingHours first = workingHoursService.page(null, 1).get(0);
+            Developer loaded = developerService.getByDeveloperId(valid);
+            try (Stream<WorkingHours> stream = workingHoursDao.stream(2)) {
+                stream.forEach((wh) -> {
+                    ids.add(wh.getId());
+                    if (ids.size() == 3) {
+                        workingHoursService.save(newShift("08:00", "12:00"));
+                    }
+                });
+            }
+            message = "Caller's shift is not returned by the stream!";
+            assertTrue(message, first == workingHoursService.get(first.getId()));
+            message = "Lazy collection of the caller's developer is not loaded!";
+            assertEquals(message, 4, loaded.getWorkingHours().size());
+            return null;
+        });
+        message = "Not all working hours are streamed!";
+        assertEquals(message, before, ids.size());
+        message = "Shift saved while streaming is not committed!";
+        assertEquals(message, before + 1, workingHoursService.page(null, 100).size());
+    }
+    
+    /**
+     * Test of page method, of class WorkingHoursServiceImpl.
+     */
+    @Test
+    public void testPage() {
+        List<WorkingHours> first = workingHoursService.page(null, 4);
+        message = "First page size is not 4!";
+        assertEquals(message, 4, first.size());
+        
+        Long last = first.get(first.size() - 1).getId();
+        List<WorkingHours> second = workingHoursService.page(last, 4);
+        message = "Second page size is not 2!";
+        assertEquals(message, 2, second.size());
+        message = "Second page is not after the first one!";
+        assertTrue(message, second.get(0).getId() > last);
+        
+        message = "Third page is not empty!";
+        assertTrue(message, workingHoursService.page(
+                second.get(1).getId(), 4).isEmpty());
+    }
+    
+    /**
+     * Test of isClockedIn, getClockedIn, getOpenShiftIds and countOpenShifts 
+     * methods, of class WorkingHoursServiceImpl.
+     */
+    @Test
+    public void testOpenShiftIndex() {
+        long statements = getPrepareStatementCount();
+        message = "Invalid developer is clocked in!";
+        assertFalse(message, workingHoursService.isClockedIn(invalid));
+        workingHoursService.getClockedIn();
+        workingHoursService.getOpenShiftIds(valid);
+        workingHoursService.countOpenShifts();
+        message = "Index is not answered without query!";
+        assertEquals(message, statements, getPrepareStatementCount());
+        assertOpenShifts(3, 3);
+        
+        for (Long id : workingHoursService.getOpenShiftIds(valid)) {
+            workingHoursService.updateWorkEnd(workingHoursService.get(id), LocalDateTime.now());
+        }
+        assertOpenShifts(0, 3);
+        
+        workingHoursService.rebuildOpenShiftIndex();
+        assertOpenShifts(0, 3);
+        
+        developerService.removeByDeveloperId(valid + 1);
+        assertOpenShifts(0, 0);
+    }
+    
+    /**
+     * Test of the open shifts' index with concurrent clock-outs and a rolled 
+     * back clock-in, of class WorkingHoursServiceImpl.
+     * @throws Exception if a clock-out fails
+     */
+    @Test
+    public void testOpenShiftIndexConcurrently() throws Exception {
+        List<Callable<Object>> clockOuts = new ArrayList<>();
+        for (WorkingHours wh : workingHoursService.getAll()) {
+            clockOuts.add(Executors.callable(() -> 
+                    workingHoursService.updateWorkEnd(wh, LocalDateTime.now())));
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            for (Future<Object> clockOut : executor.invokeAll(clockOuts)) {
+                clockOut.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertOpenShifts(0, 0);
+        
+        new TransactionTemplate(transactionManager).execute((status) -> {
+            workingHoursService.save(new WorkingHoursBuilder()
+                    .setDay(LocalDate.now())
+                    .setWorkStart(LocalDateTime.now())
+                    .setDeveloper(developerService.getByDeveloperId(valid))
+                    .build());
+            status.setRollbackOnly();
+            return null;
+        });
+        message = "Rolled back clock-in is in the index!";
+        assertFalse(message, workingHoursService.isClockedIn(valid));
+    }
+    
+    /**
+     * Check the open shifts' index of the valid developer and of the other one.
+     * @param valids the expected number of the valid developer's open shifts
+     * @param others the expected number of the other developer's open shifts
+     */
+    private void assertOpenShifts(int valids, int others) {
+        List<Long> clockedIn = new ArrayList<>();
+        if (valids > 0) {
+            clockedIn.add(valid);
+        }
+        if (others > 0) {
+            clockedIn.add(valid + 1);
+        }
+        message = "Clocked in developers are not " + clockedIn + "!";
+        assertEquals(message, new TreeSet<>(clockedIn), workingHoursService.getClockedIn());
+        message = "Valid developer's clock-in is not " + (valids > 0) + "!";
+        assertEquals(message, valids > 0, workingHoursService.isClockedIn(valid));
+        message = "Number of open shifts is not " + (valids + others) + "!";
+        assertEquals(message, valids + others, workingHoursService.countOpenShifts());
+        message = "Number of the valid developer's open shifts is not " + valids + "!";
+        assertEquals(message, valids, workingHoursService.getOpenShiftIds(valid).size());
+        for (Long developerId : Arrays.asList(valid, valid + 1)) {
+            message = "Index is not in line with the database!";
+            assertEquals(message, workingHoursService.getOpenShiftIds(developerId), 
+                    getOpenShiftIds(developerId));
+        }
+    }
+    
+    /**
+     * Stress test of clockIn and clockOut methods from several threads, of 
+     * class WorkingHoursServiceImpl: no developer gets two open shifts, and 
+     * every opened shift is closed exactly once.
+     * @throws Exception if a clock-in or a clock-out fails
+     */
+    @Test
+    public void testClockInAndOutConcurrently() throws Exception {
+        List<Long> developerIds = Arrays.asList(valid, valid + 1);
+        for (Long developerId : developerIds) {
+            while (workingHoursService.clockOut(developerId) != null) {
+                // close the open shifts of the fixture
+            }
+        }
+        Set<Long> fixture = new HashSet<>();
+        workingHoursService.getAll().forEach((wh) -> fixture.add(wh.getId()));
+        
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Long> clockedIn = Collections.synchronizedList(new ArrayList<>());
+        List<Long> clockedOut = Collections.synchronizedList(new ArrayList<>());
+        try {
+            List<Callable<Object>> clockIns = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                clockIns.add(Executors.callable(() -> developerIds.forEach((developerId) -> 
+                        clockedIn.add(workingHoursService.clockIn(developerId)))));
+            }
+            for (Future<Object> clockIn : executor.invokeAll(clockIns)) {
+                clockIn.get();
+            }
+            for (Long developerId : developerIds) {
+                message = "Developer " + developerId + " has not exactly one open shift!";
+                assertEquals(message, 1, getOpenShiftIds(developerId).size());
+            }
+            message = "Repeated clock-ins opened more shifts!";
+            assertEquals(message, 2, new HashSet<>(clockedIn).size());
+            
+            List<Callable<Object>> rounds = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                boolean in = i % 2 == 0;
+                rounds.add(Executors.callable(() -> {
+                    for (int round = 0; round < 20; round++) {
+                        for (Long developerId : developerIds) {
+                            if (in) {
+                                clockedIn.add(workingHoursService.clockIn(developerId));
+                            }
+                            clockedOut.add(workingHoursService.clockOut(developerId));
+                        }
+                    }
+                }));
+            }
+            for (Future<Object> round : executor.invokeAll(rounds)) {
+                round.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        for (Long developerId : developerIds) {
+            clockedOut.add(workingHoursService.clockOut(developerId));
+            message = "Developer " + developerId + " is still clocked in!";
+            assertEquals(message, Collections.emptySet(), getOpenShiftIds(developerId));
+            assertFalse(message, workingHoursService.isClockedIn(developerId));
+        }
+        
+        Set<Long> opened = new TreeSet<>();
+        workingHoursService.getAll().forEach((wh) -> opened.add(wh.getId()));
+        opened.removeAll(fixture);
+        message = "Clock-ins are not the opened shifts!";
+        assertEquals(message, opened, new TreeSet<>(clockedIn));
+        List<Long> closed = new ArrayList<>(clockedOut);
+        closed.removeAll(Collections.singleton(null));
+        message = "A shift is closed twice!";
+        assertEquals(message, closed.size(), new HashSet<>(closed).size());
+        message = "A clock-out is lost!";
+        assertEquals(message, opened, new TreeSet<>(closed));
+    }
+    
+    /**
+     * Returns the developer's open shifts from the database.
+     * @param developerId developer's ID
+     * @return the working hours' ID
+     */
+    private TreeSet<Long> getOpenShiftIds(Long developerId) {
+        TreeSet<Long> ids = new TreeSet<>();
+        for (WorkingHours wh : workingHoursService.getAll()) {
+            if (wh.getWorkEnd() == null && developerId.equals(wh.getDeveloper().getDeveloperId())) {
+                ids.add(wh.getId());
+            }
+        }
+        return ids;
+    }
+    
+    /**
+     * Test of getOverlaps method, of class WorkingHoursServiceImpl.
+     */
+    @Test
+    public void testGetOverlaps() {
+        Long id = workingHoursService.getOpenShiftIds(valid).iterator().next();
+        List<ShiftOverlap> overlaps = workingHoursService.getOverlaps(
+                workingHoursService.get(id));
+        message = "Number of overlaps is not 2!";
+        assertEquals(message, 2, overlaps.size());
+        for (ShiftOverlap overlap : overlaps) {
+            message = "Overlap is not of the open shifts!";
+            assertEquals(message, id, overlap.getSecondId());
+            assertTrue(message, workingHoursService.getOpenShiftIds(valid)
+                    .contains(overlap.getFirstId()));
+            assertNull(message, overlap.getEnd());
+        }
+    }
+    
+    /**
+     * Test of saveWithoutOverlap and audit methods, of class 
+     * WorkingHoursServiceImpl.
+     */
+    @Test
+    public void testSaveWithoutOverlapAndAudit() {
+        workingHoursService.saveWithoutOverlap(newShift("08:00", "12:00"));
+        message = "Overlapping shift is saved!";
+        assertEquals(message, "OK", 
+                new ExceptionVerifier(() -> {
+                    workingHoursService.saveWithoutOverlap(newShift("11:00", "14:00"));
+                    return null;
+                }).isThrowing(IllegalArgumentException.class));
+        message = "Adjacent shift overlaps!";
+        assertEquals(message, Collections.emptyList(), 
+                workingHoursService.getOverlaps(newShift("12:00", "12:30")));
+        workingHoursService.saveWithoutOverlap(newShift("12:30", "16:00"));
+        
+        OverlapAudit audit = workingHoursService.audit(Duration.ofMinutes(15));
+        message = "Audit is not correct!";
+        assertEquals(message, 2, audit.getDevelopers());
+        assertEquals(message, 8, audit.getShifts());
+        message = "Number of overlaps is not 6 (3 open shifts per developer)!";
+        assertEquals(message, 6, audit.getOverlaps().size());
+        message = "Gap is not found!";
+        assertEquals(message, 1, audit.getGaps().size());
+        ShiftGap gap = audit.getGaps().get(0);
+        assertEquals(message, valid, gap.getDeveloperId());
+        assertEquals(message, Duration.ofMinutes(30), gap.getDuration());
+        
+        message = "Gap shorter than the minimum is found!";
+        assertEquals(message, Collections.emptyList(), 
+                workingHoursService.audit(Duration.ofHours(1)).getGaps());
+    }
+    
+    /**
+     * Test of the changes of the {@code ShiftIntervalIndex} while a tree is 
+     * loaded: a committed shift is applied on the loaded tree, a dropped 
+     * tree is not kept.
+     */
+    @Test
+    public void testShiftIntervalIndexChangedWhileLoaded() {
+        LocalDateTime begin = LocalDateTime.parse("2017-01-02T08:00:00");
+        Interval loaded = new Interval(1L, begin, begin.plusHours(4));
+        Interval committed = new Interval(2L, begin.plusHours(2), begin.plusHours(6));
+        int[] loads = {0};
+        try {
+            shiftIntervalIndex.getOverlaps(invalid, begin, null, (id) -> {
+                shiftIntervalIndex.put(id, committed);
+                return Collections.singletonList(loaded);
+            });
+            message = "Shift committed while the tree is loaded is missed!";
+            assertEquals(message, 2, shiftIntervalIndex.getOverlaps(invalid, begin, null, 
+                    (id) -> {
+                        loads[0]++;
+                        return Collections.emptyList();
+                    }).size());
+            message = "Tree is not kept!";
+            assertEquals(message, 0, loads[0]);
+
+            shiftIntervalIndex.evict(invalid);
+            shiftIntervalIndex.getOverlaps(invalid, begin, null, (id) -> {
+                shiftIntervalIndex.evict(id);
+                return Collections.singletonList(loaded);
+            });
+            shiftIntervalIndex.getOverlaps(invalid, begin, null, (id) -> {
+                loads[0]++;
+                return Collections.emptyList();
+            });
+            message = "Tree dropped while it is loaded is kept!";
+            assertEquals(message, 1, loads[0]);
+        } finally {
+            shiftIntervalIndex.evict(invalid);
+        }
+    }
+    
+    /**
+     * Test of the closing of an already closed shift, which keeps the 
+     * shift's end in the loaded tree of the {@code ShiftIntervalIndex}.
+     */
+    @Test
+    public void testCloseShiftsSkipsClosedShift() {
+        Long id = workingHoursService.getOpenShiftIds(valid).iterator().next();
+        LocalDateTime begin = workingHoursService.get(id).getWorkStart();
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.execute((status) -> workingHoursDao.getOverlaps(valid, begin, null));
+        message = "Open shift is not closed!";
+        assertEquals(message, Integer.valueOf(1), transactionTemplate.execute((status) -> 
+                workingHoursDao.closeShifts(Collections.singletonList(
+                        new ClockShift(id, valid, begin, begin.plusHours(1))))));
+        message = "Closed shift is closed again!";
+        assertEquals(message, Integer.valueOf(0), transactionTemplate.execute((status) -> 
+                workingHoursDao.closeShifts(Collections.singletonList(
+                        new ClockShift(id, valid, begin, begin.plusHours(5))))));
+        
+        message = "End of the skipped close is in the index!";
+        assertEquals(message, begin.plusHours(1), transactionTemplate.execute((status) -> 
+                workingHoursDao.getOverlaps(valid, begin, begin.plusMinutes(1))).stream()
+                .filter((interval) -> id.equals(interval.getId()))
+                .findFirst()
+                .get()
+                .getEnd());
+        assertEquals(message, begin.plusHours(1), workingHoursService.get(id).getWorkEnd());
+        message = "Number of open shifts is not 2!";
+        assertEquals(message, 2, workingHoursService.getOpenShiftIds(valid).size());
+    }
+    
+    /**
+     * Returns a new shift of the valid developer on 2017-01-02.
+     * @param begin the shift's begin
+     * @param end the shift's end
+     * @return {@code WorkingHours}
+     */
+    private WorkingHours newShift(String begin, String end) {
+        LocalDate day = LocalDate.parse("2017-01-02");
+        return new WorkingHoursBuilder()
+                .setDay(day)
+                .setWorkStart(day.atTime(LocalTime.parse(begin)))
+                .setWorkEnd(day.atTime(LocalTime.parse(end)))
+                .setDeveloper(developerService.getByDeveloperId(valid))
+                .build();
+    }
+    
     /**
      * Test throws exception by non exist ID.
      */